@@ -0,0 +1,128 @@
+package no.nordicsemi.android.mesh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import no.nordicsemi.android.mesh.transport.GenericOnOffSetUnacknowledged;
+import no.nordicsemi.android.mesh.transport.MeshMessage;
+import no.nordicsemi.android.mesh.transport.VendorModelMessageUnacked;
+
+/**
+ * Encodes and decodes access messages through the complete transport stack.
+ * <p>
+ * Encoding sends a message from the provisioner to a group address and covers the access, upper transport, lower transport
+ * and network layers including segmentation. Decoding parses the network pdus of a message sent by the node with the highest
+ * address to the provisioner, including the network key lookup, replay protection and reassembly. Decoding duplicates parses
+ * pdus that have already been received, which are dropped by the network message cache.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MeshPduBenchmark {
+
+    /**
+     * Number of messages decoded before the sequence numbers are reset.
+     */
+    private static final int RECEIVED_MESSAGES = 256;
+    /**
+     * Size of the vendor parameters filling a 380 byte access payload, which is sent in 32 segments.
+     */
+    private static final int MAX_VENDOR_PARAMETERS_LENGTH = 377;
+
+    @Param({"1", "32"})
+    public int segments;
+
+    @Param({"1", "16"})
+    public int netKeys;
+
+    @Param({"10", "5000"})
+    public int nodes;
+
+    private MeshStackFixture fixture;
+    private MeshMessage message;
+    private final List<List<byte[]>> receivedMessages = new ArrayList<>();
+    private int sentCount;
+    private int receivedIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new MeshStackFixture(netKeys, nodes);
+        final ApplicationKey appKey = fixture.getAppKey();
+        if (segments == 1) {
+            message = new GenericOnOffSetUnacknowledged(appKey, true, 0);
+        } else {
+            message = new VendorModelMessageUnacked(appKey, 0x00590001, 0x0059, 0x01, new byte[MAX_VENDOR_PARAMETERS_LENGTH]);
+        }
+        for (int i = 0; i < RECEIVED_MESSAGES; i++) {
+            fixture.clearCreatedPdus();
+            fixture.send(fixture.getRemoteAddress(), MeshStackFixture.PROVISIONER_ADDRESS, message);
+            final List<byte[]> pdus = new ArrayList<>(fixture.getCreatedPdus());
+            if (pdus.size() != segments)
+                throw new IllegalStateException("Expected " + segments + " pdus but " + pdus.size() + " were created");
+            receivedMessages.add(pdus);
+        }
+        fixture.clearCreatedPdus();
+        fixture.resetSequenceNumbers();
+
+        // Make sure the messages are decoded, not dropped by the replay protection
+        for (List<byte[]> pdus : receivedMessages) {
+            for (byte[] pdu : pdus) {
+                fixture.receive(pdu);
+            }
+        }
+        if (fixture.getReceivedMessageCount() != RECEIVED_MESSAGES)
+            throw new IllegalStateException("Only " + fixture.getReceivedMessageCount() + " messages were received");
+        fixture.clearCreatedPdus();
+        fixture.resetSequenceNumbers();
+    }
+
+    @Benchmark
+    public void encode(final Blackhole blackhole) {
+        if (++sentCount == RECEIVED_MESSAGES) {
+            sentCount = 0;
+            fixture.resetSequenceNumbers();
+        }
+        fixture.send(MeshStackFixture.GROUP_ADDRESS, message);
+        final List<byte[]> pdus = fixture.getCreatedPdus();
+        for (int i = 0; i < pdus.size(); i++) {
+            blackhole.consume(pdus.get(i));
+        }
+        fixture.clearCreatedPdus();
+    }
+
+    @Benchmark
+    public void decode(final Blackhole blackhole) {
+        final List<byte[]> pdus = receivedMessages.get(receivedIndex);
+        for (int i = 0; i < pdus.size(); i++) {
+            fixture.receive(pdus.get(i));
+        }
+        if (++receivedIndex == RECEIVED_MESSAGES) {
+            receivedIndex = 0;
+            fixture.resetSequenceNumbers();
+        }
+        // Block acknowledgements sent in response to segmented messages
+        blackhole.consume(fixture.getCreatedPdus().size());
+        fixture.clearCreatedPdus();
+    }
+
+    @Benchmark
+    public void decodeDuplicate() {
+        final List<byte[]> pdus = receivedMessages.get(0);
+        for (int i = 0; i < pdus.size(); i++) {
+            fixture.receive(pdus.get(i));
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package no.nordicsemi.android.mesh;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import androidx.annotation.NonNull;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.models.GenericOnOffServerModel;
+import no.nordicsemi.android.mesh.provisionerstates.UnprovisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.BenchmarkNodes;
+import no.nordicsemi.android.mesh.transport.ControlMessage;
+import no.nordicsemi.android.mesh.transport.MeshMessage;
+import no.nordicsemi.android.mesh.transport.MeshModel;
+import no.nordicsemi.android.mesh.transport.NetworkLayerCallbacks;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.UpperTransportLayerCallbacks;
+import no.nordicsemi.android.mesh.utils.ProxyFilter;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
+import no.nordicsemi.android.mesh.utils.SecureUtils;
+
+/**
+ * Mesh network and message handler wired the same way as in {@link MeshManagerApi}, without the database and the bearer.
+ * <p>
+ * The network contains the given number of network keys and nodes. The application key is bound to the last network key, so
+ * that every lookup of the network key has to skip the other keys. Timers of the transport layers are fired right after a
+ * message has been sent, so that all segments are sent without delay, and the pdus created by the stack are collected by
+ * {@link #getCreatedPdus()}.
+ * </p>
+ */
+public final class MeshStackFixture {
+
+    public static final int PROVISIONER_ADDRESS = 0x0001;
+    public static final int GROUP_ADDRESS = 0xC000;
+
+    private final MeshNetwork network;
+    private final MeshMessageHandler handler;
+    private final InlineScheduler scheduler = new InlineScheduler();
+    private final ApplicationKey appKey;
+    private final ProvisionedMeshNode provisionerNode;
+    private final ProvisionedMeshNode remoteNode;
+    private final List<byte[]> createdPdus = new ArrayList<>();
+    private int receivedMessageCount;
+
+    /**
+     * Creates the fixture.
+     *
+     * @param netKeyCount Number of network keys
+     * @param nodeCount   Number of nodes besides the provisioner
+     */
+    public MeshStackFixture(final int netKeyCount, final int nodeCount) {
+        MeshLogger.setLogLevel(Log.ASSERT);
+        final Random random = new Random(42);
+        final String meshUuid = UUID.randomUUID().toString();
+        network = new MeshNetwork(meshUuid);
+        for (int i = 0; i < netKeyCount; i++) {
+            network.addNetKey(new NetworkKey(i, randomKey(random)));
+        }
+        appKey = new ApplicationKey(0, randomKey(random));
+        appKey.setBoundNetKeyIndex(netKeyCount - 1);
+        network.addAppKey(appKey);
+
+        final Provisioner provisioner = network.createProvisioner("Benchmark",
+                new AllocatedUnicastRange(PROVISIONER_ADDRESS, 0x7FFF),
+                new AllocatedGroupRange(0xC000, 0xCC9A),
+                new AllocatedSceneRange(0x0001, 0x3333));
+        provisioner.assignProvisionerAddress(PROVISIONER_ADDRESS);
+        network.selectProvisioner(provisioner);
+        network.addProvisioner(provisioner);
+        provisionerNode = network.getNode(PROVISIONER_ADDRESS);
+
+        final List<NodeKey> netKeys = new ArrayList<>();
+        netKeys.add(new NodeKey(netKeyCount - 1));
+        final List<NodeKey> appKeys = new ArrayList<>();
+        appKeys.add(new NodeKey(appKey.getKeyIndex()));
+        ProvisionedMeshNode node = null;
+        for (int i = 0; i < nodeCount; i++) {
+            final int address = PROVISIONER_ADDRESS + 1 + i;
+            node = new ProvisionedMeshNode();
+            node.setMeshUuid(meshUuid);
+            node.setUuid(UUID.randomUUID().toString());
+            node.setUnicastAddress(address);
+            node.setDeviceKey(randomKey(random));
+            node.setAddedNetKeys(new ArrayList<>(netKeys));
+            node.setAddedAppKeys(new ArrayList<>(appKeys));
+            final HashMap<Integer, MeshModel> models = new HashMap<>();
+            models.put(0x1000, new GenericOnOffServerModel(0x1000));
+            node.setElements(BenchmarkNodes.createElements(address, models));
+            network.addNode(node);
+        }
+        remoteNode = node;
+
+        handler = new MeshMessageHandler(null, scheduler, internalTransportCallbacks, networkLayerCallbacks,
+                upperTransportLayerCallbacks);
+        handler.setMeshStatusCallbacks(statusCallbacks);
+        // Segments are sent once without retransmissions, as no segment acknowledgements are received
+        handler.setSarTransmitterSettings(new SarTransmitterSettings(0, 0, 0, 0, 0, 0, 0));
+    }
+
+    /**
+     * Returns the application key of the network.
+     */
+    public ApplicationKey getAppKey() {
+        return appKey;
+    }
+
+    /**
+     * Returns the unicast address of the node with the highest address.
+     */
+    public int getRemoteAddress() {
+        return remoteNode.getUnicastAddress();
+    }
+
+    /**
+     * Returns the pdus created since the last call to {@link #clearCreatedPdus()}.
+     */
+    public List<byte[]> getCreatedPdus() {
+        return createdPdus;
+    }
+
+    /**
+     * Clears the created pdus.
+     */
+    public void clearCreatedPdus() {
+        createdPdus.clear();
+    }
+
+    /**
+     * Returns the number of access messages received by the provisioner.
+     */
+    public int getReceivedMessageCount() {
+        return receivedMessageCount;
+    }
+
+    /**
+     * Sends a message from the provisioner.
+     *
+     * @param dst         Destination address
+     * @param meshMessage Message
+     */
+    public void send(final int dst, @NonNull final MeshMessage meshMessage) {
+        send(PROVISIONER_ADDRESS, dst, meshMessage);
+    }
+
+    /**
+     * Sends a message from the given node, used to create the pdus received by the provisioner.
+     *
+     * @param src         Source address
+     * @param dst         Destination address
+     * @param meshMessage Message
+     */
+    public void send(final int src, final int dst, @NonNull final MeshMessage meshMessage) {
+        handler.createMeshMessage(src, dst, null, meshMessage);
+        scheduler.runTimers();
+    }
+
+    /**
+     * Parses a network pdu received from the bearer.
+     *
+     * @param pdu Network pdu including the pdu type
+     */
+    public void receive(@NonNull final byte[] pdu) {
+        handler.parseMeshPduNotifications(pdu, network);
+        // Timers of the receiving side, e.g. for segment acknowledgements, are not needed for the benchmarks
+        scheduler.clearTimers();
+    }
+
+    /**
+     * Resets the sequence numbers of the nodes, the replay protection and the network message cache, so that the same pdus
+     * may be received again.
+     */
+    public void resetSequenceNumbers() {
+        provisionerNode.setSequenceNumber(0);
+        remoteNode.setSequenceNumber(0);
+        handler.clearReplayProtectionList();
+        handler.clearNetworkMessageCache();
+    }
+
+    private static byte[] randomKey(@NonNull final Random random) {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+
+    private static final class InlineScheduler implements MeshScheduler {
+
+        private final List<Runnable> timers = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull final Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public void schedule(@NonNull final Runnable task, final long delayMs) {
+            timers.add(task);
+        }
+
+        @Override
+        public void cancel(@NonNull final Runnable task) {
+            timers.remove(task);
+        }
+
+        void runTimers() {
+            while (!timers.isEmpty()) {
+                timers.remove(0).run();
+            }
+        }
+
+        void clearTimers() {
+            timers.clear();
+        }
+    }
+
+    private final InternalTransportCallbacks internalTransportCallbacks = new InternalTransportCallbacks() {
+
+        @Override
+        public List<ApplicationKey> getApplicationKeys(final int boundNetKeyIndex) {
+            return network.getAppKeys(boundNetKeyIndex);
+        }
+
+        @Override
+        public ProvisionedMeshNode getNode(final int unicast) {
+            return network.getNode(unicast);
+        }
+
+        @Override
+        public Provisioner getProvisioner(final int unicast) {
+            return null;
+        }
+
+        @Override
+        public void sendProvisioningPdu(final UnprovisionedMeshNode meshNode, final byte[] pdu) {
+        }
+
+        @Override
+        public void onMeshPduCreated(final int dst, final byte[] pdu) {
+            network.getNode(dst);
+            createdPdus.add(pdu);
+        }
+
+        @Override
+        public ProxyFilter getProxyFilter() {
+            return network.getProxyFilter();
+        }
+
+        @Override
+        public void setProxyFilter(@NonNull final ProxyFilter filter) {
+            network.setProxyFilter(filter);
+        }
+
+        @Override
+        public void updateMeshNetwork(final MeshMessage message) {
+            network.getNode(message.getSrc());
+        }
+
+        @Override
+        public void onMeshNodeReset(final ProvisionedMeshNode meshNode) {
+        }
+
+        @Override
+        public MeshNetwork getMeshNetwork() {
+            return network;
+        }
+
+        @Override
+        public void addGroup(final Group group) {
+        }
+
+        @Override
+        public void storeScene(final int address, final int currentScene, final List<Integer> scenes) {
+        }
+
+        @Override
+        public void deleteScene(final int address, final int currentScene, final List<Integer> scenes) {
+        }
+    };
+
+    private final NetworkLayerCallbacks networkLayerCallbacks = new NetworkLayerCallbacks() {
+
+        @Override
+        public Provisioner getProvisioner() {
+            return network.getSelectedProvisioner();
+        }
+
+        @Override
+        public Provisioner getProvisioner(final int unicastAddress) {
+            return network.getSelectedProvisioner();
+        }
+
+        @Override
+        public NetworkKey getPrimaryNetworkKey() {
+            return network.getPrimaryNetworkKey();
+        }
+
+        @Override
+        public NetworkKey getNetworkKey(final int keyIndex) {
+            return network.getNetKey(keyIndex);
+        }
+
+        @Override
+        public List<NetworkKey> getNetworkKeys() {
+            return network.getNetKeys();
+        }
+    };
+
+    private final UpperTransportLayerCallbacks upperTransportLayerCallbacks = new UpperTransportLayerCallbacks() {
+
+        @Override
+        public ProvisionedMeshNode getNode(final int unicastAddress) {
+            return network.getNode(unicastAddress);
+        }
+
+        @Override
+        public byte[] getIvIndex() {
+            return ByteBuffer.allocate(4).putInt(network.getIvIndex().getTransmitIvIndex()).array();
+        }
+
+        @Override
+        public byte[] getApplicationKey(final int aid) {
+            for (ApplicationKey key : network.getAppKeys()) {
+                if (aid == SecureUtils.calculateK4(key.getKey())) {
+                    return key.getKey();
+                }
+            }
+            return null;
+        }
+
+        @NonNull
+        @Override
+        public List<ApplicationKeyTable.Candidate> getApplicationKeyCandidates(final int aid) {
+            return network.getAppKeyCandidates(aid);
+        }
+
+        @Override
+        public UUID getVirtualLabel(final int address) {
+            final Group group = network.getGroup(address);
+            return group == null ? null : group.getAddressLabel();
+        }
+    };
+
+    private final MeshStatusCallbacks statusCallbacks = new MeshStatusCallbacks() {
+
+        @Override
+        public void onTransactionFailed(final int dst, final boolean hasIncompleteTimerExpired) {
+        }
+
+        @Override
+        public void onUnknownPduReceived(final int src, final byte[] accessPayload) {
+            receivedMessageCount++;
+        }
+
+        @Override
+        public void onBlockAcknowledgementProcessed(final int dst, @NonNull final ControlMessage message) {
+        }
+
+        @Override
+        public void onBlockAcknowledgementReceived(final int src, @NonNull final ControlMessage message) {
+        }
+
+        @Override
+        public void onHeartbeatMessageReceived(final int src, @NonNull final ControlMessage message) {
+        }
+
+        @Override
+        public void onMeshMessageProcessed(final int dst, @NonNull final MeshMessage meshMessage) {
+        }
+
+        @Override
+        public void onMeshMessageReceived(final int src, @NonNull final MeshMessage meshMessage) {
+            receivedMessageCount++;
+        }
+
+        @Override
+        public void onMessageDecryptionFailed(final String meshLayer, final String errorMessage) {
+        }
+    };
+}
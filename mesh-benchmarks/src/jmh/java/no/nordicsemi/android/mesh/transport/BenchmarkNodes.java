@@ -0,0 +1,28 @@
+package no.nordicsemi.android.mesh.transport;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Access to the package private node state needed to set up the benchmarks.
+ */
+public final class BenchmarkNodes {
+
+    private BenchmarkNodes() {
+    }
+
+    /**
+     * Returns the elements of a node with a single element containing the given models.
+     *
+     * @param address Unicast address of the node
+     * @param models  Models of the element
+     */
+    @NonNull
+    public static Map<Integer, Element> createElements(final int address, @NonNull final Map<Integer, MeshModel> models) {
+        final Map<Integer, Element> elements = new HashMap<>();
+        elements.put(address, new Element(address, 0, models));
+        return elements;
+    }
+}
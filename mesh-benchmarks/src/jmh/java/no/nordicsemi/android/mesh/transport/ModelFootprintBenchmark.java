@@ -0,0 +1,112 @@
+package no.nordicsemi.android.mesh.transport;
+
+import android.util.Log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.models.SigModelParser;
+import no.nordicsemi.android.mesh.utils.IntKeyArrayMap;
+import no.nordicsemi.android.mesh.utils.UnsignedShortArrayList;
+
+/**
+ * Measures the memory used by a node of a synthetic building network. Each operation builds one node, the bytes used per node
+ * are reported by the gc profiler as gc.alloc.rate.norm.
+ * <p>
+ * The containers benchmark builds only the containers holding the elements, models, bound keys and subscriptions of a node,
+ * either with the compact containers used by the library or with the boxed collections they replaced.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModelFootprintBenchmark {
+
+    private static final int ELEMENTS = 3;
+    private static final int[] MODEL_IDS = {0x1000, 0x1002, 0x1300, 0x1301, 0x1307, 0x1203};
+    private static final int BOUND_KEYS = 2;
+    private static final int SUBSCRIPTIONS = 3;
+
+    private int nodeIndex;
+
+    @State(Scope.Thread)
+    public static class Containers {
+
+        @Param({"compact", "boxed"})
+        public String containers;
+
+        boolean compact;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            compact = "compact".equals(containers);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeshLogger.setLogLevel(Log.ASSERT);
+    }
+
+    @Benchmark
+    public ProvisionedMeshNode createNode() {
+        final int n = nodeIndex++ & 0x3FF;
+        int address = 0x0001 + n * ELEMENTS;
+        final ProvisionedMeshNode node = new ProvisionedMeshNode();
+        node.setUnicastAddress(address);
+        for (int e = 0; e < ELEMENTS; e++, address++) {
+            final Map<Integer, MeshModel> models = new LinkedHashMap<>();
+            for (int modelId : MODEL_IDS) {
+                final MeshModel model = SigModelParser.getSigModel(modelId);
+                for (int k = 0; k < BOUND_KEYS; k++) {
+                    model.setBoundAppKeyIndex(k);
+                }
+                for (int s = 0; s < SUBSCRIPTIONS; s++) {
+                    model.addSubscriptionAddress(0xC000 + (n + s) % 0x100);
+                }
+                models.put(modelId, model);
+            }
+            node.mElements.put(address, new Element(address, 0, models));
+        }
+        return node;
+    }
+
+    @Benchmark
+    public Map<Integer, Object> createContainers(final Containers state) {
+        final boolean compact = state.compact;
+        final int n = nodeIndex++ & 0x3FF;
+        int address = 0x0001 + n * ELEMENTS;
+        final Map<Integer, Object> elements = compact ? new IntKeyArrayMap<>() : new LinkedHashMap<>();
+        for (int e = 0; e < ELEMENTS; e++, address++) {
+            final Map<Integer, Object> models = compact ? new IntKeyArrayMap<>() : new LinkedHashMap<>();
+            for (int modelId : MODEL_IDS) {
+                final List<Integer> boundKeys = compact ? new UnsignedShortArrayList() : new ArrayList<>();
+                final Map<Integer, String> boundKeyNames = compact ? new IntKeyArrayMap<>() : new LinkedHashMap<>();
+                final List<Integer> subscriptions = compact ? new UnsignedShortArrayList() : new ArrayList<>();
+                for (int k = 0; k < BOUND_KEYS; k++) {
+                    boundKeys.add(k);
+                }
+                for (int s = 0; s < SUBSCRIPTIONS; s++) {
+                    subscriptions.add(0xC000 + (n + s) % 0x100);
+                }
+                models.put(modelId, new Object[]{boundKeys, boundKeyNames, subscriptions});
+            }
+            elements.put(address, models);
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,78 @@
+package no.nordicsemi.android.mesh.utils;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+
+/**
+ * Measures the parsing helpers called for every received pdu.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MeshParserUtilsBenchmark {
+
+    private static final int SEGMENTS = 32;
+
+    private final byte[] networkPdu = new byte[29];
+    private final byte[] vendorAccessPayload = new byte[380];
+    private final SparseArray<byte[]> segments = new SparseArray<>();
+    private String hex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeshLogger.setLogLevel(Log.ASSERT);
+        final Random random = new Random(42);
+        random.nextBytes(networkPdu);
+        random.nextBytes(vendorAccessPayload);
+        vendorAccessPayload[0] = (byte) 0xC1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            final byte[] segment = new byte[12];
+            random.nextBytes(segment);
+            segments.put(i, segment);
+        }
+        hex = MeshParserUtils.bytesToHex(networkPdu, false);
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return MeshParserUtils.bytesToHex(networkPdu, false);
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return MeshParserUtils.toByteArray(hex);
+    }
+
+    @Benchmark
+    public int parseNetworkHeader() {
+        final byte[] src = MeshParserUtils.getSrcAddress(networkPdu);
+        final byte[] dst = MeshParserUtils.getDstAddress(networkPdu);
+        return MeshParserUtils.getSequenceNumberFromPDU(networkPdu)
+                ^ MeshParserUtils.unsignedBytesToInt(src[1], src[0])
+                ^ MeshParserUtils.unsignedBytesToInt(dst[1], dst[0]);
+    }
+
+    @Benchmark
+    public int getVendorOpCode() {
+        return MeshParserUtils.getOpCode(vendorAccessPayload, MeshParserUtils.getOpCodeLength(vendorAccessPayload[0] & 0xFF));
+    }
+
+    @Benchmark
+    public byte[] concatenateSegments() {
+        return MeshParserUtils.concatenateSegmentedMessages(segments);
+    }
+}
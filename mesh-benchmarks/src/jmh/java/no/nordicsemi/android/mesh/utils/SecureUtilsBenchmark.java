@@ -0,0 +1,88 @@
+package no.nordicsemi.android.mesh.utils;
+
+import android.util.Log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.spongycastle.crypto.InvalidCipherTextException;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+
+/**
+ * Measures the cryptographic functions used by every message, comparing the key-bound {@link MeshCipher} with the
+ * functions creating a cipher per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SecureUtilsBenchmark {
+
+    /**
+     * Payload length of an unsegmented network pdu and of a complete 32 segment upper transport pdu.
+     */
+    @Param({"16", "380"})
+    public int payloadLength;
+
+    private final byte[] key = new byte[16];
+    private final byte[] nonce = new byte[13];
+    private byte[] payload;
+    private byte[] encryptedPayload;
+    private MeshCipher cipher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeshLogger.setLogLevel(Log.ASSERT);
+        final Random random = new Random(42);
+        random.nextBytes(key);
+        random.nextBytes(nonce);
+        payload = new byte[payloadLength];
+        random.nextBytes(payload);
+        encryptedPayload = SecureUtils.encryptCCM(payload, key, nonce, 4);
+        cipher = new MeshCipher(key);
+    }
+
+    @Benchmark
+    public byte[] encryptCcm() {
+        return SecureUtils.encryptCCM(payload, key, nonce, 4);
+    }
+
+    @Benchmark
+    public byte[] encryptCcmWithCipher() {
+        return cipher.encryptCCM(payload, nonce, null, 4);
+    }
+
+    @Benchmark
+    public byte[] decryptCcm() throws InvalidCipherTextException {
+        return SecureUtils.decryptCCM(encryptedPayload, key, nonce, 4);
+    }
+
+    @Benchmark
+    public byte[] decryptCcmWithCipher() throws InvalidCipherTextException {
+        return cipher.decryptCCM(encryptedPayload, nonce, null, 4);
+    }
+
+    @Benchmark
+    public byte[] calculateCmac() {
+        return SecureUtils.calculateCMAC(payload, key);
+    }
+
+    @Benchmark
+    public SecureUtils.K2Output calculateK2() {
+        return SecureUtils.calculateK2(key, SecureUtils.K2_MASTER_INPUT);
+    }
+
+    @Benchmark
+    public byte calculateK4() {
+        return SecureUtils.calculateK4(key);
+    }
+}
@@ -0,0 +1,20 @@
+package androidx.room;
+
+import android.content.Context;
+
+/**
+ * JVM shim of the Room entry point used to compile the mesh library for the benchmarks.
+ */
+public class Room {
+
+    public static <T extends RoomDatabase> RoomDatabase.Builder<T> databaseBuilder(final Context context,
+                                                                                 final Class<T> klass,
+                                                                                 final String name) {
+        return new RoomDatabase.Builder<>();
+    }
+
+    public static <T extends RoomDatabase> RoomDatabase.Builder<T> inMemoryDatabaseBuilder(final Context context,
+                                                                                         final Class<T> klass) {
+        return new RoomDatabase.Builder<>();
+    }
+}
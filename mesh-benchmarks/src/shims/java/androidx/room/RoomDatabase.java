@@ -0,0 +1,41 @@
+package androidx.room;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * JVM shim of the Room database used to compile the mesh library for the benchmarks. The database is never opened.
+ */
+public abstract class RoomDatabase {
+
+    public void runInTransaction(final Runnable body) {
+        body.run();
+    }
+
+    public abstract static class Callback {
+
+        public void onCreate(final SupportSQLiteDatabase db) {
+        }
+
+        public void onOpen(final SupportSQLiteDatabase db) {
+        }
+    }
+
+    public static class Builder<T extends RoomDatabase> {
+
+        public Builder<T> addCallback(final Callback callback) {
+            return this;
+        }
+
+        public Builder<T> addMigrations(final androidx.room.migration.Migration... migrations) {
+            return this;
+        }
+
+        public Builder<T> allowMainThreadQueries() {
+            return this;
+        }
+
+        public T build() {
+            throw new UnsupportedOperationException("The mesh database is not available in the benchmarks");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package androidx.room.migration;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * JVM shim of the Room migration used to compile the mesh library for the benchmarks.
+ */
+public abstract class Migration {
+
+    public final int startVersion;
+    public final int endVersion;
+
+    public Migration(final int startVersion, final int endVersion) {
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+    }
+
+    public abstract void migrate(final SupportSQLiteDatabase database);
+}
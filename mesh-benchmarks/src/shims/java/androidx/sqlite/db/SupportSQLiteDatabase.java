@@ -0,0 +1,18 @@
+package androidx.sqlite.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+/**
+ * JVM shim of the SQLite database used by the migrations of the mesh library.
+ */
+public interface SupportSQLiteDatabase {
+
+    void execSQL(String sql);
+
+    Cursor query(String query);
+
+    long insert(String table, int conflictAlgorithm, ContentValues values);
+
+    int update(String table, int conflictAlgorithm, ContentValues values, String whereClause, Object[] whereArgs);
+}
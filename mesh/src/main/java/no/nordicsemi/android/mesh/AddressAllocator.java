@@ -0,0 +1,279 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+
+/**
+ * Keeps track of the unicast addresses, group addresses and scene numbers in use in a mesh network, so that the next free
+ * address can be found without scanning all nodes, groups and scenes.
+ * <p>
+ * Unicast addresses are in use if they are assigned to an element of a node, excluded with the current or the previous
+ * IV Index, or reserved for a node that is being provisioned. The sets are kept up to date by the mutators of
+ * {@link BaseMeshNetwork} and {@link MeshNetwork}. As with {@link MeshNetworkIndex}, each set remembers what it was built
+ * from and is rebuilt lazily when the underlying lists are replaced or the IV Index changes.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class AddressAllocator {
+
+    private final AddressIntervalSet unicastAddresses = new AddressIntervalSet();
+    private final AddressIntervalSet groupAddresses = new AddressIntervalSet();
+    private final AddressIntervalSet sceneNumbers = new AddressIntervalSet();
+
+    private List<ProvisionedMeshNode> indexedNodes;
+    private int indexedNodeCount = -1;
+    private Map<Integer, List<Integer>> indexedExclusions;
+    private int indexedIvIndex;
+    private List<Group> indexedGroups;
+    private int indexedGroupCount = -1;
+    private List<Scene> indexedScenes;
+    private int indexedSceneCount = -1;
+
+    /**
+     * Returns the first unicast address of a block of free unicast addresses within the allocated ranges.
+     *
+     * @param network      Mesh network
+     * @param ranges       Allocated unicast ranges, in the order they are searched
+     * @param elementCount Number of addresses in the block
+     * @return the unicast address or -1 if none
+     */
+    synchronized int nextAvailableUnicastAddress(@NonNull final BaseMeshNetwork network,
+                                                 @NonNull final List<AllocatedUnicastRange> ranges,
+                                                 final int elementCount) {
+        validateUnicastAddresses(network);
+        for (AllocatedUnicastRange range : ranges) {
+            final int address = unicastAddresses.nextFree(range.getLowAddress(), range.getHighAddress(), elementCount);
+            if (address != -1) {
+                return address;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first free group address within the given bounds.
+     *
+     * @return the group address or -1 if none
+     */
+    synchronized int nextAvailableGroupAddress(@NonNull final List<Group> groups, final int low, final int high) {
+        if (groups != indexedGroups || groups.size() != indexedGroupCount) {
+            groupAddresses.clear();
+            for (int i = 0; i < groups.size(); i++) {
+                final int address = groups.get(i).getAddress();
+                groupAddresses.add(address, address);
+            }
+            indexedGroups = groups;
+            indexedGroupCount = groups.size();
+        }
+        return groupAddresses.nextFree(low, high, 1);
+    }
+
+    /**
+     * Returns the first free scene number within the given bounds.
+     *
+     * @return the scene number or -1 if none
+     */
+    synchronized int nextAvailableSceneNumber(@NonNull final List<Scene> scenes, final int first, final int last) {
+        if (scenes != indexedScenes || scenes.size() != indexedSceneCount) {
+            sceneNumbers.clear();
+            for (int i = 0; i < scenes.size(); i++) {
+                final int number = scenes.get(i).getNumber();
+                sceneNumbers.add(number, number);
+            }
+            indexedScenes = scenes;
+            indexedSceneCount = scenes.size();
+        }
+        return sceneNumbers.nextFree(first, last, 1);
+    }
+
+    /**
+     * To be called after a node was added to the list of nodes.
+     */
+    synchronized void onNodeAdded(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount + 1) {
+            indexedNodes = null;
+            return;
+        }
+        addNode(node);
+        indexedNodeCount = nodes.size();
+    }
+
+    /**
+     * To be called after the unicast address or the elements of a node have changed.
+     * <p>
+     * Addresses the node no longer uses remain in use until the set is rebuilt, so that they are never assigned twice.
+     * </p>
+     */
+    synchronized void onNodeUpdated(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount) {
+            indexedNodes = null;
+            return;
+        }
+        addNode(node);
+    }
+
+    /**
+     * To be called after a node was removed from the list of nodes.
+     */
+    synchronized void onNodeRemoved(@NonNull final BaseMeshNetwork network, @NonNull final ProvisionedMeshNode node) {
+        if (network.nodes != indexedNodes || network.nodes.size() != indexedNodeCount - 1) {
+            indexedNodes = null;
+            return;
+        }
+        indexedNodeCount = network.nodes.size();
+        if (node.getElements().isEmpty()) {
+            release(network, node.getUnicastAddress(), node.getUnicastAddress());
+        } else {
+            for (Integer address : node.getElements().keySet()) {
+                release(network, address, address);
+            }
+        }
+    }
+
+    /**
+     * To be called after unicast addresses were excluded with the current IV Index.
+     */
+    synchronized void onAddressesExcluded(@NonNull final List<Integer> addresses) {
+        for (Integer address : addresses) {
+            unicastAddresses.add(address, address);
+        }
+    }
+
+    /**
+     * To be called after unicast addresses were reserved for a node that is being provisioned.
+     */
+    synchronized void onAddressesReserved(@NonNull final AllocatedUnicastRange reservation) {
+        unicastAddresses.add(reservation.getLowAddress(), reservation.getHighAddress());
+    }
+
+    /**
+     * To be called after a reservation of unicast addresses was released.
+     */
+    synchronized void onReservationReleased(@NonNull final BaseMeshNetwork network, @NonNull final AllocatedUnicastRange reservation) {
+        release(network, reservation.getLowAddress(), reservation.getHighAddress());
+    }
+
+    /**
+     * To be called after a group was removed, the group address is freed unless another group uses it.
+     */
+    synchronized void onGroupRemoved(@NonNull final BaseMeshNetwork network, @NonNull final Group group) {
+        if (network.groups != indexedGroups || network.groups.size() != indexedGroupCount - 1) {
+            indexedGroups = null;
+            return;
+        }
+        indexedGroupCount = network.groups.size();
+        if (network.networkIndex.getGroup(network.groups, group.getAddress()) == null) {
+            groupAddresses.remove(group.getAddress(), group.getAddress());
+        }
+    }
+
+    /**
+     * To be called after a group was added.
+     */
+    synchronized void onGroupAdded(@NonNull final List<Group> groups, @NonNull final Group group) {
+        if (groups != indexedGroups || groups.size() != indexedGroupCount + 1) {
+            indexedGroups = null;
+            return;
+        }
+        groupAddresses.add(group.getAddress(), group.getAddress());
+        indexedGroupCount = groups.size();
+    }
+
+    /**
+     * To be called after a scene was added.
+     */
+    synchronized void onSceneAdded(@NonNull final List<Scene> scenes, @NonNull final Scene scene) {
+        if (scenes != indexedScenes || scenes.size() != indexedSceneCount + 1) {
+            indexedScenes = null;
+            return;
+        }
+        sceneNumbers.add(scene.getNumber(), scene.getNumber());
+        indexedSceneCount = scenes.size();
+    }
+
+    /**
+     * To be called after a scene was removed, the scene number is freed unless another scene uses it.
+     */
+    synchronized void onSceneRemoved(@NonNull final BaseMeshNetwork network, @NonNull final Scene scene) {
+        if (network.scenes != indexedScenes || network.scenes.size() != indexedSceneCount - 1) {
+            indexedScenes = null;
+            return;
+        }
+        indexedSceneCount = network.scenes.size();
+        if (network.networkIndex.getScene(network.scenes, scene.getNumber()) == null) {
+            sceneNumbers.remove(scene.getNumber(), scene.getNumber());
+        }
+    }
+
+    private void validateUnicastAddresses(@NonNull final BaseMeshNetwork network) {
+        if (network.nodes == indexedNodes && network.nodes.size() == indexedNodeCount
+                && network.networkExclusions == indexedExclusions && network.ivIndex.getIvIndex() == indexedIvIndex) {
+            return;
+        }
+        unicastAddresses.clear();
+        for (ProvisionedMeshNode node : network.nodes) {
+            addNode(node);
+        }
+        final int ivIndex = network.ivIndex.getIvIndex();
+        addExclusions(network.networkExclusions.get(ivIndex));
+        addExclusions(network.networkExclusions.get(ivIndex - 1));
+        for (AllocatedUnicastRange reservation : network.unicastReservations.values()) {
+            unicastAddresses.add(reservation.getLowAddress(), reservation.getHighAddress());
+        }
+        indexedNodes = network.nodes;
+        indexedNodeCount = network.nodes.size();
+        indexedExclusions = network.networkExclusions;
+        indexedIvIndex = ivIndex;
+    }
+
+    private void addNode(@NonNull final ProvisionedMeshNode node) {
+        // There could be devices that are provisioned but does not have the number of elements yet so let's check for that.
+        if (node.getElements().isEmpty()) {
+            unicastAddresses.add(node.getUnicastAddress(), node.getUnicastAddress());
+        } else {
+            for (Integer address : node.getElements().keySet()) {
+                unicastAddresses.add(address, address);
+            }
+        }
+    }
+
+    private void addExclusions(final List<Integer> addresses) {
+        if (addresses != null) {
+            for (Integer address : addresses) {
+                unicastAddresses.add(address, address);
+            }
+        }
+    }
+
+    /**
+     * Frees the given unicast addresses, except those still used by a node, an exclusion or another reservation.
+     */
+    private void release(@NonNull final BaseMeshNetwork network, final int low, final int high) {
+        if (indexedNodes == null)
+            return;
+        unicastAddresses.remove(low, high);
+        final int ivIndex = network.ivIndex.getIvIndex();
+        final List<Integer> excluded = network.networkExclusions.get(ivIndex);
+        final List<Integer> excludedBefore = network.networkExclusions.get(ivIndex - 1);
+        for (int address = low; address <= high; address++) {
+            if (network.networkIndex.getNode(network.nodes, address) != null
+                    || (excluded != null && excluded.contains(address))
+                    || (excludedBefore != null && excludedBefore.contains(address))
+                    || isReserved(network, address)) {
+                unicastAddresses.add(address, address);
+            }
+        }
+    }
+
+    private static boolean isReserved(@NonNull final BaseMeshNetwork network, final int address) {
+        for (AllocatedUnicastRange reservation : network.unicastReservations.values()) {
+            if (address >= reservation.getLowAddress() && address <= reservation.getHighAddress())
+                return true;
+        }
+        return false;
+    }
+}
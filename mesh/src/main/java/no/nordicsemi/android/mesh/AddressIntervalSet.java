@@ -0,0 +1,155 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.Arrays;
+
+import androidx.annotation.RestrictTo;
+
+/**
+ * Set of addresses stored as sorted, disjoint and non adjacent intervals.
+ * <p>
+ * Addresses that are in use are usually allocated in consecutive blocks, for example the elements of nodes that were
+ * provisioned one after the other, so that the number of intervals stays small compared to the number of addresses. The
+ * interval containing an address is found with a binary search over primitive arrays.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class AddressIntervalSet {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] lowAddresses = new int[INITIAL_CAPACITY];
+    private int[] highAddresses = new int[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Adds the addresses from low to high, both inclusive.
+     */
+    void add(final int low, final int high) {
+        if (low > high)
+            return;
+        // First interval that ends at or after the address before low, i.e. that overlaps or touches the new interval.
+        int first = ceilingIndex(low - 1);
+        int last = first;
+        while (last < count && lowAddresses[last] <= high + 1) {
+            last++;
+        }
+        if (first == last) {
+            insert(first, low, high);
+            return;
+        }
+        // Merge the intervals first to last - 1 with the new interval.
+        final int mergedLow = Math.min(low, lowAddresses[first]);
+        final int mergedHigh = Math.max(high, highAddresses[last - 1]);
+        lowAddresses[first] = mergedLow;
+        highAddresses[first] = mergedHigh;
+        delete(first + 1, last);
+    }
+
+    /**
+     * Removes the addresses from low to high, both inclusive.
+     */
+    void remove(final int low, final int high) {
+        if (low > high)
+            return;
+        int index = ceilingIndex(low);
+        if (index < count && lowAddresses[index] < low && highAddresses[index] > high) {
+            // The interval is split in two.
+            insert(index + 1, high + 1, highAddresses[index]);
+            highAddresses[index] = low - 1;
+            return;
+        }
+        if (index < count && lowAddresses[index] < low) {
+            highAddresses[index] = low - 1;
+            index++;
+        }
+        int last = index;
+        while (last < count && highAddresses[last] <= high) {
+            last++;
+        }
+        delete(index, last);
+        if (index < count && lowAddresses[index] <= high) {
+            lowAddresses[index] = high + 1;
+        }
+    }
+
+    /**
+     * Returns true if the given address is in the set.
+     */
+    boolean contains(final int address) {
+        final int index = ceilingIndex(address);
+        return index < count && lowAddresses[index] <= address;
+    }
+
+    /**
+     * Returns true if any of the addresses from low to high, both inclusive, is in the set.
+     */
+    boolean intersects(final int low, final int high) {
+        final int index = ceilingIndex(low);
+        return index < count && lowAddresses[index] <= high;
+    }
+
+    /**
+     * Returns the lowest address of the first block of consecutive addresses that are not in the set and lie within the given bounds.
+     *
+     * @param low   Lowest address of the block
+     * @param high  Highest address of the block
+     * @param count Number of addresses in the block
+     * @return the first address of the block or -1 if there is no such block
+     */
+    int nextFree(final int low, final int high, final int count) {
+        if (count < 1)
+            return -1;
+        int address = low;
+        // Only the intervals in between the bounds have to be visited, starting with the one ending at or after low.
+        for (int index = ceilingIndex(low); index < this.count; index++) {
+            if (address + count - 1 > high)
+                return -1;
+            if (lowAddresses[index] > address + count - 1)
+                return address;
+            address = Math.max(address, highAddresses[index] + 1);
+        }
+        return address + count - 1 <= high ? address : -1;
+    }
+
+    /**
+     * Removes all addresses.
+     */
+    void clear() {
+        count = 0;
+    }
+
+    /**
+     * Returns the number of intervals in the set.
+     */
+    int intervalCount() {
+        return count;
+    }
+
+    /**
+     * Returns the index of the first interval whose high address is greater than or equal to the given address.
+     */
+    private int ceilingIndex(final int address) {
+        final int index = Arrays.binarySearch(highAddresses, 0, count, address);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private void insert(final int index, final int low, final int high) {
+        if (count == lowAddresses.length) {
+            lowAddresses = Arrays.copyOf(lowAddresses, count * 2);
+            highAddresses = Arrays.copyOf(highAddresses, count * 2);
+        }
+        System.arraycopy(lowAddresses, index, lowAddresses, index + 1, count - index);
+        System.arraycopy(highAddresses, index, highAddresses, index + 1, count - index);
+        lowAddresses[index] = low;
+        highAddresses[index] = high;
+        count++;
+    }
+
+    private void delete(final int from, final int to) {
+        if (from >= to)
+            return;
+        System.arraycopy(lowAddresses, to, lowAddresses, from, count - to);
+        System.arraycopy(highAddresses, to, highAddresses, from, count - to);
+        count -= to - from;
+    }
+}
@@ -11,6 +11,7 @@ import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Ignore;
 import androidx.room.Index;
+import no.nordicsemi.android.mesh.utils.MeshCipher;
 import no.nordicsemi.android.mesh.utils.SecureUtils;
 
 import static androidx.room.ForeignKey.CASCADE;
@@ -34,6 +35,10 @@ public final class ApplicationKey extends MeshKey {
     private int aid;
     @Ignore
     private int oldAid;
+    @Ignore
+    private transient MeshCipher cipher;
+    @Ignore
+    private transient byte[] cipherKey;
 
     /**
      * Constructs a ApplicationKey object with a given key index and network key
@@ -129,6 +134,20 @@ public final class ApplicationKey extends MeshKey {
         return oldAid;
     }
 
+    /**
+     * Returns the cipher context bound to the current key, which is created when first used.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    @NonNull
+    public synchronized MeshCipher getCipher() {
+        // The key may be replaced during a key refresh.
+        if (cipher == null || cipherKey != key) {
+            cipher = new MeshCipher(key);
+            cipherKey = key;
+        }
+        return cipher;
+    }
+
     @NonNull
     @Override
     public ApplicationKey clone() throws CloneNotSupportedException {
@@ -0,0 +1,198 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.utils.MeshCipher;
+
+/**
+ * Table of the application keys of a mesh network indexed by their 6-bit AID.
+ * <p>
+ * A received access message encrypted with an application key only carries the AID of the key. Instead of going through every
+ * application key of the network, the upper transport layer looks up the current and old keys matching the AID in this table,
+ * so that usually a single key has to be tried to decrypt the message.
+ * </p>
+ * <p>
+ * The table is rebuilt when a key is added, updated or removed. As the list of keys may also be replaced as a whole, or a key
+ * may be updated directly, the table also verifies the list it was built from and the keys of the returned candidates.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class ApplicationKeyTable {
+
+    private static final int AID_COUNT = 0x40;
+
+    private final List<List<Candidate>> candidates = new ArrayList<>(AID_COUNT);
+    private List<ApplicationKey> indexedKeys;
+    private int indexedKeyCount = -1;
+
+    /**
+     * Current or old key of an application key that may have been used to encrypt a message with a given AID.
+     */
+    public static final class Candidate {
+        private final ApplicationKey applicationKey;
+        private final byte[] key;
+        private final boolean oldKey;
+        private MeshCipher cipher;
+
+        Candidate(@NonNull final ApplicationKey applicationKey, @NonNull final byte[] key, final boolean oldKey) {
+            this.applicationKey = applicationKey;
+            this.key = key;
+            this.oldKey = oldKey;
+        }
+
+        /**
+         * Returns the application key.
+         */
+        @NonNull
+        public ApplicationKey getApplicationKey() {
+            return applicationKey;
+        }
+
+        /**
+         * Returns the current or the old key of the application key.
+         */
+        @NonNull
+        public byte[] getKey() {
+            return key;
+        }
+
+        /**
+         * Returns true if the key is the old key of the application key.
+         */
+        public boolean isOldKey() {
+            return oldKey;
+        }
+
+        /**
+         * Returns the cipher context bound to the key, which is created when first used.
+         */
+        @NonNull
+        public synchronized MeshCipher getCipher() {
+            if (cipher == null) {
+                cipher = oldKey ? new MeshCipher(key) : applicationKey.getCipher();
+            }
+            return cipher;
+        }
+
+        private boolean isValid() {
+            return key == (oldKey ? applicationKey.getOldKey() : applicationKey.getKey());
+        }
+    }
+
+    ApplicationKeyTable() {
+        for (int i = 0; i < AID_COUNT; i++) {
+            candidates.add(null);
+        }
+    }
+
+    /**
+     * Returns the candidates for the given AID, the current key of an application key being followed by its old key.
+     * <p>
+     * The returned list must not be modified and is only valid until the next call to this table.
+     * </p>
+     *
+     * @param appKeys Application keys of the network
+     * @param aid     AID of the received message
+     */
+    @NonNull
+    List<Candidate> getCandidates(@NonNull final List<ApplicationKey> appKeys, final int aid) {
+        if (appKeys != indexedKeys || appKeys.size() != indexedKeyCount) {
+            rebuild(appKeys);
+        }
+        List<Candidate> list = candidates.get(aid & 0x3F);
+        if (list == null) {
+            // A key may have been updated without the table being notified, in which case the AID is not indexed yet.
+            if (isOutdated(appKeys)) {
+                rebuild(appKeys);
+                list = candidates.get(aid & 0x3F);
+            }
+            return list == null ? Collections.emptyList() : list;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (!list.get(i).isValid()) {
+                rebuild(appKeys);
+                list = candidates.get(aid & 0x3F);
+                return list == null ? Collections.emptyList() : list;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Invalidates the table, to be called when a key was added, updated or removed.
+     */
+    void invalidate() {
+        indexedKeys = null;
+    }
+
+    private boolean isOutdated(@NonNull final List<ApplicationKey> appKeys) {
+        int count = 0;
+        for (int i = 0; i < appKeys.size(); i++) {
+            final ApplicationKey key = appKeys.get(i);
+            if (key.getKey() != null) {
+                if (!contains(key, key.getAid(), key.getKey()))
+                    return true;
+                count++;
+            }
+            if (key.getOldKey() != null) {
+                if (!contains(key, key.getOldAid(), key.getOldKey()))
+                    return true;
+                count++;
+            }
+        }
+        return count != size();
+    }
+
+    private boolean contains(@NonNull final ApplicationKey applicationKey, final int aid, @NonNull final byte[] key) {
+        final List<Candidate> list = candidates.get(aid & 0x3F);
+        if (list != null) {
+            for (int i = 0; i < list.size(); i++) {
+                final Candidate candidate = list.get(i);
+                if (candidate.applicationKey == applicationKey && candidate.key == key)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private int size() {
+        int size = 0;
+        for (int i = 0; i < AID_COUNT; i++) {
+            final List<Candidate> list = candidates.get(i);
+            if (list != null) {
+                size += list.size();
+            }
+        }
+        return size;
+    }
+
+    private void rebuild(@NonNull final List<ApplicationKey> appKeys) {
+        for (int i = 0; i < AID_COUNT; i++) {
+            candidates.set(i, null);
+        }
+        for (int i = 0; i < appKeys.size(); i++) {
+            final ApplicationKey key = appKeys.get(i);
+            if (key.getKey() != null) {
+                put(key.getAid(), new Candidate(key, key.getKey(), false));
+            }
+            if (key.getOldKey() != null) {
+                put(key.getOldAid(), new Candidate(key, key.getOldKey(), true));
+            }
+        }
+        indexedKeys = appKeys;
+        indexedKeyCount = appKeys.size();
+    }
+
+    private void put(final int aid, @NonNull final Candidate candidate) {
+        List<Candidate> list = candidates.get(aid & 0x3F);
+        if (list == null) {
+            list = new ArrayList<>(2);
+            candidates.set(aid & 0x3F, list);
+        }
+        list.add(candidate);
+    }
+}
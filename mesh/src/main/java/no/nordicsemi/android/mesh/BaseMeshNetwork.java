@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
@@ -132,6 +133,20 @@ abstract class BaseMeshNetwork {
     @Expose(serialize = false, deserialize = false)
     private ProxyFilter proxyFilter;
     @Ignore
+    final MeshNetworkIndex networkIndex = new MeshNetworkIndex();
+    @Ignore
+    final AddressAllocator addressAllocator = new AddressAllocator();
+    @Ignore
+    final ModelAddressIndex modelAddressIndex = new ModelAddressIndex();
+    @Ignore
+    final NetworkKeyTable netKeyTable = new NetworkKeyTable();
+    @Ignore
+    final SecureNetworkBeaconTable secureNetworkBeaconTable = new SecureNetworkBeaconTable();
+    @Ignore
+    final ApplicationKeyTable appKeyTable = new ApplicationKeyTable();
+    @Ignore
+    final Map<UUID, AllocatedUnicastRange> unicastReservations = new ConcurrentHashMap<>();
+    @Ignore
     protected final Comparator<ProvisionedMeshNode> nodeComparator = (node1, node2) ->
             Integer.compare(node1.getUnicastAddress(), node2.getUnicastAddress());
     @Ignore
@@ -187,6 +202,8 @@ abstract class BaseMeshNetwork {
         } else {
             newNetKey.setMeshUuid(meshUUID);
             netKeys.add(newNetKey);
+            netKeyTable.invalidate();
+            secureNetworkBeaconTable.invalidate();
             notifyNetKeyAdded(newNetKey);
         }
         return true;
@@ -362,6 +379,8 @@ abstract class BaseMeshNetwork {
         if (!netKeys.contains(networkKey)) {
             throw new IllegalArgumentException("Network Key not distributed");
         }
+        netKeyTable.invalidate();
+        secureNetworkBeaconTable.invalidate();
         return networkKey.switchToNewKey();
     }
 
@@ -378,6 +397,8 @@ abstract class BaseMeshNetwork {
      */
     public boolean revokeOldKey(@NonNull final NetworkKey networkKey) {
         if (netKeys.contains(networkKey)) {
+            netKeyTable.invalidate();
+            secureNetworkBeaconTable.invalidate();
             return networkKey.revokeOldKey();
         }
         return false;
@@ -393,6 +414,8 @@ abstract class BaseMeshNetwork {
     public boolean removeNetKey(@NonNull final NetworkKey networkKey) throws IllegalArgumentException {
         if (!isKeyInUse(networkKey)) {
             if (netKeys.remove(networkKey)) {
+                netKeyTable.invalidate();
+                secureNetworkBeaconTable.invalidate();
                 notifyNetKeyDeleted(networkKey);
                 return true;
             } else {
@@ -453,6 +476,7 @@ abstract class BaseMeshNetwork {
         } else {
             newAppKey.setMeshUuid(meshUUID);
             appKeys.add(newAppKey);
+            appKeyTable.invalidate();
             notifyAppKeyAdded(newAppKey);
         }
         return true;
@@ -626,6 +650,7 @@ abstract class BaseMeshNetwork {
                 }
             }
             if (appKey != null) {
+                appKeyTable.invalidate();
                 notifyAppKeyUpdated(appKey);
                 return true;
             }
@@ -641,6 +666,8 @@ abstract class BaseMeshNetwork {
             }
             if (netKey != null) {
                 netKey.setTimestamp(System.currentTimeMillis());
+                netKeyTable.invalidate();
+                secureNetworkBeaconTable.invalidate();
                 notifyNetKeyUpdated(netKey);
                 return true;
             }
@@ -659,6 +686,7 @@ abstract class BaseMeshNetwork {
             throw new IllegalArgumentException("Unable to delete an app key that's in use.");
         } else {
             if (appKeys.remove(appKey)) {
+                appKeyTable.invalidate();
                 notifyAppKeyDeleted(appKey);
                 return true;
             } else {
@@ -863,6 +891,9 @@ abstract class BaseMeshNetwork {
         if (provisioner.getProvisionerAddress() != null) {
             final ProvisionedMeshNode node = new ProvisionedMeshNode(provisioner, netKeys, appKeys);
             nodes.add(node);
+            networkIndex.onNodeAdded(nodes, node);
+            modelAddressIndex.onNodeAdded(nodes, node);
+            addressAllocator.onNodeAdded(nodes, node);
             notifyNodeAdded(node);
         }
         return true;
@@ -928,6 +959,9 @@ abstract class BaseMeshNetwork {
                 if (node == null) {
                     node = new ProvisionedMeshNode(provisioner, netKeys, appKeys);
                     nodes.add(node);
+                    networkIndex.onNodeAdded(nodes, node);
+                    modelAddressIndex.onNodeAdded(nodes, node);
+                    addressAllocator.onNodeAdded(nodes, node);
                     notifyNodeAdded(node);
                 } else {
                     for (int i = 0; i < nodes.size(); i++) {
@@ -969,6 +1003,9 @@ abstract class BaseMeshNetwork {
         if (node == null)
             return true;
         else if (nodes.remove(node)) {
+            networkIndex.onNodeRemoved(nodes, node);
+            modelAddressIndex.onNodeRemoved(nodes, node);
+            addressAllocator.onNodeRemoved(this, node);
             provisioner.assignProvisionerAddress(null);
             notifyNodeDeleted(node);
             return true;
@@ -1094,12 +1131,7 @@ abstract class BaseMeshNetwork {
      * @param unicastAddress unicast address of the node
      */
     public ProvisionedMeshNode getNode(@NonNull final byte[] unicastAddress) {
-        for (ProvisionedMeshNode node : nodes) {
-            if (node.hasUnicastAddress(MeshAddress.addressBytesToInt(unicastAddress))) {
-                return node;
-            }
-        }
-        return null;
+        return networkIndex.getNode(nodes, MeshAddress.addressBytesToInt(unicastAddress));
     }
 
     /**
@@ -1110,12 +1142,7 @@ abstract class BaseMeshNetwork {
     public ProvisionedMeshNode getNode(final Integer unicastAddress) {
         if(unicastAddress == null)
             return null;
-        for (ProvisionedMeshNode node : nodes) {
-            if (node.hasUnicastAddress(unicastAddress)) {
-                return node;
-            }
-        }
-        return null;
+        return networkIndex.getNode(nodes, unicastAddress);
     }
 
     /**
@@ -1124,12 +1151,19 @@ abstract class BaseMeshNetwork {
      * @param uuid unicast address of the node
      */
     public ProvisionedMeshNode getNode(final String uuid) {
-        for (ProvisionedMeshNode node : nodes) {
-            if (node.getUuid().equalsIgnoreCase(uuid)) {
-                return node;
-            }
-        }
-        return null;
+        return networkIndex.getNode(nodes, uuid);
+    }
+
+    /**
+     * Updates the lookup indexes for a node that was replaced in the list of nodes,
+     * or whose unicast address, elements, subscriptions or publications have changed.
+     *
+     * @param node {@link ProvisionedMeshNode}
+     */
+    void reindexNode(@NonNull final ProvisionedMeshNode node) {
+        networkIndex.onNodeUpdated(nodes, node);
+        modelAddressIndex.onNodeUpdated(nodes, node);
+        addressAllocator.onNodeUpdated(nodes, node);
     }
 
     /**
@@ -1200,6 +1234,9 @@ abstract class BaseMeshNetwork {
             index++;
         }
         if (nodes.add(meshNode)) {
+            networkIndex.onNodeAdded(nodes, meshNode);
+            modelAddressIndex.onNodeAdded(nodes, meshNode);
+            addressAllocator.onNodeAdded(nodes, meshNode);
             notifyNodeAdded(meshNode);
             return true;
         }
@@ -1235,6 +1272,9 @@ abstract class BaseMeshNetwork {
             if(node != null){
                 excludeNode(node);
                 if(nodes.remove(node)){
+                    networkIndex.onNodeRemoved(nodes, node);
+                    modelAddressIndex.onNodeRemoved(nodes, node);
+                    addressAllocator.onNodeRemoved(this, node);
                     notifyNodeDeleted(node);
                 }
             } else {
@@ -1244,6 +1284,9 @@ abstract class BaseMeshNetwork {
             return true;
         }
         if(node != null && nodes.remove(node)) {
+            networkIndex.onNodeRemoved(nodes, node);
+            modelAddressIndex.onNodeRemoved(nodes, node);
+            addressAllocator.onNodeRemoved(this, node);
             excludeNode(node);
             if(provisioner != null){
                 if(provisioners.remove(provisioner)){
@@ -1414,6 +1457,7 @@ abstract class BaseMeshNetwork {
         }
 
         networkExclusions.put(ivIndex.getIvIndex(), addresses);
+        addressAllocator.onAddressesExcluded(addresses);
         //notifyNetworkUpdated();
     }
 
@@ -1496,6 +1540,9 @@ abstract class BaseMeshNetwork {
     }
 
     final void notifyNodeUpdated(@NonNull final ProvisionedMeshNode node) {
+        networkIndex.onNodeUpdated(nodes, node);
+        modelAddressIndex.onNodeUpdated(nodes, node);
+        addressAllocator.onNodeUpdated(nodes, node);
         if (mCallbacks != null) {
             mCallbacks.onNodeUpdated(node);
         }
@@ -0,0 +1,166 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.provisionerstates.ProvisioningState;
+import no.nordicsemi.android.mesh.provisionerstates.UnprovisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.ControlMessage;
+import no.nordicsemi.android.mesh.transport.MeshMessage;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+
+/**
+ * Wraps the callbacks of the mesh manager so that they are delivered on a given executor.
+ * <p>
+ * Methods returning a value, such as {@link MeshManagerCallbacks#getMtu()}, are invoked directly on the calling thread.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class CallbackExecutors {
+
+    private CallbackExecutors() {
+    }
+
+    /**
+     * Returns callbacks delivering {@link MeshManagerCallbacks} on the given executor.
+     *
+     * @param callbacks Callbacks
+     * @param executor  Executor, or null to invoke the callbacks directly
+     */
+    @NonNull
+    static MeshManagerCallbacks wrap(@NonNull final MeshManagerCallbacks callbacks, @Nullable final Executor executor) {
+        if (executor == null)
+            return callbacks;
+        return new MeshManagerCallbacks() {
+            @Override
+            public void onNetworkLoaded(final MeshNetwork meshNetwork) {
+                executor.execute(() -> callbacks.onNetworkLoaded(meshNetwork));
+            }
+
+            @Override
+            public void onNetworkUpdated(final MeshNetwork meshNetwork) {
+                executor.execute(() -> callbacks.onNetworkUpdated(meshNetwork));
+            }
+
+            @Override
+            public void onNetworkLoadFailed(final String error) {
+                executor.execute(() -> callbacks.onNetworkLoadFailed(error));
+            }
+
+            @Override
+            public void onNetworkImported(final MeshNetwork meshNetwork) {
+                executor.execute(() -> callbacks.onNetworkImported(meshNetwork));
+            }
+
+            @Override
+            public void onNetworkImportFailed(final String error) {
+                executor.execute(() -> callbacks.onNetworkImportFailed(error));
+            }
+
+            @Override
+            public void sendProvisioningPdu(final UnprovisionedMeshNode meshNode, final byte[] pdu) {
+                executor.execute(() -> callbacks.sendProvisioningPdu(meshNode, pdu));
+            }
+
+            @Override
+            public void onMeshPduCreated(final byte[] pdu) {
+                executor.execute(() -> callbacks.onMeshPduCreated(pdu));
+            }
+
+            @Override
+            public int getMtu() {
+                return callbacks.getMtu();
+            }
+        };
+    }
+
+    /**
+     * Returns callbacks delivering {@link MeshStatusCallbacks} on the given executor.
+     *
+     * @param callbacks Callbacks
+     * @param executor  Executor, or null to invoke the callbacks directly
+     */
+    @NonNull
+    static MeshStatusCallbacks wrap(@NonNull final MeshStatusCallbacks callbacks, @Nullable final Executor executor) {
+        if (executor == null)
+            return callbacks;
+        return new MeshStatusCallbacks() {
+            @Override
+            public void onTransactionFailed(final int dst, final boolean hasIncompleteTimerExpired) {
+                executor.execute(() -> callbacks.onTransactionFailed(dst, hasIncompleteTimerExpired));
+            }
+
+            @Override
+            public void onUnknownPduReceived(final int src, final byte[] accessPayload) {
+                executor.execute(() -> callbacks.onUnknownPduReceived(src, accessPayload));
+            }
+
+            @Override
+            public void onBlockAcknowledgementProcessed(final int dst, @NonNull final ControlMessage message) {
+                executor.execute(() -> callbacks.onBlockAcknowledgementProcessed(dst, message));
+            }
+
+            @Override
+            public void onBlockAcknowledgementReceived(final int src, @NonNull final ControlMessage message) {
+                executor.execute(() -> callbacks.onBlockAcknowledgementReceived(src, message));
+            }
+
+            @Override
+            public void onHeartbeatMessageReceived(final int src, @NonNull final ControlMessage message) {
+                executor.execute(() -> callbacks.onHeartbeatMessageReceived(src, message));
+            }
+
+            @Override
+            public void onMeshMessageProcessed(final int dst, @NonNull final MeshMessage meshMessage) {
+                executor.execute(() -> callbacks.onMeshMessageProcessed(dst, meshMessage));
+            }
+
+            @Override
+            public void onMeshMessageReceived(final int src, @NonNull final MeshMessage meshMessage) {
+                executor.execute(() -> callbacks.onMeshMessageReceived(src, meshMessage));
+            }
+
+            @Override
+            public void onMessageDecryptionFailed(final String meshLayer, final String errorMessage) {
+                executor.execute(() -> callbacks.onMessageDecryptionFailed(meshLayer, errorMessage));
+            }
+        };
+    }
+
+    /**
+     * Returns callbacks delivering {@link MeshProvisioningStatusCallbacks} on the given executor.
+     *
+     * @param callbacks Callbacks
+     * @param executor  Executor, or null to invoke the callbacks directly
+     */
+    @NonNull
+    static MeshProvisioningStatusCallbacks wrap(@NonNull final MeshProvisioningStatusCallbacks callbacks, @Nullable final Executor executor) {
+        if (executor == null)
+            return callbacks;
+        return new MeshProvisioningStatusCallbacks() {
+            @Override
+            public void onProvisioningStateChanged(final UnprovisionedMeshNode meshNode,
+                                                   final ProvisioningState.States state,
+                                                   @Nullable final byte[] data) {
+                executor.execute(() -> callbacks.onProvisioningStateChanged(meshNode, state, data));
+            }
+
+            @Override
+            public void onProvisioningFailed(final UnprovisionedMeshNode meshNode, final ProvisioningState.States state, final byte[] data) {
+                executor.execute(() -> callbacks.onProvisioningFailed(meshNode, state, data));
+            }
+
+            @Override
+            public void onProvisioningCompleted(final ProvisionedMeshNode meshNode, final ProvisioningState.States state, final byte[] data) {
+                executor.execute(() -> callbacks.onProvisioningCompleted(meshNode, state, data));
+            }
+
+            @Override
+            public void onProvisioningTimings(@NonNull final ProvisionedMeshNode meshNode, @NonNull final ProvisioningTimings timings) {
+                executor.execute(() -> callbacks.onProvisioningTimings(meshNode, timings));
+            }
+        };
+    }
+}
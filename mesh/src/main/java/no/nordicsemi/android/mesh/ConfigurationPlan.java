@@ -0,0 +1,347 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import no.nordicsemi.android.mesh.transport.ConfigAppKeyAdd;
+import no.nordicsemi.android.mesh.transport.ConfigCompositionDataGet;
+import no.nordicsemi.android.mesh.transport.ConfigModelAppBind;
+import no.nordicsemi.android.mesh.transport.ConfigModelPublicationSet;
+import no.nordicsemi.android.mesh.transport.ConfigModelPublicationVirtualAddressSet;
+import no.nordicsemi.android.mesh.transport.ConfigModelSubscriptionAdd;
+import no.nordicsemi.android.mesh.transport.ConfigModelSubscriptionVirtualAddressAdd;
+import no.nordicsemi.android.mesh.transport.ConfigNetKeyAdd;
+import no.nordicsemi.android.mesh.transport.Element;
+import no.nordicsemi.android.mesh.transport.MeshMessage;
+import no.nordicsemi.android.mesh.transport.MeshModel;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.PublicationSettings;
+import no.nordicsemi.android.mesh.utils.MeshAddress;
+import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+
+/**
+ * Declarative target configuration for a set of nodes.
+ * <p>
+ * A plan describes the keys that must be added to the nodes and the bindings, publications and subscriptions of their models.
+ * Instead of sending every message, only the messages required to bring a node from its known state to the target state are
+ * sent. Use {@link MeshManagerApi#executeConfigurationPlan(ConfigurationPlan, List, int, Callbacks)} to configure the nodes.
+ * </p>
+ * <p>
+ * Bindings, publications and subscriptions are applied to every model with the given model identifier on all elements of the node.
+ * Application keys used by bindings and publications are added to the nodes implicitly, as are the network keys they are bound to.
+ * </p>
+ */
+public final class ConfigurationPlan {
+
+    private final Map<Integer, NetworkKey> netKeys = new LinkedHashMap<>();
+    private final Map<Integer, ApplicationKey> appKeys = new LinkedHashMap<>();
+    private final List<Binding> bindings = new ArrayList<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final Map<Integer, Publication> publications = new LinkedHashMap<>();
+
+    /**
+     * Callbacks notifying the progress of a configuration plan.
+     * <p>
+     * Callbacks are delivered on the callback executor of {@link MeshManagerApi}, or on the mesh stack if none was set.
+     * </p>
+     */
+    public interface Callbacks {
+
+        /**
+         * Invoked when a node has acknowledged a configuration message.
+         *
+         * @param node      Node being configured
+         * @param completed Number of messages acknowledged by the node
+         * @param total     Number of messages required to configure the node, this may increase once the composition data of
+         *                  the node is received
+         */
+        void onNodeProgress(@NonNull final ProvisionedMeshNode node, final int completed, final int total);
+
+        /**
+         * Invoked when a node has reached the target configuration.
+         *
+         * @param node Configured node
+         */
+        void onNodeConfigured(@NonNull final ProvisionedMeshNode node);
+
+        /**
+         * Invoked when a node could not be configured.
+         *
+         * @param node    Node
+         * @param message Message that failed, or null if no message could be created
+         * @param error   Description of the error
+         */
+        void onNodeFailed(@NonNull final ProvisionedMeshNode node, @Nullable final MeshMessage message, @NonNull final String error);
+
+        /**
+         * Invoked when all nodes have either been configured or failed.
+         *
+         * @param configured Number of configured nodes
+         * @param failed     Number of nodes that failed
+         */
+        void onPlanCompleted(final int configured, final int failed);
+    }
+
+    private static final class Binding {
+        final int modelId;
+        final int appKeyIndex;
+
+        Binding(final int modelId, final int appKeyIndex) {
+            this.modelId = modelId;
+            this.appKeyIndex = appKeyIndex;
+        }
+    }
+
+    private static final class Subscription {
+        final int modelId;
+        final int address;
+        final UUID label;
+
+        Subscription(final int modelId, final int address, @Nullable final UUID label) {
+            this.modelId = modelId;
+            this.address = address;
+            this.label = label;
+        }
+    }
+
+    private static final class Publication {
+        final int publishAddress;
+        final UUID label;
+        final int appKeyIndex;
+        final int publishTtl;
+        final int publicationSteps;
+        final int publicationResolution;
+        final int retransmitCount;
+        final int retransmitIntervalSteps;
+
+        Publication(final int publishAddress, @Nullable final UUID label, final int appKeyIndex, final int publishTtl,
+                    final int publicationSteps, final int publicationResolution,
+                    final int retransmitCount, final int retransmitIntervalSteps) {
+            this.publishAddress = publishAddress;
+            this.label = label;
+            this.appKeyIndex = appKeyIndex;
+            this.publishTtl = publishTtl;
+            this.publicationSteps = publicationSteps;
+            this.publicationResolution = publicationResolution;
+            this.retransmitCount = retransmitCount;
+            this.retransmitIntervalSteps = retransmitIntervalSteps;
+        }
+
+        boolean matches(@Nullable final PublicationSettings settings) {
+            return settings != null
+                    && settings.getPublishAddress() == publishAddress
+                    && (label == null || label.equals(settings.getLabelUUID()))
+                    && settings.getAppKeyIndex() == appKeyIndex
+                    && !settings.getCredentialFlag()
+                    && settings.getPublishTtl() == publishTtl
+                    && settings.getPublicationSteps() == publicationSteps
+                    && settings.getPublicationResolution() == publicationResolution
+                    && settings.getPublishRetransmitCount() == retransmitCount
+                    && settings.getPublishRetransmitIntervalSteps() == retransmitIntervalSteps;
+        }
+    }
+
+    /**
+     * Adds a network key to the nodes.
+     *
+     * @param networkKey Network key
+     * @return this plan
+     */
+    @NonNull
+    public ConfigurationPlan addNetKey(@NonNull final NetworkKey networkKey) {
+        netKeys.put(networkKey.getKeyIndex(), networkKey);
+        return this;
+    }
+
+    /**
+     * Adds an application key to the nodes.
+     *
+     * @param appKey Application key
+     * @return this plan
+     */
+    @NonNull
+    public ConfigurationPlan addAppKey(@NonNull final ApplicationKey appKey) {
+        appKeys.put(appKey.getKeyIndex(), appKey);
+        return this;
+    }
+
+    /**
+     * Binds an application key to the models with the given identifier.
+     *
+     * @param modelId Model identifier
+     * @param appKey  Application key
+     * @return this plan
+     */
+    @NonNull
+    public ConfigurationPlan bindAppKey(final int modelId, @NonNull final ApplicationKey appKey) {
+        addAppKey(appKey);
+        for (Binding binding : bindings) {
+            if (binding.modelId == modelId && binding.appKeyIndex == appKey.getKeyIndex())
+                return this;
+        }
+        bindings.add(new Binding(modelId, appKey.getKeyIndex()));
+        return this;
+    }
+
+    /**
+     * Subscribes the models with the given identifier to a group.
+     *
+     * @param modelId Model identifier
+     * @param group   Group, which may be a virtual group
+     * @return this plan
+     */
+    @NonNull
+    public ConfigurationPlan addSubscription(final int modelId, @NonNull final Group group) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.modelId == modelId && subscription.address == group.getAddress())
+                return this;
+        }
+        subscriptions.add(new Subscription(modelId, group.getAddress(), group.getAddressLabel()));
+        return this;
+    }
+
+    /**
+     * Sets the publication of the models with the given identifier.
+     *
+     * @param modelId                 Model identifier
+     * @param publishAddress          Unicast or group address to publish to
+     * @param appKey                  Application key used for publishing, the key is bound to the models
+     * @param publishTtl              Publication ttl
+     * @param publicationSteps        Publication steps for the publication period
+     * @param publicationResolution   Publication resolution of the publication period
+     * @param retransmitCount         Number of publication retransmits
+     * @param retransmitIntervalSteps Publish retransmit interval steps
+     * @return this plan
+     * @throws IllegalArgumentException if the publish address is a virtual address, use {@link #setPublication(int, Group,
+     *                                  ApplicationKey, int, int, int, int, int)} for virtual groups
+     */
+    @NonNull
+    public ConfigurationPlan setPublication(final int modelId,
+                                            final int publishAddress,
+                                            @NonNull final ApplicationKey appKey,
+                                            final int publishTtl,
+                                            final int publicationSteps,
+                                            final int publicationResolution,
+                                            final int retransmitCount,
+                                            final int retransmitIntervalSteps) {
+        if (MeshAddress.isValidVirtualAddress(publishAddress))
+            throw new IllegalArgumentException("Virtual addresses must be set using the virtual group");
+        bindAppKey(modelId, appKey);
+        publications.put(modelId, new Publication(publishAddress, null, appKey.getKeyIndex(), publishTtl,
+                publicationSteps, publicationResolution, retransmitCount, retransmitIntervalSteps));
+        return this;
+    }
+
+    /**
+     * Sets the publication of the models with the given identifier to a group.
+     *
+     * @param modelId                 Model identifier
+     * @param group                   Group, which may be a virtual group
+     * @param appKey                  Application key used for publishing, the key is bound to the models
+     * @param publishTtl              Publication ttl
+     * @param publicationSteps        Publication steps for the publication period
+     * @param publicationResolution   Publication resolution of the publication period
+     * @param retransmitCount         Number of publication retransmits
+     * @param retransmitIntervalSteps Publish retransmit interval steps
+     * @return this plan
+     */
+    @NonNull
+    public ConfigurationPlan setPublication(final int modelId,
+                                            @NonNull final Group group,
+                                            @NonNull final ApplicationKey appKey,
+                                            final int publishTtl,
+                                            final int publicationSteps,
+                                            final int publicationResolution,
+                                            final int retransmitCount,
+                                            final int retransmitIntervalSteps) {
+        bindAppKey(modelId, appKey);
+        publications.put(modelId, new Publication(group.getAddress(), group.getAddressLabel(), appKey.getKeyIndex(), publishTtl,
+                publicationSteps, publicationResolution, retransmitCount, retransmitIntervalSteps));
+        return this;
+    }
+
+    /**
+     * Returns the messages required to bring a node from its known state to the target state of this plan.
+     * <p>
+     * If the composition data of the node has not been received yet, only a {@link ConfigCompositionDataGet} is returned, as the
+     * models of the node are unknown.
+     * </p>
+     *
+     * @param network Mesh network the node belongs to
+     * @param node    Node
+     * @return list of messages to be sent in order, or an empty list if the node is already configured
+     * @throws IllegalArgumentException if a network key an application key is bound to does not exist in the network
+     */
+    @NonNull
+    public List<MeshMessage> getMessages(@NonNull final MeshNetwork network, @NonNull final ProvisionedMeshNode node) {
+        if (node.getElements().isEmpty()) {
+            return Collections.singletonList(new ConfigCompositionDataGet());
+        }
+        final List<MeshMessage> messages = new ArrayList<>();
+
+        // Keys
+        final Map<Integer, NetworkKey> requiredNetKeys = new LinkedHashMap<>(netKeys);
+        for (ApplicationKey appKey : appKeys.values()) {
+            if (!requiredNetKeys.containsKey(appKey.getBoundNetKeyIndex())) {
+                final NetworkKey networkKey = network.getNetKey(appKey.getBoundNetKeyIndex());
+                if (networkKey == null)
+                    throw new IllegalArgumentException("Network key " + appKey.getBoundNetKeyIndex() + " bound to application key "
+                            + appKey.getKeyIndex() + " does not exist");
+                requiredNetKeys.put(networkKey.getKeyIndex(), networkKey);
+            }
+        }
+        for (NetworkKey networkKey : requiredNetKeys.values()) {
+            if (!MeshParserUtils.isNodeKeyExists(node.getAddedNetKeys(), networkKey.getKeyIndex())) {
+                messages.add(new ConfigNetKeyAdd(networkKey));
+            }
+        }
+        for (ApplicationKey appKey : appKeys.values()) {
+            if (!MeshParserUtils.isNodeKeyExists(node.getAddedAppKeys(), appKey.getKeyIndex())) {
+                messages.add(new ConfigAppKeyAdd(requiredNetKeys.get(appKey.getBoundNetKeyIndex()), appKey));
+            }
+        }
+
+        // Models
+        for (Element element : node.getElements().values()) {
+            final int elementAddress = element.getElementAddress();
+            for (MeshModel model : element.getMeshModels().values()) {
+                final int modelId = model.getModelId();
+                for (Binding binding : bindings) {
+                    if (binding.modelId == modelId && !model.getBoundAppKeyIndexes().contains(binding.appKeyIndex)) {
+                        messages.add(new ConfigModelAppBind(elementAddress, modelId, binding.appKeyIndex));
+                    }
+                }
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.modelId == modelId && !model.getSubscribedAddresses().contains(subscription.address)) {
+                        if (subscription.label != null) {
+                            messages.add(new ConfigModelSubscriptionVirtualAddressAdd(elementAddress, subscription.label, modelId));
+                        } else {
+                            messages.add(new ConfigModelSubscriptionAdd(elementAddress, subscription.address, modelId));
+                        }
+                    }
+                }
+                final Publication publication = publications.get(modelId);
+                if (publication != null && !publication.matches(model.getPublicationSettings())) {
+                    if (publication.label != null) {
+                        messages.add(new ConfigModelPublicationVirtualAddressSet(elementAddress, publication.label,
+                                publication.appKeyIndex, false, publication.publishTtl, publication.publicationSteps,
+                                publication.publicationResolution, publication.retransmitCount,
+                                publication.retransmitIntervalSteps, modelId));
+                    } else {
+                        messages.add(new ConfigModelPublicationSet(elementAddress, publication.publishAddress,
+                                publication.appKeyIndex, false, publication.publishTtl, publication.publicationSteps,
+                                publication.publicationResolution, publication.retransmitCount,
+                                publication.retransmitIntervalSteps, modelId));
+                    }
+                }
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,282 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.opcodes.StatusOpCodes;
+import no.nordicsemi.android.mesh.transport.ConfigCompositionDataGet;
+import no.nordicsemi.android.mesh.transport.ConfigModelAppBind;
+import no.nordicsemi.android.mesh.transport.ConfigModelAppStatus;
+import no.nordicsemi.android.mesh.transport.ConfigModelPublicationSet;
+import no.nordicsemi.android.mesh.transport.ConfigModelPublicationStatus;
+import no.nordicsemi.android.mesh.transport.ConfigModelPublicationVirtualAddressSet;
+import no.nordicsemi.android.mesh.transport.ConfigModelSubscriptionAdd;
+import no.nordicsemi.android.mesh.transport.ConfigModelSubscriptionStatus;
+import no.nordicsemi.android.mesh.transport.ConfigModelSubscriptionVirtualAddressAdd;
+import no.nordicsemi.android.mesh.transport.ConfigStatusMessage;
+import no.nordicsemi.android.mesh.transport.MeshMessage;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+
+/**
+ * Executes a {@link ConfigurationPlan} on a set of nodes.
+ * <p>
+ * Nodes are configured in parallel, up to the given number of nodes at a time. The messages of a single node are sent one
+ * after the other, each message is sent once the previous one has been acknowledged. Retransmissions of unanswered messages
+ * are handled by the mesh stack, see {@link MeshManagerApi#setTransactionRetransmission(int, long)}. A node fails if a
+ * message is not answered after all retransmissions, or within 30 seconds if no retransmission policy has been set, or if
+ * it is answered with an error status. A status is only accepted as the answer to a model configuration message if it refers to the same
+ * element and model.
+ * </p>
+ */
+public final class ConfigurationPlanExecutor {
+
+    private static final String TAG = ConfigurationPlanExecutor.class.getSimpleName();
+
+    private final MeshManagerApi meshManagerApi;
+    private final ConfigurationPlan plan;
+    private final ConfigurationPlan.Callbacks callbacks;
+    private final Executor callbackExecutor;
+    private final int maxParallelNodes;
+    private final ArrayDeque<ProvisionedMeshNode> pendingNodes;
+    private final Map<Integer, NodeRun> activeNodes = new HashMap<>();
+    private int configuredCount;
+    private int failedCount;
+    private boolean finished;
+
+    private static final class NodeRun {
+        final ProvisionedMeshNode node;
+        List<MeshMessage> messages;
+        int index;
+        int completed;
+        int total;
+        MeshMessage current;
+        boolean compositionRequested;
+
+        NodeRun(@NonNull final ProvisionedMeshNode node) {
+            this.node = node;
+        }
+    }
+
+    ConfigurationPlanExecutor(@NonNull final MeshManagerApi meshManagerApi,
+                              @NonNull final ConfigurationPlan plan,
+                              @NonNull final List<ProvisionedMeshNode> nodes,
+                              final int maxParallelNodes,
+                              @NonNull final ConfigurationPlan.Callbacks callbacks,
+                              @Nullable final Executor callbackExecutor) {
+        if (maxParallelNodes < 1)
+            throw new IllegalArgumentException("At least one node must be configured at a time");
+        this.meshManagerApi = meshManagerApi;
+        this.plan = plan;
+        this.callbacks = callbacks;
+        this.callbackExecutor = callbackExecutor;
+        this.maxParallelNodes = maxParallelNodes;
+        this.pendingNodes = new ArrayDeque<>(nodes);
+    }
+
+    /**
+     * Returns true if all nodes have been configured, failed, or the execution has been cancelled.
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Cancels the execution. Messages that have already been sent are not cancelled, but no further messages are sent.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (finished)
+                return;
+            finished = true;
+            pendingNodes.clear();
+            activeNodes.clear();
+        }
+        meshManagerApi.onConfigurationPlanFinished(this);
+    }
+
+    /**
+     * Starts configuring the first nodes.
+     */
+    void start() {
+        startNodes();
+    }
+
+    /**
+     * Invoked for every access message received by the mesh stack.
+     */
+    void onMeshMessageReceived(final int src, @NonNull final MeshMessage meshMessage) {
+        final NodeRun run;
+        synchronized (this) {
+            run = activeNodes.get(src);
+            if (run == null || run.current == null || !isResponse(run.current, meshMessage))
+                return;
+        }
+        if (meshMessage instanceof ConfigStatusMessage && ((ConfigStatusMessage) meshMessage).getStatusCode() != 0) {
+            failNode(run, run.current, ((ConfigStatusMessage) meshMessage).getStatusCodeName());
+            return;
+        }
+        synchronized (this) {
+            run.completed++;
+            run.index++;
+        }
+        final int completed = run.completed;
+        final int total = run.total;
+        deliver(() -> callbacks.onNodeProgress(run.node, completed, total));
+        sendNext(run);
+    }
+
+    /**
+     * Invoked when a transaction to a node has failed.
+     */
+    void onTransactionFailed(final int dst) {
+        final NodeRun run;
+        synchronized (this) {
+            run = activeNodes.get(dst);
+        }
+        if (run != null && run.current != null) {
+            failNode(run, run.current, "No response received");
+        }
+    }
+
+    private void startNodes() {
+        while (true) {
+            final NodeRun run;
+            synchronized (this) {
+                if (finished || activeNodes.size() >= maxParallelNodes || pendingNodes.isEmpty())
+                    break;
+                run = new NodeRun(pendingNodes.poll());
+                activeNodes.put(run.node.getUnicastAddress(), run);
+            }
+            sendNext(run);
+        }
+        final boolean completed;
+        synchronized (this) {
+            completed = !finished && activeNodes.isEmpty() && pendingNodes.isEmpty();
+            if (completed) {
+                finished = true;
+            }
+        }
+        if (completed) {
+            meshManagerApi.onConfigurationPlanFinished(this);
+            final int configured = configuredCount;
+            final int failed = failedCount;
+            deliver(() -> callbacks.onPlanCompleted(configured, failed));
+        }
+    }
+
+    private void sendNext(@NonNull final NodeRun run) {
+        final MeshMessage message;
+        String error = "Unable to create the configuration messages";
+        synchronized (this) {
+            if (finished)
+                return;
+            if (run.messages == null || (run.index == run.messages.size() && run.current instanceof ConfigCompositionDataGet)) {
+                // The models of the node are only known once the composition data has been received
+                final MeshNetwork network = meshManagerApi.getMeshNetwork();
+                final ProvisionedMeshNode node = network.getNode(run.node.getUnicastAddress());
+                try {
+                    run.messages = plan.getMessages(network, node != null ? node : run.node);
+                } catch (IllegalArgumentException ex) {
+                    run.messages = null;
+                }
+                if (run.messages != null && !run.messages.isEmpty() && run.messages.get(0) instanceof ConfigCompositionDataGet) {
+                    // The composition data is requested only once, it was not stored if it is still missing
+                    if (run.compositionRequested) {
+                        run.messages = null;
+                        error = "Composition data not available";
+                    }
+                    run.compositionRequested = true;
+                }
+                run.index = 0;
+                run.total = run.completed + (run.messages == null ? 0 : run.messages.size());
+            }
+        }
+        if (run.messages == null) {
+            failNode(run, null, error);
+            return;
+        }
+        synchronized (this) {
+            message = run.index < run.messages.size() ? run.messages.get(run.index) : null;
+            run.current = message;
+        }
+        if (message == null) {
+            synchronized (this) {
+                activeNodes.remove(run.node.getUnicastAddress());
+                configuredCount++;
+            }
+            deliver(() -> callbacks.onNodeConfigured(run.node));
+            startNodes();
+            return;
+        }
+        try {
+            meshManagerApi.createMeshPdu(run.node.getUnicastAddress(), message);
+        } catch (IllegalArgumentException ex) {
+            failNode(run, message, ex.getMessage() == null ? "Unable to send the message" : ex.getMessage());
+        }
+    }
+
+    private void failNode(@NonNull final NodeRun run, @Nullable final MeshMessage message, @NonNull final String error) {
+        synchronized (this) {
+            if (activeNodes.remove(run.node.getUnicastAddress()) == null)
+                return;
+            failedCount++;
+        }
+        MeshLogger.warn(TAG, "Configuring node " + run.node.getNodeName() + " failed: " + error);
+        deliver(() -> callbacks.onNodeFailed(run.node, message, error));
+        startNodes();
+    }
+
+    /**
+     * Returns true if the given message is the status answering the request. Statuses of model configuration messages
+     * must also refer to the element and model the request was sent to.
+     */
+    private static boolean isResponse(@NonNull final MeshMessage request, @NonNull final MeshMessage response) {
+        if (StatusOpCodes.getStatusOpCode(request.getOpCode()) != response.getOpCode())
+            return false;
+        if (response instanceof ConfigModelAppStatus) {
+            final ConfigModelAppStatus status = (ConfigModelAppStatus) response;
+            return isSameModel(request, status.getElementAddress(), status.getModelIdentifier());
+        } else if (response instanceof ConfigModelSubscriptionStatus) {
+            final ConfigModelSubscriptionStatus status = (ConfigModelSubscriptionStatus) response;
+            return isSameModel(request, status.getElementAddress(), status.getModelIdentifier());
+        } else if (response instanceof ConfigModelPublicationStatus) {
+            final ConfigModelPublicationStatus status = (ConfigModelPublicationStatus) response;
+            return isSameModel(request, status.getElementAddress(), status.getModelIdentifier());
+        }
+        return true;
+    }
+
+    private static boolean isSameModel(@NonNull final MeshMessage request, final int elementAddress, final int modelId) {
+        if (request instanceof ConfigModelAppBind) {
+            final ConfigModelAppBind message = (ConfigModelAppBind) request;
+            return message.getElementAddress() == elementAddress && message.getModelIdentifier() == modelId;
+        } else if (request instanceof ConfigModelSubscriptionAdd) {
+            final ConfigModelSubscriptionAdd message = (ConfigModelSubscriptionAdd) request;
+            return message.getElementAddress() == elementAddress && message.getModelIdentifier() == modelId;
+        } else if (request instanceof ConfigModelSubscriptionVirtualAddressAdd) {
+            final ConfigModelSubscriptionVirtualAddressAdd message = (ConfigModelSubscriptionVirtualAddressAdd) request;
+            return message.getElementAddress() == elementAddress && message.getModelIdentifier() == modelId;
+        } else if (request instanceof ConfigModelPublicationSet) {
+            final ConfigModelPublicationSet message = (ConfigModelPublicationSet) request;
+            return message.getElementAddress() == elementAddress && message.getModelIdentifier() == modelId;
+        } else if (request instanceof ConfigModelPublicationVirtualAddressSet) {
+            final ConfigModelPublicationVirtualAddressSet message = (ConfigModelPublicationVirtualAddressSet) request;
+            return message.getElementAddress() == elementAddress && message.getModelIdentifier() == modelId;
+        }
+        return false;
+    }
+
+    private void deliver(@NonNull final Runnable callback) {
+        if (callbackExecutor == null) {
+            callback.run();
+        } else {
+            callbackExecutor.execute(callback);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link MeshScheduler} executing the mesh stack on a {@link ScheduledExecutorService}.
+ * <p>
+ * The executor must execute tasks one at a time, e.g. an executor created using
+ * {@link java.util.concurrent.Executors#newSingleThreadScheduledExecutor()}.
+ * </p>
+ */
+public final class ExecutorScheduler implements MeshScheduler {
+
+    private final ScheduledExecutorService mExecutor;
+    private final Map<Runnable, List<ScheduledFuture<?>>> mScheduledTasks = new IdentityHashMap<>();
+
+    /**
+     * Constructs a scheduler executing tasks on the given executor.
+     *
+     * @param executor Single threaded scheduled executor
+     */
+    public ExecutorScheduler(@NonNull final ScheduledExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable task) {
+        mExecutor.execute(task);
+    }
+
+    @Override
+    public void schedule(@NonNull final Runnable task, final long delayMs) {
+        synchronized (mScheduledTasks) {
+            List<ScheduledFuture<?>> futures = mScheduledTasks.get(task);
+            if (futures == null) {
+                futures = new ArrayList<>(1);
+                mScheduledTasks.put(task, futures);
+            }
+            // The future is only accessed by the task after the lock has been released
+            final ScheduledFuture<?>[] future = new ScheduledFuture<?>[1];
+            future[0] = mExecutor.schedule(() -> {
+                if (remove(task, future[0])) {
+                    task.run();
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+            futures.add(future[0]);
+        }
+    }
+
+    @Override
+    public void cancel(@NonNull final Runnable task) {
+        final List<ScheduledFuture<?>> futures;
+        synchronized (mScheduledTasks) {
+            futures = mScheduledTasks.remove(task);
+        }
+        if (futures != null) {
+            for (ScheduledFuture<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Removes a scheduled execution of a task and returns true if it was still pending.
+     */
+    private boolean remove(@NonNull final Runnable task, @NonNull final ScheduledFuture<?> future) {
+        synchronized (mScheduledTasks) {
+            final List<ScheduledFuture<?>> futures = mScheduledTasks.get(task);
+            if (futures == null || !futures.remove(future))
+                return false;
+            if (futures.isEmpty()) {
+                mScheduledTasks.remove(task);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package no.nordicsemi.android.mesh;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link MeshScheduler} executing the mesh stack on a {@link Looper}.
+ */
+public final class HandlerScheduler implements MeshScheduler {
+
+    private final Handler mHandler;
+
+    /**
+     * Constructs a scheduler executing tasks on the given looper.
+     *
+     * @param looper Looper, e.g. the looper of a {@link android.os.HandlerThread}
+     */
+    public HandlerScheduler(@NonNull final Looper looper) {
+        mHandler = new Handler(looper);
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable task) {
+        mHandler.post(task);
+    }
+
+    @Override
+    public void schedule(@NonNull final Runnable task, final long delayMs) {
+        mHandler.postDelayed(task, delayMs);
+    }
+
+    @Override
+    public void cancel(@NonNull final Runnable task) {
+        mHandler.removeCallbacks(task);
+    }
+}
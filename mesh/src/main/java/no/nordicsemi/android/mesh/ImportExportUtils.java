@@ -1,21 +1,26 @@
 package no.nordicsemi.android.mesh;
 
-import android.content.ContentResolver;
-import android.net.Uri;
-
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.ListIterator;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -27,18 +32,19 @@ import no.nordicsemi.android.mesh.transport.MeshModelListDeserializer;
 import no.nordicsemi.android.mesh.transport.NodeDeserializer;
 import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
 
-import static no.nordicsemi.android.mesh.utils.MeshAddress.isValidGroupAddress;
-
 /**
  * Utility class to handle network imports and exports
  */
 class ImportExportUtils {
 
     private static final String TAG = ImportExportUtils.class.getSimpleName();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     private final Gson mGson;
+    private final MeshNetworkStreamDeserializer mStreamDeserializer;
 
     ImportExportUtils() {
         mGson = initGson();
+        mStreamDeserializer = new MeshNetworkStreamDeserializer(mGson);
     }
 
     /**
@@ -78,31 +84,23 @@ class ImportExportUtils {
     /**
      * Imports the network from the Mesh Provisioning/Configuration Database json file
      */
-    protected MeshNetwork importNetwork(@NonNull final String networkJson) throws JsonSyntaxException {
-        return mGson.fromJson(networkJson, MeshNetwork.class);
+    protected MeshNetwork importNetwork(@NonNull final String networkJson) throws IOException, JsonSyntaxException {
+        return importNetwork(new StringReader(networkJson));
     }
 
     /**
-     * Reads and returns the json string from URI.
+     * Imports the network from the Mesh Provisioning/Configuration Database json read from an input stream.
+     * The nodes are read one at a time, without reading the whole json in to memory.
      *
-     * @param contentResolver ContentResolver
-     * @param uri             URI
+     * @param inputStream Input stream, which is not closed.
      * @throws IOException in case of failure
      */
-    protected String readJsonStringFromUri(@NonNull final ContentResolver contentResolver, @NonNull final Uri uri) throws IOException {
-        final StringBuilder stringBuilder = new StringBuilder();
-        final InputStream inputStream = contentResolver.openInputStream(uri);
-        if (inputStream != null) {
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(
-                    inputStream));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line);
-            }
-            reader.close();
-            inputStream.close();
-        }
-        return stringBuilder.toString();
+    protected MeshNetwork importNetwork(@NonNull final InputStream inputStream) throws IOException, JsonSyntaxException {
+        return importNetwork(new BufferedReader(new InputStreamReader(inputStream, UTF_8)));
+    }
+
+    private MeshNetwork importNetwork(@NonNull final Reader reader) throws IOException, JsonSyntaxException {
+        return mStreamDeserializer.read(mGson.newJsonReader(reader));
     }
 
     /**
@@ -113,16 +111,7 @@ class ImportExportUtils {
      */
     @Nullable
     protected String export(@NonNull final MeshNetwork network, final boolean partial) {
-        try {
-            network.setPartial(partial);
-            return mGson.toJson(network);
-        } catch (final com.google.gson.JsonSyntaxException ex) {
-            MeshLogger.error(TAG, "Error: " + ex.getMessage());
-            return null;
-        } catch (final Exception e) {
-            MeshLogger.error(TAG, "Error: " + e.getMessage());
-            return null;
-        }
+        return export(new MeshNetworkStreamDeserializer.Export(network, partial));
     }
 
     @Nullable
@@ -133,14 +122,61 @@ class ImportExportUtils {
                             @NonNull final ProvisionersConfig provisionersConfig,
                             @NonNull final GroupsConfig groupsConfig,
                             @NonNull final ScenesConfig scenesConfig) {
-        //Let's use Gson to make a temporary copy of the network and apply the export configurations.
-        final MeshNetwork temp = mGson.fromJson(mGson.toJson(network), MeshNetwork.class);
-        return export(prepareNetwork(temp, networkKeysConfig, applicationKeysConfig, nodesConfig,
-                provisionersConfig, groupsConfig, scenesConfig), true);
+        return export(prepareExport(network, networkKeysConfig, applicationKeysConfig, nodesConfig,
+                provisionersConfig, groupsConfig, scenesConfig));
+    }
+
+    /**
+     * Exports the mesh network to an output stream, without building the json in memory.
+     *
+     * @param network      Mesh network to be exported
+     * @param outputStream Output stream, which is flushed but not closed.
+     * @throws IOException in case of failure
+     */
+    protected void export(@NonNull final MeshNetwork network, @NonNull final OutputStream outputStream) throws IOException {
+        export(new MeshNetworkStreamDeserializer.Export(network, false), outputStream);
     }
 
     /**
-     * Configures and returns a network with the export configuration provided.
+     * Exports a partial mesh network to an output stream with the provided export configuration, without building the
+     * json in memory.
+     *
+     * @param outputStream Output stream, which is flushed but not closed.
+     * @throws IOException in case of failure
+     */
+    protected void export(@NonNull final MeshNetwork network,
+                          @NonNull final NetworkKeysConfig networkKeysConfig,
+                          @NonNull final ApplicationKeysConfig applicationKeysConfig,
+                          @NonNull final NodesConfig nodesConfig,
+                          @NonNull final ProvisionersConfig provisionersConfig,
+                          @NonNull final GroupsConfig groupsConfig,
+                          @NonNull final ScenesConfig scenesConfig,
+                          @NonNull final OutputStream outputStream) throws IOException {
+        export(prepareExport(network, networkKeysConfig, applicationKeysConfig, nodesConfig,
+                provisionersConfig, groupsConfig, scenesConfig), outputStream);
+    }
+
+    @Nullable
+    private String export(@NonNull final MeshNetworkStreamDeserializer.Export export) {
+        try {
+            final StringWriter writer = new StringWriter();
+            mStreamDeserializer.write(mGson.newJsonWriter(writer), export);
+            return writer.toString();
+        } catch (final Exception e) {
+            MeshLogger.error(TAG, "Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void export(@NonNull final MeshNetworkStreamDeserializer.Export export,
+                        @NonNull final OutputStream outputStream) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
+        mStreamDeserializer.write(mGson.newJsonWriter(writer), export);
+    }
+
+    /**
+     * Returns the parts of the network to be exported with the export configuration provided.
+     * The network itself is not modified, the configuration is applied while the network is written.
      *
      * @param network               MeshNetwork.
      * @param networkKeysConfig     Network Keys configuration.
@@ -150,31 +186,31 @@ class ImportExportUtils {
      * @param groupsConfig          Groups configuration.
      * @param scenesConfig          Scenes configuration.
      */
-    private MeshNetwork prepareNetwork(@NonNull final MeshNetwork network,
-                                       @NonNull final NetworkKeysConfig networkKeysConfig,
-                                       @NonNull final ApplicationKeysConfig applicationKeysConfig,
-                                       @NonNull final NodesConfig nodesConfig,
-                                       @NonNull final ProvisionersConfig provisionersConfig,
-                                       @NonNull final GroupsConfig groupsConfig,
-                                       @NonNull final ScenesConfig scenesConfig) {
+    private MeshNetworkStreamDeserializer.Export prepareExport(@NonNull final MeshNetwork network,
+                                                               @NonNull final NetworkKeysConfig networkKeysConfig,
+                                                               @NonNull final ApplicationKeysConfig applicationKeysConfig,
+                                                               @NonNull final NodesConfig nodesConfig,
+                                                               @NonNull final ProvisionersConfig provisionersConfig,
+                                                               @NonNull final GroupsConfig groupsConfig,
+                                                               @NonNull final ScenesConfig scenesConfig) {
+        final MeshNetworkStreamDeserializer.Export export = new MeshNetworkStreamDeserializer.Export(network, true);
 
         // Initial list of nodes to export
+        List<ProvisionedMeshNode> nodes = network.nodes;
         if (nodesConfig.getConfig() instanceof NodesConfig.ExportWithoutDeviceKey) {
-            for (ProvisionedMeshNode node : network.nodes)
-                node.setDeviceKey(null);
+            export.withoutDeviceKey.addAll(network.nodes);
         } else if (nodesConfig.getConfig() instanceof NodesConfig.ExportSome) {
-            network.nodes.clear();
+            nodes = new ArrayList<>();
             final List<ProvisionedMeshNode> withDeviceKey = ((NodesConfig.ExportSome) nodesConfig.getConfig()).getWithDeviceKey();
             final List<ProvisionedMeshNode> withoutDeviceKey = ((NodesConfig.ExportSome) nodesConfig.getConfig()).getWithoutDeviceKey();
-            for (ProvisionedMeshNode node : withoutDeviceKey)
-                node.setDeviceKey(null);
-            network.nodes.addAll(withDeviceKey);
-            network.nodes.addAll(withoutDeviceKey);
+            export.withoutDeviceKey.addAll(withoutDeviceKey);
+            nodes.addAll(withDeviceKey);
+            nodes.addAll(withoutDeviceKey);
 
             // Add any missing provisioner nodes if they were not selected when selecting nodes.
             for (Provisioner provisioner : network.provisioners) {
-                if (!isProvisionerExistsInNodes(provisioner, network.nodes)) {
-                    network.nodes.add(new ProvisionedMeshNode(provisioner, network.netKeys, network.appKeys));
+                if (provisioner.getProvisionerAddress() != null && !isProvisionerExistsInNodes(provisioner, nodes)) {
+                    nodes.add(new ProvisionedMeshNode(provisioner, network.netKeys, network.appKeys));
                 }
             }
         }
@@ -183,11 +219,10 @@ class ImportExportUtils {
         // List of provisioners to export
         if (provisionersConfig.getConfig() instanceof ProvisionersConfig.ExportSome) {
             // First Let's exclude provisioners that are not nodes
-            final ListIterator<Provisioner> provisionerListIterator = network.provisioners.listIterator();
-            while (provisionerListIterator.hasNext()) {
-                final Provisioner provisioner = provisionerListIterator.next();
-                if (!isProvisionerExistsInNodes(provisioner, network.nodes)) {
-                    provisionerListIterator.remove();
+            final List<Provisioner> provisioners = new ArrayList<>();
+            for (Provisioner provisioner : network.provisioners) {
+                if (isProvisionerExistsInNodes(provisioner, nodes)) {
+                    provisioners.add(provisioner);
                 }
             }
 
@@ -195,67 +230,62 @@ class ImportExportUtils {
             // We must go through all items to ensure there are no duplicates
             final List<Provisioner> selectedProvisioners = ((ProvisionersConfig.ExportSome) provisionersConfig.getConfig()).getProvisioners();
             for (Provisioner provisioner : selectedProvisioners) {
-                if (!network.isProvisionerUuidInUse(provisioner.getProvisionerUuid())) {
-                    network.provisioners.add(provisioner);
+                if (!isProvisionerUuidInUse(provisioners, provisioner.getProvisionerUuid())) {
+                    provisioners.add(provisioner);
                 }
             }
+            export.provisioners = provisioners;
         }
 
         // List of Network Keys to export
         if (networkKeysConfig.getConfig() instanceof NetworkKeysConfig.ExportSome) {
-            network.setNetKeys(((NetworkKeysConfig.ExportSome) networkKeysConfig.getConfig()).getKeys());
+            export.netKeys = ((NetworkKeysConfig.ExportSome) networkKeysConfig.getConfig()).getKeys();
         }
 
         // List of Application Keys to export
         if (applicationKeysConfig.getConfig() instanceof ApplicationKeysConfig.ExportSome) {
-            network.appKeys.clear();
+            export.appKeys = new ArrayList<>();
             // List of application keys set in the configuration, but we must only export the keys that are bound to that network key.
             final List<ApplicationKey> keys = ((ApplicationKeysConfig.ExportSome) applicationKeysConfig.getConfig()).getKeys();
             for (ApplicationKey key : keys) {
-                if (isApplicationKeyBound(network.getNetKeys(), key)) {
-                    network.appKeys.add(key);
+                if (isApplicationKeyBound(export.netKeys, key)) {
+                    export.appKeys.add(key);
                 }
             }
         }
+        // Models may only be bound to or publish with the exported application keys.
+        export.appKeyIndexes = new HashSet<>();
+        for (ApplicationKey key : export.appKeys) {
+            export.appKeyIndexes.add(key.getKeyIndex());
+        }
 
         // Exclude nodes unknown to network keys
         // TODO what will happen to the provisioner if the node is to excluded due to an unknown network key?
-        final ListIterator<ProvisionedMeshNode> nodeListIterator = network.nodes.listIterator();
-        while (nodeListIterator.hasNext()) {
-            final ProvisionedMeshNode node = nodeListIterator.next();
-            if (!isNetworkKeyAdded(node, network.getNetKeys())) {
-                nodeListIterator.remove();
-                continue;
+        export.nodes = new ArrayList<>();
+        for (ProvisionedMeshNode node : nodes) {
+            if (isNetworkKeyAdded(node, export.netKeys)) {
+                export.nodes.add(node);
             }
-            excludeAppKeys(node, network.appKeys);
         }
 
         if (groupsConfig.getConfig() instanceof GroupsConfig.ExportRelated) {
-            excludeNonRelatedGroups(network);
+            export.relatedGroups = true;
         } else if (groupsConfig.getConfig() instanceof GroupsConfig.ExportSome) {
-            network.groups = ((GroupsConfig.ExportSome) groupsConfig.getConfig()).getGroups();
+            export.groups = ((GroupsConfig.ExportSome) groupsConfig.getConfig()).getGroups();
             // If subscriptions/publications uses any excluded group addresses, let's remove them.
-            for (ProvisionedMeshNode node : network.getNodes()) {
-                for (Element element : node.getElements().values()) {
-                    for (MeshModel model : element.getMeshModels().values()) {
-                        for (Group group : network.groups) {
-                            if (model.getPublicationSettings() != null &&
-                                    isValidGroupAddress(model.getPublicationSettings().getPublishAddress()) &&
-                                    model.getPublicationSettings().getPublishAddress() != group.getAddress()) {
-                                model.setPublicationSettings(null);
-                            }
-                            model.getSubscribedAddresses().remove((Integer) group.getAddress());
-                        }
-                    }
-                }
+            for (Group group : network.groups) {
+                export.excludedGroupAddresses.add(group.getAddress());
+            }
+            for (Group group : export.groups) {
+                export.excludedGroupAddresses.remove(group.getAddress());
             }
         }
 
         if (scenesConfig.getConfig() instanceof ScenesConfig.ExportSome) {
-            network.scenes = ((ScenesConfig.ExportSome) scenesConfig.getConfig()).getScenes();
+            export.scenes = ((ScenesConfig.ExportSome) scenesConfig.getConfig()).getScenes();
         }
-        removeExcludedNodesFromScenes(network.nodes, network.scenes);
-        return network;
+        export.filterSceneAddresses = true;
+        return export;
     }
 
     /**
@@ -276,102 +306,19 @@ class ImportExportUtils {
     }
 
     /**
-     * Excludes groups that are not related tot he list of nodes.
+     * Checks if a provisioner with the given uuid exists in the list
      *
-     * @param network Mesh network.
+     * @param provisioners    List of provisioners
+     * @param provisionerUuid Provisioner uuid
      */
-    private void excludeNonRelatedGroups(@NonNull final MeshNetwork network) {
-        final List<Group> groups = new ArrayList<>();
-        for (Group group : network.getGroups()) {
-            for (ProvisionedMeshNode node : network.getNodes()) {
-                if (isGroupInUse(node, group)) {
-                    groups.add(group);
-                }
-            }
-        }
-        network.groups = groups;
-    }
-
-    /**
-     * Checks if the node has subscribed or publishes to the group.
-     *
-     * @param node  Node
-     * @param group Group
-     * @return true if is in use or false otherwise.
-     */
-    private boolean isGroupInUse(@NonNull final ProvisionedMeshNode node, @NonNull final Group group) {
-        for (final Element element : node.getElements().values()) {
-            for (final MeshModel model : element.getMeshModels().values()) {
-                if (model.getPublicationSettings().getPublishAddress() == group.getAddress() ||
-                        model.getSubscribedAddresses().contains((Integer) group.getAddress())) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Removes excluded node from a scene addresses.
-     *
-     * @param nodes  List of nodes in the network.
-     * @param scenes List of scenes in the network.
-     */
-    private void removeExcludedNodesFromScenes(@NonNull List<ProvisionedMeshNode> nodes, @NonNull List<Scene> scenes) {
-        ListIterator<Integer> addresses;
-        Integer address;
-        for (Scene scene : scenes) {
-            addresses = scene.getAddresses().listIterator();
-            while (addresses.hasNext()) {
-                address = addresses.next();
-                if (!isNodeAddressExistsInScene(nodes, address)) {
-                    addresses.remove();
-                }
-            }
-        }
-    }
-
-    /**
-     * Checks if a scene address exists exists in the list of nodes in the network.
-     *
-     * @param nodes   List of nodes in the network.
-     * @param address Scene address.
-     * @return true if node address is included in scene.
-     */
-    private boolean isNodeAddressExistsInScene(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final Integer address) {
-        for (ProvisionedMeshNode node : nodes) {
-            if (address == node.getUnicastAddress()) {
+    private boolean isProvisionerUuidInUse(@NonNull final List<Provisioner> provisioners, @NonNull final String provisionerUuid) {
+        for (Provisioner provisioner : provisioners) {
+            if (provisioner.getProvisionerUuid().equalsIgnoreCase(provisionerUuid))
                 return true;
-            }
         }
         return false;
     }
 
-    /**
-     * Exclude application keys that may be bound or used for publication by the models in the node that are not in the list.
-     *
-     * @param node            Mesh node.
-     * @param applicationKeys Selected Application keys.
-     */
-    private void excludeAppKeys(@NonNull final ProvisionedMeshNode node, @NonNull final List<ApplicationKey> applicationKeys) {
-        int index;
-        for (Element element : node.getElements().values()) {
-            for (MeshModel model : element.getMeshModels().values()) {
-                final ListIterator<Integer> boundKeyIndexes = model.getBoundAppKeyIndexes().listIterator();
-                while (boundKeyIndexes.hasNext()) {
-                    index = boundKeyIndexes.next();
-                    if (!isApplicationKeyBound(index, applicationKeys)) {
-                        boundKeyIndexes.remove();
-                        if (model.getPublicationSettings() != null && model.getPublicationSettings().getAppKeyIndex() == index) {
-                            model.setPublicationSettings(null);
-                        }
-                    }
-
-                }
-            }
-        }
-    }
-
     /**
      * Checks if the given Application Key is bound to the network keys in the list
      *
@@ -386,14 +333,6 @@ class ImportExportUtils {
         return false;
     }
 
-    private boolean isApplicationKeyBound(@NonNull final Integer index, @NonNull final List<ApplicationKey> keys) {
-        for (ApplicationKey key : keys) {
-            if (index == key.getKeyIndex())
-                return true;
-        }
-        return false;
-    }
-
     /**
      * Checks if at least one Network Key is added to a node.
      *
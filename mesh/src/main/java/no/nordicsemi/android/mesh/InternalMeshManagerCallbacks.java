@@ -22,6 +22,8 @@
 
 package no.nordicsemi.android.mesh;
 
+import java.util.UUID;
+
 import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
 
 interface InternalMeshManagerCallbacks {
@@ -33,4 +35,11 @@ interface InternalMeshManagerCallbacks {
      * @param numberOfElements  Number of expected elements that is available in the node based on the capabilities.
      */
     void onNodeProvisioned(final ProvisionedMeshNode meshNode, final int numberOfElements);
+
+    /**
+     * Internal callback to notify the {@link MeshManagerApi} that the provisioning session of a node was closed
+     *
+     * @param deviceUuid Device UUID of the node whose reserved unicast addresses may be released
+     */
+    void onProvisioningSessionClosed(final UUID deviceUuid);
 }
@@ -24,9 +24,12 @@ package no.nordicsemi.android.mesh;
 
 import android.content.Context;
 import android.net.Uri;
-import android.os.Handler;
 import android.os.Looper;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.Security;
@@ -38,6 +41,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -55,17 +64,25 @@ import no.nordicsemi.android.mesh.data.ProvisionersDao;
 import no.nordicsemi.android.mesh.data.SceneDao;
 import no.nordicsemi.android.mesh.data.ScenesDao;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.provisionerstates.ProvisioningKeyPairPool;
 import no.nordicsemi.android.mesh.provisionerstates.UnprovisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.ConfigNetKeyStatus;
+import no.nordicsemi.android.mesh.transport.ControlMessage;
 import no.nordicsemi.android.mesh.transport.MeshMessage;
 import no.nordicsemi.android.mesh.transport.NetworkLayerCallbacks;
 import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.StatusMessageRegistry;
+import no.nordicsemi.android.mesh.transport.ReceiveStatistics;
+import no.nordicsemi.android.mesh.transport.ReplayProtectionList;
+import no.nordicsemi.android.mesh.transport.ReplayProtectionLog;
+import no.nordicsemi.android.mesh.transport.TransactionMetrics;
 import no.nordicsemi.android.mesh.transport.UpperTransportLayerCallbacks;
-import no.nordicsemi.android.mesh.utils.ExtendedInvalidCipherTextException;
 import no.nordicsemi.android.mesh.utils.InputOOBAction;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 import no.nordicsemi.android.mesh.utils.OutputOOBAction;
 import no.nordicsemi.android.mesh.utils.ProxyFilter;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
 import no.nordicsemi.android.mesh.utils.SecureUtils;
 
 
@@ -81,17 +98,7 @@ public class MeshManagerApi implements MeshMngrApi {
     public static final byte PDU_TYPE_NETWORK = 0x00;
     public static final byte PDU_TYPE_MESH_BEACON = 0x01;
     public static final byte PDU_TYPE_PROXY_CONFIGURATION = 0x02;
-    //GATT level segmentation
-    private static final byte GATT_SAR_COMPLETE = 0b00;
-    private static final byte GATT_SAR_START = 0b01;
-    private static final byte GATT_SAR_CONTINUATION = 0b10;
-    private static final byte GATT_SAR_END = 0b11;
-    //GATT level segmentation mask
-    private static final int GATT_SAR_MASK = 0xC0;
-    private static final int GATT_SAR_UNMASK = 0x3F;
-    private static final int SAR_BIT_OFFSET = 6;
-
-    private static final long PROXY_SAR_TRANSFER_TIME_OUT = 20 * 1000; // According to the spec the proxy protocol must contain an SAR timeout of 20 seconds.
+    static final long PROXY_SAR_TRANSFER_TIME_OUT = 20 * 1000; // According to the spec the proxy protocol must contain an SAR timeout of 20 seconds.
     private final static int HASH_RANDOM_NUMBER_LENGTH = 64; // Length of the random number required to calculate the hash containing the node id in bits
     private static final int ADVERTISEMENT_TYPE_NETWORK_ID = 0x00;
     private static final int ADVERTISEMENT_TYPE_NODE_IDENTITY = 0x01;
@@ -101,17 +108,22 @@ public class MeshManagerApi implements MeshMngrApi {
     private final static int ADVERTISED_RANDOM_LENGTH = 8; //Length of the hash contained in the advertisement service data
     private final static int ADVERTISED_NETWORK_ID_OFFSET = 1; //Offset of the network id contained in the advertisement service data
     private final static int ADVERTISED_NETWORK_ID_LENGTH = 8; //Length of the network id contained in the advertisement service data
+    private static final String REPLAY_PROTECTION_LIST_DIRECTORY = "rpl";
+    private static final long REPLAY_PROTECTION_LOG_KEEP_ALIVE_MS = 10 * 1000; // Time the idle thread writing the replay protection log is kept
 
     private final Context mContext;
-    private final Handler mHandler;
+    private final MeshScheduler mScheduler;
+    private final boolean mDispatchToScheduler;
+    private final Executor mCallbackExecutor;
     private MeshManagerCallbacks mMeshManagerCallbacks;
+    private MeshStatusCallbacks mMeshStatusCallbacks;
+    private final List<ConfigurationPlanExecutor> mConfigurationPlanExecutors = new CopyOnWriteArrayList<>();
     private final MeshProvisioningHandler mMeshProvisioningHandler;
     private final MeshMessageHandler mMeshMessageHandler;
     private final ImportExportUtils mImportExportUtils;
-    private byte[] mIncomingBuffer;
-    private int mIncomingBufferOffset;
-    private byte[] mOutgoingBuffer;
-    private int mOutgoingBufferOffset;
+    private final ProxyProtocolCodec mIncomingCodec = new ProxyProtocolCodec();
+    private final ProxyProtocolCodec mOutgoingCodec = new ProxyProtocolCodec();
+    private final ScheduledExecutorService mReplayProtectionLogExecutor = createReplayProtectionLogExecutor();
     private MeshNetwork mMeshNetwork;
     private boolean ivUpdateTestModeActive = false;
     private boolean allowIvIndexRecoveryOver42 = false;
@@ -130,11 +142,12 @@ public class MeshManagerApi implements MeshMngrApi {
     private GroupsDao mGroupsDao;
     private SceneDao mSceneDao;
     private ScenesDao mScenesDao;
-    private boolean isNetworkImportInProgress = false;
+    private volatile boolean isNetworkImportInProgress = false;
 
     private final Runnable mProxyProtocolTimeoutRunnable = new Runnable() {
         @Override
         public void run() {
+            mIncomingCodec.reset();
             mMeshMessageHandler.onIncompleteTimerExpired(MeshAddress.UNASSIGNED_ADDRESS);
         }
     };
@@ -145,10 +158,68 @@ public class MeshManagerApi implements MeshMngrApi {
      * @param context context
      */
     public MeshManagerApi(@NonNull final Context context) {
+        this(context, new HandlerScheduler(Looper.getMainLooper()), false, null);
+    }
+
+    /**
+     * The mesh manager api constructor running the mesh stack on a dedicated looper.
+     * <p>
+     * Received pdus, outgoing messages and the timers of the transport layers are handled on the given looper. Notifications
+     * and write callbacks may be passed in from any thread. Loading, importing and resetting the mesh network replace the
+     * network on the looper, other changes to the network must be made using {@link #runOnMeshStack(Runnable)}.
+     * </p>
+     *
+     * @param context          context
+     * @param looper           Looper of the mesh stack, e.g. the looper of a {@link android.os.HandlerThread}
+     * @param callbackExecutor Executor the callbacks are delivered on, or null to deliver them on the looper of the mesh stack.
+     *                         {@link MeshManagerCallbacks#getMtu()} is always invoked on the looper of the mesh stack.
+     */
+    public MeshManagerApi(@NonNull final Context context, @NonNull final Looper looper, @Nullable final Executor callbackExecutor) {
+        this(context, new HandlerScheduler(looper), true, callbackExecutor);
+    }
+
+    /**
+     * The mesh manager api constructor running the mesh stack on a scheduled executor.
+     * <p>
+     * Received pdus, outgoing messages and the timers of the transport layers are handled on the given executor, which
+     * must execute tasks one at a time. Notifications and write callbacks may be passed in from any thread. Loading, importing
+     * and resetting the mesh network replace the network on the executor, other changes to the network must be made using
+     * {@link #runOnMeshStack(Runnable)}.
+     * </p>
+     *
+     * @param context          context
+     * @param executor         Single threaded executor of the mesh stack
+     * @param callbackExecutor Executor the callbacks are delivered on, or null to deliver them on the executor of the mesh stack.
+     *                         {@link MeshManagerCallbacks#getMtu()} is always invoked on the executor of the mesh stack.
+     */
+    public MeshManagerApi(@NonNull final Context context,
+                          @NonNull final ScheduledExecutorService executor,
+                          @Nullable final Executor callbackExecutor) {
+        this(context, new ExecutorScheduler(executor), true, callbackExecutor);
+    }
+
+    /**
+     * The mesh manager api constructor running the mesh stack on a custom scheduler, e.g. a scheduler driven by a virtual clock.
+     *
+     * @param context          context
+     * @param scheduler        {@link MeshScheduler} of the mesh stack
+     * @param callbackExecutor Executor the callbacks are delivered on, or null to deliver them on the scheduler of the mesh stack.
+     */
+    public MeshManagerApi(@NonNull final Context context, @NonNull final MeshScheduler scheduler, @Nullable final Executor callbackExecutor) {
+        this(context, scheduler, true, callbackExecutor);
+    }
+
+    private MeshManagerApi(@NonNull final Context context,
+                           @NonNull final MeshScheduler scheduler,
+                           final boolean dispatchToScheduler,
+                           @Nullable final Executor callbackExecutor) {
         this.mContext = context;
-        mHandler = new Handler(Looper.getMainLooper());
-        mMeshProvisioningHandler = new MeshProvisioningHandler(context, internalTransportCallbacks, internalMeshMgrCallbacks);
-        mMeshMessageHandler = new MeshMessageHandler(context, internalTransportCallbacks, networkLayerCallbacks, upperTransportLayerCallbacks);
+        mScheduler = scheduler;
+        mDispatchToScheduler = dispatchToScheduler;
+        mCallbackExecutor = callbackExecutor;
+        mMeshProvisioningHandler = new MeshProvisioningHandler(context, scheduler, internalTransportCallbacks, internalMeshMgrCallbacks);
+        mMeshMessageHandler = new MeshMessageHandler(context, scheduler, internalTransportCallbacks, networkLayerCallbacks, upperTransportLayerCallbacks);
+        mMeshMessageHandler.setMeshStatusCallbacks(meshStatusCallbacks);
         mImportExportUtils = new ImportExportUtils();
         initBouncyCastle();
         //Init database
@@ -157,21 +228,22 @@ public class MeshManagerApi implements MeshMngrApi {
 
     @Override
     public void setMeshManagerCallbacks(@NonNull final MeshManagerCallbacks callbacks) {
-        mMeshManagerCallbacks = callbacks;
+        mMeshManagerCallbacks = CallbackExecutors.wrap(callbacks, mCallbackExecutor);
     }
 
     @Override
     public void setProvisioningStatusCallbacks(@NonNull final MeshProvisioningStatusCallbacks callbacks) {
-        mMeshProvisioningHandler.setProvisioningCallbacks(callbacks);
+        mMeshProvisioningHandler.setProvisioningCallbacks(CallbackExecutors.wrap(callbacks, mCallbackExecutor));
     }
 
     @Override
     public void setMeshStatusCallbacks(@NonNull final MeshStatusCallbacks callbacks) {
-        mMeshMessageHandler.setMeshStatusCallbacks(callbacks);
+        mMeshStatusCallbacks = CallbackExecutors.wrap(callbacks, mCallbackExecutor);
     }
 
     @Override
     public void loadMeshNetwork() {
+        flush();
         mMeshNetworkDb.loadNetwork(mMeshNetworkDao, mNetworkKeysDao, mApplicationKeysDao, mProvisionersDao, mProvisionedNodesDao,
                 mGroupsDao, mScenesDao, networkLoadCallbacks);
     }
@@ -181,6 +253,24 @@ public class MeshManagerApi implements MeshMngrApi {
         return mMeshNetwork;
     }
 
+    @Override
+    public void runOnMeshStack(@NonNull final Runnable task) {
+        if (mDispatchToScheduler) {
+            mScheduler.execute(task);
+        } else {
+            task.run();
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            mMeshNetworkDb.flush();
+        } catch (ExecutionException | InterruptedException ex) {
+            MeshLogger.error(TAG, "Failed to write pending changes of the mesh network: " + ex.getMessage());
+        }
+    }
+
     @Override
     public boolean isIvUpdateTestModeActive() {
         return ivUpdateTestModeActive;
@@ -196,6 +286,211 @@ public class MeshManagerApi implements MeshMngrApi {
         this.allowIvIndexRecoveryOver42 = allowIvIndexRecoveryOver42;
     }
 
+    /**
+     * Sets the number of acknowledged messages that may be awaiting a response from a single node.
+     * <p>
+     * Messages to a node are queued until a slot is available. By default the number is not limited and messages are sent
+     * right away.
+     * </p>
+     *
+     * @param maxInFlight Number of messages, at least 1
+     * @throws IllegalArgumentException if the number is less than 1
+     */
+    public void setMaxTransactionsInFlight(final int maxInFlight) {
+        mMeshMessageHandler.setMaxTransactionsInFlight(maxInFlight);
+    }
+
+    /**
+     * Sets the retransmission policy of acknowledged messages that do not receive a response.
+     * <p>
+     * By default unanswered messages are not retransmitted and {@link MeshStatusCallbacks#onTransactionFailed(int, boolean)}
+     * is invoked if no response has been received within 30 seconds.
+     * </p>
+     *
+     * @param retransmitCount Number of retransmissions before {@link MeshStatusCallbacks#onTransactionFailed(int, boolean)} is invoked
+     * @param timeoutMs       Time to wait for the response to the first transmission, doubled on every retransmission
+     * @throws IllegalArgumentException if the retransmit count is negative or the timeout is not positive
+     */
+    public void setTransactionRetransmission(final int retransmitCount, final long timeoutMs) {
+        mMeshMessageHandler.setTransactionRetransmission(retransmitCount, timeoutMs);
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent to the given address.
+     *
+     * @param address Destination address
+     */
+    public int getTransactionQueueDepth(final int address) {
+        return mMeshMessageHandler.getTransactionQueueDepth(address);
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the outgoing messages, such as the queue depth and the response latency.
+     */
+    @NonNull
+    public TransactionMetrics getTransactionMetrics() {
+        return mMeshMessageHandler.getTransactionMetrics();
+    }
+
+    /**
+     * Returns the registry mapping the opcodes of received access messages to status messages.
+     * <p>
+     * Status messages of models that are not supported by the library, such as vendor models, may be registered so that they
+     * are delivered to {@link MeshStatusCallbacks#onMeshMessageReceived(int, MeshMessage)} instead of
+     * {@link MeshStatusCallbacks#onUnknownPduReceived(int, byte[])}, optionally together with a
+     * {@link StatusMessageRegistry.NodeStateUpdater} updating the state of the node that sent them.
+     * </p>
+     */
+    @NonNull
+    public StatusMessageRegistry getStatusMessageRegistry() {
+        return mMeshMessageHandler.getStatusMessageRegistry();
+    }
+
+    /**
+     * Sets the SAR Transmitter state used when sending segmented messages.
+     * <p>
+     * The state controls the interval between segments, and how often unacknowledged segments are retransmitted.
+     * By default the values recommended by the Mesh Protocol specification are used. The SAR states of other nodes are
+     * read and written using the messages of the {@link no.nordicsemi.android.mesh.models.SarConfigurationClient}.
+     * </p>
+     *
+     * @param settings {@link SarTransmitterSettings}
+     */
+    public void setSarTransmitterSettings(@NonNull final SarTransmitterSettings settings) {
+        mMeshMessageHandler.setSarTransmitterSettings(settings);
+    }
+
+    /**
+     * Returns the SAR Transmitter state used when sending segmented messages.
+     */
+    @NonNull
+    public SarTransmitterSettings getSarTransmitterSettings() {
+        return mMeshMessageHandler.getSarTransmitterSettings();
+    }
+
+    /**
+     * Sets the number of received network pdus remembered by the network message cache.
+     * <p>
+     * Copies of a pdu that is still in the cache, e.g. relayed by other nodes, are dropped before they are decrypted.
+     * The default capacity is 256 pdus.
+     * </p>
+     *
+     * @param capacity Number of pdus, 0 disables the cache
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public void setNetworkMessageCacheCapacity(final int capacity) {
+        mMeshMessageHandler.setNetworkMessageCacheCapacity(capacity);
+    }
+
+    /**
+     * Returns the number of received network pdus that were dropped by the network message cache.
+     */
+    public long getNetworkMessageCacheHits() {
+        return mMeshMessageHandler.getNetworkMessageCacheHits();
+    }
+
+    /**
+     * Returns the number of received network pdus that were not found in the network message cache.
+     */
+    public long getNetworkMessageCacheMisses() {
+        return mMeshMessageHandler.getNetworkMessageCacheMisses();
+    }
+
+    /**
+     * Returns a snapshot of the counters of the received pdus that were dropped as they could not be decrypted or were replayed.
+     * <p>
+     * Pdus of neighbouring networks relayed by a proxy node are dropped without any callback, these counters allow
+     * monitoring how much of the received traffic is discarded by each layer.
+     * </p>
+     */
+    @NonNull
+    public ReceiveStatistics getReceiveStatistics() {
+        return mMeshMessageHandler.getReceiveStatistics();
+    }
+
+    /**
+     * Resets the counters returned by {@link #getReceiveStatistics()}.
+     */
+    public void resetReceiveStatistics() {
+        mMeshMessageHandler.resetReceiveStatistics();
+    }
+
+    /**
+     * Sets the maximum number of source addresses in the replay protection list.
+     * <p>
+     * The replay protection list contains the SeqAuth of the last message received from each source address, and is
+     * persisted separately from the mesh network. The default capacity is {@link ReplayProtectionList#DEFAULT_CAPACITY}.
+     * </p>
+     *
+     * @param capacity Maximum number of source addresses
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public void setReplayProtectionListCapacity(final int capacity) {
+        mMeshMessageHandler.setReplayProtectionListCapacity(capacity);
+    }
+
+    /**
+     * Sets the behaviour of the replay protection list when a message is received from a new source while the list is full.
+     * <p>
+     * By default messages from new sources are rejected. Evicting the least recently updated source lets new sources
+     * communicate, but messages of the evicted source that were already received are then accepted again if they are replayed.
+     * </p>
+     *
+     * @param evictionPolicy {@link ReplayProtectionList.EvictionPolicy}
+     */
+    public void setReplayProtectionListEvictionPolicy(@NonNull final ReplayProtectionList.EvictionPolicy evictionPolicy) {
+        mMeshMessageHandler.setReplayProtectionListEvictionPolicy(evictionPolicy);
+    }
+
+    /**
+     * Returns the SeqAuth of the last message received from the given source address.
+     *
+     * @param src Source address
+     * @return SeqAuth made of the 32-bit IV Index and the 24-bit sequence number, or null if no message was received from the source
+     */
+    @Nullable
+    public Long getSeqAuth(final int src) {
+        return mMeshMessageHandler.getSeqAuth(src);
+    }
+
+    /**
+     * Configures the given nodes according to a {@link ConfigurationPlan}.
+     * <p>
+     * Only the messages required to bring each node to the state described by the plan are sent, based on the composition
+     * data, keys, bindings, subscriptions and publications of the node known to the network. The composition data is
+     * requested first from nodes that have not been configured yet. Up to maxParallelNodes nodes are configured at a time,
+     * the messages to a single node are sent one after the other. The status messages received are also delivered to the
+     * {@link MeshStatusCallbacks}.
+     * </p>
+     *
+     * @param plan             {@link ConfigurationPlan} describing the target configuration
+     * @param nodes            Nodes to be configured
+     * @param maxParallelNodes Number of nodes configured at a time, at least 1
+     * @param callbacks        Callbacks notifying the progress, delivered on the callback executor if one was given
+     * @return {@link ConfigurationPlanExecutor} that may be used to cancel the configuration
+     * @throws IllegalArgumentException if maxParallelNodes is less than 1
+     */
+    @NonNull
+    public ConfigurationPlanExecutor executeConfigurationPlan(@NonNull final ConfigurationPlan plan,
+                                                              @NonNull final List<ProvisionedMeshNode> nodes,
+                                                              final int maxParallelNodes,
+                                                              @NonNull final ConfigurationPlan.Callbacks callbacks) {
+        final ConfigurationPlanExecutor executor =
+                new ConfigurationPlanExecutor(this, plan, nodes, maxParallelNodes, callbacks, mCallbackExecutor);
+        mConfigurationPlanExecutors.add(executor);
+        executor.start();
+        return executor;
+    }
+
+    /**
+     * Invoked when a configuration plan has been executed or cancelled.
+     *
+     * @param executor {@link ConfigurationPlanExecutor}
+     */
+    void onConfigurationPlanFinished(@NonNull final ConfigurationPlanExecutor executor) {
+        mConfigurationPlanExecutors.remove(executor);
+    }
+
     private void initBouncyCastle() {
         Security.insertProviderAt(new org.spongycastle.jce.provider.BouncyCastleProvider(), 1);
     }
@@ -217,6 +512,29 @@ public class MeshManagerApi implements MeshMngrApi {
         mScenesDao = mMeshNetworkDb.scenesDao();
     }
 
+    /**
+     * Loads the replay protection list of the given network, replacing the entries of the previous network.
+     *
+     * @param meshNetwork Mesh network
+     */
+    private void attachReplayProtectionLog(@NonNull final MeshNetwork meshNetwork) {
+        final File directory = new File(mContext.getFilesDir(), REPLAY_PROTECTION_LIST_DIRECTORY);
+        final File file = new File(directory, meshNetwork.getMeshUUID() + ".log");
+        mMeshMessageHandler.attachReplayProtectionLog(new ReplayProtectionLog(file, mReplayProtectionLogExecutor));
+        mMeshMessageHandler.pruneReplayProtectionList(meshNetwork.getIvIndex().getIvIndex());
+    }
+
+    /**
+     * Returns the executor writing the replay protection log. Its thread terminates once there is nothing left to write, so
+     * that no thread is left behind when the mesh manager is no longer used.
+     */
+    private static ScheduledExecutorService createReplayProtectionLogExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setKeepAliveTime(REPLAY_PROTECTION_LOG_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private void insertNetwork(final MeshNetwork meshNetwork) {
         meshNetwork.setLastSelected(true);
         //If there is only one provisioner we default to the zeroth
@@ -234,21 +552,24 @@ public class MeshManagerApi implements MeshMngrApi {
 
     @Override
     public final void handleNotifications(final int mtuSize, @NonNull final byte[] data) {
-        byte[] unsegmentedPdu;
-        if (!isGattSegmented(data)) {
-            unsegmentedPdu = data;
+        if (mDispatchToScheduler) {
+            final byte[] pdu = data.clone();
+            mScheduler.execute(() -> processNotification(mtuSize, pdu));
         } else {
-            final byte[] combinedPdu = appendPdu(mtuSize, data);
-            if (combinedPdu == null) {
-                //Start the timer
-                toggleProxyProtocolSarTimeOut(data);
-                return;
-            } else {
-                toggleProxyProtocolSarTimeOut(data);
-                unsegmentedPdu = removeSegmentation(mtuSize, combinedPdu);
-            }
+            processNotification(mtuSize, data);
+        }
+    }
+
+    private void processNotification(final int mtuSize, @NonNull final byte[] data) {
+        if (data.length == 0)
+            return;
+        if (ProxyProtocolCodec.isSegmented(data)) {
+            toggleProxyProtocolSarTimeOut(data);
+        }
+        final byte[] unsegmentedPdu = mIncomingCodec.decode(data);
+        if (unsegmentedPdu != null) {
+            parseNotifications(unsegmentedPdu);
         }
-        parseNotifications(unsegmentedPdu);
     }
 
     /**
@@ -257,11 +578,13 @@ public class MeshManagerApi implements MeshMngrApi {
      * @param data pdu
      */
     private void toggleProxyProtocolSarTimeOut(final byte[] data) {
-        final int pduType = MeshParserUtils.unsignedByteToInt(data[0]);
-        if (pduType == ((GATT_SAR_START << SAR_BIT_OFFSET) | MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION)) {
-            mHandler.postDelayed(mProxyProtocolTimeoutRunnable, PROXY_SAR_TRANSFER_TIME_OUT);
-        } else if (pduType == ((GATT_SAR_END << SAR_BIT_OFFSET) | MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION)) {
-            mHandler.removeCallbacks(mProxyProtocolTimeoutRunnable);
+        if (ProxyProtocolCodec.getPduType(data[0]) != PDU_TYPE_PROXY_CONFIGURATION)
+            return;
+        final int sar = ProxyProtocolCodec.getSar(data[0]);
+        if (sar == ProxyProtocolCodec.SAR_START) {
+            mScheduler.schedule(mProxyProtocolTimeoutRunnable, PROXY_SAR_TRANSFER_TIME_OUT);
+        } else if (sar == ProxyProtocolCodec.SAR_END) {
+            mScheduler.cancel(mProxyProtocolTimeoutRunnable);
         }
     }
 
@@ -279,101 +602,98 @@ public class MeshManagerApi implements MeshMngrApi {
                     mMeshMessageHandler.parseMeshPduNotifications(unsegmentedPdu, mMeshNetwork);
                     break;
                 case PDU_TYPE_MESH_BEACON:
-                    //Validate SNBs against all network keys
-                    NetworkKey networkKey;
-                    for (int i = 0; i < mMeshNetwork.getNetKeys().size(); i++) {
-                        networkKey = mMeshNetwork.getNetKeys().get(i);
-                        final byte[] receivedBeaconData = new byte[unsegmentedPdu.length - 1];
-                        System.arraycopy(unsegmentedPdu, 1, receivedBeaconData, 0, receivedBeaconData.length);
-                        final SecureNetworkBeacon receivedBeacon = new SecureNetworkBeacon(receivedBeaconData);
-
-                        final byte[] n = networkKey.getTxNetworkKey();
-                        final int flags = receivedBeacon.getFlags();
-                        final byte[] networkId = SecureUtils.calculateK3(n);
-                        final int ivIndex = receivedBeacon.getIvIndex().getIvIndex();
-                        MeshLogger.debug(TAG, "Received mesh beacon: " + receivedBeacon);
-
-                        final SecureNetworkBeacon localSecureNetworkBeacon = SecureUtils.createSecureNetworkBeacon(n, flags, networkId, ivIndex);
-                        //Check the the beacon received is a valid by matching the authentication values
-                        if (Arrays.equals(receivedBeacon.getAuthenticationValue(), localSecureNetworkBeacon.getAuthenticationValue())) {
-                            MeshLogger.debug(TAG, "Secure Network Beacon authenticated.");
-
-                            //  The library does not retransmit Secure Network Beacon.
-                            //  If this node is a member of a primary subnet and receives a Secure Network
-                            //  beacon on a secondary subnet, it will disregard it.
-                            if (mMeshNetwork.getPrimaryNetworkKey() != null && networkKey.keyIndex != 0) {
-                                MeshLogger.debug(TAG, "Discarding beacon for secondary subnet with network key index: " + networkKey.keyIndex);
-                                return;
-                            }
+                    //Proxies repeat the same beacon, which has no effect once it has been applied
+                    if (mMeshNetwork.secureNetworkBeaconTable.isDuplicate(unsegmentedPdu, mMeshNetwork.getIvIndex()))
+                        return;
+                    final byte[] receivedBeaconData = new byte[unsegmentedPdu.length - 1];
+                    System.arraycopy(unsegmentedPdu, 1, receivedBeaconData, 0, receivedBeaconData.length);
+                    final SecureNetworkBeacon receivedBeacon = new SecureNetworkBeacon(receivedBeaconData);
+                    MeshLogger.debug(TAG, "Received mesh beacon: " + receivedBeacon);
+
+                    //Validate SNBs against the network key with a matching network id
+                    final NetworkKey networkKey = mMeshNetwork.secureNetworkBeaconTable.authenticate(mMeshNetwork.getNetKeys(), unsegmentedPdu);
+                    if (networkKey == null) {
+                        MeshLogger.debug(TAG, "Discarding Secure Network Beacon that could not be authenticated.");
+                        return;
+                    }
+                    MeshLogger.debug(TAG, "Secure Network Beacon authenticated.");
+
+                    //  The library does not retransmit Secure Network Beacon.
+                    //  If this node is a member of a primary subnet and receives a Secure Network
+                    //  beacon on a secondary subnet, it will disregard it.
+                    if (mMeshNetwork.getPrimaryNetworkKey() != null && networkKey.keyIndex != 0) {
+                        MeshLogger.debug(TAG, "Discarding beacon for secondary subnet with network key index: " + networkKey.keyIndex);
+                        return;
+                    }
 
-                            // Get the last IV Index.
-                            /// The last used IV Index for this mesh network.
-                            final IvIndex lastIvIndex = mMeshNetwork.getIvIndex();
-                            MeshLogger.debug(TAG, "Last IV Index: " + lastIvIndex.getIvIndex());
-                            /// The date of the last change of IV Index or IV Update Flag.
-                            final Calendar lastTransitionDate = lastIvIndex.getTransitionDate();
-                            /// A flag whether the IV has recently been updated using IV Recovery procedure.
-                            /// The at-least-96h requirement for the duration of the current state will not apply.
-                            /// The node shall not execute more than one IV Index Recovery within a period of 192 hours.
-                            final boolean isIvRecoveryActive = lastIvIndex.getIvRecoveryFlag();
-                            /// The test mode disables the 96h rule, leaving all other behavior unchanged.
-                            final boolean isIvTestModeActive = ivUpdateTestModeActive;
-
-                            final boolean flag = allowIvIndexRecoveryOver42;
-                            if (!receivedBeacon.canOverwrite(lastIvIndex, lastTransitionDate, isIvRecoveryActive, isIvTestModeActive, flag)) {
-                                String numberOfHoursSinceDate = ((Calendar.getInstance().getTimeInMillis() -
-                                        (lastTransitionDate != null ? lastTransitionDate.getTimeInMillis() : 0)) / (3600 * 1000)) + "h";
-                                MeshLogger.warn(TAG, "Discarding beacon " + receivedBeacon.getIvIndex() +
-                                        ", last " + lastIvIndex.getIvIndex() + ", changed: "
-                                        + numberOfHoursSinceDate + " ago, test mode: " + ivUpdateTestModeActive);
-                                return;
-                            }
+                    // Get the last IV Index.
+                    /// The last used IV Index for this mesh network.
+                    final IvIndex lastIvIndex = mMeshNetwork.getIvIndex();
+                    MeshLogger.debug(TAG, "Last IV Index: " + lastIvIndex.getIvIndex());
+                    /// The date of the last change of IV Index or IV Update Flag.
+                    final Calendar lastTransitionDate = lastIvIndex.getTransitionDate();
+                    /// A flag whether the IV has recently been updated using IV Recovery procedure.
+                    /// The at-least-96h requirement for the duration of the current state will not apply.
+                    /// The node shall not execute more than one IV Index Recovery within a period of 192 hours.
+                    final boolean isIvRecoveryActive = lastIvIndex.getIvRecoveryFlag();
+                    /// The test mode disables the 96h rule, leaving all other behavior unchanged.
+                    final boolean isIvTestModeActive = ivUpdateTestModeActive;
+
+                    final boolean flag = allowIvIndexRecoveryOver42;
+                    if (!receivedBeacon.canOverwrite(lastIvIndex, lastTransitionDate, isIvRecoveryActive, isIvTestModeActive, flag)) {
+                        String numberOfHoursSinceDate = ((Calendar.getInstance().getTimeInMillis() -
+                                (lastTransitionDate != null ? lastTransitionDate.getTimeInMillis() : 0)) / (3600 * 1000)) + "h";
+                        MeshLogger.warn(TAG, "Discarding beacon " + receivedBeacon.getIvIndex() +
+                                ", last " + lastIvIndex.getIvIndex() + ", changed: "
+                                + numberOfHoursSinceDate + " ago, test mode: " + ivUpdateTestModeActive);
+                        return;
+                    }
 
-                            final IvIndex receivedIvIndex = receivedBeacon.getIvIndex();
-                            if (receivedIvIndex.getIvIndex() > lastIvIndex.getIvIndex()) {
-                                mMeshNetwork.ivIndex = receivedIvIndex;
-                                MeshLogger.info(TAG, "Applying: " + mMeshNetwork.ivIndex.getIvIndex());
-                            } else {
-                                // This will leave the IV update active state intact or will switch from false to true.
-                                // canOverwrite() ensures this by discarding the secureNetworkBeacon received.
-                                mMeshNetwork.ivIndex.setIvUpdateActive(receivedIvIndex.isIvUpdateActive());
-                                MeshLogger.info(TAG, "Setting IV Update Active to: " + receivedIvIndex.isIvUpdateActive());
-                            }
+                    final IvIndex receivedIvIndex = receivedBeacon.getIvIndex();
+                    if (receivedIvIndex.getIvIndex() > lastIvIndex.getIvIndex()) {
+                        mMeshNetwork.ivIndex = receivedIvIndex;
+                        MeshLogger.info(TAG, "Applying: " + mMeshNetwork.ivIndex.getIvIndex());
+                        mMeshMessageHandler.pruneReplayProtectionList(receivedIvIndex.getIvIndex());
+                    } else {
+                        // This will leave the IV update active state intact or will switch from false to true.
+                        // canOverwrite() ensures this by discarding the secureNetworkBeacon received.
+                        mMeshNetwork.ivIndex.setIvUpdateActive(receivedIvIndex.isIvUpdateActive());
+                        MeshLogger.info(TAG, "Setting IV Update Active to: " + receivedIvIndex.isIvUpdateActive());
+                    }
 
-                            // If the IV Index used for transmitting messages effectively increased,
-                            // the Node shall reset the sequence number to 0x000000.
-                            if (mMeshNetwork.ivIndex.getTransmitIvIndex() > lastIvIndex.getTransmitIvIndex()) {
-                                MeshLogger.info(TAG, "Resetting local sequence numbers to 0");
-                                final Provisioner provisioner = mMeshNetwork.getSelectedProvisioner();
-                                final ProvisionedMeshNode node = mMeshNetwork.getNode(provisioner.getProvisionerUuid());
-                                node.setSequenceNumber(0);
-                            }
+                    // If the IV Index used for transmitting messages effectively increased,
+                    // the Node shall reset the sequence number to 0x000000.
+                    if (mMeshNetwork.ivIndex.getTransmitIvIndex() > lastIvIndex.getTransmitIvIndex()) {
+                        MeshLogger.info(TAG, "Resetting local sequence numbers to 0");
+                        final Provisioner provisioner = mMeshNetwork.getSelectedProvisioner();
+                        final ProvisionedMeshNode node = mMeshNetwork.getNode(provisioner.getProvisionerUuid());
+                        node.setSequenceNumber(0);
+                    }
 
-                            //Updating the iv recovery flag
-                            if (lastIvIndex != mMeshNetwork.ivIndex) {
-                                final boolean ivRecovery = mMeshNetwork.getIvIndex().getIvIndex() > lastIvIndex.getIvIndex() + 1
-                                        && !receivedBeacon.getIvIndex().isIvUpdateActive();
-                                mMeshNetwork.getIvIndex().setIvRecoveryFlag(ivRecovery);
-                            }
+                    //Updating the iv recovery flag
+                    if (lastIvIndex != mMeshNetwork.ivIndex) {
+                        final boolean ivRecovery = mMeshNetwork.getIvIndex().getIvIndex() > lastIvIndex.getIvIndex() + 1
+                                && !receivedBeacon.getIvIndex().isIvUpdateActive();
+                        mMeshNetwork.getIvIndex().setIvRecoveryFlag(ivRecovery);
+                    }
 
-                            if (!mMeshNetwork.ivIndex.getIvRecoveryFlag()) {
-                                final Iterator<Entry<Integer, List<Integer>>> iterator = mMeshNetwork.networkExclusions.entrySet().iterator();
-                                while (iterator.hasNext()) {
-                                    final Entry<Integer, List<Integer>> exclusions = iterator.next();
-                                    final int expectedIncrement = exclusions.getKey() + 2;
-                                    if (mMeshNetwork.ivIndex.getIvIndex() >= expectedIncrement) {
-                                        // Clear the last known sequence number of addresses that are to be removed from the exclusion list.
-                                        // Decided to retain the last known sequence number as the IV Indexes increment the sequence number
-                                        // will be greater than the last known anyways
-                                        //for (Integer address : mMeshNetwork.networkExclusions.get(expectedIncrement)) {
-                                        //    mMeshNetwork.sequenceNumbers.removeAt(address);
-                                        //}
-                                        iterator.remove();
-                                    }
-                                }
+                    if (!mMeshNetwork.ivIndex.getIvRecoveryFlag()) {
+                        final Iterator<Entry<Integer, List<Integer>>> iterator = mMeshNetwork.networkExclusions.entrySet().iterator();
+                        while (iterator.hasNext()) {
+                            final Entry<Integer, List<Integer>> exclusions = iterator.next();
+                            final int expectedIncrement = exclusions.getKey() + 2;
+                            if (mMeshNetwork.ivIndex.getIvIndex() >= expectedIncrement) {
+                                // Clear the last known sequence number of addresses that are to be removed from the exclusion list.
+                                // Decided to retain the last known sequence number as the IV Indexes increment the sequence number
+                                // will be greater than the last known anyways
+                                //for (Integer address : mMeshNetwork.networkExclusions.get(expectedIncrement)) {
+                                //    mMeshNetwork.sequenceNumbers.removeAt(address);
+                                //}
+                                iterator.remove();
                             }
                         }
                     }
+                    mMeshNetwork.secureNetworkBeaconTable.onAccepted(unsegmentedPdu, mMeshNetwork.getIvIndex());
                     break;
                 case PDU_TYPE_PROXY_CONFIGURATION:
                     //Proxy configuration
@@ -386,8 +706,6 @@ public class MeshManagerApi implements MeshMngrApi {
                     mMeshProvisioningHandler.parseProvisioningNotifications(unsegmentedPdu);
                     break;
             }
-        } catch (ExtendedInvalidCipherTextException ex) {
-            //TODO handle decryption failure
         } catch (IllegalArgumentException ex) {
             MeshLogger.error(TAG, "Parsing notification failed: " + MeshParserUtils.bytesToHex(unsegmentedPdu, true) + " - " + ex.getMessage());
         }
@@ -395,18 +713,41 @@ public class MeshManagerApi implements MeshMngrApi {
 
     @Override
     public final void handleWriteCallbacks(final int mtuSize, @NonNull final byte[] data) {
-        byte[] unsegmentedPdu;
-        if (!isGattSegmented(data)) {
-            unsegmentedPdu = data;
+        if (mDispatchToScheduler) {
+            final byte[] pdu = data.clone();
+            mScheduler.execute(() -> processWriteCallback(mtuSize, pdu));
         } else {
-            final byte[] combinedPdu = appendWritePdu(mtuSize, data);
-            if (combinedPdu == null)
-                return;
-            else {
-                unsegmentedPdu = removeSegmentation(mtuSize, combinedPdu);
-            }
+            processWriteCallback(mtuSize, data);
+        }
+    }
+
+    @Override
+    public final void handleProvisioningNotifications(@NonNull final UUID deviceUuid, @NonNull final byte[] data) {
+        if (mDispatchToScheduler) {
+            final byte[] pdu = data.clone();
+            mScheduler.execute(() -> mMeshProvisioningHandler.parseProvisioningNotifications(deviceUuid, pdu));
+        } else {
+            mMeshProvisioningHandler.parseProvisioningNotifications(deviceUuid, data);
+        }
+    }
+
+    @Override
+    public final void handleProvisioningWriteCallbacks(@NonNull final UUID deviceUuid, @NonNull final byte[] data) {
+        if (mDispatchToScheduler) {
+            final byte[] pdu = data.clone();
+            mScheduler.execute(() -> mMeshProvisioningHandler.handleProvisioningWriteCallbacks(deviceUuid, pdu));
+        } else {
+            mMeshProvisioningHandler.handleProvisioningWriteCallbacks(deviceUuid, data);
+        }
+    }
+
+    private void processWriteCallback(final int mtuSize, @NonNull final byte[] data) {
+        if (data.length == 0)
+            return;
+        final byte[] unsegmentedPdu = mOutgoingCodec.decode(data);
+        if (unsegmentedPdu != null) {
+            handleWriteCallbacks(unsegmentedPdu);
         }
-        handleWriteCallbacks(unsegmentedPdu);
     }
 
     /**
@@ -432,136 +773,6 @@ public class MeshManagerApi implements MeshMngrApi {
         }
     }
 
-    @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private boolean isGattSegmented(final byte[] pdu) {
-        final int gattSar = (pdu[0] & GATT_SAR_MASK) >> SAR_BIT_OFFSET;
-        switch (gattSar) {
-            case GATT_SAR_START:
-            case GATT_SAR_CONTINUATION:
-            case GATT_SAR_END:
-                return true;
-            default:
-                return false;
-        }
-    }
-
-    /**
-     * Appends the PDUs that are segmented at gatt layer.
-     *
-     * @param mtuSize mtu size supported by the device/node
-     * @param pdu     pdu received by the provisioner
-     * @return the combine pdu or returns null if not complete.
-     */
-    private byte[] appendPdu(final int mtuSize, final byte[] pdu) {
-        final int length = Math.min(pdu.length, mtuSize);
-        if (mIncomingBuffer == null) {
-            mIncomingBufferOffset = 0;
-            mIncomingBufferOffset += length;
-            mIncomingBuffer = pdu;
-        } else {
-            final byte[] buffer = new byte[mIncomingBuffer.length + length];
-            System.arraycopy(mIncomingBuffer, 0, buffer, 0, mIncomingBufferOffset);
-            System.arraycopy(pdu, 0, buffer, mIncomingBufferOffset, length);
-            mIncomingBufferOffset += length;
-            mIncomingBuffer = buffer;
-            final int sar = MeshParserUtils.unsignedByteToInt(pdu[0]) >> SAR_BIT_OFFSET;
-            if (sar == GATT_SAR_END) {
-                final byte[] packet = mIncomingBuffer;
-                mIncomingBuffer = null;
-                return packet;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Appends the PDUs that are segmented at gatt layer.
-     *
-     * @param mtuSize mtu size supported by the device/node
-     * @param pdu     pdu received by the provisioner
-     * @return the combine pdu or returns null if not complete.
-     */
-    private byte[] appendWritePdu(final int mtuSize, final byte[] pdu) {
-        if (mOutgoingBuffer == null) {
-            final int length = Math.min(pdu.length, mtuSize);
-            mOutgoingBufferOffset = 0;
-            mOutgoingBufferOffset += length;
-            mOutgoingBuffer = pdu;
-        } else {
-            final int length = Math.min(pdu.length, mtuSize);
-            final byte[] buffer = new byte[mOutgoingBuffer.length + length];
-            System.arraycopy(mOutgoingBuffer, 0, buffer, 0, mOutgoingBufferOffset);
-            System.arraycopy(pdu, 0, buffer, mOutgoingBufferOffset, length);
-            mOutgoingBufferOffset += length;
-            mOutgoingBuffer = buffer;
-            if (length < mtuSize) {
-                final byte[] packet = mOutgoingBuffer;
-                mOutgoingBuffer = null;
-                return packet;
-            }
-        }
-        return null;
-    }
-
-    private byte[] applySegmentation(final int mtuSize, final byte[] pdu) {
-        int srcOffset = 0;
-        int dstOffset = 0;
-        final int chunks = (pdu.length + (mtuSize - 1)) / mtuSize;
-
-        final int pduType = pdu[0];
-        if (chunks > 1) {
-            final byte[] segmentedBuffer = new byte[pdu.length + chunks - 1];
-            int length;
-            for (int i = 0; i < chunks; i++) {
-                if (i == 0) {
-                    length = Math.min(pdu.length - srcOffset, mtuSize);
-                    System.arraycopy(pdu, srcOffset, segmentedBuffer, dstOffset, length);
-                    segmentedBuffer[0] = (byte) ((GATT_SAR_START << 6) | pduType);
-                } else if (i == chunks - 1) {
-                    length = Math.min(pdu.length - srcOffset, mtuSize);
-                    segmentedBuffer[dstOffset] = (byte) ((GATT_SAR_END << 6) | pduType);
-                    System.arraycopy(pdu, srcOffset, segmentedBuffer, dstOffset + 1, length);
-                } else {
-                    length = Math.min(pdu.length - srcOffset, mtuSize - 1);
-                    segmentedBuffer[dstOffset] = (byte) ((GATT_SAR_CONTINUATION << 6) | pduType);
-                    System.arraycopy(pdu, srcOffset, segmentedBuffer, dstOffset + 1, length);
-                }
-                srcOffset += length;
-                dstOffset += mtuSize;
-            }
-            return segmentedBuffer;
-        }
-        return pdu;
-    }
-
-    private byte[] removeSegmentation(final int mtuSize, final byte[] data) {
-        int srcOffset = 0;
-        int dstOffset = 0;
-        final int chunks = (data.length + (mtuSize - 1)) / mtuSize;
-        if (chunks > 1) {
-            final byte[] buffer = new byte[data.length - (chunks - 1)];
-            int length;
-            for (int i = 0; i < chunks; i++) {
-                // when removing segmentation bits we only remove the start because the pdu type would be the same for each segment.
-                // Therefore we can ignore this pdu type byte as they are already put together in the ble
-                length = Math.min(buffer.length - dstOffset, mtuSize);
-                if (i == 0) {
-                    System.arraycopy(data, srcOffset, buffer, dstOffset, length);
-                    buffer[0] = (byte) (buffer[0] & GATT_SAR_UNMASK);
-                } else if (i == chunks - 1) {
-                    System.arraycopy(data, srcOffset + 1, buffer, dstOffset, length);
-                } else {
-                    length = length - 1;
-                    System.arraycopy(data, srcOffset + 1, buffer, dstOffset, length);
-                }
-                srcOffset += mtuSize;
-                dstOffset += length;
-            }
-            return buffer;
-        }
-        return data;
-    }
-
     @Override
     public void identifyNode(@NonNull final UUID deviceUUID) throws IllegalArgumentException {
         identifyNode(deviceUUID, MeshProvisioningHandler.ATTENTION_TIMER);
@@ -612,6 +823,32 @@ public class MeshManagerApi implements MeshMngrApi {
         mMeshProvisioningHandler.sendProvisioningConfirmation(authentication);
     }
 
+    @Override
+    public void setProvisioningAuthentication(@NonNull final UUID deviceUuid, @NonNull final String authentication) {
+        mMeshProvisioningHandler.sendProvisioningConfirmation(deviceUuid, authentication);
+    }
+
+    /**
+     * Sets the number of key pairs generated in advance for the public key exchange during provisioning.
+     * <p>
+     * Key pairs are generated in the background when a node is identified and after a key pair has been used, so that
+     * the public key can be sent without waiting for a key pair to be generated. Each key pair is only used to provision a
+     * single node. Setting a depth also starts generating the key pairs.
+     * </p>
+     *
+     * @param depth Number of key pairs, defaults to {@link ProvisioningKeyPairPool#DEFAULT_DEPTH}.
+     *              Set to 0 to generate the key pair of each node during provisioning.
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public void setProvisioningKeyPairPoolDepth(final int depth) {
+        ProvisioningKeyPairPool.getInstance().setDepth(depth);
+    }
+
+    @Override
+    public void cancelProvisioning(@NonNull final UUID deviceUuid) {
+        runOnMeshStack(() -> mMeshProvisioningHandler.cancel(deviceUuid));
+    }
+
     @NonNull
     @Override
     public UUID getDeviceUuid(@NonNull final byte[] serviceData) throws IllegalArgumentException {
@@ -789,6 +1026,10 @@ public class MeshManagerApi implements MeshMngrApi {
      * </p>
      */
     public final void resetMeshNetwork() {
+        runOnMeshStack(this::replaceWithNewNetwork);
+    }
+
+    private void replaceWithNewNetwork() {
         //We delete the existing network as the user has already given the
         ivUpdateTestModeActive = false;
         allowIvIndexRecoveryOver42 = false;
@@ -798,6 +1039,7 @@ public class MeshManagerApi implements MeshMngrApi {
         newMeshNetwork.setCallbacks(callbacks);
         insertNetwork(newMeshNetwork);
         mMeshNetwork = newMeshNetwork;
+        attachReplayProtectionLog(mMeshNetwork);
         mMeshManagerCallbacks.onNetworkLoaded(newMeshNetwork);
     }
 
@@ -808,12 +1050,17 @@ public class MeshManagerApi implements MeshMngrApi {
      * </p>
      */
     public final void createMeshNetwork() {
+        runOnMeshStack(this::createNewNetwork);
+    }
+
+    private void createNewNetwork() {
         ivUpdateTestModeActive = false;
         allowIvIndexRecoveryOver42 = false;
         final MeshNetwork newMeshNetwork = generateMeshNetwork();
         newMeshNetwork.setCallbacks(callbacks);
         insertNetwork(newMeshNetwork);
         mMeshNetwork = newMeshNetwork;
+        attachReplayProtectionLog(mMeshNetwork);
         mMeshManagerCallbacks.onNetworkLoaded(newMeshNetwork);
     }
 
@@ -886,7 +1133,13 @@ public class MeshManagerApi implements MeshMngrApi {
                     throw new IllegalArgumentException("Label UUID unavailable for the virtual address provided");
                 }
             }
-            mMeshMessageHandler.createMeshMessage(provisioner.getProvisionerAddress(), dst, label, meshMessage);
+            final int src = provisioner.getProvisionerAddress();
+            if (mDispatchToScheduler) {
+                final UUID labelUuid = label;
+                mScheduler.execute(() -> mMeshMessageHandler.createMeshMessage(src, dst, labelUuid, meshMessage));
+            } else {
+                mMeshMessageHandler.createMeshMessage(src, dst, label, meshMessage);
+            }
         } else {
             throw new IllegalArgumentException("Provisioner address not set, please assign an address to the provisioner.");
         }
@@ -920,12 +1173,62 @@ public class MeshManagerApi implements MeshMngrApi {
         return null;
     }
 
+    @Override
+    public boolean exportMeshNetwork(@NonNull final OutputStream outputStream) {
+        try {
+            final MeshNetwork meshNetwork = mMeshNetwork;
+            mImportExportUtils.export(meshNetwork, outputStream);
+            return true;
+        } catch (Exception ex) {
+            mMeshManagerCallbacks.onNetworkImportFailed(ex.getMessage());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean exportMeshNetwork(@NonNull final NetworkKeysConfig networkKeysConfig,
+                                     @NonNull final ApplicationKeysConfig applicationKeysConfig,
+                                     @NonNull final NodesConfig nodesConfig,
+                                     @NonNull final ProvisionersConfig provisionersConfig,
+                                     @NonNull final GroupsConfig groupsConfig,
+                                     @NonNull final ScenesConfig scenesConfig,
+                                     @NonNull final OutputStream outputStream) {
+        try {
+            final MeshNetwork network = mMeshNetwork;
+            mImportExportUtils.export(network, networkKeysConfig, applicationKeysConfig,
+                    nodesConfig, provisionersConfig, groupsConfig, scenesConfig, outputStream);
+            return true;
+        } catch (Exception ex) {
+            mMeshManagerCallbacks.onNetworkImportFailed(ex.getMessage());
+        }
+        return false;
+    }
+
     @Override
     public void importMeshNetwork(@NonNull final Uri uri) {
         try {
             isNetworkImportInProgress = true;
-            importMeshNetworkJson(mImportExportUtils.readJsonStringFromUri(mContext.getContentResolver(), uri));
+            final InputStream inputStream = mContext.getContentResolver().openInputStream(uri);
+            if (inputStream == null)
+                throw new IOException("Unable to open " + uri);
+            try {
+                importMeshNetwork(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception ex) {
             isNetworkImportInProgress = false;
+            mMeshManagerCallbacks.onNetworkImportFailed(ex.getMessage());
+        }
+    }
+
+    @Override
+    public void importMeshNetwork(@NonNull final InputStream inputStream) {
+        try {
+            isNetworkImportInProgress = true;
+            // Pending changes of the current network must be written before the imported network replaces them.
+            mMeshNetworkDb.flush();
+            onNetworkImported(mImportExportUtils.importNetwork(inputStream));
         } catch (Exception ex) {
             isNetworkImportInProgress = false;
             mMeshManagerCallbacks.onNetworkImportFailed(ex.getMessage());
@@ -936,33 +1239,46 @@ public class MeshManagerApi implements MeshMngrApi {
     public void importMeshNetworkJson(@NonNull String networkJson) {
         try {
             isNetworkImportInProgress = true;
-            final MeshNetwork importedNetwork = mImportExportUtils.importNetwork(networkJson);
-            importedNetwork.setCallbacks(callbacks);
-            final MeshNetwork network = mMeshNetworkDb.getMeshNetwork(mMeshNetworkDao, importedNetwork.getMeshUUID());
-            if (network != null) {
-                final List<ProvisionedMeshNode> nodes = mMeshNetworkDb.getNodes(mProvisionedNodesDao, importedNetwork.getMeshUUID());
-                importedNetwork.unicastAddress = network.unicastAddress;
-                for (ProvisionedMeshNode meshNode : importedNetwork.getNodes()) {
-                    for (ProvisionedMeshNode node : nodes) {
-                        if (node.getUuid().equalsIgnoreCase(meshNode.getUuid())) {
-                            meshNode.setSequenceNumber(node.getSequenceNumber());
-                        }
+            // Pending changes of the current network must be written before the imported network replaces them.
+            mMeshNetworkDb.flush();
+            onNetworkImported(mImportExportUtils.importNetwork(networkJson));
+        } catch (Exception ex) {
+            isNetworkImportInProgress = false;
+            mMeshManagerCallbacks.onNetworkImportFailed(ex.getMessage());
+        }
+    }
+
+    /**
+     * Stores the imported network and replaces the current network with it on the mesh stack.
+     *
+     * @param importedNetwork Imported network
+     */
+    private void onNetworkImported(@NonNull final MeshNetwork importedNetwork) throws ExecutionException, InterruptedException {
+        importedNetwork.setCallbacks(callbacks);
+        final MeshNetwork network = mMeshNetworkDb.getMeshNetwork(mMeshNetworkDao, importedNetwork.getMeshUUID());
+        if (network != null) {
+            final List<ProvisionedMeshNode> nodes = mMeshNetworkDb.getNodes(mProvisionedNodesDao, importedNetwork.getMeshUUID());
+            importedNetwork.unicastAddress = network.unicastAddress;
+            for (ProvisionedMeshNode meshNode : importedNetwork.getNodes()) {
+                for (ProvisionedMeshNode node : nodes) {
+                    if (node.getUuid().equalsIgnoreCase(meshNode.getUuid())) {
+                        meshNode.setSequenceNumber(node.getSequenceNumber());
                     }
                 }
-                importedNetwork.loadSequenceNumbers();
-                // Load the last known ivIndex.
-                // Note: The iv index will be updated based on the secure network beacon after connecting to a proxy.
-                importedNetwork.ivIndex = network.ivIndex;
             }
-            mMeshNetworkDb.update(mMeshNetworkDao, importedNetwork, false);
-            insertNetwork(importedNetwork);
+            importedNetwork.loadSequenceNumbers();
+            // Load the last known ivIndex.
+            // Note: The iv index will be updated based on the secure network beacon after connecting to a proxy.
+            importedNetwork.ivIndex = network.ivIndex;
+        }
+        mMeshNetworkDb.update(mMeshNetworkDao, importedNetwork, false);
+        insertNetwork(importedNetwork);
+        runOnMeshStack(() -> {
             mMeshNetwork = importedNetwork;
+            attachReplayProtectionLog(mMeshNetwork);
             mMeshManagerCallbacks.onNetworkImported(importedNetwork);
             isNetworkImportInProgress = false;
-        } catch (Exception ex) {
-            isNetworkImportInProgress = false;
-            mMeshManagerCallbacks.onNetworkImportFailed(ex.getMessage());
-        }
+        });
     }
 
     @SuppressWarnings("FieldCanBeLocal")
@@ -986,17 +1302,32 @@ public class MeshManagerApi implements MeshMngrApi {
         @Override
         public void sendProvisioningPdu(final UnprovisionedMeshNode meshNode, final byte[] pdu) {
             final int mtu = mMeshManagerCallbacks.getMtu();
-            mMeshManagerCallbacks.sendProvisioningPdu(meshNode, applySegmentation(mtu, pdu));
+            mMeshManagerCallbacks.sendProvisioningPdu(meshNode, ProxyProtocolCodec.encode(mtu, pdu));
         }
 
         @Override
         public void onMeshPduCreated(final int dst, final byte[] pdu) {
-            //We must save the mesh network state for every message that is being sent out.
-            //This will specifically save the sequence number for every message sent.
+            //We must make sure the sequence number of every message that is being sent out is covered by a
+            //persisted reservation, the rest of the network state is written in the background.
+            final Provisioner provisioner = mMeshNetwork.getSelectedProvisioner();
+            if (provisioner != null) {
+                final ProvisionedMeshNode provisionerNode = mMeshNetwork.getNode(provisioner.getProvisionerUuid());
+                if (provisionerNode != null) {
+                    try {
+                        mMeshNetworkDb.reserveSequenceNumbers(provisionerNode);
+                    } catch (ExecutionException ex) {
+                        MeshLogger.error(TAG, "Failed to reserve sequence numbers, message not sent: " + ex.getMessage());
+                        return;
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
             final ProvisionedMeshNode meshNode = mMeshNetwork.getNode(dst);
             updateNetwork(meshNode);
             final int mtu = mMeshManagerCallbacks.getMtu();
-            mMeshManagerCallbacks.onMeshPduCreated(applySegmentation(mtu, pdu));
+            mMeshManagerCallbacks.onMeshPduCreated(ProxyProtocolCodec.encode(mtu, pdu));
         }
 
         @Override
@@ -1012,6 +1343,13 @@ public class MeshManagerApi implements MeshMngrApi {
         @Override
         public void updateMeshNetwork(final MeshMessage message) {
             final ProvisionedMeshNode meshNode = mMeshNetwork.getNode(message.getSrc());
+            if (message instanceof ConfigNetKeyStatus) {
+                // The security of a network key may change when it is added to an insecurely provisioned node.
+                final NetworkKey networkKey = mMeshNetwork.getNetKey(((ConfigNetKeyStatus) message).getNetKeyIndex());
+                if (networkKey != null) {
+                    mMeshNetworkDb.markDirty(networkKey);
+                }
+            }
             updateNetwork(meshNode);
         }
 
@@ -1037,6 +1375,7 @@ public class MeshManagerApi implements MeshMngrApi {
             final Scene scene = mMeshNetwork.getScene(currentScene);
             if (scene != null && !scene.getAddresses().contains(address)) {
                 scene.addresses.add(address);
+                mMeshNetworkDb.markDirty(scene);
             }
         }
 
@@ -1045,6 +1384,7 @@ public class MeshManagerApi implements MeshMngrApi {
             final Scene scene = mMeshNetwork.getScene(currentScene);
             if (scene != null && scene.getAddresses().contains(address)) {
                 scene.addresses.remove((Integer) address);
+                mMeshNetworkDb.markDirty(scene);
             }
         }
 
@@ -1056,9 +1396,10 @@ public class MeshManagerApi implements MeshMngrApi {
                         break;
                     }
                 }
+                // Elements of the node may have changed, i.e. when the composition data is received.
+                mMeshNetwork.reindexNode(meshNode);
             }
-            mMeshNetworkDb.update(mMeshNetwork, mMeshNetworkDao, mNetworkKeysDao, mApplicationKeysDao, mProvisionersDao, mProvisionedNodesDao,
-                    mGroupsDao, mScenesDao);
+            mMeshNetworkDb.markDirty(mMeshNetwork, meshNode);
             mMeshManagerCallbacks.onNetworkUpdated(mMeshNetwork);
         }
     };
@@ -1091,6 +1432,13 @@ public class MeshManagerApi implements MeshMngrApi {
             mMeshManagerCallbacks.onNetworkUpdated(mMeshNetwork);
         }
 
+        @Override
+        public void onProvisioningSessionClosed(final UUID deviceUuid) {
+            if (mMeshNetwork != null) {
+                mMeshNetwork.releaseUnicastAddresses(deviceUuid);
+            }
+        }
+
         private void updateProvisionedNodeList(final ProvisionedMeshNode meshNode) {
             for (int i = 0; i < mMeshNetwork.nodes.size(); i++) {
                 final ProvisionedMeshNode node = mMeshNetwork.nodes.get(i);
@@ -1100,6 +1448,7 @@ public class MeshManagerApi implements MeshMngrApi {
                 }
             }
             mMeshNetwork.nodes.add(meshNode);
+            mMeshNetwork.reindexNode(meshNode);
             updateNetworkKeySecurity(meshNode);
         }
     };
@@ -1180,20 +1529,75 @@ public class MeshManagerApi implements MeshMngrApi {
             return null;
         }
 
+        @NonNull
         @Override
-        public List<ApplicationKey> getApplicationKeys(final int boundNetKeyIndex) {
-            final List<ApplicationKey> keys = new ArrayList<>();
-            for (ApplicationKey key : mMeshNetwork.getAppKeys()) {
-                if (key.getBoundNetKeyIndex() == boundNetKeyIndex) {
-                    keys.add(key);
-                }
+        public List<ApplicationKeyTable.Candidate> getApplicationKeyCandidates(final int aid) {
+            return mMeshNetwork.getAppKeyCandidates(aid);
+        }
+
+        @Override
+        public UUID getVirtualLabel(final int address) {
+            final Group group = mMeshNetwork.getGroup(address);
+            return group == null ? null : group.getAddressLabel();
+        }
+    };
+
+    /**
+     * Forwards the mesh status to the running configuration plans before notifying the {@link MeshStatusCallbacks}.
+     */
+    private final MeshStatusCallbacks meshStatusCallbacks = new MeshStatusCallbacks() {
+        @Override
+        public void onTransactionFailed(final int dst, final boolean hasIncompleteTimerExpired) {
+            for (ConfigurationPlanExecutor executor : mConfigurationPlanExecutors) {
+                executor.onTransactionFailed(dst);
+            }
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onTransactionFailed(dst, hasIncompleteTimerExpired);
+        }
+
+        @Override
+        public void onUnknownPduReceived(final int src, final byte[] accessPayload) {
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onUnknownPduReceived(src, accessPayload);
+        }
+
+        @Override
+        public void onBlockAcknowledgementProcessed(final int dst, @NonNull final ControlMessage message) {
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onBlockAcknowledgementProcessed(dst, message);
+        }
+
+        @Override
+        public void onBlockAcknowledgementReceived(final int src, @NonNull final ControlMessage message) {
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onBlockAcknowledgementReceived(src, message);
+        }
+
+        @Override
+        public void onHeartbeatMessageReceived(final int src, @NonNull final ControlMessage message) {
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onHeartbeatMessageReceived(src, message);
+        }
+
+        @Override
+        public void onMeshMessageProcessed(final int dst, @NonNull final MeshMessage meshMessage) {
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onMeshMessageProcessed(dst, meshMessage);
+        }
+
+        @Override
+        public void onMeshMessageReceived(final int src, @NonNull final MeshMessage meshMessage) {
+            for (ConfigurationPlanExecutor executor : mConfigurationPlanExecutors) {
+                executor.onMeshMessageReceived(src, meshMessage);
             }
-            return keys;
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onMeshMessageReceived(src, meshMessage);
         }
 
         @Override
-        public List<Group> gerVirtualGroups() {
-            return mMeshNetwork.getGroups();
+        public void onMessageDecryptionFailed(final String meshLayer, final String errorMessage) {
+            if (mMeshStatusCallbacks != null)
+                mMeshStatusCallbacks.onMessageDecryptionFailed(meshLayer, errorMessage);
         }
     };
 
@@ -1213,8 +1617,12 @@ public class MeshManagerApi implements MeshMngrApi {
                 network.loadSequenceNumbers();
             }
             network.setCallbacks(callbacks);
-            mMeshNetwork = network;
-            mMeshManagerCallbacks.onNetworkLoaded(network);
+            // The network is loaded on a database thread, it replaces the current network on the mesh stack.
+            runOnMeshStack(() -> {
+                mMeshNetwork = network;
+                attachReplayProtectionLog(mMeshNetwork);
+                mMeshManagerCallbacks.onNetworkLoaded(network);
+            });
         }
 
         @Override
@@ -1331,7 +1739,8 @@ public class MeshManagerApi implements MeshMngrApi {
 
         @Override
         public void onNodeUpdated(@NonNull final ProvisionedMeshNode meshNode) {
-            mMeshNetworkDb.update(mProvisionedNodeDao, meshNode);
+            // Node rows are written through the journal so that a sequence number reservation is never overwritten.
+            mMeshNetworkDb.markDirty(mMeshNetwork, meshNode);
             onMeshNetworkUpdated();
         }
 
@@ -1373,14 +1782,28 @@ public class MeshManagerApi implements MeshMngrApi {
     };
 
     private boolean isAddressValid(@NonNull final UnprovisionedMeshNode node) {
-        final int unicast = mMeshNetwork.nextAvailableUnicastAddress(node.getNumberOfElements(), mMeshNetwork.getSelectedProvisioner());
-        if (!MeshAddress.isValidUnicastAddress(unicast)) {
-            throw new IllegalArgumentException("Invalid address");
+        if (!mMeshProvisioningHandler.hasSession(node.getDeviceUuid())) {
+            throw new IllegalArgumentException("Node must be identified before provisioning.");
+        }
+        // Addresses may have been reserved for the node in advance as part of a planned provisioning run.
+        final AllocatedUnicastRange reservation = mMeshNetwork.getUnicastReservation(node.getDeviceUuid());
+        if (reservation != null && reservation.getHighAddress() - reservation.getLowAddress() + 1 >= node.getNumberOfElements()) {
+            mMeshNetwork.unicastAddress = reservation.getLowAddress();
+        } else {
+            final int unicast = mMeshNetwork.nextAvailableUnicastAddress(node.getNumberOfElements(), mMeshNetwork.getSelectedProvisioner());
+            if (!MeshAddress.isValidUnicastAddress(unicast)) {
+                throw new IllegalArgumentException("Invalid address");
+            }
+            // The assigned address may already be reserved for a node that is provisioned at the same time.
+            if (mMeshNetwork.isUnicastAddressReserved(node.getDeviceUuid(), mMeshNetwork.getUnicastAddress(), node.getNumberOfElements())) {
+                mMeshNetwork.unicastAddress = unicast;
+            }
         }
         if (!mMeshNetwork.getSelectedProvisioner().isAddressWithinAllocatedRange(mMeshNetwork.getUnicastAddress())) {
             throw new IllegalArgumentException("Address assigned to node is outside of provisioner's allocated unicast range.");
         }
         node.setUnicastAddress(mMeshNetwork.getUnicastAddress());
+        mMeshNetwork.reserveUnicastAddresses(node.getDeviceUuid(), node.getUnicastAddress(), node.getNumberOfElements());
         return true;
     }
-}
\ No newline at end of file
+}
@@ -28,7 +28,6 @@ import androidx.annotation.NonNull;
 import no.nordicsemi.android.mesh.transport.BaseMeshMessageHandler;
 import no.nordicsemi.android.mesh.transport.NetworkLayerCallbacks;
 import no.nordicsemi.android.mesh.transport.UpperTransportLayerCallbacks;
-import no.nordicsemi.android.mesh.utils.ExtendedInvalidCipherTextException;
 
 /**
  * MeshMessageHandler class for handling mesh
@@ -50,6 +49,23 @@ final class MeshMessageHandler extends BaseMeshMessageHandler {
         super(context, internalTransportCallbacks, networkLayerCallbacks, upperTransportLayerCallbacks);
     }
 
+    /**
+     * Constructs MeshMessageHandler
+     *
+     * @param context                      Context
+     * @param scheduler                    {@link MeshScheduler} executing the timers of the transport layers
+     * @param internalTransportCallbacks   {@link InternalTransportCallbacks} Callbacks
+     * @param networkLayerCallbacks        {@link NetworkLayerCallbacks} network layer callbacks
+     * @param upperTransportLayerCallbacks {@link UpperTransportLayerCallbacks} upper transport layer callbacks
+     */
+    MeshMessageHandler(@NonNull final Context context,
+                       @NonNull final MeshScheduler scheduler,
+                       @NonNull final InternalTransportCallbacks internalTransportCallbacks,
+                       @NonNull final NetworkLayerCallbacks networkLayerCallbacks,
+                       @NonNull final UpperTransportLayerCallbacks upperTransportLayerCallbacks) {
+        super(context, scheduler, internalTransportCallbacks, networkLayerCallbacks, upperTransportLayerCallbacks);
+    }
+
     @Override
     protected final void setMeshStatusCallbacks(@NonNull final MeshStatusCallbacks statusCallbacks) {
         mStatusCallbacks = statusCallbacks;
@@ -57,7 +73,7 @@ final class MeshMessageHandler extends BaseMeshMessageHandler {
 
 
     @Override
-    protected final void parseMeshPduNotifications(@NonNull final byte[] pdu, @NonNull final MeshNetwork network) throws ExtendedInvalidCipherTextException {
+    protected final void parseMeshPduNotifications(@NonNull final byte[] pdu, @NonNull final MeshNetwork network) {
         super.parseMeshPduNotifications(pdu, network);
     }
 }
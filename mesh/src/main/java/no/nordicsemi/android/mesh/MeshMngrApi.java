@@ -2,6 +2,8 @@ package no.nordicsemi.android.mesh;
 
 import android.net.Uri;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.UUID;
 
 import androidx.annotation.NonNull;
@@ -55,6 +57,28 @@ interface MeshMngrApi {
      */
     void handleWriteCallbacks(final int mtuSize, @NonNull final byte[] data);
 
+    /**
+     * Handles notifications received on the PB-GATT link of a node that is being provisioned.
+     * <p>
+     * Use this method instead of {@link #handleNotifications(int, byte[])} when several nodes are provisioned at the same time.
+     * Each node is provisioned in a separate session identified by its device UUID, which is also the device UUID of the
+     * {@link UnprovisionedMeshNode} passed to the {@link MeshProvisioningStatusCallbacks} and
+     * {@link MeshManagerCallbacks#sendProvisioningPdu(UnprovisionedMeshNode, byte[])}.
+     * </p>
+     *
+     * @param deviceUuid Device uuid of the node, identifying the provisioning session
+     * @param data       PDU received by the client
+     */
+    void handleProvisioningNotifications(@NonNull final UUID deviceUuid, @NonNull final byte[] data);
+
+    /**
+     * Must be called to handle the provisioning states of a node when several nodes are provisioned at the same time.
+     *
+     * @param deviceUuid Device uuid of the node, identifying the provisioning session
+     * @param data       PDU written to the node
+     */
+    void handleProvisioningWriteCallbacks(@NonNull final UUID deviceUuid, @NonNull final byte[] data);
+
     /**
      * Identifies the node that is to be provisioned.
      * <p>
@@ -127,6 +151,21 @@ interface MeshMngrApi {
      */
     void setProvisioningAuthentication(@NonNull final String authentication);
 
+    /**
+     * Set the provisioning confirmation of a node when several nodes are provisioned at the same time.
+     *
+     * @param deviceUuid     Device uuid of the node, identifying the provisioning session
+     * @param authentication confirmation pin
+     */
+    void setProvisioningAuthentication(@NonNull final UUID deviceUuid, @NonNull final String authentication);
+
+    /**
+     * Cancels the provisioning of a node and releases the unicast addresses reserved for it.
+     *
+     * @param deviceUuid Device uuid of the node, identifying the provisioning session
+     */
+    void cancelProvisioning(@NonNull final UUID deviceUuid);
+
     /**
      * Returns the device uuid of an unprovisioned node
      *
@@ -230,12 +269,39 @@ interface MeshMngrApi {
 
     /**
      * Returns an already loaded mesh network, make sure to call {@link #loadMeshNetwork()} before calling this
+     * <p>
+     * The mesh network is updated by the mesh stack when messages are sent or received. If the mesh stack runs on a
+     * dedicated looper or executor, changes to the network such as adding or removing nodes, keys, groups or scenes
+     * must be made using {@link #runOnMeshStack(Runnable)}.
+     * </p>
      *
      * @return {@link MeshNetwork}
      */
     @Nullable
     MeshNetwork getMeshNetwork();
 
+    /**
+     * Executes a task on the looper or executor the mesh stack runs on, or immediately if the mesh stack runs on the
+     * thread of the caller.
+     * <p>
+     * Use this method to make changes to the mesh network, so that they are not made while the mesh stack is handling
+     * a message.
+     * </p>
+     *
+     * @param task Task to be executed
+     */
+    void runOnMeshStack(@NonNull final Runnable task);
+
+    /**
+     * Writes any pending changes of the mesh network to the local database.
+     * <p>
+     * Changes caused by sending or receiving messages are written in the background in batches. Call this method
+     * before the application is terminated to make sure that all changes have been persisted. This method blocks until
+     * the changes have been written and should not be called on the main thread.
+     * </p>
+     */
+    void flush();
+
 
     /**
      * Returns the current IV Test mode.
@@ -294,6 +360,41 @@ interface MeshMngrApi {
                              @NonNull final GroupsConfig groupsConfig,
                              @NonNull final ScenesConfig scenesConfig);
 
+    /**
+     * Exports full mesh network as json to an output stream.
+     * <p>
+     * Unlike {@link #exportMeshNetwork()} the json is written while the network is serialized, which keeps the memory
+     * used when exporting a large network low.
+     * </p>
+     *
+     * @param outputStream Output stream the json is written to, which is flushed but not closed.
+     * @return true if the network was exported and false otherwise.
+     */
+    boolean exportMeshNetwork(@NonNull final OutputStream outputStream);
+
+    /**
+     * Exports a partial mesh network as json to an output stream with the provided export configuration.
+     * <p>
+     * The export configuration is applied while the network is written, without copying the network.
+     * </p>
+     *
+     * @param networkKeysConfig     Export configuration for Network Keys.
+     * @param applicationKeysConfig Export configuration for Application Keys.
+     * @param nodesConfig           Export configuration for Nodes.
+     * @param provisionersConfig    Export configuration for Provisioners.
+     * @param groupsConfig          Export configuration for Groups.
+     * @param scenesConfig          Export configuration for scenes.
+     * @param outputStream          Output stream the json is written to, which is flushed but not closed.
+     * @return true if the network was exported and false otherwise.
+     */
+    boolean exportMeshNetwork(@NonNull final NetworkKeysConfig networkKeysConfig,
+                              @NonNull final ApplicationKeysConfig applicationKeysConfig,
+                              @NonNull final NodesConfig nodesConfig,
+                              @NonNull final ProvisionersConfig provisionersConfig,
+                              @NonNull final GroupsConfig groupsConfig,
+                              @NonNull final ScenesConfig scenesConfig,
+                              @NonNull final OutputStream outputStream);
+
     /**
      * Starts an asynchronous task that imports a network from the mesh configuration db json
      *
@@ -301,6 +402,16 @@ interface MeshMngrApi {
      */
     void importMeshNetwork(@NonNull final Uri uri);
 
+    /**
+     * Imports a network from the mesh configuration db json read from an input stream.
+     * <p>
+     * The nodes are read one at a time, without reading the whole json in to memory.
+     * </p>
+     *
+     * @param inputStream Input stream containing the configuration database json, which is not closed.
+     */
+    void importMeshNetwork(@NonNull final InputStream inputStream);
+
     /**
      * Starts an asynchronous task that imports a network from the mesh configuration db json
      *
@@ -5,6 +5,8 @@ import android.text.TextUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -15,7 +17,6 @@ import androidx.annotation.RestrictTo;
 import androidx.room.Entity;
 import no.nordicsemi.android.mesh.transport.Element;
 import no.nordicsemi.android.mesh.transport.MeshModel;
-import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
 
 import static no.nordicsemi.android.mesh.AddressRange.isAddressInAnyRanges;
@@ -144,60 +145,120 @@ public final class MeshNetwork extends BaseMeshNetwork {
         if (provisioner.getAllocatedUnicastRanges().isEmpty()) {
             throw new IllegalArgumentException("Please allocate a unicast address range to the provisioner");
         }
+        return addressAllocator.nextAvailableUnicastAddress(this, provisioner.getAllocatedUnicastRanges(), elementCount);
+    }
 
-        // Populate all addresses that are currently in use
-        final ArrayList<Integer> usedAddresses = new ArrayList<>();
-        for (ProvisionedMeshNode node : nodes) {
-            //There could be devices that are provisioned but does not have the number of elements yet so let's check for that.
-            if (node.getElements().size() > 0)
-                usedAddresses.addAll(node.getElements().keySet());
-            else
-                usedAddresses.add(node.getUnicastAddress());
-        }
-        // Excluded addresses with the current IvIndex and current IvIndex - 1 must be considered as addresses in use.
-        final List<Integer> addressesWithCurrentIvIndex = networkExclusions.get(ivIndex.getIvIndex());
-        if (addressesWithCurrentIvIndex != null)
-            usedAddresses.addAll(addressesWithCurrentIvIndex);
-        final List<Integer> addressesWithCurrentIvIndexMinusOne = networkExclusions.get(ivIndex.getIvIndex() - 1);
-        if (addressesWithCurrentIvIndexMinusOne != null)
-            usedAddresses.addAll(addressesWithCurrentIvIndexMinusOne);
-
-        Collections.sort(usedAddresses);
-        // Iterate through all nodes just once, while iterating over ranges.
-        int index = 0;
-        for (AllocatedUnicastRange range : provisioner.getAllocatedUnicastRanges()) {
-            // Start from the beginning of the current range.
-            int address = range.getLowAddress();
-
-            // Iterate through nodes that weren't checked yet in essence the used addresses which include the excluded adresses
-            for (int usedAddress : usedAddresses) {
-
-                // Skip nodes with addresses below the range.
-                if (address > usedAddress) {
-                    continue;
-                }
+    /**
+     * Reserves unicast addresses for the nodes of a planned provisioning run, so that the addresses are neither assigned to
+     * other nodes nor reserved twice. The addresses are allocated in the iteration order of the given map from the ranges
+     * allocated to the provisioner.
+     * <p>
+     * The reserved address is assigned to the node when it is provisioned with the same device UUID. Reservations are
+     * released when the provisioning session of the node is closed or by calling {@link #releaseUnicastAddresses(UUID)}.
+     * </p>
+     *
+     * @param provisioner   Provisioner provisioning the nodes
+     * @param elementCounts Element count of each node, by device UUID
+     * @return the unicast address reserved for each node, by device UUID
+     * @throws IllegalArgumentException if there is no allocated unicast range to the provisioner or if there are not enough
+     *                                  free unicast addresses, in which case the reservations are left as they were
+     */
+    @NonNull
+    public Map<UUID, Integer> reserveUnicastAddresses(@NonNull final Provisioner provisioner,
+                                                      @NonNull final Map<UUID, Integer> elementCounts) throws IllegalArgumentException {
+        final Map<UUID, AllocatedUnicastRange> previousReservations = new HashMap<>();
+        for (UUID deviceUuid : elementCounts.keySet()) {
+            final AllocatedUnicastRange reservation = unicastReservations.get(deviceUuid);
+            if (reservation != null) {
+                previousReservations.put(deviceUuid, reservation);
+            }
+        }
+        final Map<UUID, Integer> addresses = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<UUID, Integer> entry : elementCounts.entrySet()) {
+                // A previous reservation of the same node is replaced
+                releaseUnicastAddresses(entry.getKey());
+                final int address = nextAvailableUnicastAddress(entry.getValue(), provisioner);
+                if (address == -1)
+                    throw new IllegalArgumentException("Not enough unicast addresses available in the range allocated to the provisioner");
+                reserveUnicastAddresses(entry.getKey(), address, entry.getValue());
+                addresses.put(entry.getKey(), address);
+            }
+        } catch (IllegalArgumentException ex) {
+            // The reservations held before are restored, so that a failed call does not change anything
+            for (UUID deviceUuid : elementCounts.keySet()) {
+                releaseUnicastAddresses(deviceUuid);
+            }
+            for (Map.Entry<UUID, AllocatedUnicastRange> entry : previousReservations.entrySet()) {
+                unicastReservations.put(entry.getKey(), entry.getValue());
+                addressAllocator.onAddressesReserved(entry.getValue());
+            }
+            throw ex;
+        }
+        return addresses;
+    }
 
-                // If we found a space before the current node, return the address.
-                if (usedAddress > (address + (elementCount - 1))) {
-                    return address;
-                }
+    /**
+     * Reserves the unicast addresses of a node that is being provisioned, so that they are not assigned to other nodes
+     * provisioned at the same time.
+     *
+     * @param deviceUuid     Device UUID of the node
+     * @param unicastAddress Unicast address of the first element
+     * @param elementCount   Element count
+     * @throws IllegalArgumentException if the addresses are reserved for another node
+     */
+    void reserveUnicastAddresses(@NonNull final UUID deviceUuid, final int unicastAddress, final int elementCount) {
+        if (isUnicastAddressReserved(deviceUuid, unicastAddress, elementCount))
+            throw new IllegalArgumentException("Unicast address " + MeshAddress.formatAddress(unicastAddress, true)
+                    + " is reserved for a node that is being provisioned.");
+        final AllocatedUnicastRange reservation = createReservation(unicastAddress, elementCount);
+        final AllocatedUnicastRange previous = unicastReservations.put(deviceUuid, reservation);
+        if (previous != null) {
+            addressAllocator.onReservationReleased(this, previous);
+        }
+        addressAllocator.onAddressesReserved(reservation);
+    }
 
-                // Else, move the address to the next available address.
-                address = usedAddress + 1;
+    /**
+     * Returns the unicast addresses reserved for a node, or null if none.
+     *
+     * @param deviceUuid Device UUID of the node
+     */
+    @Nullable
+    AllocatedUnicastRange getUnicastReservation(@NonNull final UUID deviceUuid) {
+        return unicastReservations.get(deviceUuid);
+    }
 
-                // If the new address is outside of the range, go to the next one.
-                if (range.highAddress < address + (elementCount - 1)) {
-                    break;
-                }
-            }
+    /**
+     * Returns true if any of the given unicast addresses is reserved for another node that is being provisioned.
+     *
+     * @param deviceUuid     Device UUID of the node the addresses are checked for
+     * @param unicastAddress Unicast address of the first element
+     * @param elementCount   Element count
+     */
+    boolean isUnicastAddressReserved(@NonNull final UUID deviceUuid, final int unicastAddress, final int elementCount) {
+        final AllocatedUnicastRange range = createReservation(unicastAddress, elementCount);
+        for (Map.Entry<UUID, AllocatedUnicastRange> reservation : unicastReservations.entrySet()) {
+            if (!reservation.getKey().equals(deviceUuid) && reservation.getValue().overlaps(range))
+                return true;
+        }
+        return false;
+    }
 
-            if (range.getHighAddress() >= address + (elementCount - 1)) {
-                return address;
-            }
+    /**
+     * Releases the unicast addresses reserved for a node. This is done automatically when its provisioning session is closed.
+     *
+     * @param deviceUuid Device UUID of the node
+     */
+    public void releaseUnicastAddresses(@NonNull final UUID deviceUuid) {
+        final AllocatedUnicastRange reservation = unicastReservations.remove(deviceUuid);
+        if (reservation != null) {
+            addressAllocator.onReservationReleased(this, reservation);
         }
+    }
 
-        // No address was found :(
-        return -1;
+    private static AllocatedUnicastRange createReservation(final int unicastAddress, final int elementCount) {
+        return new AllocatedUnicastRange(unicastAddress, unicastAddress + Math.max(elementCount, 1) - 1);
     }
 
     /**
@@ -355,33 +416,20 @@ public final class MeshNetwork extends BaseMeshNetwork {
             throw new IllegalArgumentException("Provisioner has no group range allocated.");
         }
 
-        Collections.sort(groups, groupComparator);
         for (AllocatedGroupRange range : provisioner.getAllocatedGroupRanges()) {
             //If the list of groups are empty we can start with the lowest address of the range
             if (groups.isEmpty()) {
                 return range.getLowAddress();
             }
 
-            for (int address = range.lowAddress; address < range.getHighAddress(); address++) {
-                //if the address is not in use, return it as the next available address to create a group
-                if (!isGroupAddressInUse(address)) {
-                    return address;
-                }
+            final int address = addressAllocator.nextAvailableGroupAddress(groups, range.getLowAddress(), range.getHighAddress() - 1);
+            if (address != -1) {
+                return address;
             }
         }
         return null;
     }
 
-    private boolean isGroupAddressInUse(final int address) {
-        for (Group group : groups) {
-            //if the address is not in use, return it as the next available address to create a group
-            if (group.getAddress() == address) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Creates a group using the next available group address based on the provisioners allocated group range
      *
@@ -479,6 +527,8 @@ public final class MeshNetwork extends BaseMeshNetwork {
     private boolean insertGroup(@NonNull final Group group) {
         if (!isGroupExist(group)) {
             this.groups.add(group);
+            networkIndex.onGroupAdded(groups, group);
+            addressAllocator.onGroupAdded(groups, group);
             notifyGroupAdded(group);
             return true;
         }
@@ -490,12 +540,7 @@ public final class MeshNetwork extends BaseMeshNetwork {
      */
     @Nullable
     public Group getGroup(final int address) {
-        for (final Group group : groups) {
-            if (address == group.getAddress()) {
-                return group;
-            }
-        }
-        return null;
+        return networkIndex.getGroup(groups, address);
     }
 
     /**
@@ -518,6 +563,8 @@ public final class MeshNetwork extends BaseMeshNetwork {
      */
     public boolean removeGroup(@NonNull final Group group) {
         if (groups.remove(group)) {
+            networkIndex.onGroupRemoved(groups, group);
+            addressAllocator.onGroupRemoved(this, group);
             notifyGroupDeleted(group);
             return true;
         }
@@ -530,12 +577,7 @@ public final class MeshNetwork extends BaseMeshNetwork {
      * @param address Group address
      */
     public boolean isGroupExist(final int address) {
-        for (final Group group : groups) {
-            if (address == group.getAddress()) {
-                return true;
-            }
-        }
-        return false;
+        return networkIndex.getGroup(groups, address) != null;
     }
 
     /**
@@ -544,12 +586,7 @@ public final class MeshNetwork extends BaseMeshNetwork {
      * @param group Group to check
      */
     public boolean isGroupExist(@NonNull final Group group) {
-        for (final Group grp : groups) {
-            if (group.getAddress() == grp.getAddress()) {
-                return true;
-            }
-        }
-        return false;
+        return networkIndex.getGroup(groups, group.getAddress()) != null;
     }
 
 
@@ -568,39 +605,9 @@ public final class MeshNetwork extends BaseMeshNetwork {
             throw new IllegalArgumentException("Please allocate a scene range to the provisioner!");
         }
 
-        Collections.sort(scenes, sceneComparator);
-        // Iterate through all nodes just once, while iterating over ranges.
-        int index = 0;
         for (AllocatedSceneRange sceneRange : provisioner.getAllocatedSceneRanges()) {
-            // Start from the beginning of the current range.
-            int number = sceneRange.getFirstScene();
-
-            // Iterate through nodes that weren't checked yet.
-            int currentIndex = index;
-            for (int i = currentIndex; i < scenes.size(); i++) {
-                final Scene scene = scenes.get(i);
-                index += i;
-
-                // Skip scenes with number below the range.
-                if (number > scene.getNumber()) {
-                    continue;
-                }
-
-                // If we found a space before the current scene, return the scene number.
-                if (number < scene.getNumber()) {
-                    return number;
-                }
-
-                // Else, move the address to the next available address.
-                number = scene.getNumber() + 1;
-
-                // If the new address is outside of the range, go to the next one.
-                if (number > sceneRange.getLastScene()) {
-                    break;
-                }
-            }
-            // If the range has available space, return the address.
-            if (number <= sceneRange.getLastScene()) {
+            final int number = addressAllocator.nextAvailableSceneNumber(scenes, sceneRange.getFirstScene(), sceneRange.getLastScene());
+            if (number != -1) {
                 return number;
             }
         }
@@ -692,6 +699,8 @@ public final class MeshNetwork extends BaseMeshNetwork {
     private boolean insertScene(@NonNull final Scene scene) {
         if (!isSceneExist(scene)) {
             this.scenes.add(scene);
+            networkIndex.onSceneAdded(scenes, scene);
+            addressAllocator.onSceneAdded(scenes, scene);
             notifySceneAdded(scene);
             return true;
         }
@@ -703,12 +712,7 @@ public final class MeshNetwork extends BaseMeshNetwork {
      */
     @Nullable
     public Scene getScene(final int number) {
-        for (final Scene scene : scenes) {
-            if (number == scene.getNumber()) {
-                return scene;
-            }
-        }
-        return null;
+        return networkIndex.getScene(scenes, number);
     }
 
     /**
@@ -734,6 +738,8 @@ public final class MeshNetwork extends BaseMeshNetwork {
         if (!scene.addresses.isEmpty())
             throw new IllegalArgumentException("Scene is already in use!");
         if (scenes.remove(scene)) {
+            networkIndex.onSceneRemoved(scenes, scene);
+            addressAllocator.onSceneRemoved(this, scene);
             notifySceneDeleted(scene);
             return true;
         }
@@ -746,12 +752,7 @@ public final class MeshNetwork extends BaseMeshNetwork {
      * @param number Group address
      */
     public boolean isSceneExist(final int number) {
-        for (final Scene scene : scenes) {
-            if (scene.getNumber() == number) {
-                return true;
-            }
-        }
-        return false;
+        return networkIndex.getScene(scenes, number) != null;
     }
 
     /**
@@ -760,12 +761,7 @@ public final class MeshNetwork extends BaseMeshNetwork {
      * @param scene Scene
      */
     public boolean isSceneExist(@NonNull final Scene scene) {
-        for (final Scene scn : scenes) {
-            if (scn.getNumber() == scene.getNumber()) {
-                return true;
-            }
-        }
-        return false;
+        return networkIndex.getScene(scenes, scene.getNumber()) != null;
     }
 
     /**
@@ -779,11 +775,8 @@ public final class MeshNetwork extends BaseMeshNetwork {
         }
         final ArrayList<Scene> scenesList = new ArrayList<>();
         for (Scene scene : scenes) {
-            for (Integer addr : scene.getAddresses()) {
-                if (addr == address) {
-                    scenesList.add(scene);
-                    break;
-                }
+            if (scene.containsAddress(address)) {
+                scenesList.add(scene);
             }
         }
         return scenesList;
@@ -795,25 +788,7 @@ public final class MeshNetwork extends BaseMeshNetwork {
      * @param group group
      */
     public List<Element> getElements(final Group group) {
-        final List<Element> elements = new ArrayList<>();
-        for (final ProvisionedMeshNode node : nodes) {
-            for (Map.Entry<Integer, Element> elementEntry : node.getElements().entrySet()) {
-                final Element element = elementEntry.getValue();
-                for (Map.Entry<Integer, MeshModel> modelEntry : element.getMeshModels().entrySet()) {
-                    final MeshModel model = modelEntry.getValue();
-                    if (model != null) {
-                        final List<Integer> subscriptionAddresses = model.getSubscribedAddresses();
-                        for (Integer subscriptionAddress : subscriptionAddresses) {
-                            if (group.getAddress() == subscriptionAddress) {
-                                if (!elements.contains(element))
-                                    elements.add(element);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return elements;
+        return modelAddressIndex.getSubscribedElements(nodes, group.getAddress());
     }
 
     /**
@@ -822,25 +797,16 @@ public final class MeshNetwork extends BaseMeshNetwork {
      * @param group group
      */
     public List<MeshModel> getModels(final Group group) {
-        final List<MeshModel> models = new ArrayList<>();
-        for (final ProvisionedMeshNode node : nodes) {
-            for (Map.Entry<Integer, Element> elementEntry : node.getElements().entrySet()) {
-                final Element element = elementEntry.getValue();
-                for (Map.Entry<Integer, MeshModel> modelEntry : element.getMeshModels().entrySet()) {
-                    final MeshModel model = modelEntry.getValue();
-                    if (model != null) {
-                        final List<Integer> subscriptionAddresses = model.getSubscribedAddresses();
-                        for (Integer subscriptionAddress : subscriptionAddresses) {
-                            if (group.getAddress() == subscriptionAddress) {
-                                if (!models.contains(model))
-                                    models.add(model);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return models;
+        return modelAddressIndex.getSubscribedModels(nodes, group.getAddress());
+    }
+
+    /**
+     * Returns a list of models publishing to a particular group
+     *
+     * @param group group
+     */
+    public List<MeshModel> getPublishingModels(final Group group) {
+        return modelAddressIndex.getPublishingModels(nodes, group.getAddress());
     }
 
     /**
@@ -869,6 +835,38 @@ public final class MeshNetwork extends BaseMeshNetwork {
         return Collections.unmodifiableList(netKeys);
     }
 
+    /**
+     * Returns the network key derivatives matching the given NID, ordered by the last successful decryption.
+     *
+     * @param nid NID of a received network pdu
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    @NonNull
+    public List<NetworkKeyTable.Candidate> getNetKeyCandidates(final int nid) {
+        return netKeyTable.getCandidates(netKeys, nid);
+    }
+
+    /**
+     * To be called when a network pdu was successfully decrypted using the given candidate.
+     *
+     * @param candidate Candidate returned by {@link #getNetKeyCandidates(int)}
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void onNetKeyDecrypted(@NonNull final NetworkKeyTable.Candidate candidate) {
+        netKeyTable.onDecrypted(candidate);
+    }
+
+    /**
+     * Returns the current and old application keys matching the given AID.
+     *
+     * @param aid AID of a received access message
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    @NonNull
+    public List<ApplicationKeyTable.Candidate> getAppKeyCandidates(final int aid) {
+        return appKeyTable.getCandidates(appKeys, aid);
+    }
+
     public NetworkKey getPrimaryNetworkKey() {
         for (NetworkKey networkKey : netKeys) {
             if (networkKey.getKeyIndex() == 0) {
@@ -919,27 +917,6 @@ public final class MeshNetwork extends BaseMeshNetwork {
             throw new IllegalArgumentException("Address type must be a virtual address ");
         }
 
-        for (ProvisionedMeshNode node : nodes) {
-            for (Map.Entry<Integer, Element> elementEntry : node.getElements().entrySet()) {
-                final Element element = elementEntry.getValue();
-                for (Map.Entry<Integer, MeshModel> modelEntry : element.getMeshModels().entrySet()) {
-                    final MeshModel model = modelEntry.getValue();
-                    if (model != null) {
-                        if (model.getPublicationSettings() != null) {
-                            if (model.getPublicationSettings().getLabelUUID() != null) {
-                                if (address == MeshAddress.generateVirtualAddress(model.getPublicationSettings().getLabelUUID())) {
-                                    return model.getPublicationSettings().getLabelUUID();
-                                }
-                            }
-                        }
-                        final UUID label = model.getLabelUUID(address);
-                        if (label != null) {
-                            return label;
-                        }
-                    }
-                }
-            }
-        }
-        return null;
+        return modelAddressIndex.getLabelUuid(nodes, address);
     }
-}
\ No newline at end of file
+}
@@ -18,8 +18,10 @@ import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.room.Database;
 import androidx.room.Room;
@@ -88,6 +90,9 @@ abstract class MeshNetworkDb extends RoomDatabase {
     private static final int NUMBER_OF_THREADS = 4;
     private static final ExecutorService databaseWriteExecutor =
             Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    private static final ScheduledExecutorService journalExecutor =
+            Executors.newSingleThreadScheduledExecutor();
+    private final MeshNetworkJournal journal = new MeshNetworkJournal(this::writeJournal, journalExecutor);
 
     /**
      * Returns the mesh database
@@ -206,25 +211,94 @@ abstract class MeshNetworkDb extends RoomDatabase {
         databaseWriteExecutor.execute(() -> dao.update(meshNetworks));
     }
 
-    void update(@NonNull final MeshNetwork network,
-                @NonNull final MeshNetworkDao networkDao,
-                @NonNull final NetworkKeysDao netKeyDao,
-                @NonNull final ApplicationKeysDao appKeyDao,
-                @NonNull final ProvisionersDao provisionersDao,
-                @NonNull final ProvisionedMeshNodesDao nodesDao,
-                @NonNull final GroupsDao groupsDao,
-                @NonNull final ScenesDao sceneDao) {
-        databaseWriteExecutor.execute(() -> {
-            networkDao.update(network.meshUUID, network.meshName, network.timestamp,
-                    network.partial, MeshTypeConverters.ivIndexToJson(network.ivIndex),
-                    network.lastSelected,
-                    MeshTypeConverters.networkExclusionsToJson(new HashMap<>(network.getNetworkExclusions())));
-            netKeyDao.update(new ArrayList<>(network.netKeys));
-            appKeyDao.update(new ArrayList<>(network.appKeys));
-            provisionersDao.update(new ArrayList<>(network.provisioners));
-            nodesDao.update(new ArrayList<>(network.nodes));
-            groupsDao.update(new ArrayList<>(network.groups));
-            sceneDao.update(new ArrayList<>(network.scenes));
+    /**
+     * Marks the network row, its application keys, provisioners and groups and the given node as dirty. The changes
+     * are written in the background together with any other pending changes.
+     *
+     * @param network Mesh network
+     * @param node    Node that was changed, if any
+     */
+    void markDirty(@NonNull final MeshNetwork network, @Nullable final ProvisionedMeshNode node) {
+        journal.markDirty(network);
+        for (ApplicationKey appKey : network.appKeys) {
+            journal.markDirty(appKey);
+        }
+        for (Provisioner provisioner : network.provisioners) {
+            journal.markDirty(provisioner);
+        }
+        for (Group group : network.groups) {
+            journal.markDirty(group);
+        }
+        if (node != null) {
+            journal.markDirty(node);
+        }
+    }
+
+    /**
+     * Marks the given network key as dirty.
+     *
+     * @param networkKey Network key
+     */
+    void markDirty(@NonNull final NetworkKey networkKey) {
+        journal.markDirty(networkKey);
+    }
+
+    /**
+     * Marks the given scene as dirty.
+     *
+     * @param scene Scene
+     */
+    void markDirty(@NonNull final Scene scene) {
+        journal.markDirty(scene);
+    }
+
+    /**
+     * Persists a block of sequence numbers ahead of use for the given node. Blocks only if the current sequence
+     * number is not covered by a persisted block yet.
+     *
+     * @param node Node of the provisioner sending messages
+     */
+    void reserveSequenceNumbers(@NonNull final ProvisionedMeshNode node) throws ExecutionException, InterruptedException {
+        journal.reserveSequenceNumbers(node);
+    }
+
+    /**
+     * Writes all pending changes to the database and blocks until they are written.
+     */
+    void flush() throws ExecutionException, InterruptedException {
+        journal.flush();
+    }
+
+    private void writeJournal(@NonNull final MeshNetworkJournal.Batch batch) {
+        runInTransaction(() -> {
+            final MeshNetwork network = batch.network;
+            if (network != null) {
+                meshNetworkDao().update(network.meshUUID, network.meshName, network.timestamp,
+                        network.partial, MeshTypeConverters.ivIndexToJson(network.ivIndex),
+                        network.lastSelected,
+                        MeshTypeConverters.networkExclusionsToJson(new HashMap<>(network.getNetworkExclusions())));
+            }
+            if (!batch.netKeys.isEmpty()) {
+                networkKeysDao().update(batch.netKeys);
+            }
+            if (!batch.appKeys.isEmpty()) {
+                applicationKeysDao().update(batch.appKeys);
+            }
+            if (!batch.provisioners.isEmpty()) {
+                provisionersDao().update(batch.provisioners);
+            }
+            if (!batch.nodes.isEmpty()) {
+                provisionedMeshNodesDao().update(batch.nodes);
+            }
+            if (!batch.groups.isEmpty()) {
+                groupsDao().update(batch.groups);
+            }
+            if (!batch.scenes.isEmpty()) {
+                scenesDao().update(batch.scenes);
+            }
+            for (Map.Entry<String, Integer> entry : batch.sequenceNumbers.entrySet()) {
+                provisionedMeshNodeDao().updateSequenceNumber(entry.getKey(), entry.getValue());
+            }
         });
     }
 
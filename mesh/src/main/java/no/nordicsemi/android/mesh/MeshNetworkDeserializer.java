@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 import no.nordicsemi.android.mesh.transport.Element;
 import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
@@ -38,8 +39,21 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
     public MeshNetwork deserialize(final JsonElement json,
                                    final Type typeOfT,
                                    final JsonDeserializationContext context) throws JsonParseException {
+        return deserialize(json.getAsJsonObject(), context, null);
+    }
 
-        final JsonObject jsonObject = json.getAsJsonObject();
+    /**
+     * Returns the mesh network described by the json object
+     *
+     * @param jsonObject json object containing the mesh network
+     * @param context    deserializer context
+     * @param nodes      nodes of the network if they were already de-serialized, or null to de-serialize them from the
+     *                   json object
+     * @return Mesh network
+     */
+    MeshNetwork deserialize(@NonNull final JsonObject jsonObject,
+                            @NonNull final JsonDeserializationContext context,
+                            @Nullable final List<ProvisionedMeshNode> nodes) throws JsonParseException {
         if (!isValidMeshObject(jsonObject)) {
             throw new JsonSyntaxException("Invalid Mesh Provisioning/Configuration Database, " +
                     "Mesh Network must follow the Mesh Provisioning/Configuration Database format.");
@@ -71,12 +85,21 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
         network.provisioners = deserializeProvisioners(context,
                 jsonObject.getAsJsonArray("provisioners"), network.meshUUID);
 
-        network.nodes = deserializeNodes(context,
-                jsonObject.getAsJsonArray("nodes"), network.meshUUID);
+        if (nodes == null) {
+            network.nodes = deserializeNodes(context,
+                    jsonObject.getAsJsonArray("nodes"), network.meshUUID);
+        } else {
+            for (ProvisionedMeshNode node : nodes) {
+                node.setMeshUuid(network.meshUUID);
+            }
+            network.nodes = nodes;
+        }
 
-        network.groups = deserializeGroups(jsonObject, network.meshUUID);
+        if (jsonObject.has("groups"))
+            network.groups = deserializeGroups(jsonObject.getAsJsonArray("groups"), network.meshUUID);
 
-        network.scenes = deserializeScenes(jsonObject, network.meshUUID);
+        if (jsonObject.has("scenes"))
+            network.scenes = deserializeScenes(jsonObject.getAsJsonArray("scenes"), network.meshUUID);
         if (jsonObject.has("networkExclusions"))
             network.networkExclusions = deserializeExclusionList(jsonObject.getAsJsonArray("networkExclusions"));
 
@@ -114,7 +137,7 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param mesh json
      * @return true if valid and false otherwise
      */
-    private boolean isValidMeshObject(@NonNull final JsonObject mesh) {
+    boolean isValidMeshObject(@NonNull final JsonObject mesh) {
         // Partial, groups and scenes are commented out to maintain backward compatibility.
         return mesh.has("$schema") &&
                 mesh.has("id") &&
@@ -138,8 +161,8 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param networkKeys Network key list
      * @return JsonElement
      */
-    private JsonElement serializeNetKeys(@NonNull final JsonSerializationContext context,
-                                         @NonNull final List<NetworkKey> networkKeys) {
+    JsonElement serializeNetKeys(@NonNull final JsonSerializationContext context,
+                                 @NonNull final List<NetworkKey> networkKeys) {
         final Type networkKey = new TypeToken<List<NetworkKey>>() {
         }.getType();
         return context.serialize(networkKeys, networkKey);
@@ -153,9 +176,9 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param meshUuid network provisionerUuid
      * @return List of network keys
      */
-    private List<NetworkKey> deserializeNetKeys(@NonNull final JsonDeserializationContext context,
-                                                @NonNull final JsonArray json,
-                                                @NonNull final String meshUuid) {
+    List<NetworkKey> deserializeNetKeys(@NonNull final JsonDeserializationContext context,
+                                        @NonNull final JsonArray json,
+                                        @NonNull final String meshUuid) {
         final Type networkKey = new TypeToken<List<NetworkKey>>() {
         }.getType();
         final List<NetworkKey> networkKeys = context.deserialize(json, networkKey);
@@ -172,8 +195,8 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param applicationKeys Application key list
      * @return JsonElement
      */
-    private JsonElement serializeAppKeys(@NonNull final JsonSerializationContext context,
-                                         @NonNull final List<ApplicationKey> applicationKeys) {
+    JsonElement serializeAppKeys(@NonNull final JsonSerializationContext context,
+                                 @NonNull final List<ApplicationKey> applicationKeys) {
         final Type networkKey = new TypeToken<List<ApplicationKey>>() {
         }.getType();
         return context.serialize(applicationKeys, networkKey);
@@ -187,9 +210,9 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param meshUuid network provisionerUuid
      * @return List of app keys
      */
-    private List<ApplicationKey> deserializeAppKeys(@NonNull final JsonDeserializationContext context,
-                                                    @NonNull final JsonArray json,
-                                                    @NonNull final String meshUuid) {
+    List<ApplicationKey> deserializeAppKeys(@NonNull final JsonDeserializationContext context,
+                                            @NonNull final JsonArray json,
+                                            @NonNull final String meshUuid) {
         final Type applicationKeyList = new TypeToken<List<ApplicationKey>>() {
         }.getType();
         final List<ApplicationKey> applicationKeys = context.deserialize(json, applicationKeyList);
@@ -207,9 +230,9 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param meshUuid network provisionerUuid
      * @return List of nodes
      */
-    private List<Provisioner> deserializeProvisioners(@NonNull final JsonDeserializationContext context,
-                                                      @NonNull final JsonArray json,
-                                                      @NonNull final String meshUuid) {
+    List<Provisioner> deserializeProvisioners(@NonNull final JsonDeserializationContext context,
+                                              @NonNull final JsonArray json,
+                                              @NonNull final String meshUuid) {
         List<Provisioner> provisioners = new ArrayList<>();
         final JsonArray jsonProvisioners = json.getAsJsonArray();
         for (int i = 0; i < jsonProvisioners.size(); i++) {
@@ -253,8 +276,8 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param provisioners Provisioners list
      * @return JsonElement
      */
-    private JsonElement serializeProvisioners(@NonNull final JsonSerializationContext context,
-                                              @NonNull final List<Provisioner> provisioners) {
+    JsonElement serializeProvisioners(@NonNull final JsonSerializationContext context,
+                                      @NonNull final List<Provisioner> provisioners) {
         final JsonArray jsonArray = new JsonArray();
         for (Provisioner provisioner : provisioners) {
             final JsonObject provisionerJson = new JsonObject();
@@ -390,7 +413,7 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param groups Group list
      * @return JsonElement
      */
-    private JsonElement serializeGroups(@NonNull final List<Group> groups) {
+    JsonElement serializeGroups(@NonNull final List<Group> groups) {
         JsonArray groupsArray = new JsonArray();
         for (Group group : groups) {
             JsonObject groupObj = new JsonObject();
@@ -413,17 +436,13 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
     /**
      * Returns a list of groups de-serializing the json array containing the groups
      *
-     * @param jsonNetwork json network object containing the groups
-     * @param meshUuid    network provisionerUuid
+     * @param jsonGroups json array containing the groups
+     * @param meshUuid   network provisionerUuid
      * @return List of nodes
      */
-    private List<Group> deserializeGroups(@NonNull final JsonObject jsonNetwork,
-                                          @NonNull final String meshUuid) {
+    List<Group> deserializeGroups(@NonNull final JsonArray jsonGroups,
+                                  @NonNull final String meshUuid) {
         final List<Group> groups = new ArrayList<>();
-        if (!jsonNetwork.has("groups"))
-            return groups;
-
-        final JsonArray jsonGroups = jsonNetwork.getAsJsonArray("groups");
         for (int i = 0; i < jsonGroups.size(); i++) {
             try {
                 final JsonObject jsonGroup = jsonGroups.get(i).getAsJsonObject();
@@ -456,7 +475,7 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param scenes Group list
      * @return JsonElement
      */
-    private JsonElement serializeScenes(@NonNull final List<Scene> scenes) {
+    JsonElement serializeScenes(@NonNull final List<Scene> scenes) {
         final JsonArray scenesArray = new JsonArray();
         for (Scene scene : scenes) {
             JsonObject sceneObj = new JsonObject();
@@ -475,18 +494,14 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
     /**
      * Returns a list of scenes de-serializing the json array containing the scenes
      *
-     * @param jsonNetwork json array containing the scenes
-     * @param meshUuid    network provisionerUuid
+     * @param jsonScenes json array containing the scenes
+     * @param meshUuid   network provisionerUuid
      * @return List of nodes
      */
-    private List<Scene> deserializeScenes(@NonNull final JsonObject jsonNetwork,
-                                          @NonNull final String meshUuid) {
+    List<Scene> deserializeScenes(@NonNull final JsonArray jsonScenes,
+                                  @NonNull final String meshUuid) {
         final List<Scene> scenes = new ArrayList<>();
         try {
-            if (!jsonNetwork.has("scenes"))
-                return scenes;
-
-            final JsonArray jsonScenes = jsonNetwork.getAsJsonArray("scenes");
             for (int i = 0; i < jsonScenes.size(); i++) {
                 final JsonObject jsonScene = jsonScenes.get(i).getAsJsonObject();
                 final String name = jsonScene.get("name").getAsString();
@@ -519,7 +534,7 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param networkExclusions exclusion list
      * @return JsonElement
      */
-    private JsonElement serializeExclusionList(@NonNull final Map<Integer, List<Integer>> networkExclusions) {
+    JsonElement serializeExclusionList(@NonNull final Map<Integer, List<Integer>> networkExclusions) {
         final JsonArray exclusionList = new JsonArray();
         JsonObject exclusion;
         JsonArray array;
@@ -542,7 +557,7 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
      * @param networkExclusions Network exclusions
      * @return List of nodes
      */
-    private Map<Integer, List<Integer>> deserializeExclusionList(@NonNull final JsonArray networkExclusions) {
+    Map<Integer, List<Integer>> deserializeExclusionList(@NonNull final JsonArray networkExclusions) {
         final Map<Integer, List<Integer>> exclusionList = new HashMap<>();
         JsonObject exclusion;
         int ivIndex;
@@ -580,7 +595,7 @@ public final class MeshNetworkDeserializer implements JsonSerializer<MeshNetwork
         return unicast;
     }
 
-    private void assignProvisionerAddresses(@NonNull final MeshNetwork network) {
+    void assignProvisionerAddresses(@NonNull final MeshNetwork network) {
         for (Provisioner provisioner : network.provisioners) {
             for (ProvisionedMeshNode node : network.nodes) {
                 if (provisioner.getProvisionerUuid().equalsIgnoreCase(node.getUuid())) {
@@ -0,0 +1,346 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+
+/**
+ * Secondary indexes over the nodes, groups and scenes of a mesh network.
+ * <p>
+ * Nodes are indexed by the range of element addresses they occupy, using sorted primitive arrays so that a
+ * lookup by any element address is a binary search, and by their UUID. Groups are indexed by address and scenes by number.
+ * </p>
+ * <p>
+ * The indexes are kept up to date by the mutators of {@link BaseMeshNetwork} and {@link MeshNetwork}. As the underlying
+ * lists may also be replaced as a whole, for example when a network is loaded or imported, each index remembers the list
+ * and the size it was built from and is rebuilt lazily if either of them differs.
+ * </p>
+ * <p>
+ * The network is mutated on the thread the mesh stack runs on, while lookups are also made from the threads of the
+ * application, therefore all access to the indexes is synchronized.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class MeshNetworkIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] lowAddresses = new int[INITIAL_CAPACITY];
+    private int[] highAddresses = new int[INITIAL_CAPACITY];
+    private ProvisionedMeshNode[] addressNodes = new ProvisionedMeshNode[INITIAL_CAPACITY];
+    private int addressCount;
+    private final Map<String, ProvisionedMeshNode> uuidNodes = new HashMap<>();
+    private final Map<Integer, Group> groups = new HashMap<>();
+    private final Map<Integer, Scene> scenes = new HashMap<>();
+
+    private List<ProvisionedMeshNode> indexedNodes;
+    private int indexedNodeCount = -1;
+    private List<Group> indexedGroups;
+    private int indexedGroupCount = -1;
+    private List<Scene> indexedScenes;
+    private int indexedSceneCount = -1;
+
+    /**
+     * Returns the node containing an element with the given address.
+     *
+     * @param nodes   Nodes of the network
+     * @param address Element address
+     */
+    @Nullable
+    synchronized ProvisionedMeshNode getNode(@NonNull final List<ProvisionedMeshNode> nodes, final int address) {
+        validateNodes(nodes);
+        ProvisionedMeshNode node = findNode(address);
+        if (node != null && !node.hasUnicastAddress(address)) {
+            // The elements of the node have changed since it was indexed.
+            rebuildNodes(nodes);
+            node = findNode(address);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node with the given UUID.
+     *
+     * @param nodes Nodes of the network
+     * @param uuid  UUID of the node
+     */
+    @Nullable
+    synchronized ProvisionedMeshNode getNode(@NonNull final List<ProvisionedMeshNode> nodes, @Nullable final String uuid) {
+        if (uuid == null)
+            return null;
+        validateNodes(nodes);
+        return uuidNodes.get(uuidKey(uuid));
+    }
+
+    /**
+     * Returns the group with the given address.
+     *
+     * @param groups  Groups of the network
+     * @param address Group address
+     */
+    @Nullable
+    synchronized Group getGroup(@NonNull final List<Group> groups, final int address) {
+        if (groups != indexedGroups || groups.size() != indexedGroupCount) {
+            rebuildGroups(groups);
+        }
+        final Group group = this.groups.get(address);
+        if (group != null && group.getAddress() != address) {
+            rebuildGroups(groups);
+            return this.groups.get(address);
+        }
+        return group;
+    }
+
+    /**
+     * Returns the scene with the given number.
+     *
+     * @param scenes Scenes of the network
+     * @param number Scene number
+     */
+    @Nullable
+    synchronized Scene getScene(@NonNull final List<Scene> scenes, final int number) {
+        if (scenes != indexedScenes || scenes.size() != indexedSceneCount) {
+            rebuildScenes(scenes);
+        }
+        final Scene scene = this.scenes.get(number);
+        if (scene != null && scene.getNumber() != number) {
+            rebuildScenes(scenes);
+            return this.scenes.get(number);
+        }
+        return scene;
+    }
+
+    /**
+     * To be called after a node was added to the list of nodes.
+     *
+     * @param nodes Nodes of the network
+     * @param node  Node that was added
+     */
+    synchronized void onNodeAdded(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount + 1) {
+            indexedNodes = null;
+            return;
+        }
+        putNode(node);
+        indexedNodeCount = nodes.size();
+    }
+
+    /**
+     * To be called after a node was removed from the list of nodes.
+     *
+     * @param nodes Nodes of the network
+     * @param node  Node that was removed
+     */
+    synchronized void onNodeRemoved(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount - 1) {
+            indexedNodes = null;
+            return;
+        }
+        removeNode(node);
+        indexedNodeCount = nodes.size();
+    }
+
+    /**
+     * To be called after a node in the list was replaced, or when the unicast address or the elements of a node have changed.
+     *
+     * @param nodes Nodes of the network
+     * @param node  Node that was updated
+     */
+    synchronized void onNodeUpdated(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount) {
+            indexedNodes = null;
+            return;
+        }
+        final int index = floorIndex(node.getUnicastAddress());
+        if (index >= 0 && addressNodes[index] == node
+                && lowAddresses[index] == node.getUnicastAddress()
+                && highAddresses[index] == getHighAddress(node)
+                && uuidNodes.get(uuidKey(node.getUuid())) == node) {
+            return;
+        }
+        // The node may replace another node with the same uuid or the same address.
+        final ProvisionedMeshNode previous = uuidNodes.get(uuidKey(node.getUuid()));
+        if (previous != null) {
+            removeNode(previous);
+        }
+        final int current = floorIndex(node.getUnicastAddress());
+        if (current >= 0 && lowAddresses[current] == node.getUnicastAddress()) {
+            removeNode(addressNodes[current]);
+        }
+        removeNode(node);
+        putNode(node);
+    }
+
+    /**
+     * To be called after a group was added to the list of groups.
+     */
+    synchronized void onGroupAdded(@NonNull final List<Group> groups, @NonNull final Group group) {
+        if (groups != indexedGroups || groups.size() != indexedGroupCount + 1) {
+            indexedGroups = null;
+            return;
+        }
+        if (!this.groups.containsKey(group.getAddress())) {
+            this.groups.put(group.getAddress(), group);
+        }
+        indexedGroupCount = groups.size();
+    }
+
+    /**
+     * To be called after a group was removed from the list of groups.
+     */
+    synchronized void onGroupRemoved(@NonNull final List<Group> groups, @NonNull final Group group) {
+        if (groups != indexedGroups || groups.size() != indexedGroupCount - 1) {
+            indexedGroups = null;
+            return;
+        }
+        if (group.equals(this.groups.get(group.getAddress()))) {
+            this.groups.remove(group.getAddress());
+        }
+        indexedGroupCount = groups.size();
+    }
+
+    /**
+     * To be called after a scene was added to the list of scenes.
+     */
+    synchronized void onSceneAdded(@NonNull final List<Scene> scenes, @NonNull final Scene scene) {
+        if (scenes != indexedScenes || scenes.size() != indexedSceneCount + 1) {
+            indexedScenes = null;
+            return;
+        }
+        if (!this.scenes.containsKey(scene.getNumber())) {
+            this.scenes.put(scene.getNumber(), scene);
+        }
+        indexedSceneCount = scenes.size();
+    }
+
+    /**
+     * To be called after a scene was removed from the list of scenes.
+     */
+    synchronized void onSceneRemoved(@NonNull final List<Scene> scenes, @NonNull final Scene scene) {
+        if (scenes != indexedScenes || scenes.size() != indexedSceneCount - 1) {
+            indexedScenes = null;
+            return;
+        }
+        if (scene.equals(this.scenes.get(scene.getNumber()))) {
+            this.scenes.remove(scene.getNumber());
+        }
+        indexedSceneCount = scenes.size();
+    }
+
+    private void validateNodes(@NonNull final List<ProvisionedMeshNode> nodes) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount) {
+            rebuildNodes(nodes);
+        }
+    }
+
+    private void rebuildNodes(@NonNull final List<ProvisionedMeshNode> nodes) {
+        Arrays.fill(addressNodes, 0, addressCount, null);
+        addressCount = 0;
+        uuidNodes.clear();
+        for (int i = 0; i < nodes.size(); i++) {
+            putNode(nodes.get(i));
+        }
+        indexedNodes = nodes;
+        indexedNodeCount = nodes.size();
+    }
+
+    private void rebuildGroups(@NonNull final List<Group> groups) {
+        this.groups.clear();
+        for (int i = 0; i < groups.size(); i++) {
+            final Group group = groups.get(i);
+            if (!this.groups.containsKey(group.getAddress())) {
+                this.groups.put(group.getAddress(), group);
+            }
+        }
+        indexedGroups = groups;
+        indexedGroupCount = groups.size();
+    }
+
+    private void rebuildScenes(@NonNull final List<Scene> scenes) {
+        this.scenes.clear();
+        for (int i = 0; i < scenes.size(); i++) {
+            final Scene scene = scenes.get(i);
+            if (!this.scenes.containsKey(scene.getNumber())) {
+                this.scenes.put(scene.getNumber(), scene);
+            }
+        }
+        indexedScenes = scenes;
+        indexedSceneCount = scenes.size();
+    }
+
+    @Nullable
+    private ProvisionedMeshNode findNode(final int address) {
+        final int index = floorIndex(address);
+        if (index >= 0 && address <= highAddresses[index]) {
+            return addressNodes[index];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the range with the greatest low address less than or equal to the given address, or -1.
+     */
+    private int floorIndex(final int address) {
+        final int index = Arrays.binarySearch(lowAddresses, 0, addressCount, address);
+        return index >= 0 ? index : -(index + 1) - 1;
+    }
+
+    private void putNode(@NonNull final ProvisionedMeshNode node) {
+        final String key = uuidKey(node.getUuid());
+        if (!uuidNodes.containsKey(key)) {
+            uuidNodes.put(key, node);
+        }
+        final int low = node.getUnicastAddress();
+        final int search = Arrays.binarySearch(lowAddresses, 0, addressCount, low);
+        if (search >= 0) {
+            // Keep the first node added for a given address, as the lists were scanned in order before.
+            return;
+        }
+        final int index = -(search + 1);
+        if (addressCount == lowAddresses.length) {
+            final int capacity = addressCount * 2;
+            lowAddresses = Arrays.copyOf(lowAddresses, capacity);
+            highAddresses = Arrays.copyOf(highAddresses, capacity);
+            addressNodes = Arrays.copyOf(addressNodes, capacity);
+        }
+        System.arraycopy(lowAddresses, index, lowAddresses, index + 1, addressCount - index);
+        System.arraycopy(highAddresses, index, highAddresses, index + 1, addressCount - index);
+        System.arraycopy(addressNodes, index, addressNodes, index + 1, addressCount - index);
+        lowAddresses[index] = low;
+        highAddresses[index] = getHighAddress(node);
+        addressNodes[index] = node;
+        addressCount++;
+    }
+
+    private void removeNode(@NonNull final ProvisionedMeshNode node) {
+        final String key = uuidKey(node.getUuid());
+        if (uuidNodes.get(key) == node) {
+            uuidNodes.remove(key);
+        }
+        for (int i = 0; i < addressCount; i++) {
+            if (addressNodes[i] == node) {
+                final int moved = addressCount - i - 1;
+                System.arraycopy(lowAddresses, i + 1, lowAddresses, i, moved);
+                System.arraycopy(highAddresses, i + 1, highAddresses, i, moved);
+                System.arraycopy(addressNodes, i + 1, addressNodes, i, moved);
+                addressNodes[--addressCount] = null;
+                return;
+            }
+        }
+    }
+
+    private static int getHighAddress(@NonNull final ProvisionedMeshNode node) {
+        return Math.max(node.getUnicastAddress(), node.getLastUnicastAddress());
+    }
+
+    private static String uuidKey(@NonNull final String uuid) {
+        return uuid.toUpperCase(Locale.US);
+    }
+}
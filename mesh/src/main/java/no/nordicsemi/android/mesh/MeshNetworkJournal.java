@@ -0,0 +1,334 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+
+/**
+ * Write-behind journal for the mesh network database.
+ * <p>
+ * Instead of rewriting the whole network on every message that is sent or received, entities that were
+ * changed are marked as dirty and written in a single batch, either after {@link #FLUSH_DELAY_MS} or once
+ * {@link #FLUSH_THRESHOLD} entities are pending, whichever comes first. All writes are executed on a single
+ * thread so that the order in which batches are written is preserved.
+ * </p>
+ * <p>
+ * Sequence numbers are not written for every message. Instead a block of {@link #SEQUENCE_NUMBER_BLOCK_SIZE}
+ * sequence numbers is reserved by persisting the upper bound of the block before it is used. After a restart the node
+ * will continue from the reserved value which guarantees that a sequence number is never reused. Once half of a block
+ * has been used the next block is reserved in the background, so that the sender only has to wait for the first
+ * reservation after the network has been loaded or the sequence number has been reset.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class MeshNetworkJournal {
+
+    private static final String TAG = MeshNetworkJournal.class.getSimpleName();
+    static final long FLUSH_DELAY_MS = 1000;
+    static final int FLUSH_THRESHOLD = 32;
+    static final int SEQUENCE_NUMBER_BLOCK_SIZE = 256;
+    private static final int MAX_SEQUENCE_NUMBER = 0xFFFFFF;
+
+    private final Writer writer;
+    private final ScheduledExecutorService executor;
+    private final Map<String, Reservation> sequenceNumberReservations = new HashMap<>();
+    private final Set<ProvisionedMeshNode> dirtyNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<NetworkKey> dirtyNetKeys = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<ApplicationKey> dirtyAppKeys = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Provisioner> dirtyProvisioners = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Group> dirtyGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Scene> dirtyScenes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private MeshNetwork dirtyNetwork;
+    private boolean flushScheduled;
+
+    /**
+     * Writes a batch of changes to the database.
+     */
+    interface Writer {
+
+        /**
+         * Invoked on the journal thread with the entities that need to be written.
+         *
+         * @param batch {@link Batch}
+         */
+        void write(@NonNull final Batch batch);
+    }
+
+    /**
+     * Batch of dirty entities that are written together.
+     */
+    static final class Batch {
+        @Nullable
+        final MeshNetwork network;
+        final List<ProvisionedMeshNode> nodes;
+        final List<NetworkKey> netKeys;
+        final List<ApplicationKey> appKeys;
+        final List<Provisioner> provisioners;
+        final List<Group> groups;
+        final List<Scene> scenes;
+        final Map<String, Integer> sequenceNumbers;
+
+        Batch(@Nullable final MeshNetwork network,
+              @NonNull final List<ProvisionedMeshNode> nodes,
+              @NonNull final List<NetworkKey> netKeys,
+              @NonNull final List<ApplicationKey> appKeys,
+              @NonNull final List<Provisioner> provisioners,
+              @NonNull final List<Group> groups,
+              @NonNull final List<Scene> scenes,
+              @NonNull final Map<String, Integer> sequenceNumbers) {
+            this.network = network;
+            this.nodes = nodes;
+            this.netKeys = netKeys;
+            this.appKeys = appKeys;
+            this.provisioners = provisioners;
+            this.groups = groups;
+            this.scenes = scenes;
+            this.sequenceNumbers = sequenceNumbers;
+        }
+
+        boolean isEmpty() {
+            return network == null && nodes.isEmpty() && netKeys.isEmpty() && appKeys.isEmpty() && provisioners.isEmpty()
+                    && groups.isEmpty() && scenes.isEmpty() && sequenceNumbers.isEmpty();
+        }
+    }
+
+    /**
+     * Range of sequence numbers of a node that is covered by a persisted reservation.
+     */
+    private static final class Reservation {
+        final int start;
+        int limit;
+        int pendingLimit;
+        @Nullable
+        Future<?> pending;
+
+        Reservation(final int start) {
+            this.start = start;
+            this.limit = start;
+        }
+
+        boolean covers(final int sequenceNumber) {
+            return sequenceNumber >= start && sequenceNumber < limit;
+        }
+    }
+
+    /**
+     * Constructs the journal
+     *
+     * @param writer   {@link Writer} that writes the batches
+     * @param executor Single threaded executor on which the batches are written
+     */
+    MeshNetworkJournal(@NonNull final Writer writer, @NonNull final ScheduledExecutorService executor) {
+        this.writer = writer;
+        this.executor = executor;
+    }
+
+    /**
+     * Marks the network row as dirty
+     *
+     * @param network Mesh network
+     */
+    synchronized void markDirty(@NonNull final MeshNetwork network) {
+        dirtyNetwork = network;
+        onMarkedDirty();
+    }
+
+    /**
+     * Marks a node as dirty
+     *
+     * @param node Provisioned mesh node
+     */
+    synchronized void markDirty(@NonNull final ProvisionedMeshNode node) {
+        dirtyNodes.add(node);
+        onMarkedDirty();
+    }
+
+    /**
+     * Marks a network key as dirty
+     *
+     * @param networkKey Network key
+     */
+    synchronized void markDirty(@NonNull final NetworkKey networkKey) {
+        dirtyNetKeys.add(networkKey);
+        onMarkedDirty();
+    }
+
+    /**
+     * Marks an application key as dirty
+     *
+     * @param appKey Application key
+     */
+    synchronized void markDirty(@NonNull final ApplicationKey appKey) {
+        dirtyAppKeys.add(appKey);
+        onMarkedDirty();
+    }
+
+    /**
+     * Marks a provisioner as dirty
+     *
+     * @param provisioner Provisioner
+     */
+    synchronized void markDirty(@NonNull final Provisioner provisioner) {
+        dirtyProvisioners.add(provisioner);
+        onMarkedDirty();
+    }
+
+    /**
+     * Marks a group as dirty
+     *
+     * @param group Group
+     */
+    synchronized void markDirty(@NonNull final Group group) {
+        dirtyGroups.add(group);
+        onMarkedDirty();
+    }
+
+    /**
+     * Marks a scene as dirty
+     *
+     * @param scene Scene
+     */
+    synchronized void markDirty(@NonNull final Scene scene) {
+        dirtyScenes.add(scene);
+        onMarkedDirty();
+    }
+
+    /**
+     * Ensures that the current sequence number of the given node is covered by a persisted reservation.
+     * <p>
+     * Once less than half of the reserved block is left, the next block is reserved in the background and this method
+     * returns right away. It only blocks if the sequence number is not covered yet, i.e. for the first message after
+     * the network has been loaded, after the sequence number was reset by an IV Index update or if the reservation
+     * written in the background has not completed in time, so that a message is never sent with a sequence number
+     * that could be reused after a restart.
+     * </p>
+     *
+     * @param node Provisioned mesh node of the provisioner sending messages
+     * @throws ExecutionException if the reservation could not be written, in which case it is retried on the next call
+     */
+    void reserveSequenceNumbers(@NonNull final ProvisionedMeshNode node) throws ExecutionException, InterruptedException {
+        final String uuid = node.getUuid();
+        final Future<?> reservation;
+        synchronized (this) {
+            final int sequenceNumber = node.getSequenceNumber();
+            Reservation current = sequenceNumberReservations.get(uuid);
+            if (current != null && current.covers(sequenceNumber)) {
+                if (current.pending == null && current.limit < MAX_SEQUENCE_NUMBER
+                        && current.limit - sequenceNumber <= SEQUENCE_NUMBER_BLOCK_SIZE / 2) {
+                    reserve(uuid, current, Math.min(current.limit + SEQUENCE_NUMBER_BLOCK_SIZE, MAX_SEQUENCE_NUMBER));
+                }
+                return;
+            }
+            if (current == null || current.pending == null
+                    || sequenceNumber < current.start || sequenceNumber >= current.pendingLimit) {
+                current = new Reservation(sequenceNumber);
+                sequenceNumberReservations.put(uuid, current);
+                reserve(uuid, current, Math.min(sequenceNumber + SEQUENCE_NUMBER_BLOCK_SIZE, MAX_SEQUENCE_NUMBER));
+            }
+            reservation = current.pending;
+        }
+        // The lock must not be held while waiting, as the reservation is completed under the same lock on the
+        // journal thread.
+        reservation.get();
+    }
+
+    /**
+     * Writes the upper bound of a reservation on the journal thread, ahead of any pending changes.
+     */
+    private void reserve(@NonNull final String uuid, @NonNull final Reservation reservation, final int limit) {
+        final Batch batch = new Batch(null, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.singletonMap(uuid, limit));
+        reservation.pendingLimit = limit;
+        reservation.pending = executor.submit(() -> {
+            try {
+                writer.write(batch);
+            } catch (RuntimeException ex) {
+                MeshLogger.error(TAG, "Failed to reserve sequence numbers: " + ex.getMessage());
+                synchronized (MeshNetworkJournal.this) {
+                    reservation.pending = null;
+                }
+                throw ex;
+            }
+            synchronized (MeshNetworkJournal.this) {
+                reservation.limit = limit;
+                reservation.pending = null;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of dirty entities that are waiting to be written.
+     */
+    synchronized int getPendingCount() {
+        return (dirtyNetwork == null ? 0 : 1) + dirtyNodes.size() + dirtyNetKeys.size() + dirtyAppKeys.size()
+                + dirtyProvisioners.size() + dirtyGroups.size() + dirtyScenes.size();
+    }
+
+    /**
+     * Writes all pending changes and blocks until they have been written. Must not be called on the thread that
+     * sends messages, changes are written in the background without it.
+     */
+    void flush() throws ExecutionException, InterruptedException {
+        executor.submit(this::flushPending).get();
+    }
+
+    private void onMarkedDirty() {
+        if (getPendingCount() >= FLUSH_THRESHOLD) {
+            executor.execute(this::flushPending);
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flushPending, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPending() {
+        final Batch batch;
+        synchronized (this) {
+            flushScheduled = false;
+            final Map<String, Integer> sequenceNumbers = new HashMap<>();
+            for (ProvisionedMeshNode node : dirtyNodes) {
+                // The node row contains the actual sequence number, the reservation must be written on top of it.
+                final Reservation reservation = sequenceNumberReservations.get(node.getUuid());
+                if (reservation != null && reservation.limit > reservation.start) {
+                    sequenceNumbers.put(node.getUuid(), reservation.limit);
+                }
+            }
+            batch = new Batch(dirtyNetwork, new ArrayList<>(dirtyNodes), new ArrayList<>(dirtyNetKeys),
+                    new ArrayList<>(dirtyAppKeys), new ArrayList<>(dirtyProvisioners), new ArrayList<>(dirtyGroups),
+                    new ArrayList<>(dirtyScenes), sequenceNumbers);
+            dirtyNetwork = null;
+            dirtyNodes.clear();
+            dirtyNetKeys.clear();
+            dirtyAppKeys.clear();
+            dirtyProvisioners.clear();
+            dirtyGroups.clear();
+            dirtyScenes.clear();
+        }
+        write(batch);
+    }
+
+    private void write(@NonNull final Batch batch) {
+        if (batch.isEmpty())
+            return;
+        try {
+            writer.write(batch);
+        } catch (Exception ex) {
+            MeshLogger.error(TAG, "Failed to write pending changes: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package no.nordicsemi.android.mesh;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.utils.MeshAddress;
+
+import static no.nordicsemi.android.mesh.utils.MeshParserUtils.formatTimeStamp;
+import static no.nordicsemi.android.mesh.utils.MeshParserUtils.formatUuid;
+import static no.nordicsemi.android.mesh.utils.MeshParserUtils.isUuidPattern;
+
+/**
+ * Reads and writes the Mesh Provisioning/Configuration Database json with a {@link JsonReader} and a {@link JsonWriter}.
+ * <p>
+ * Unlike {@link MeshNetworkDeserializer}, which works on a json tree of the whole network, the nodes are read and
+ * written one at a time, so that only the json of a single node is held in memory in addition to the network itself.
+ * The remaining sections, such as keys, provisioners, groups and scenes, are small and are converted by
+ * {@link MeshNetworkDeserializer}. When exporting a partial network the export configuration is applied to the json of
+ * each node as it is written, leaving the nodes of the network untouched.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class MeshNetworkStreamDeserializer {
+
+    private static final Type NODE_LIST = new TypeToken<List<ProvisionedMeshNode>>() {
+    }.getType();
+
+    private final Gson gson;
+    private final MeshNetworkDeserializer networkDeserializer = new MeshNetworkDeserializer();
+    private final JsonDeserializationContext deserializationContext;
+    private final JsonSerializationContext serializationContext;
+
+    /**
+     * Constructs the stream deserializer
+     *
+     * @param gson Gson with the type adapters of the mesh network registered.
+     */
+    MeshNetworkStreamDeserializer(@NonNull final Gson gson) {
+        this.gson = gson;
+        deserializationContext = new JsonDeserializationContext() {
+            @Override
+            public <T> T deserialize(final JsonElement json, final Type typeOfT) {
+                return gson.fromJson(json, typeOfT);
+            }
+        };
+        serializationContext = new JsonSerializationContext() {
+            @Override
+            public JsonElement serialize(final Object src) {
+                return gson.toJsonTree(src);
+            }
+
+            @Override
+            public JsonElement serialize(final Object src, final Type typeOfSrc) {
+                return gson.toJsonTree(src, typeOfSrc);
+            }
+        };
+    }
+
+    /**
+     * Reads a mesh network from the Mesh Provisioning/Configuration Database json.
+     *
+     * @param reader Json reader
+     * @return Mesh network
+     * @throws IOException         if the json could not be read
+     * @throws JsonSyntaxException if the json is not a valid Mesh Provisioning/Configuration Database
+     */
+    @NonNull
+    MeshNetwork read(@NonNull final JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new JsonSyntaxException("Invalid Mesh Provisioning/Configuration Database, " +
+                    "Mesh Network must follow the Mesh Provisioning/Configuration Database format.");
+        }
+        // Everything but the nodes is collected in a json object and de-serialized once the whole document was read,
+        // as the order of the members is not defined.
+        final JsonObject jsonObject = new JsonObject();
+        List<ProvisionedMeshNode> nodes = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (name.equals("nodes")) {
+                nodes = readNodes(reader);
+                jsonObject.add(name, new JsonArray());
+            } else {
+                jsonObject.add(name, JsonParser.parseReader(reader));
+            }
+        }
+        reader.endObject();
+        return networkDeserializer.deserialize(jsonObject, deserializationContext, nodes);
+    }
+
+    /**
+     * Writes a mesh network as a Mesh Provisioning/Configuration Database json.
+     *
+     * @param writer Json writer
+     * @param export Parts of the network to be written
+     * @throws IOException if the json could not be written
+     */
+    void write(@NonNull final JsonWriter writer, @NonNull final Export export) throws IOException {
+        final MeshNetwork network = export.network;
+        writer.beginObject();
+        writer.name("$schema").value(network.getSchema());
+        writer.name("id").value(network.getId());
+        writer.name("version").value(network.getVersion());
+        writer.name("meshUUID").value(network.getMeshUUID().toUpperCase(Locale.US));
+        writer.name("meshName").value(network.getMeshName());
+        writer.name("timestamp").value(formatTimeStamp(network.getTimestamp()));
+        writer.name("partial").value(export.partial);
+        writer.name("netKeys");
+        gson.toJson(networkDeserializer.serializeNetKeys(serializationContext, export.netKeys), writer);
+        writer.name("appKeys");
+        gson.toJson(networkDeserializer.serializeAppKeys(serializationContext, export.appKeys), writer);
+        writer.name("provisioners");
+        gson.toJson(networkDeserializer.serializeProvisioners(serializationContext, export.provisioners), writer);
+
+        final Set<Integer> nodeAddresses = new HashSet<>();
+        final Set<Integer> usedAddresses = new HashSet<>();
+        writer.name("nodes");
+        writer.beginArray();
+        for (ProvisionedMeshNode node : export.nodes) {
+            final JsonObject nodeJson = gson.toJsonTree(Collections.singletonList(node), NODE_LIST)
+                    .getAsJsonArray().get(0).getAsJsonObject();
+            if (export.withoutDeviceKey.contains(node)) {
+                nodeJson.addProperty("deviceKey", "");
+            }
+            filterModels(nodeJson, export, usedAddresses);
+            gson.toJson(nodeJson, writer);
+            nodeAddresses.add(node.getUnicastAddress());
+        }
+        writer.endArray();
+
+        writer.name("groups");
+        gson.toJson(networkDeserializer.serializeGroups(getGroups(export, usedAddresses)), writer);
+        writer.name("scenes");
+        final JsonArray scenes = networkDeserializer.serializeScenes(export.scenes).getAsJsonArray();
+        if (export.filterSceneAddresses) {
+            for (JsonElement scene : scenes) {
+                removeAddresses(scene.getAsJsonObject().getAsJsonArray("addresses"), nodeAddresses, false);
+            }
+        }
+        gson.toJson(scenes, writer);
+        writer.name("networkExclusions");
+        gson.toJson(networkDeserializer.serializeExclusionList(network.getNetworkExclusions()), writer);
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * Reads the nodes array one node at a time.
+     */
+    private List<ProvisionedMeshNode> readNodes(@NonNull final JsonReader reader) throws IOException {
+        final List<ProvisionedMeshNode> nodes = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            final JsonArray nodeJson = new JsonArray(1);
+            nodeJson.add(JsonParser.parseReader(reader));
+            final List<ProvisionedMeshNode> node = deserializationContext.deserialize(nodeJson, NODE_LIST);
+            nodes.addAll(node);
+        }
+        reader.endArray();
+        return nodes;
+    }
+
+    /**
+     * Removes the key bindings, subscriptions and publications that refer to application keys or groups that are not
+     * exported from the json of a node, and collects the addresses the remaining models are subscribed or publishing to.
+     * Missing model lists, bindings and subscriptions are treated as empty.
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
+    void filterModels(@NonNull final JsonObject nodeJson,
+                              @NonNull final Export export,
+                              @NonNull final Set<Integer> usedAddresses) {
+        if (!nodeJson.has("elements"))
+            return;
+        for (JsonElement element : nodeJson.getAsJsonArray("elements")) {
+            for (JsonElement model : getArray(element.getAsJsonObject(), "models")) {
+                final JsonObject modelJson = model.getAsJsonObject();
+                if (export.appKeyIndexes != null) {
+                    final JsonArray bind = getArray(modelJson, "bind");
+                    for (int i = bind.size() - 1; i >= 0; i--) {
+                        final int index = bind.get(i).getAsInt();
+                        if (!export.appKeyIndexes.contains(index)) {
+                            bind.remove(i);
+                            final JsonObject publish = modelJson.getAsJsonObject("publish");
+                            if (publish != null && publish.get("index").getAsInt() == index) {
+                                modelJson.remove("publish");
+                            }
+                        }
+                    }
+                }
+                final JsonArray subscribe = getArray(modelJson, "subscribe");
+                removeAddresses(subscribe, export.excludedGroupAddresses, true);
+                for (JsonElement address : subscribe) {
+                    usedAddresses.add(parseAddress(address.getAsString()));
+                }
+                final JsonObject publish = modelJson.getAsJsonObject("publish");
+                if (publish != null) {
+                    final int address = parseAddress(publish.get("address").getAsString());
+                    if (export.excludedGroupAddresses.contains(address)) {
+                        modelJson.remove("publish");
+                    } else {
+                        usedAddresses.add(address);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the json array stored under the given key, or an empty array if the key is missing.
+     */
+    @NonNull
+    private static JsonArray getArray(@NonNull final JsonObject json, @NonNull final String key) {
+        final JsonArray array = json.getAsJsonArray(key);
+        return array != null ? array : new JsonArray();
+    }
+
+    /**
+     * Removes the addresses that are either contained or not contained in the given set from a json array of addresses.
+     */
+    private static void removeAddresses(@Nullable final JsonArray addresses,
+                                        @NonNull final Set<Integer> set,
+                                        final boolean contained) {
+        if (addresses == null)
+            return;
+        for (int i = addresses.size() - 1; i >= 0; i--) {
+            if (set.contains(parseAddress(addresses.get(i).getAsString())) == contained) {
+                addresses.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the address of a json address, which is either a 16-bit address or the label uuid of a virtual address.
+     */
+    private static int parseAddress(@NonNull final String address) {
+        if (isUuidPattern(address)) {
+            return MeshAddress.generateVirtualAddress(UUID.fromString(formatUuid(address)));
+        }
+        return Integer.parseInt(address, 16);
+    }
+
+    private static List<Group> getGroups(@NonNull final Export export, @NonNull final Set<Integer> usedAddresses) {
+        if (!export.relatedGroups)
+            return export.groups;
+        final List<Group> groups = new ArrayList<>();
+        for (Group group : export.groups) {
+            if (usedAddresses.contains(group.getAddress())) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Parts of a mesh network to be exported.
+     */
+    static final class Export {
+        final MeshNetwork network;
+        final boolean partial;
+        List<NetworkKey> netKeys;
+        List<ApplicationKey> appKeys;
+        List<Provisioner> provisioners;
+        List<ProvisionedMeshNode> nodes;
+        final Set<ProvisionedMeshNode> withoutDeviceKey = Collections.newSetFromMap(new IdentityHashMap<>());
+        /**
+         * Indexes of the application keys that may be bound to or used for publication by exported models, or null
+         * if all are exported.
+         */
+        Set<Integer> appKeyIndexes;
+        List<Group> groups;
+        /**
+         * True if only the groups that exported models are subscribed or publishing to are exported.
+         */
+        boolean relatedGroups;
+        /**
+         * Addresses of the groups that are not exported, which are removed from subscriptions and publications.
+         */
+        final Set<Integer> excludedGroupAddresses = new HashSet<>();
+        List<Scene> scenes;
+        /**
+         * True if the addresses of nodes that are not exported are removed from the scenes.
+         */
+        boolean filterSceneAddresses;
+
+        /**
+         * Constructs an export of the whole network.
+         *
+         * @param network Mesh network
+         * @param partial True if the network is to be exported as partial.
+         */
+        Export(@NonNull final MeshNetwork network, final boolean partial) {
+            this.network = network;
+            this.partial = partial;
+            netKeys = network.netKeys;
+            appKeys = network.appKeys;
+            provisioners = network.provisioners;
+            nodes = network.nodes;
+            groups = network.groups;
+            scenes = network.scenes;
+        }
+    }
+}
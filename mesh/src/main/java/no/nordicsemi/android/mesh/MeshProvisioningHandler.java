@@ -26,7 +26,9 @@ import android.content.Context;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 
 import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -38,6 +40,7 @@ import no.nordicsemi.android.mesh.provisionerstates.ProvisioningDataState;
 import no.nordicsemi.android.mesh.provisionerstates.ProvisioningFailedState;
 import no.nordicsemi.android.mesh.provisionerstates.ProvisioningInputCompleteState;
 import no.nordicsemi.android.mesh.provisionerstates.ProvisioningInviteState;
+import no.nordicsemi.android.mesh.provisionerstates.ProvisioningKeyPairPool;
 import no.nordicsemi.android.mesh.provisionerstates.ProvisioningPublicKeyState;
 import no.nordicsemi.android.mesh.provisionerstates.ProvisioningRandomConfirmationState;
 import no.nordicsemi.android.mesh.provisionerstates.ProvisioningStartState;
@@ -50,20 +53,25 @@ import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 import no.nordicsemi.android.mesh.utils.OutputOOBAction;
 import no.nordicsemi.android.mesh.utils.StaticOOBType;
 
-class MeshProvisioningHandler implements InternalProvisioningCallbacks {
+/**
+ * Handles the provisioning of unprovisioned mesh nodes.
+ * <p>
+ * Each node is provisioned in a {@link ProvisioningSession} identified by the device UUID of the node, so that several nodes
+ * may be provisioned at the same time over separate PB-GATT links. A session is created when the node is identified and closed
+ * when the provisioning completes, fails or is cancelled. Provisioning pdus passed in without a device UUID are handled by the
+ * session that was last identified or started.
+ * </p>
+ */
+class MeshProvisioningHandler {
     private static final String TAG = MeshProvisioningHandler.class.getSimpleName();
     static final int ATTENTION_TIMER = 5; //seconds
     private final InternalTransportCallbacks mInternalTransportCallbacks;
     private final Context mContext;
+    private final MeshScheduler mScheduler;
     private MeshProvisioningStatusCallbacks mStatusCallbacks;
-    private UnprovisionedMeshNode mUnprovisionedMeshNode;
-    private byte attentionTimer = ATTENTION_TIMER;
-
-    private ProvisioningState provisioningState;
-    private boolean isProvisioningPublicKeySent;
-    private boolean isProvisioneePublicKeyReceived;
     private final InternalMeshManagerCallbacks mInternalMeshManagerCallbacks;
-    private byte[] confirmationInputs;
+    private final Map<UUID, ProvisioningSession> mSessions = new ConcurrentHashMap<>();
+    private volatile ProvisioningSession mCurrentSession;
 
     /**
      * Constructs the mesh provisioning handler
@@ -72,20 +80,26 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
      * </p>
      *
      * @param context                      context
+     * @param scheduler                    {@link MeshScheduler} running the segmentation and reassembly timers of the sessions
      * @param mInternalTransportCallbacks  {@link InternalTransportCallbacks} callbacks
      * @param internalMeshManagerCallbacks {@link InternalMeshManagerCallbacks} callbacks
      */
-    MeshProvisioningHandler(final Context context, final InternalTransportCallbacks mInternalTransportCallbacks, final InternalMeshManagerCallbacks internalMeshManagerCallbacks) {
+    MeshProvisioningHandler(final Context context,
+                            final MeshScheduler scheduler,
+                            final InternalTransportCallbacks mInternalTransportCallbacks,
+                            final InternalMeshManagerCallbacks internalMeshManagerCallbacks) {
         this.mContext = context;
+        this.mScheduler = scheduler;
         this.mInternalTransportCallbacks = mInternalTransportCallbacks;
         this.mInternalMeshManagerCallbacks = internalMeshManagerCallbacks;
     }
 
     /**
-     * Returns the unprovisioned mesh node
+     * Returns the unprovisioned mesh node of the session that was last identified or started
      */
     public UnprovisionedMeshNode getMeshNode() {
-        return mUnprovisionedMeshNode;
+        final ProvisioningSession session = mCurrentSession;
+        return session == null ? null : session.mUnprovisionedMeshNode;
     }
 
     /**
@@ -97,109 +111,83 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
         this.mStatusCallbacks = provisioningCallbacks;
     }
 
+    /**
+     * Returns true if a provisioning session is open for the given device.
+     *
+     * @param deviceUuid Device UUID of unprovisioned node
+     */
+    boolean hasSession(@NonNull final UUID deviceUuid) {
+        return mSessions.containsKey(deviceUuid);
+    }
+
+    /**
+     * Returns the number of open provisioning sessions.
+     */
+    int getSessionCount() {
+        return mSessions.size();
+    }
+
+    /**
+     * Handles a provisioning pdu received by the session that was last identified or started.
+     *
+     * @param data unsegmented provisioning pdu
+     */
     void parseProvisioningNotifications(final byte[] data) {
-        final UnprovisionedMeshNode unprovisionedMeshNode = mUnprovisionedMeshNode;
-        try {
-            switch (provisioningState.getState()) {
-                case PROVISIONING_INVITE:
-                    break;
-                case PROVISIONING_CAPABILITIES:
-                    if (validateMessage(data)) {
-                        if (!parseProvisioningCapabilitiesMessage(unprovisionedMeshNode, data)) {
-                            parseProvisioningState(unprovisionedMeshNode, data);
-                        }
-                    } else {
-                        parseProvisioningState(unprovisionedMeshNode, data);
-                    }
-                    break;
-                case PROVISIONING_START:
-                    break;
-                case PROVISIONING_PUBLIC_KEY:
-                    if (validateMessage(data)) {
-                        parseProvisioneePublicKeyXY(unprovisionedMeshNode, data);
-                    } else {
-                        parseProvisioningState(unprovisionedMeshNode, data);
-                    }
-                    break;
-                case PROVISIONING_INPUT_COMPLETE:
-                    if (validateMessage(data)) {
-                        if (parseProvisioningInputCompleteState(data)) {
-                            sendProvisioningConfirmation(null);
-                        }
-                    } else {
-                        parseProvisioningState(unprovisionedMeshNode, data);
-                    }
-                    break;
-                case PROVISIONING_CONFIRMATION:
-                    if (validateMessage(data)) {
-                        if (parseProvisioneeConfirmation(data)) {
-                            sendRandomConfirmationPDU(unprovisionedMeshNode);
-                        }
-                    } else {
-                        parseProvisioningState(unprovisionedMeshNode, data);
-                    }
-                    break;
-                case PROVISIONING_RANDOM:
-                    if (validateMessage(data)) {
-                        if (parseProvisioneeRandom(data)) {
-                            sendProvisioningData(unprovisionedMeshNode);
-                        }
-                    } else {
-                        parseProvisioningState(unprovisionedMeshNode, data);
-                    }
-                    break;
-                case PROVISIONING_DATA:
-                case PROVISIONING_COMPLETE:
-                case PROVISIONING_FAILED:
-                    parseProvisioningState(unprovisionedMeshNode, data);
-                    break;
+        final ProvisioningSession session = mCurrentSession;
+        if (session == null) {
+            MeshLogger.warn(TAG, "Received provisioning pdu without a provisioning session");
+            return;
+        }
+        session.parseProvisioningNotifications(data);
+    }
 
-            }
-        } catch (Exception ex) {
-            MeshLogger.error(TAG, "Exception in " + provisioningState.getState().name() + " : " + ex.getMessage());
-            parseProvisioningState(unprovisionedMeshNode, data);
+    /**
+     * Handles a notification received on the provisioning bearer of the given device.
+     *
+     * @param deviceUuid Device UUID of unprovisioned node
+     * @param data       pdu received, which may be a segment of a provisioning pdu
+     */
+    void parseProvisioningNotifications(@NonNull final UUID deviceUuid, @NonNull final byte[] data) {
+        final ProvisioningSession session = mSessions.get(deviceUuid);
+        if (session == null) {
+            MeshLogger.warn(TAG, "Received provisioning pdu without a provisioning session for " + deviceUuid);
+            return;
+        }
+        final byte[] pdu = session.decodeNotification(data);
+        if (pdu == null)
+            return;
+        if (pdu[0] != MeshManagerApi.PDU_TYPE_PROVISIONING) {
+            MeshLogger.warn(TAG, "Discarding pdu received on the provisioning bearer of " + deviceUuid + ": " + MeshParserUtils.bytesToHex(pdu, true));
+            return;
         }
+        MeshLogger.verbose(TAG, "Received provisioning message: 0x{}", pdu);
+        session.parseProvisioningNotifications(pdu);
     }
 
+    /**
+     * Handles the write callback of a provisioning pdu sent by the session that was last identified or started.
+     */
     void handleProvisioningWriteCallbacks() {
-        final UnprovisionedMeshNode unprovisionedMeshNode = mUnprovisionedMeshNode;
-        switch (provisioningState.getState()) {
-            case PROVISIONING_INVITE:
-                provisioningState = new ProvisioningCapabilitiesState(unprovisionedMeshNode, mStatusCallbacks);
-                break;
-            case PROVISIONING_CAPABILITIES:
-                break;
-            case PROVISIONING_START:
-            case PROVISIONING_PUBLIC_KEY:
-                //Devices with lower mtu have to send the key in multiple segments
-                sendProvisionerPublicKey(unprovisionedMeshNode);
-                break;
-            case PROVISIONING_INPUT_COMPLETE:
-                break;
-            case PROVISIONING_CONFIRMATION:
-                break;
-            case PROVISIONING_RANDOM:
-                break;
-            case PROVISIONING_DATA:
-                break;
+        final ProvisioningSession session = mCurrentSession;
+        if (session != null) {
+            session.handleProvisioningWriteCallbacks();
         }
     }
 
-    private void parseProvisioningState(final UnprovisionedMeshNode unprovisionedMeshNode, final byte[] data) {
-        isProvisioningPublicKeySent = false;
-        isProvisioneePublicKeyReceived = false;
-        if (data[1] == ProvisioningState.State.PROVISIONING_COMPLETE.getState()) {
-            provisioningState = new ProvisioningCompleteState(unprovisionedMeshNode);
-            //Generate the network id and store it in the mesh node, this is needed to reconnect to the device at a later stage.
-            final ProvisionedMeshNode provisionedMeshNode = new ProvisionedMeshNode(unprovisionedMeshNode);
-            mInternalMeshManagerCallbacks.onNodeProvisioned(provisionedMeshNode, unprovisionedMeshNode.getProvisioningCapabilities().getNumberOfElements());
-            mStatusCallbacks.onProvisioningCompleted(provisionedMeshNode, ProvisioningState.States.PROVISIONING_COMPLETE, data);
-        } else {
-            final ProvisioningFailedState provisioningFailedState = new ProvisioningFailedState();
-            provisioningState = provisioningFailedState;
-            if (provisioningFailedState.parseData(data)) {
-                mStatusCallbacks.onProvisioningFailed(unprovisionedMeshNode, ProvisioningState.States.PROVISIONING_FAILED, data);
-            }
+    /**
+     * Handles a write callback on the provisioning bearer of the given device.
+     *
+     * @param deviceUuid Device UUID of unprovisioned node
+     * @param data       pdu written, which may be a segment of a provisioning pdu
+     */
+    void handleProvisioningWriteCallbacks(@NonNull final UUID deviceUuid, @NonNull final byte[] data) {
+        final ProvisioningSession session = mSessions.get(deviceUuid);
+        if (session == null)
+            return;
+        final byte[] pdu = session.mOutgoingCodec.decode(data);
+        if (pdu != null && pdu[0] == MeshManagerApi.PDU_TYPE_PROVISIONING) {
+            MeshLogger.verbose(TAG, "Provisioning pdu sent: 0x{}", pdu);
+            session.handleProvisioningWriteCallbacks();
         }
     }
 
@@ -234,7 +222,6 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
             unprovisionedMeshNode.setFlags(flagBytes);
             unprovisionedMeshNode.setIvIndex(ivIndexBytes);
             unprovisionedMeshNode.setTtl(globalTtl);
-            mUnprovisionedMeshNode = unprovisionedMeshNode;
         }
         return unprovisionedMeshNode;
     }
@@ -270,7 +257,8 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
      * Identifies the node that is to be provisioned.
      * <p>
      * This method will send a provisioning invite to the connected peripheral. This will help users to identify a particular node before starting the provisioning process.
-     * This method must be invoked before calling {@link #startProvisioningNoOOB(UnprovisionedMeshNode)}
+     * This method must be invoked before calling {@link #startProvisioningNoOOB(UnprovisionedMeshNode)}. A previous provisioning session
+     * of the same device is closed.
      * </p
      *
      * @param uuid           Device UUID of unprovisioned node
@@ -286,11 +274,15 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
                   final int ivIndex,
                   final int globalTtl,
                   final int attentionTimer) throws IllegalArgumentException {
-        confirmationInputs = null;
-        this.attentionTimer = (byte) attentionTimer;
         final UnprovisionedMeshNode unprovisionedMeshNode =
                 initializeMeshNode(uuid, networkKey, flags, ivIndex, globalTtl);
-        sendProvisioningInvite(unprovisionedMeshNode);
+        cancel(uuid);
+        final ProvisioningSession session = new ProvisioningSession(unprovisionedMeshNode, (byte) attentionTimer);
+        mSessions.put(uuid, session);
+        mCurrentSession = session;
+        // Generate the key pair used in the public key exchange while the node is being identified
+        ProvisioningKeyPairPool.getInstance().refill();
+        session.sendProvisioningInvite(unprovisionedMeshNode);
     }
 
     /**
@@ -303,7 +295,7 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
      */
     void startProvisioningNoOOB(@NonNull final UnprovisionedMeshNode node) throws
             IllegalArgumentException {
-        sendProvisioningStart(node);
+        getSession(node).sendProvisioningStart(node);
     }
 
     /**
@@ -316,7 +308,7 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
      */
     void startProvisioningWithStaticOOB(
             @NonNull final UnprovisionedMeshNode node) throws IllegalArgumentException {
-        sendProvisioningStartWithStaticOOB(node);
+        getSession(node).sendProvisioningStartWithStaticOOB(node);
     }
 
     /**
@@ -331,7 +323,7 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
     void startProvisioningWithOutputOOB(
             @NonNull final UnprovisionedMeshNode node,
             @NonNull final OutputOOBAction action) throws IllegalArgumentException {
-        sendProvisioningStartWithOutputOOB(node, action);
+        getSession(node).sendProvisioningStartWithOutputOOB(node, action);
     }
 
     /**
@@ -346,227 +338,458 @@ class MeshProvisioningHandler implements InternalProvisioningCallbacks {
     void startProvisioningWithInputOOB(
             @NonNull final UnprovisionedMeshNode node,
             @NonNull final InputOOBAction action) throws IllegalArgumentException {
-        sendProvisioningStartWithInputOOB(node, action);
+        getSession(node).sendProvisioningStartWithInputOOB(node, action);
     }
 
-    private void sendProvisioningInvite(final UnprovisionedMeshNode node) {
-        isProvisioningPublicKeySent = false;
-        isProvisioneePublicKeyReceived = false;
-        final ProvisioningInviteState invite = new ProvisioningInviteState(node, attentionTimer, mInternalTransportCallbacks, mStatusCallbacks);
-        provisioningState = invite;
-        invite.executeSend();
+    /**
+     * Sends the provisioning confirmation of the session that was last identified or started
+     *
+     * @param authentication authentication value input by the user this may be nullable depending on the OOB type selected by the user
+     */
+    void sendProvisioningConfirmation(@Nullable final String authentication) {
+        final ProvisioningSession session = mCurrentSession;
+        if (session == null)
+            throw new IllegalArgumentException("No provisioning session in progress");
+        session.sendProvisioningConfirmation(authentication);
     }
 
     /**
-     * Read provisioning capabilities of node
+     * Sends the provisioning confirmation of the session of the given device
      *
-     * @param capabilities provisioning capabilities of the node
-     * @return true if the message is valid
+     * @param deviceUuid     Device UUID of unprovisioned node
+     * @param authentication authentication value input by the user this may be nullable depending on the OOB type selected by the user
      */
-    private boolean parseProvisioningCapabilitiesMessage(
-            final UnprovisionedMeshNode node, final byte[] capabilities) {
-        final ProvisioningCapabilitiesState provisioningCapabilitiesState = new ProvisioningCapabilitiesState(node, mStatusCallbacks);
-        provisioningState = provisioningCapabilitiesState;
-        return provisioningCapabilitiesState.parseData(capabilities);
+    void sendProvisioningConfirmation(@NonNull final UUID deviceUuid, @Nullable final String authentication) {
+        final ProvisioningSession session = mSessions.get(deviceUuid);
+        if (session == null)
+            throw new IllegalArgumentException("No provisioning session for " + deviceUuid);
+        session.sendProvisioningConfirmation(authentication);
     }
 
-    private void sendProvisioningStart(final UnprovisionedMeshNode node) {
-        final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
-        final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
-        final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
-        provisioningState = startProvisioning;
-        startProvisioning.executeSend();
+    /**
+     * Closes the provisioning session of the given device and releases the unicast addresses reserved for it.
+     *
+     * @param deviceUuid Device UUID of unprovisioned node
+     */
+    void cancel(@NonNull final UUID deviceUuid) {
+        final ProvisioningSession session = mSessions.get(deviceUuid);
+        if (session != null) {
+            session.close();
+        }
     }
 
-    private void sendProvisioningStartWithStaticOOB(
-            final UnprovisionedMeshNode node) {
-        final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
-        final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
-
-        final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
-        startProvisioning.setUseStaticOOB(StaticOOBType.STATIC_OOB_AVAILABLE);
-        provisioningState = startProvisioning;
-        startProvisioning.executeSend();
+    @NonNull
+    private ProvisioningSession getSession(@NonNull final UnprovisionedMeshNode node) {
+        final ProvisioningSession session = mSessions.get(node.getDeviceUuid());
+        if (session == null)
+            throw new IllegalArgumentException("Node " + node.getDeviceUuid() + " must be identified before provisioning");
+        session.mUnprovisionedMeshNode = node;
+        mCurrentSession = session;
+        return session;
     }
 
-    private void sendProvisioningStartWithOutputOOB(
-            final UnprovisionedMeshNode node, final OutputOOBAction action) {
-        final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
-        final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
+    /**
+     * Provisioning of a single node with its own state machine, proxy protocol segmentation and reassembly.
+     */
+    final class ProvisioningSession implements InternalProvisioningCallbacks {
+        private final ProxyProtocolCodec mIncomingCodec = new ProxyProtocolCodec();
+        private final ProxyProtocolCodec mOutgoingCodec = new ProxyProtocolCodec();
+        private final Runnable mSarTimeoutRunnable = this::onSarTimeout;
+        private final byte attentionTimer;
+        private UnprovisionedMeshNode mUnprovisionedMeshNode;
+        private ProvisioningState provisioningState;
+        private boolean isProvisioningPublicKeySent;
+        private boolean isProvisioneePublicKeyReceived;
+        private byte[] confirmationInputs;
+        private ProvisioningPublicKeyState publicKeyState;
+        private long startTime;
+
+        ProvisioningSession(@NonNull final UnprovisionedMeshNode node, final byte attentionTimer) {
+            this.mUnprovisionedMeshNode = node;
+            this.attentionTimer = attentionTimer;
+        }
 
-        final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
-        startProvisioning.setUseOutputOOB(action);
-        provisioningState = startProvisioning;
-        startProvisioning.executeSend();
-    }
+        /**
+         * Reassembles a provisioning pdu received on the bearer of the session.
+         *
+         * @param data pdu received
+         * @return the reassembled pdu or null if more segments are expected
+         */
+        @Nullable
+        byte[] decodeNotification(@NonNull final byte[] data) {
+            if (data.length == 0)
+                return null;
+            if (ProxyProtocolCodec.isSegmented(data)) {
+                final int sar = ProxyProtocolCodec.getSar(data[0]);
+                if (sar == ProxyProtocolCodec.SAR_START) {
+                    mScheduler.schedule(mSarTimeoutRunnable, MeshManagerApi.PROXY_SAR_TRANSFER_TIME_OUT);
+                } else if (sar == ProxyProtocolCodec.SAR_END) {
+                    mScheduler.cancel(mSarTimeoutRunnable);
+                }
+            }
+            return mIncomingCodec.decode(data);
+        }
 
-    private void sendProvisioningStartWithInputOOB(
-            final UnprovisionedMeshNode node, final InputOOBAction action) {
-        final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
-        final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
+        private void onSarTimeout() {
+            MeshLogger.warn(TAG, "Reassembly of provisioning pdu timed out for " + mUnprovisionedMeshNode.getDeviceUuid());
+            mIncomingCodec.reset();
+        }
 
-        final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
-        startProvisioning.setUseInputOOB(action);
-        provisioningState = startProvisioning;
-        startProvisioning.executeSend();
-    }
+        /**
+         * Removes the session and releases the unicast addresses reserved for the node.
+         */
+        void close() {
+            mScheduler.cancel(mSarTimeoutRunnable);
+            mIncomingCodec.reset();
+            mOutgoingCodec.reset();
+            final UUID deviceUuid = mUnprovisionedMeshNode.getDeviceUuid();
+            if (mSessions.remove(deviceUuid, this)) {
+                mInternalMeshManagerCallbacks.onProvisioningSessionClosed(deviceUuid);
+            }
+        }
+
+        void parseProvisioningNotifications(final byte[] data) {
+            final UnprovisionedMeshNode unprovisionedMeshNode = mUnprovisionedMeshNode;
+            try {
+                switch (provisioningState.getState()) {
+                    case PROVISIONING_INVITE:
+                        break;
+                    case PROVISIONING_CAPABILITIES:
+                        if (validateMessage(data)) {
+                            if (!parseProvisioningCapabilitiesMessage(unprovisionedMeshNode, data)) {
+                                parseProvisioningState(unprovisionedMeshNode, data);
+                            }
+                        } else {
+                            parseProvisioningState(unprovisionedMeshNode, data);
+                        }
+                        break;
+                    case PROVISIONING_START:
+                        break;
+                    case PROVISIONING_PUBLIC_KEY:
+                        if (validateMessage(data)) {
+                            parseProvisioneePublicKeyXY(unprovisionedMeshNode, data);
+                        } else {
+                            parseProvisioningState(unprovisionedMeshNode, data);
+                        }
+                        break;
+                    case PROVISIONING_INPUT_COMPLETE:
+                        if (validateMessage(data)) {
+                            if (parseProvisioningInputCompleteState(data)) {
+                                sendProvisioningConfirmation(null);
+                            }
+                        } else {
+                            parseProvisioningState(unprovisionedMeshNode, data);
+                        }
+                        break;
+                    case PROVISIONING_CONFIRMATION:
+                        if (validateMessage(data)) {
+                            if (parseProvisioneeConfirmation(data)) {
+                                sendRandomConfirmationPDU(unprovisionedMeshNode);
+                            }
+                        } else {
+                            parseProvisioningState(unprovisionedMeshNode, data);
+                        }
+                        break;
+                    case PROVISIONING_RANDOM:
+                        if (validateMessage(data)) {
+                            if (parseProvisioneeRandom(data)) {
+                                sendProvisioningData(unprovisionedMeshNode);
+                            }
+                        } else {
+                            parseProvisioningState(unprovisionedMeshNode, data);
+                        }
+                        break;
+                    case PROVISIONING_DATA:
+                    case PROVISIONING_COMPLETE:
+                    case PROVISIONING_FAILED:
+                        parseProvisioningState(unprovisionedMeshNode, data);
+                        break;
 
+                }
+            } catch (Exception ex) {
+                MeshLogger.error(TAG, "Exception in " + provisioningState.getState().name() + " : " + ex.getMessage());
+                parseProvisioningState(unprovisionedMeshNode, data);
+            }
+        }
 
-    private void sendProvisionerPublicKey(final UnprovisionedMeshNode node) {
-        if (!isProvisioningPublicKeySent) {
-            if (provisioningState instanceof ProvisioningPublicKeyState) {
-                isProvisioningPublicKeySent = true;
-                provisioningState.executeSend();
+        void handleProvisioningWriteCallbacks() {
+            final UnprovisionedMeshNode unprovisionedMeshNode = mUnprovisionedMeshNode;
+            switch (provisioningState.getState()) {
+                case PROVISIONING_INVITE:
+                    provisioningState = new ProvisioningCapabilitiesState(unprovisionedMeshNode, mStatusCallbacks);
+                    break;
+                case PROVISIONING_CAPABILITIES:
+                    break;
+                case PROVISIONING_START:
+                case PROVISIONING_PUBLIC_KEY:
+                    //Devices with lower mtu have to send the key in multiple segments
+                    sendProvisionerPublicKey(unprovisionedMeshNode);
+                    break;
+                case PROVISIONING_INPUT_COMPLETE:
+                    break;
+                case PROVISIONING_CONFIRMATION:
+                    break;
+                case PROVISIONING_RANDOM:
+                    break;
+                case PROVISIONING_DATA:
+                    break;
+            }
+        }
+
+        private void parseProvisioningState(final UnprovisionedMeshNode unprovisionedMeshNode, final byte[] data) {
+            isProvisioningPublicKeySent = false;
+            isProvisioneePublicKeyReceived = false;
+            if (data[1] == ProvisioningState.State.PROVISIONING_COMPLETE.getState()) {
+                provisioningState = new ProvisioningCompleteState(unprovisionedMeshNode);
+                //Generate the network id and store it in the mesh node, this is needed to reconnect to the device at a later stage.
+                final ProvisionedMeshNode provisionedMeshNode = new ProvisionedMeshNode(unprovisionedMeshNode);
+                mInternalMeshManagerCallbacks.onNodeProvisioned(provisionedMeshNode, unprovisionedMeshNode.getProvisioningCapabilities().getNumberOfElements());
+                close();
+                mStatusCallbacks.onProvisioningCompleted(provisionedMeshNode, ProvisioningState.States.PROVISIONING_COMPLETE, data);
+                mStatusCallbacks.onProvisioningTimings(provisionedMeshNode, getTimings());
             } else {
-                final ProvisioningPublicKeyState provisioningPublicKeyState = new ProvisioningPublicKeyState(node, mInternalTransportCallbacks, mStatusCallbacks);
-                provisioningState = provisioningPublicKeyState;
-                isProvisioningPublicKeySent = true;
-                provisioningPublicKeyState.executeSend();
-                if (node.getProvisioningCapabilities().isPublicKeyOobSupported() && node.getProvisioneePublicKeyXY() != null) {
-                    isProvisioneePublicKeyReceived = provisioningPublicKeyState.parseData(node.getProvisioneePublicKeyXY());
-                    if (isProvisioningPublicKeySent && isProvisioneePublicKeyReceived) {
-                        handleConfirmationState(node, null);
+                final ProvisioningFailedState provisioningFailedState = new ProvisioningFailedState();
+                provisioningState = provisioningFailedState;
+                if (provisioningFailedState.parseData(data)) {
+                    close();
+                    mStatusCallbacks.onProvisioningFailed(unprovisionedMeshNode, ProvisioningState.States.PROVISIONING_FAILED, data);
+                }
+            }
+        }
+
+        @NonNull
+        private ProvisioningTimings getTimings() {
+            final long totalTimeMs = (System.nanoTime() - startTime) / 1000000;
+            if (publicKeyState == null)
+                return new ProvisioningTimings(totalTimeMs, 0, false, 0);
+            return new ProvisioningTimings(totalTimeMs,
+                    publicKeyState.getKeyPairTimeNanos() / 1000000,
+                    publicKeyState.isKeyPairPooled(),
+                    publicKeyState.getSharedSecretTimeNanos() / 1000000);
+        }
+
+        private void sendProvisioningInvite(final UnprovisionedMeshNode node) {
+            startTime = System.nanoTime();
+            isProvisioningPublicKeySent = false;
+            isProvisioneePublicKeyReceived = false;
+            final ProvisioningInviteState invite = new ProvisioningInviteState(node, attentionTimer, mInternalTransportCallbacks, mStatusCallbacks);
+            provisioningState = invite;
+            invite.executeSend();
+        }
+
+        /**
+         * Read provisioning capabilities of node
+         *
+         * @param capabilities provisioning capabilities of the node
+         * @return true if the message is valid
+         */
+        private boolean parseProvisioningCapabilitiesMessage(
+                final UnprovisionedMeshNode node, final byte[] capabilities) {
+            final ProvisioningCapabilitiesState provisioningCapabilitiesState = new ProvisioningCapabilitiesState(node, mStatusCallbacks);
+            provisioningState = provisioningCapabilitiesState;
+            return provisioningCapabilitiesState.parseData(capabilities);
+        }
+
+        private void sendProvisioningStart(final UnprovisionedMeshNode node) {
+            final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
+            final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
+            final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
+            provisioningState = startProvisioning;
+            startProvisioning.executeSend();
+        }
+
+        private void sendProvisioningStartWithStaticOOB(
+                final UnprovisionedMeshNode node) {
+            final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
+            final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
+
+            final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
+            startProvisioning.setUseStaticOOB(StaticOOBType.STATIC_OOB_AVAILABLE);
+            provisioningState = startProvisioning;
+            startProvisioning.executeSend();
+        }
+
+        private void sendProvisioningStartWithOutputOOB(
+                final UnprovisionedMeshNode node, final OutputOOBAction action) {
+            final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
+            final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
+
+            final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
+            startProvisioning.setUseOutputOOB(action);
+            provisioningState = startProvisioning;
+            startProvisioning.executeSend();
+        }
+
+        private void sendProvisioningStartWithInputOOB(
+                final UnprovisionedMeshNode node, final InputOOBAction action) {
+            final ProvisioningCapabilitiesState capabilitiesState = (ProvisioningCapabilitiesState) provisioningState;
+            final ProvisioningCapabilities capabilities = capabilitiesState.getCapabilities();
+
+            final ProvisioningStartState startProvisioning = new ProvisioningStartState(node, capabilities, mInternalTransportCallbacks, mStatusCallbacks);
+            startProvisioning.setUseInputOOB(action);
+            provisioningState = startProvisioning;
+            startProvisioning.executeSend();
+        }
+
+
+        private void sendProvisionerPublicKey(final UnprovisionedMeshNode node) {
+            if (!isProvisioningPublicKeySent) {
+                if (provisioningState instanceof ProvisioningPublicKeyState) {
+                    isProvisioningPublicKeySent = true;
+                    provisioningState.executeSend();
+                } else {
+                    final ProvisioningPublicKeyState provisioningPublicKeyState = new ProvisioningPublicKeyState(node, mInternalTransportCallbacks, mStatusCallbacks);
+                    provisioningState = provisioningPublicKeyState;
+                    publicKeyState = provisioningPublicKeyState;
+                    isProvisioningPublicKeySent = true;
+                    provisioningPublicKeyState.executeSend();
+                    if (node.getProvisioningCapabilities().isPublicKeyOobSupported() && node.getProvisioneePublicKeyXY() != null) {
+                        isProvisioneePublicKeyReceived = provisioningPublicKeyState.parseData(node.getProvisioneePublicKeyXY());
+                        if (isProvisioningPublicKeySent && isProvisioneePublicKeyReceived) {
+                            handleConfirmationState(node, null);
+                        }
                     }
                 }
             }
         }
-    }
 
-    private void parseProvisioneePublicKeyXY(final UnprovisionedMeshNode node, final byte[] data) {
-        if (provisioningState instanceof ProvisioningPublicKeyState) {
-            final ProvisioningPublicKeyState provisioningPublicKeyState = ((ProvisioningPublicKeyState) provisioningState);
-            if (data.length != 66) {
-                throw new IllegalArgumentException("Invalid Provisionee Public Key PDU," +
-                        " length of the Provisionee public key must be 66 bytes, but was " + data.length);
+        private void parseProvisioneePublicKeyXY(final UnprovisionedMeshNode node, final byte[] data) {
+            if (provisioningState instanceof ProvisioningPublicKeyState) {
+                final ProvisioningPublicKeyState provisioningPublicKeyState = ((ProvisioningPublicKeyState) provisioningState);
+                if (data.length != 66) {
+                    throw new IllegalArgumentException("Invalid Provisionee Public Key PDU," +
+                            " length of the Provisionee public key must be 66 bytes, but was " + data.length);
+                }
+                final ByteBuffer buffer = ByteBuffer.allocate(data.length - 2);
+                buffer.put(data, 2, buffer.limit());
+                final byte[] xy = buffer.array();
+                isProvisioneePublicKeyReceived = provisioningPublicKeyState.parseData(xy);
+                if (isProvisioningPublicKeySent && isProvisioneePublicKeyReceived) {
+                    handleConfirmationState(node, data);
+                }
             }
-            final ByteBuffer buffer = ByteBuffer.allocate(data.length - 2);
-            buffer.put(data, 2, buffer.limit());
-            final byte[] xy = buffer.array();
-            isProvisioneePublicKeyReceived = provisioningPublicKeyState.parseData(xy);
-            if (isProvisioningPublicKeySent && isProvisioneePublicKeyReceived) {
-                handleConfirmationState(node, data);
+        }
+
+        private void handleConfirmationState(final UnprovisionedMeshNode node, final byte[] data) {
+            switch (node.getAuthMethodUsed()) {
+                case STATIC_OOB_AUTHENTICATION:
+                    provisioningState = new ProvisioningConfirmationState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
+                    mStatusCallbacks.onProvisioningStateChanged(mUnprovisionedMeshNode, ProvisioningState.States.PROVISIONING_AUTHENTICATION_STATIC_OOB_WAITING, data);
+                    break;
+                case OUTPUT_OOB_AUTHENTICATION:
+                    provisioningState = new ProvisioningConfirmationState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
+                    mStatusCallbacks.onProvisioningStateChanged(mUnprovisionedMeshNode, ProvisioningState.States.PROVISIONING_AUTHENTICATION_OUTPUT_OOB_WAITING, data);
+                    break;
+                case INPUT_OOB_AUTHENTICATION:
+                    provisioningState = new ProvisioningInputCompleteState(node, mInternalTransportCallbacks, mStatusCallbacks);
+                    mStatusCallbacks.onProvisioningStateChanged(mUnprovisionedMeshNode, ProvisioningState.States.PROVISIONING_AUTHENTICATION_INPUT_OOB_WAITING, data);
+                    break;
+                default:
+                    provisioningState = new ProvisioningConfirmationState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
+                    sendProvisioningConfirmation("");
+                    break;
             }
         }
-    }
 
-    private void handleConfirmationState(final UnprovisionedMeshNode node, final byte[] data) {
-        switch (node.getAuthMethodUsed()) {
-            case STATIC_OOB_AUTHENTICATION:
-                provisioningState = new ProvisioningConfirmationState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
-                mStatusCallbacks.onProvisioningStateChanged(mUnprovisionedMeshNode, ProvisioningState.States.PROVISIONING_AUTHENTICATION_STATIC_OOB_WAITING, data);
-                break;
-            case OUTPUT_OOB_AUTHENTICATION:
-                provisioningState = new ProvisioningConfirmationState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
-                mStatusCallbacks.onProvisioningStateChanged(mUnprovisionedMeshNode, ProvisioningState.States.PROVISIONING_AUTHENTICATION_OUTPUT_OOB_WAITING, data);
-                break;
-            case INPUT_OOB_AUTHENTICATION:
-                provisioningState = new ProvisioningInputCompleteState(node, mInternalTransportCallbacks, mStatusCallbacks);
-                mStatusCallbacks.onProvisioningStateChanged(mUnprovisionedMeshNode, ProvisioningState.States.PROVISIONING_AUTHENTICATION_INPUT_OOB_WAITING, data);
-                break;
-            default:
-                provisioningState = new ProvisioningConfirmationState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
-                sendProvisioningConfirmation("");
-                break;
+        /**
+         * Sends the provisioning confirmation
+         *
+         * @param authentication authentication value input by the user this may be nullable depending on the OOB type selected by the user
+         */
+        void sendProvisioningConfirmation(@Nullable final String authentication) {
+            final ProvisioningConfirmationState provisioningConfirmationState;
+            // Check if the current provisioning state, if the user had selected InputOOBAction the state will be ProvisioningInputCompleteState
+            if (provisioningState instanceof ProvisioningInputCompleteState) {
+                provisioningConfirmationState = new ProvisioningConfirmationState(mUnprovisionedMeshNode, this, mInternalTransportCallbacks, mStatusCallbacks);
+                provisioningState = provisioningConfirmationState;
+            } else {
+                provisioningConfirmationState = (ProvisioningConfirmationState) provisioningState;
+                provisioningConfirmationState.setProvisioningAuthentication(authentication);
+            }
+            provisioningConfirmationState.executeSend();
         }
-    }
 
-    /**
-     * Sends the provisioning confirmation
-     *
-     * @param authentication authentication value input by the user this may be nullable depending on the OOB type selected by the user
-     */
-    void sendProvisioningConfirmation(@Nullable final String authentication) {
-        final ProvisioningConfirmationState provisioningConfirmationState;
-        // Check if the current provisioning state, if the user had selected InputOOBAction the state will be ProvisioningInputCompleteState
-        if (provisioningState instanceof ProvisioningInputCompleteState) {
-            provisioningConfirmationState = new ProvisioningConfirmationState(mUnprovisionedMeshNode, this, mInternalTransportCallbacks, mStatusCallbacks);
-            provisioningState = provisioningConfirmationState;
-        } else {
-            provisioningConfirmationState = (ProvisioningConfirmationState) provisioningState;
-            provisioningConfirmationState.setProvisioningAuthentication(authentication);
-        }
-        provisioningConfirmationState.executeSend();
-    }
+        private boolean parseProvisioningInputCompleteState(@NonNull final byte[] data) {
+            final ProvisioningInputCompleteState inputCompleteState = (ProvisioningInputCompleteState) provisioningState;
+            return inputCompleteState.parseData(data);
+        }
 
-    private boolean parseProvisioningInputCompleteState(@NonNull final byte[] data) {
-        final ProvisioningInputCompleteState inputCompleteState = (ProvisioningInputCompleteState) provisioningState;
-        return inputCompleteState.parseData(data);
-    }
+        private boolean parseProvisioneeConfirmation(final byte[] data) {
+            final ProvisioningConfirmationState provisioningConfirmationState = (ProvisioningConfirmationState) provisioningState;
+            return provisioningConfirmationState.parseData(data);
+        }
 
-    private boolean parseProvisioneeConfirmation(final byte[] data) {
-        final ProvisioningConfirmationState provisioningConfirmationState = (ProvisioningConfirmationState) provisioningState;
-        return provisioningConfirmationState.parseData(data);
-    }
+        private void sendRandomConfirmationPDU(final UnprovisionedMeshNode node) {
+            final ProvisioningRandomConfirmationState provisioningRandomConfirmation = new ProvisioningRandomConfirmationState(node, mInternalTransportCallbacks, mStatusCallbacks);
+            provisioningState = provisioningRandomConfirmation;
+            provisioningRandomConfirmation.executeSend();
+        }
 
-    private void sendRandomConfirmationPDU(final UnprovisionedMeshNode node) {
-        final ProvisioningRandomConfirmationState provisioningRandomConfirmation = new ProvisioningRandomConfirmationState(node, mInternalTransportCallbacks, mStatusCallbacks);
-        provisioningState = provisioningRandomConfirmation;
-        provisioningRandomConfirmation.executeSend();
-    }
+        private boolean parseProvisioneeRandom(final byte[] data) {
+            final ProvisioningRandomConfirmationState provisioningRandomConfirmation = (ProvisioningRandomConfirmationState) provisioningState;
+            return provisioningRandomConfirmation.parseData(data);
+        }
 
-    private boolean parseProvisioneeRandom(final byte[] data) {
-        final ProvisioningRandomConfirmationState provisioningRandomConfirmation = (ProvisioningRandomConfirmationState) provisioningState;
-        return provisioningRandomConfirmation.parseData(data);
-    }
+        private void sendProvisioningData(final UnprovisionedMeshNode node) {
+            final ProvisioningDataState provisioningDataState = new ProvisioningDataState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
+            provisioningState = provisioningDataState;
+            provisioningDataState.executeSend();
+        }
 
-    private void sendProvisioningData(final UnprovisionedMeshNode node) {
-        final ProvisioningDataState provisioningDataState = new ProvisioningDataState(node, this, mInternalTransportCallbacks, mStatusCallbacks);
-        provisioningState = provisioningDataState;
-        provisioningDataState.executeSend();
-    }
+        private boolean validateMessage(final byte[] data) {
+            final ProvisioningState state = provisioningState;
+            return data[1] == state.getState().ordinal();
 
-    private boolean validateMessage(final byte[] data) {
-        final ProvisioningState state = provisioningState;
-        return data[1] == state.getState().ordinal();
+        }
 
-    }
+        /**
+         * Generates the confirmation inputs for a provisionee
+         *
+         * @param provisionerKeyXY xy components of the provisioner public key
+         * @param provisioneeKeyXY xy components of the provisionee public key
+         */
+        @Override
+        public byte[] generateConfirmationInputs(final byte[] provisionerKeyXY,
+                                                 final byte[] provisioneeKeyXY) {
+            //invite: 1 bytes, capabilities: 11 bytes, start: 5 bytes, provisionerKey: 64 bytes, deviceKey: 64 bytes
+            //Append all the raw data together
+            if (confirmationInputs != null) {
+                return confirmationInputs;
+            }
 
-    /**
-     * Generates the confirmation inputs for a provisionee
-     *
-     * @param provisionerKeyXY xy components of the provisioner public key
-     * @param provisioneeKeyXY xy components of the provisionee public key
-     */
-    public final byte[] generateConfirmationInputs(final byte[] provisionerKeyXY,
-                                                   final byte[] provisioneeKeyXY) {
-        //invite: 1 bytes, capabilities: 11 bytes, start: 5 bytes, provisionerKey: 64 bytes, deviceKey: 64 bytes
-        //Append all the raw data together
-        if (confirmationInputs != null) {
+            //We must remove the first two bytes which is the pdu type and the provisioning pdu type
+            final int offset = 2;
+            final int inviteLength = mUnprovisionedMeshNode.getProvisioningInvitePdu().length - offset;
+            final ByteBuffer inviteBuffer = ByteBuffer.allocate(inviteLength).
+                    put(mUnprovisionedMeshNode.getProvisioningInvitePdu(), offset, inviteLength);
+            final byte[] invite = inviteBuffer.array();
+
+            //We must remove the first two bytes which is the pdu type and the provisioning pdu type
+            final int capabilitiesLength = mUnprovisionedMeshNode.getProvisioningCapabilitiesPdu().length - offset;
+            final ByteBuffer capabilitiesBuffer = ByteBuffer.allocate(capabilitiesLength)
+                    .put(mUnprovisionedMeshNode.getProvisioningCapabilitiesPdu(), offset, capabilitiesLength);
+            final byte[] capabilities = capabilitiesBuffer.array();
+
+            //We must remove the first two bytes which is the pdu type and the provisioning pdu type
+            final int startDataLength = mUnprovisionedMeshNode.getProvisioningStartPdu().length - offset;
+            final ByteBuffer startDataBuffer = ByteBuffer.allocate(startDataLength).
+                    put(mUnprovisionedMeshNode.getProvisioningStartPdu(), offset, startDataLength);
+            final byte[] startData = startDataBuffer.array();//get(startData, 2, startDataLength);
+
+            final int length = invite.length +
+                    capabilities.length +
+                    startData.length +
+                    provisionerKeyXY.length +
+                    provisioneeKeyXY.length;
+
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            buffer.put(invite);
+            buffer.put(capabilities);
+            buffer.put(startData);
+            buffer.put(provisionerKeyXY);
+            buffer.put(provisioneeKeyXY);
+            confirmationInputs = buffer.array();
             return confirmationInputs;
         }
-
-        //We must remove the first two bytes which is the pdu type and the provisioning pdu type
-        final int offset = 2;
-        final int inviteLength = mUnprovisionedMeshNode.getProvisioningInvitePdu().length - offset;
-        final ByteBuffer inviteBuffer = ByteBuffer.allocate(inviteLength).
-                put(mUnprovisionedMeshNode.getProvisioningInvitePdu(), offset, inviteLength);
-        final byte[] invite = inviteBuffer.array();
-
-        //We must remove the first two bytes which is the pdu type and the provisioning pdu type
-        final int capabilitiesLength = mUnprovisionedMeshNode.getProvisioningCapabilitiesPdu().length - offset;
-        final ByteBuffer capabilitiesBuffer = ByteBuffer.allocate(capabilitiesLength)
-                .put(mUnprovisionedMeshNode.getProvisioningCapabilitiesPdu(), offset, capabilitiesLength);
-        final byte[] capabilities = capabilitiesBuffer.array();
-
-        //We must remove the first two bytes which is the pdu type and the provisioning pdu type
-        final int startDataLength = mUnprovisionedMeshNode.getProvisioningStartPdu().length - offset;
-        final ByteBuffer startDataBuffer = ByteBuffer.allocate(startDataLength).
-                put(mUnprovisionedMeshNode.getProvisioningStartPdu(), offset, startDataLength);
-        final byte[] startData = startDataBuffer.array();//get(startData, 2, startDataLength);
-
-        final int length = invite.length +
-                capabilities.length +
-                startData.length +
-                provisionerKeyXY.length +
-                provisioneeKeyXY.length;
-
-        final ByteBuffer buffer = ByteBuffer.allocate(length);
-        buffer.put(invite);
-        buffer.put(capabilities);
-        buffer.put(startData);
-        buffer.put(provisionerKeyXY);
-        buffer.put(provisioneeKeyXY);
-        confirmationInputs = buffer.array();
-        return confirmationInputs;
     }
 }
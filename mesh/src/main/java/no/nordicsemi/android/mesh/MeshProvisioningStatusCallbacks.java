@@ -22,6 +22,7 @@
 
 package no.nordicsemi.android.mesh;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import no.nordicsemi.android.mesh.provisionerstates.ProvisioningState;
 import no.nordicsemi.android.mesh.provisionerstates.UnprovisionedMeshNode;
@@ -59,4 +60,14 @@ public interface MeshProvisioningStatusCallbacks {
      */
     void onProvisioningCompleted(final ProvisionedMeshNode meshNode, final ProvisioningState.States state, final byte[] data);
 
+    /**
+     * Invoked after {@link #onProvisioningCompleted(ProvisionedMeshNode, ProvisioningState.States, byte[])} with the time spent
+     * provisioning the node.
+     *
+     * @param meshNode {@link ProvisionedMeshNode} provisioned mesh node.
+     * @param timings  {@link ProvisioningTimings} of the provisioning.
+     */
+    default void onProvisioningTimings(@NonNull final ProvisionedMeshNode meshNode, @NonNull final ProvisioningTimings timings) {
+    }
+
 }
@@ -0,0 +1,44 @@
+package no.nordicsemi.android.mesh;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Scheduler that drives the mesh stack.
+ * <p>
+ * Incoming pdus, outgoing messages and the timers of the transport layers, such as the segment acknowledgement timer,
+ * the incomplete timer and the proxy protocol SAR timeout, are executed by this scheduler. By default the stack runs on the
+ * main looper, a dedicated {@link android.os.Looper} or {@link java.util.concurrent.ScheduledExecutorService} may be
+ * provided to {@link MeshManagerApi} to keep the mesh stack off the UI thread. Unit tests may provide their own
+ * implementation to drive the timers with a virtual clock.
+ * </p>
+ * <p>
+ * Implementations must execute the tasks one at a time and in the order in which they were submitted.
+ * </p>
+ *
+ * @see HandlerScheduler
+ * @see ExecutorScheduler
+ */
+public interface MeshScheduler {
+
+    /**
+     * Executes a task on the mesh stack.
+     *
+     * @param task Task to be executed
+     */
+    void execute(@NonNull final Runnable task);
+
+    /**
+     * Schedules a task to be executed on the mesh stack after the given delay.
+     *
+     * @param task    Task to be executed
+     * @param delayMs Delay in milliseconds
+     */
+    void schedule(@NonNull final Runnable task, final long delayMs);
+
+    /**
+     * Cancels all pending executions of a task that was scheduled using {@link #schedule(Runnable, long)}.
+     *
+     * @param task Task to be cancelled
+     */
+    void cancel(@NonNull final Runnable task);
+}
@@ -35,9 +35,11 @@ public interface MeshStatusCallbacks {
     /**
      * Notifies if a transaction has failed
      * <p>
-     * As of now this is only triggered if the incomplete timer has expired for a given segmented message.
+     * This is triggered if the incomplete timer has expired for a given segmented message.
      * The incomplete timer will wait for a minimum of 10 seconds on receiving a segmented message.
      * If all segments are not received during this period, that transaction shall be considered as failed.
+     * It is also triggered if no response has been received for an acknowledged message, see
+     * {@link MeshManagerApi#setTransactionRetransmission(int, long)}.
      * </p>
      *
      * @param dst                       Unique dst address of the device
@@ -0,0 +1,302 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.transport.Element;
+import no.nordicsemi.android.mesh.transport.MeshModel;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.PublicationSettings;
+import no.nordicsemi.android.mesh.utils.MeshAddress;
+
+/**
+ * Reverse index from addresses to the models subscribed to them or publishing to them, and from virtual addresses to
+ * their label UUIDs.
+ * <p>
+ * The models of a node are indexed when the node is added and indexed again whenever the node is updated, which is the
+ * case after each configuration status message received from it. Each indexed model remembers the addresses it was
+ * indexed with, so that the entries of a node can be removed even though its models have changed since. As with
+ * {@link MeshNetworkIndex}, the index is rebuilt lazily when the list of nodes is replaced.
+ * </p>
+ * <p>
+ * Nodes are re-indexed on the thread processing the received messages while the index is queried from the application,
+ * hence all methods are synchronized.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class ModelAddressIndex {
+
+    private final Map<Integer, List<ModelEntry>> subscribers = new HashMap<>();
+    private final Map<Integer, List<ModelEntry>> publishers = new HashMap<>();
+    private final Map<Integer, Label> labels = new HashMap<>();
+    private final Map<ProvisionedMeshNode, IndexedNode> indexedNodeEntries = new IdentityHashMap<>();
+    private final Map<Integer, IndexedNode> indexedNodeAddresses = new HashMap<>();
+
+    private List<ProvisionedMeshNode> indexedNodes;
+    private int indexedNodeCount = -1;
+
+    /**
+     * Returns the elements containing a model subscribed to the given address, in the order they were indexed.
+     *
+     * @param nodes   Nodes of the network
+     * @param address Subscription address
+     */
+    @NonNull
+    synchronized List<Element> getSubscribedElements(@NonNull final List<ProvisionedMeshNode> nodes, final int address) {
+        validate(nodes);
+        final List<ModelEntry> entries = subscribers.get(address);
+        if (entries == null)
+            return new ArrayList<>();
+        final List<Element> elements = new ArrayList<>(entries.size());
+        for (ModelEntry entry : entries) {
+            // The models of an element are indexed one after the other.
+            if (elements.isEmpty() || elements.get(elements.size() - 1) != entry.element) {
+                if (!elements.contains(entry.element))
+                    elements.add(entry.element);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Returns the models subscribed to the given address, in the order they were indexed.
+     *
+     * @param nodes   Nodes of the network
+     * @param address Subscription address
+     */
+    @NonNull
+    synchronized List<MeshModel> getSubscribedModels(@NonNull final List<ProvisionedMeshNode> nodes, final int address) {
+        validate(nodes);
+        return getModels(subscribers.get(address));
+    }
+
+    /**
+     * Returns the models publishing to the given address, in the order they were indexed.
+     *
+     * @param nodes   Nodes of the network
+     * @param address Publish address
+     */
+    @NonNull
+    synchronized List<MeshModel> getPublishingModels(@NonNull final List<ProvisionedMeshNode> nodes, final int address) {
+        validate(nodes);
+        return getModels(publishers.get(address));
+    }
+
+    /**
+     * Returns the label UUID of a virtual address a model is subscribed or publishing to.
+     *
+     * @param nodes   Nodes of the network
+     * @param address Virtual address
+     */
+    @Nullable
+    synchronized UUID getLabelUuid(@NonNull final List<ProvisionedMeshNode> nodes, final int address) {
+        validate(nodes);
+        final Label label = labels.get(address);
+        return label == null ? null : label.uuid;
+    }
+
+    /**
+     * To be called after a node was added to the list of nodes.
+     */
+    synchronized void onNodeAdded(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount + 1) {
+            indexedNodes = null;
+            return;
+        }
+        removeNode(node);
+        putNode(node);
+        indexedNodeCount = nodes.size();
+    }
+
+    /**
+     * To be called after a node was removed from the list of nodes.
+     */
+    synchronized void onNodeRemoved(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount - 1) {
+            indexedNodes = null;
+            return;
+        }
+        removeNode(node);
+        indexedNodeCount = nodes.size();
+    }
+
+    /**
+     * To be called after a node in the list was replaced, or when the elements, subscriptions or publications of a node
+     * have changed.
+     */
+    synchronized void onNodeUpdated(@NonNull final List<ProvisionedMeshNode> nodes, @NonNull final ProvisionedMeshNode node) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount) {
+            indexedNodes = null;
+            return;
+        }
+        // The node may replace another instance of the same node.
+        final IndexedNode previous = indexedNodeAddresses.get(node.getUnicastAddress());
+        if (previous != null) {
+            removeNode(previous.node);
+        }
+        removeNode(node);
+        putNode(node);
+    }
+
+    private void validate(@NonNull final List<ProvisionedMeshNode> nodes) {
+        if (nodes != indexedNodes || nodes.size() != indexedNodeCount) {
+            subscribers.clear();
+            publishers.clear();
+            labels.clear();
+            indexedNodeEntries.clear();
+            indexedNodeAddresses.clear();
+            for (int i = 0; i < nodes.size(); i++) {
+                putNode(nodes.get(i));
+            }
+            indexedNodes = nodes;
+            indexedNodeCount = nodes.size();
+        }
+    }
+
+    private void putNode(@NonNull final ProvisionedMeshNode node) {
+        final IndexedNode indexed = new IndexedNode(node);
+        final List<ModelEntry> entries = indexed.entries;
+        for (Element element : node.getElements().values()) {
+            for (MeshModel model : element.getMeshModels().values()) {
+                if (model == null)
+                    continue;
+                final ModelEntry entry = new ModelEntry(element, model);
+                for (Integer address : model.getSubscribedAddresses()) {
+                    if (!entry.subscriptions.contains(address)) {
+                        entry.subscriptions.add(address);
+                        add(subscribers, address, entry);
+                    }
+                }
+                for (UUID uuid : model.getLabelUUID()) {
+                    addLabel(entry, uuid);
+                }
+                final PublicationSettings publication = model.getPublicationSettings();
+                if (publication != null && !MeshAddress.isValidUnassignedAddress(publication.getPublishAddress())) {
+                    entry.publication = publication.getPublishAddress();
+                    add(publishers, entry.publication, entry);
+                    if (publication.getLabelUUID() != null) {
+                        addLabel(entry, publication.getLabelUUID());
+                    }
+                }
+                entries.add(entry);
+            }
+        }
+        indexedNodeEntries.put(node, indexed);
+        indexedNodeAddresses.put(indexed.unicastAddress, indexed);
+    }
+
+    private void removeNode(@NonNull final ProvisionedMeshNode node) {
+        final IndexedNode indexed = indexedNodeEntries.remove(node);
+        if (indexed == null)
+            return;
+        if (indexedNodeAddresses.get(indexed.unicastAddress) == indexed) {
+            indexedNodeAddresses.remove(indexed.unicastAddress);
+        }
+        for (ModelEntry entry : indexed.entries) {
+            for (Integer address : entry.subscriptions) {
+                remove(subscribers, address, entry);
+            }
+            if (entry.publication != null) {
+                remove(publishers, entry.publication, entry);
+            }
+            for (Integer address : entry.labels) {
+                final Label label = labels.get(address);
+                if (label != null && --label.references == 0) {
+                    labels.remove(address);
+                }
+            }
+        }
+    }
+
+    private void addLabel(@NonNull final ModelEntry entry, @NonNull final UUID uuid) {
+        final int address = MeshAddress.generateVirtualAddress(uuid);
+        Label label = labels.get(address);
+        if (label == null) {
+            label = new Label(uuid);
+            labels.put(address, label);
+        }
+        label.references++;
+        entry.labels.add(address);
+    }
+
+    @NonNull
+    private static List<MeshModel> getModels(@Nullable final List<ModelEntry> entries) {
+        if (entries == null)
+            return new ArrayList<>();
+        final List<MeshModel> models = new ArrayList<>(entries.size());
+        for (ModelEntry entry : entries) {
+            models.add(entry.model);
+        }
+        return models;
+    }
+
+    private static void add(@NonNull final Map<Integer, List<ModelEntry>> index, final int address, @NonNull final ModelEntry entry) {
+        List<ModelEntry> entries = index.get(address);
+        if (entries == null) {
+            entries = new ArrayList<>(2);
+            index.put(address, entries);
+        }
+        entries.add(entry);
+    }
+
+    private static void remove(@NonNull final Map<Integer, List<ModelEntry>> index, final int address, @NonNull final ModelEntry entry) {
+        final List<ModelEntry> entries = index.get(address);
+        if (entries == null)
+            return;
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i) == entry) {
+                entries.remove(i);
+                break;
+            }
+        }
+        if (entries.isEmpty()) {
+            index.remove(address);
+        }
+    }
+
+    /**
+     * A node together with the unicast address and the models it was indexed with.
+     */
+    private static final class IndexedNode {
+        final ProvisionedMeshNode node;
+        final int unicastAddress;
+        final List<ModelEntry> entries = new ArrayList<>();
+
+        IndexedNode(@NonNull final ProvisionedMeshNode node) {
+            this.node = node;
+            this.unicastAddress = node.getUnicastAddress();
+        }
+    }
+
+    /**
+     * A model together with the addresses it was indexed with.
+     */
+    private static final class ModelEntry {
+        final Element element;
+        final MeshModel model;
+        final List<Integer> subscriptions = new ArrayList<>(2);
+        final List<Integer> labels = new ArrayList<>(0);
+        Integer publication;
+
+        ModelEntry(@NonNull final Element element, @NonNull final MeshModel model) {
+            this.element = element;
+            this.model = model;
+        }
+    }
+
+    private static final class Label {
+        final UUID uuid;
+        int references;
+
+        Label(@NonNull final UUID uuid) {
+            this.uuid = uuid;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.utils.SecureUtils;
+
+/**
+ * Table of the network key derivatives of a mesh network indexed by their 7-bit NID.
+ * <p>
+ * A received network pdu only carries the NID of the key that was used to encrypt it. Instead of comparing the NID against
+ * the current and old derivatives of every network key, the pdu handler looks up the candidates for the NID in this table.
+ * The candidates of a NID are ordered by the last successful decryption, so that in the common case the first candidate is
+ * the right one and only a single de-obfuscation and decryption is needed.
+ * </p>
+ * <p>
+ * The table is rebuilt when a key is added, updated or removed or when the phase of a key changes. As the list of keys may also
+ * be replaced as a whole, or a key may be updated directly, the table also verifies the list it was built from and the
+ * derivatives of the returned candidates.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class NetworkKeyTable {
+
+    private static final int NID_COUNT = 0x80;
+
+    private final List<List<Candidate>> candidates = new ArrayList<>(NID_COUNT);
+    private List<NetworkKey> indexedKeys;
+    private int indexedKeyCount = -1;
+
+    /**
+     * Network key derivatives that may have been used to encrypt a pdu with a given NID.
+     */
+    public static final class Candidate {
+        private final NetworkKey networkKey;
+        private final SecureUtils.K2Output k2Output;
+        private final int phase;
+        private final boolean oldKey;
+
+        Candidate(@NonNull final NetworkKey networkKey, @NonNull final SecureUtils.K2Output k2Output, final boolean oldKey) {
+            this.networkKey = networkKey;
+            this.k2Output = k2Output;
+            this.phase = networkKey.getPhase();
+            this.oldKey = oldKey;
+        }
+
+        /**
+         * Returns the network key.
+         */
+        @NonNull
+        public NetworkKey getNetworkKey() {
+            return networkKey;
+        }
+
+        /**
+         * Returns the derivatives of the current or the old key of the network key.
+         */
+        @NonNull
+        public SecureUtils.K2Output getK2Output() {
+            return k2Output;
+        }
+
+        /**
+         * Returns the key refresh phase of the network key when the table was built.
+         */
+        public int getPhase() {
+            return phase;
+        }
+
+        /**
+         * Returns true if the derivatives belong to the old key of the network key.
+         */
+        public boolean isOldKey() {
+            return oldKey;
+        }
+
+        private boolean isValid() {
+            return phase == networkKey.getPhase()
+                    && k2Output == (oldKey ? networkKey.getOldDerivatives() : networkKey.getDerivatives());
+        }
+    }
+
+    NetworkKeyTable() {
+        for (int i = 0; i < NID_COUNT; i++) {
+            candidates.add(null);
+        }
+    }
+
+    /**
+     * Returns the candidates for the given NID, ordered by the last successful decryption.
+     * <p>
+     * The returned list must not be modified and is only valid until the next call to this table.
+     * </p>
+     *
+     * @param netKeys Network keys of the network
+     * @param nid     NID of the received pdu
+     */
+    @NonNull
+    List<Candidate> getCandidates(@NonNull final List<NetworkKey> netKeys, final int nid) {
+        if (netKeys != indexedKeys || netKeys.size() != indexedKeyCount) {
+            rebuild(netKeys);
+        }
+        List<Candidate> list = candidates.get(nid & 0x7F);
+        if (list == null) {
+            // A key may have been updated without the table being notified, in which case the NID is not indexed yet.
+            if (isOutdated(netKeys)) {
+                rebuild(netKeys);
+                list = candidates.get(nid & 0x7F);
+            }
+            return list == null ? Collections.emptyList() : list;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (!list.get(i).isValid()) {
+                rebuild(netKeys);
+                list = candidates.get(nid & 0x7F);
+                return list == null ? Collections.emptyList() : list;
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Moves a candidate to the front of the candidates of its NID after it successfully decrypted a pdu.
+     *
+     * @param candidate Candidate
+     */
+    void onDecrypted(@NonNull final Candidate candidate) {
+        final List<Candidate> list = candidates.get(candidate.getK2Output().getNid() & 0x7F);
+        if (list == null || list.isEmpty() || list.get(0) == candidate)
+            return;
+        if (list.remove(candidate)) {
+            list.add(0, candidate);
+        }
+    }
+
+    /**
+     * Invalidates the table, to be called when a key was added, updated or removed or when the phase of a key has changed.
+     */
+    void invalidate() {
+        indexedKeys = null;
+    }
+
+    private boolean isOutdated(@NonNull final List<NetworkKey> netKeys) {
+        int count = 0;
+        for (int i = 0; i < netKeys.size(); i++) {
+            final NetworkKey key = netKeys.get(i);
+            if (key.getDerivatives() != null) {
+                if (!contains(key, key.getDerivatives()))
+                    return true;
+                count++;
+            }
+            if (key.getOldDerivatives() != null) {
+                if (!contains(key, key.getOldDerivatives()))
+                    return true;
+                count++;
+            }
+        }
+        return count != size();
+    }
+
+    private boolean contains(@NonNull final NetworkKey key, @NonNull final SecureUtils.K2Output k2Output) {
+        final List<Candidate> list = candidates.get(k2Output.getNid() & 0x7F);
+        if (list != null) {
+            for (int i = 0; i < list.size(); i++) {
+                final Candidate candidate = list.get(i);
+                if (candidate.networkKey == key && candidate.k2Output == k2Output && candidate.isValid())
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private int size() {
+        int size = 0;
+        for (int i = 0; i < NID_COUNT; i++) {
+            final List<Candidate> list = candidates.get(i);
+            if (list != null) {
+                size += list.size();
+            }
+        }
+        return size;
+    }
+
+    private void rebuild(@NonNull final List<NetworkKey> netKeys) {
+        // Keep the previous order of the candidates that are still valid, as it reflects the last successful decryption.
+        final List<Candidate> previous = new ArrayList<>();
+        for (int i = 0; i < NID_COUNT; i++) {
+            final List<Candidate> list = candidates.get(i);
+            if (list != null) {
+                previous.addAll(list);
+                candidates.set(i, null);
+            }
+        }
+        final List<Candidate> added = new ArrayList<>();
+        for (int i = 0; i < netKeys.size(); i++) {
+            final NetworkKey key = netKeys.get(i);
+            final Candidate current = key.getDerivatives() == null ? null : new Candidate(key, key.getDerivatives(), false);
+            final Candidate old = key.getOldDerivatives() == null ? null : new Candidate(key, key.getOldDerivatives(), true);
+            // During key distribution messages are still sent with the old key
+            if (key.getPhase() == NetworkKey.KEY_DISTRIBUTION) {
+                addIfPresent(added, old);
+                addIfPresent(added, current);
+            } else {
+                addIfPresent(added, current);
+                addIfPresent(added, old);
+            }
+        }
+        for (Candidate candidate : previous) {
+            final Candidate replacement = find(added, candidate);
+            if (replacement != null) {
+                added.remove(replacement);
+                put(replacement);
+            }
+        }
+        for (Candidate candidate : added) {
+            put(candidate);
+        }
+        indexedKeys = netKeys;
+        indexedKeyCount = netKeys.size();
+    }
+
+    private static void addIfPresent(@NonNull final List<Candidate> list, final Candidate candidate) {
+        if (candidate != null) {
+            list.add(candidate);
+        }
+    }
+
+    private static Candidate find(@NonNull final List<Candidate> list, @NonNull final Candidate candidate) {
+        for (int i = 0; i < list.size(); i++) {
+            final Candidate c = list.get(i);
+            if (c.networkKey == candidate.networkKey && c.k2Output == candidate.k2Output && c.phase == candidate.phase) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    private void put(@NonNull final Candidate candidate) {
+        final int nid = candidate.getK2Output().getNid() & 0x7F;
+        List<Candidate> list = candidates.get(nid);
+        if (list == null) {
+            list = new ArrayList<>(2);
+            candidates.set(nid, list);
+        }
+        list.add(candidate);
+    }
+}
@@ -0,0 +1,65 @@
+package no.nordicsemi.android.mesh;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Time spent provisioning a node.
+ */
+@SuppressWarnings("unused")
+public final class ProvisioningTimings {
+
+    private final long totalTimeMs;
+    private final long keyPairTimeMs;
+    private final boolean keyPairPooled;
+    private final long sharedSecretTimeMs;
+
+    ProvisioningTimings(final long totalTimeMs,
+                        final long keyPairTimeMs,
+                        final boolean keyPairPooled,
+                        final long sharedSecretTimeMs) {
+        this.totalTimeMs = totalTimeMs;
+        this.keyPairTimeMs = keyPairTimeMs;
+        this.keyPairPooled = keyPairPooled;
+        this.sharedSecretTimeMs = sharedSecretTimeMs;
+    }
+
+    /**
+     * Returns the time in milliseconds from sending the provisioning invite until the provisioning completed,
+     * including the time waiting for the user to start the provisioning or to enter the authentication value.
+     */
+    public long getTotalTimeMs() {
+        return totalTimeMs;
+    }
+
+    /**
+     * Returns the time in milliseconds it took to obtain the key pair of the provisioner.
+     */
+    public long getKeyPairTimeMs() {
+        return keyPairTimeMs;
+    }
+
+    /**
+     * Returns true if the key pair of the provisioner was generated in advance, false if it was generated during provisioning.
+     */
+    public boolean isKeyPairPooled() {
+        return keyPairPooled;
+    }
+
+    /**
+     * Returns the time in milliseconds it took to calculate the shared ECDH secret.
+     */
+    public long getSharedSecretTimeMs() {
+        return sharedSecretTimeMs;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ProvisioningTimings{" +
+                "totalTimeMs=" + totalTimeMs +
+                ", keyPairTimeMs=" + keyPairTimeMs +
+                ", keyPairPooled=" + keyPairPooled +
+                ", sharedSecretTimeMs=" + sharedSecretTimeMs +
+                '}';
+    }
+}
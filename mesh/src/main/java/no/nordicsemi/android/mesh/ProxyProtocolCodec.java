@@ -0,0 +1,180 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Segmentation and reassembly of proxy pdus sent over GATT.
+ * <p>
+ * Every proxy pdu starts with a header containing the SAR field in the two most significant bits and the pdu type in the
+ * remaining six bits. Pdus larger than the mtu are split into a start fragment, any number of continuation fragments and an end
+ * fragment, each carrying the header followed by the next part of the pdu.
+ * </p>
+ * <p>
+ * Received fragments are reassembled in a growable buffer kept per pdu type, into which only the payload of each fragment is
+ * written, so that completing a pdu requires a single copy of the reassembled bytes regardless of the number of fragments.
+ * The buffers are reused for subsequent pdus of the same type.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class ProxyProtocolCodec {
+
+    static final int SAR_COMPLETE = 0b00;
+    static final int SAR_START = 0b01;
+    static final int SAR_CONTINUATION = 0b10;
+    static final int SAR_END = 0b11;
+
+    private static final int SAR_BIT_OFFSET = 6;
+    private static final int PDU_TYPE_MASK = 0x3F;
+    private static final int HEADER_LENGTH = 1;
+    private static final int INITIAL_BUFFER_SIZE = 66;
+
+    private final byte[][] buffers = new byte[PDU_TYPE_MASK + 1][];
+    // Number of bytes reassembled for each pdu type, 0 if no pdu of that type is being reassembled
+    private final int[] lengths = new int[PDU_TYPE_MASK + 1];
+
+    /**
+     * Returns the SAR field of a proxy pdu header.
+     *
+     * @param header First byte of a proxy pdu
+     */
+    static int getSar(final byte header) {
+        return (header & 0xFF) >> SAR_BIT_OFFSET;
+    }
+
+    /**
+     * Returns the pdu type of a proxy pdu header.
+     *
+     * @param header First byte of a proxy pdu
+     */
+    static int getPduType(final byte header) {
+        return header & PDU_TYPE_MASK;
+    }
+
+    /**
+     * Returns true if the given fragment is a part of a segmented proxy pdu.
+     *
+     * @param fragment Proxy pdu fragment
+     */
+    static boolean isSegmented(@NonNull final byte[] fragment) {
+        return fragment.length > 0 && getSar(fragment[0]) != SAR_COMPLETE;
+    }
+
+    /**
+     * Adds a received fragment to the reassembly buffer of its pdu type.
+     * <p>
+     * Continuation and end fragments that are not preceded by a start fragment of the same pdu type are dropped.
+     * A start fragment discards any incomplete pdu of the same type.
+     * </p>
+     *
+     * @param fragment Received proxy pdu fragment
+     * @return the complete proxy pdu starting with the pdu type, or null if the pdu is not yet complete
+     * @throws IllegalArgumentException if the fragment is empty
+     */
+    @Nullable
+    byte[] decode(@NonNull final byte[] fragment) {
+        if (fragment.length == 0)
+            throw new IllegalArgumentException("Proxy pdu must contain a header");
+        final int pduType = getPduType(fragment[0]);
+        switch (getSar(fragment[0])) {
+            case SAR_COMPLETE:
+                return fragment;
+            case SAR_START:
+                lengths[pduType] = 0;
+                append(pduType, (byte) pduType);
+                append(pduType, fragment);
+                return null;
+            case SAR_CONTINUATION:
+                if (lengths[pduType] != 0) {
+                    append(pduType, fragment);
+                }
+                return null;
+            default:
+                if (lengths[pduType] == 0)
+                    return null;
+                append(pduType, fragment);
+                final byte[] pdu = Arrays.copyOf(buffers[pduType], lengths[pduType]);
+                lengths[pduType] = 0;
+                return pdu;
+        }
+    }
+
+    /**
+     * Discards all incomplete pdus.
+     */
+    void reset() {
+        Arrays.fill(lengths, 0);
+    }
+
+    /**
+     * Returns true if a pdu of the given type is being reassembled.
+     *
+     * @param pduType Proxy pdu type
+     */
+    boolean isReassembling(final int pduType) {
+        return lengths[pduType & PDU_TYPE_MASK] != 0;
+    }
+
+    /**
+     * Splits a proxy pdu into fragments of at most the given mtu size.
+     * <p>
+     * The fragments are written one after another into a single array, each fragment taking up exactly mtu bytes except for
+     * the last one, so that the array can be written to the peripheral in chunks of the mtu size. Pdus that fit in a single
+     * fragment are returned as is.
+     * </p>
+     *
+     * @param mtuSize Maximum size of a fragment
+     * @param pdu     Proxy pdu starting with the pdu type
+     * @throws IllegalArgumentException if the mtu cannot fit a header and at least one byte of payload
+     */
+    @NonNull
+    static byte[] encode(final int mtuSize, @NonNull final byte[] pdu) {
+        if (mtuSize <= HEADER_LENGTH)
+            throw new IllegalArgumentException("Mtu size must be larger than the proxy pdu header");
+        if (pdu.length <= mtuSize)
+            return pdu;
+
+        final int pduType = getPduType(pdu[0]);
+        final int payloadLength = pdu.length - HEADER_LENGTH;
+        final int maxFragmentPayload = mtuSize - HEADER_LENGTH;
+        final int fragments = (payloadLength + maxFragmentPayload - 1) / maxFragmentPayload;
+        final byte[] segmented = new byte[payloadLength + fragments * HEADER_LENGTH];
+        int srcOffset = HEADER_LENGTH;
+        int dstOffset = 0;
+        for (int i = 0; i < fragments; i++) {
+            final int sar = i == 0 ? SAR_START : i == fragments - 1 ? SAR_END : SAR_CONTINUATION;
+            final int length = Math.min(maxFragmentPayload, pdu.length - srcOffset);
+            segmented[dstOffset] = (byte) ((sar << SAR_BIT_OFFSET) | pduType);
+            System.arraycopy(pdu, srcOffset, segmented, dstOffset + HEADER_LENGTH, length);
+            srcOffset += length;
+            dstOffset += HEADER_LENGTH + length;
+        }
+        return segmented;
+    }
+
+    private void append(final int pduType, final byte value) {
+        final byte[] buffer = ensureCapacity(pduType, 1);
+        buffer[lengths[pduType]++] = value;
+    }
+
+    private void append(final int pduType, final byte[] fragment) {
+        final int length = fragment.length - HEADER_LENGTH;
+        final byte[] buffer = ensureCapacity(pduType, length);
+        System.arraycopy(fragment, HEADER_LENGTH, buffer, lengths[pduType], length);
+        lengths[pduType] += length;
+    }
+
+    private byte[] ensureCapacity(final int pduType, final int additional) {
+        final byte[] buffer = buffers[pduType];
+        final int required = lengths[pduType] + additional;
+        if (buffer == null) {
+            return buffers[pduType] = new byte[Math.max(INITIAL_BUFFER_SIZE, required)];
+        } else if (buffer.length < required) {
+            return buffers[pduType] = Arrays.copyOf(buffer, Math.max(buffer.length * 2, required));
+        }
+        return buffer;
+    }
+}
@@ -5,7 +5,6 @@ import android.os.Parcelable;
 
 import com.google.gson.annotations.Expose;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -18,6 +17,7 @@ import androidx.room.Ignore;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
+import no.nordicsemi.android.mesh.utils.UnsignedShortArrayList;
 
 import static androidx.room.ForeignKey.CASCADE;
 
@@ -41,7 +41,7 @@ public class Scene implements Parcelable {
 
     @TypeConverters(MeshTypeConverters.class)
     @Expose
-    protected List<Integer> addresses = new ArrayList<>();
+    protected List<Integer> addresses = new UnsignedShortArrayList();
 
     @PrimaryKey
     @ColumnInfo(name = "number")
@@ -119,6 +119,18 @@ public class Scene implements Parcelable {
         this.addresses.addAll(addresses);
     }
 
+    /**
+     * Returns true if the scene is stored on the given element address.
+     *
+     * @param address Element address
+     */
+    boolean containsAddress(final int address) {
+        if (addresses instanceof UnsignedShortArrayList) {
+            return ((UnsignedShortArrayList) addresses).indexOfInt(address) >= 0;
+        }
+        return addresses.contains(address);
+    }
+
     public int getNumber() {
         return number;
     }
@@ -0,0 +1,159 @@
+package no.nordicsemi.android.mesh;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.utils.MeshCipher;
+import no.nordicsemi.android.mesh.utils.SecureUtils;
+
+/**
+ * Table of the network ids and beacon keys of the network keys of a mesh network used to authenticate Secure Network Beacons.
+ * <p>
+ * A received beacon is matched against the network ids of the keys of each network key, so that the authentication value
+ * is only calculated for the network key the beacon was sent with. During the key distribution and the using new keys phases
+ * of the key refresh procedure beacons may be sent with either the old or the new key, so both are checked. The network id
+ * and the beacon key are derived once per key instead of for every received beacon.
+ * </p>
+ * <p>
+ * The entries are kept per network key index, together with the key they were derived from, so that a key that has been
+ * updated, copied or reloaded is derived again. The mesh network invalidates the table when a network key is added, updated or
+ * removed or when the phase of a key changes, and a new table is created with every mesh network that is loaded.
+ * </p>
+ * <p>
+ * Proxy nodes repeat the same beacon every few seconds. A beacon that is byte-identical to the last accepted beacon is
+ * ignored as long as the IV Index of the network has not changed since it was accepted, as applying it again has no effect.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class SecureNetworkBeaconTable {
+
+    private static final int PDU_LENGTH = 23; // Pdu type followed by the 22 bytes of the beacon
+    private static final int FLAGS_OFFSET = 2;
+    private static final int NETWORK_ID_OFFSET = 3;
+    private static final int NETWORK_ID_LENGTH = 8;
+    private static final int AUTHENTICATION_VALUE_OFFSET = 15;
+    private static final int AUTHENTICATION_VALUE_LENGTH = 8;
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Integer, Entry> oldEntries = new HashMap<>();
+    private byte[] lastAcceptedPdu;
+    private int lastAcceptedIvIndex;
+    private boolean lastAcceptedIvUpdateActive;
+
+    /**
+     * Network id and beacon key derived from the current or the old key of a network key.
+     */
+    private static final class Entry {
+        private final byte[] key;
+        private final byte[] networkId;
+        private final MeshCipher beaconCipher;
+
+        Entry(@NonNull final byte[] key) {
+            this.key = key.clone();
+            networkId = SecureUtils.calculateK3(key);
+            beaconCipher = new MeshCipher(SecureUtils.calculateBeaconKey(key));
+        }
+    }
+
+    /**
+     * Returns true if the given pdu is identical to the last accepted beacon and the IV Index of the network is unchanged.
+     *
+     * @param pdu     Mesh beacon pdu including the pdu type
+     * @param ivIndex Current IV Index of the network
+     */
+    synchronized boolean isDuplicate(@NonNull final byte[] pdu, @NonNull final IvIndex ivIndex) {
+        return lastAcceptedPdu != null &&
+                lastAcceptedIvIndex == ivIndex.getIvIndex() &&
+                lastAcceptedIvUpdateActive == ivIndex.isIvUpdateActive() &&
+                Arrays.equals(lastAcceptedPdu, pdu);
+    }
+
+    /**
+     * Stores the last accepted beacon along with the IV Index of the network after the beacon was applied.
+     *
+     * @param pdu     Mesh beacon pdu including the pdu type
+     * @param ivIndex IV Index of the network
+     */
+    synchronized void onAccepted(@NonNull final byte[] pdu, @NonNull final IvIndex ivIndex) {
+        lastAcceptedPdu = pdu.clone();
+        lastAcceptedIvIndex = ivIndex.getIvIndex();
+        lastAcceptedIvUpdateActive = ivIndex.isIvUpdateActive();
+    }
+
+    /**
+     * Returns the network key the given Secure Network Beacon was sent with.
+     *
+     * @param netKeys Network keys of the mesh network
+     * @param pdu     Mesh beacon pdu including the pdu type
+     * @return the network key with a matching network id and authentication value or null if the beacon could not be authenticated
+     */
+    @Nullable
+    synchronized NetworkKey authenticate(@NonNull final List<NetworkKey> netKeys, @NonNull final byte[] pdu) {
+        if (pdu.length != PDU_LENGTH)
+            return null;
+        for (int i = 0; i < netKeys.size(); i++) {
+            final NetworkKey networkKey = netKeys.get(i);
+            if (isAuthenticated(pdu, getEntry(entries, networkKey.getKeyIndex(), networkKey.getKey())))
+                return networkKey;
+            final int phase = networkKey.getPhase();
+            if ((phase == NetworkKey.KEY_DISTRIBUTION || phase == NetworkKey.USING_NEW_KEYS) && networkKey.getOldKey() != null &&
+                    isAuthenticated(pdu, getEntry(oldEntries, networkKey.getKeyIndex(), networkKey.getOldKey())))
+                return networkKey;
+        }
+        return null;
+    }
+
+    /**
+     * Removes the derived keys, to be called when a key was added, updated or removed or when the phase of a key has changed.
+     */
+    synchronized void invalidate() {
+        entries.clear();
+        oldEntries.clear();
+    }
+
+    /**
+     * Removes all derived keys and the last accepted beacon.
+     */
+    synchronized void clear() {
+        invalidate();
+        lastAcceptedPdu = null;
+    }
+
+    /**
+     * Returns the number of derived keys in the table.
+     */
+    synchronized int size() {
+        return entries.size() + oldEntries.size();
+    }
+
+    @NonNull
+    private static Entry getEntry(@NonNull final Map<Integer, Entry> entries, final int keyIndex, @NonNull final byte[] key) {
+        Entry entry = entries.get(keyIndex);
+        if (entry == null || !Arrays.equals(entry.key, key)) {
+            entry = new Entry(key);
+            entries.put(keyIndex, entry);
+        }
+        return entry;
+    }
+
+    private static boolean isAuthenticated(@NonNull final byte[] pdu, @NonNull final Entry entry) {
+        if (!matches(pdu, NETWORK_ID_OFFSET, entry.networkId, NETWORK_ID_LENGTH))
+            return false;
+        final byte[] input = Arrays.copyOfRange(pdu, FLAGS_OFFSET, AUTHENTICATION_VALUE_OFFSET);
+        final byte[] authenticationValue = entry.beaconCipher.calculateCMAC(input);
+        return matches(pdu, AUTHENTICATION_VALUE_OFFSET, authenticationValue, AUTHENTICATION_VALUE_LENGTH);
+    }
+
+    private static boolean matches(@NonNull final byte[] pdu, final int offset, @NonNull final byte[] value, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (pdu[offset + i] != value[i])
+                return false;
+        }
+        return true;
+    }
+}
@@ -33,8 +33,37 @@ public class BlockAcknowledgementMessage extends TransportControlMessage {
 
     private static final String TAG = BlockAcknowledgementMessage.class.getSimpleName();
 
+    private final int seqZero;
+    private final int blockAck;
+
     public BlockAcknowledgementMessage(final byte[] acknowledgementPayload) {
+        this(0, acknowledgementPayload);
+    }
+
+    /**
+     * Constructs a block acknowledgement received from a peer.
+     *
+     * @param seqZero                SeqZero of the acknowledged segmented message
+     * @param acknowledgementPayload 32-bit block acknowledgement
+     */
+    public BlockAcknowledgementMessage(final int seqZero, final byte[] acknowledgementPayload) {
+        this.seqZero = seqZero;
+        this.blockAck = acknowledgementPayload != null && acknowledgementPayload.length >= 4 ?
+                ByteBuffer.wrap(acknowledgementPayload).order(ByteOrder.BIG_ENDIAN).getInt() : 0;
+    }
 
+    /**
+     * Returns the SeqZero of the acknowledged segmented message.
+     */
+    public int getSeqZero() {
+        return seqZero;
+    }
+
+    /**
+     * Returns the block acknowledgement, where bit n is set if segment n has been received by the peer.
+     */
+    public int getBlockAck() {
+        return blockAck;
     }
 
     /**
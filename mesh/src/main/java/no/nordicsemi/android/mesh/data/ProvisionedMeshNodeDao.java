@@ -4,6 +4,7 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
 import androidx.room.Update;
 import androidx.annotation.RestrictTo;
 
@@ -20,6 +21,9 @@ public interface ProvisionedMeshNodeDao {
     @Update(onConflict = OnConflictStrategy.REPLACE)
     void update(final ProvisionedMeshNode meshNode);
 
+    @Query("UPDATE nodes SET seq_number = :sequenceNumber WHERE uuid = :uuid")
+    void updateSequenceNumber(final String uuid, final int sequenceNumber);
+
     @Delete
     void delete(final ProvisionedMeshNode meshNode);
 }
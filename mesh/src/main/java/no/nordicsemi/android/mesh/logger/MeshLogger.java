@@ -2,8 +2,10 @@ package no.nordicsemi.android.mesh.logger;
 
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 
 public final class MeshLogger {
 
@@ -18,37 +20,166 @@ public final class MeshLogger {
         void log(int priority, String tag, String message);
     }
     
+    /**
+     * Supplies a log message that is only built if the message will be logged.
+     */
+    public interface MessageSupplier {
+        /**
+         * Returns the message to be logged.
+         */
+        String get();
+    }
+
+    private static final String PLACEHOLDER = "{}";
+
     @Nullable
     private static LogHandler logHandler = null;
+    private static volatile int logLevel = Log.VERBOSE;
+
+    /**
+     * Returns true if messages of the given priority will be logged.
+     * <p>
+     * Use this to guard log statements which are expensive to build, so that nothing is allocated when the priority is filtered out.
+     * </p>
+     *
+     * @param priority The priority/type of the log message
+     */
+    public static boolean isLoggable(int priority) {
+        return priority >= logLevel;
+    }
+
+    /**
+     * Sets the minimum priority of the messages to be logged. Messages with a lower priority are discarded without being built.
+     *
+     * @param priority Minimum priority, one of {@link Log#VERBOSE}, {@link Log#DEBUG}, {@link Log#INFO}, {@link Log#WARN}, {@link Log#ERROR}.
+     *                 Defaults to {@link Log#VERBOSE}, raise it to skip building debug and verbose messages such as hex dumps of every pdu.
+     */
+    public static void setLogLevel(int priority) {
+        MeshLogger.logLevel = priority;
+    }
+
+    /**
+     * Returns the minimum priority of the messages to be logged.
+     */
+    public static int getLogLevel() {
+        return logLevel;
+    }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public static void verbose(String tag, String message) {
-        log(Log.VERBOSE, tag, message, null);
+        if (isLoggable(Log.VERBOSE))
+            log(Log.VERBOSE, tag, message, null);
+    }
+
+    /**
+     * Logs a verbose message where each {} in the format is replaced by the argument. Byte arrays are formatted as hex.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void verbose(String tag, String format, Object arg) {
+        if (isLoggable(Log.VERBOSE))
+            log(Log.VERBOSE, tag, format(format, arg), null);
+    }
+
+    /**
+     * Logs a verbose message where {} in the format is replaced by the value, without boxing it.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void verbose(String tag, String format, int value) {
+        if (isLoggable(Log.VERBOSE))
+            log(Log.VERBOSE, tag, format(format, value), null);
+    }
+
+    /**
+     * Logs a verbose message where each {} in the format is replaced by the next argument. Byte arrays are formatted as hex.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void verbose(String tag, String format, Object arg1, Object arg2) {
+        if (isLoggable(Log.VERBOSE))
+            log(Log.VERBOSE, tag, format(format, arg1, arg2), null);
+    }
+
+    /**
+     * Logs a verbose message where each {} in the format is replaced by the next argument. Byte arrays are formatted as hex.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void verbose(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(Log.VERBOSE))
+            log(Log.VERBOSE, tag, format(format, arg1, arg2, arg3), null);
+    }
+
+    /**
+     * Logs a verbose message that is only built if verbose messages are logged.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void verbose(String tag, MessageSupplier supplier) {
+        if (isLoggable(Log.VERBOSE))
+            log(Log.VERBOSE, tag, supplier.get(), null);
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public static void debug(String tag, String message) {
-        log(Log.DEBUG, tag, message, null);
+        if (isLoggable(Log.DEBUG))
+            log(Log.DEBUG, tag, message, null);
+    }
+
+    /**
+     * Logs a debug message where each {} in the format is replaced by the argument. Byte arrays are formatted as hex.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void debug(String tag, String format, Object arg) {
+        if (isLoggable(Log.DEBUG))
+            log(Log.DEBUG, tag, format(format, arg), null);
+    }
+
+    /**
+     * Logs a debug message where {} in the format is replaced by the value, without boxing it.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void debug(String tag, String format, int value) {
+        if (isLoggable(Log.DEBUG))
+            log(Log.DEBUG, tag, format(format, value), null);
+    }
+
+    /**
+     * Logs a debug message where each {} in the format is replaced by the next argument. Byte arrays are formatted as hex.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void debug(String tag, String format, Object arg1, Object arg2) {
+        if (isLoggable(Log.DEBUG))
+            log(Log.DEBUG, tag, format(format, arg1, arg2), null);
+    }
+
+    /**
+     * Logs a debug message that is only built if debug messages are logged.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void debug(String tag, MessageSupplier supplier) {
+        if (isLoggable(Log.DEBUG))
+            log(Log.DEBUG, tag, supplier.get(), null);
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public static void info(String tag, String message) {
-        log(Log.INFO, tag, message, null);
+        if (isLoggable(Log.INFO))
+            log(Log.INFO, tag, message, null);
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public static void warn(String tag, String message) {
-        log(Log.WARN, tag, message, null);
+        if (isLoggable(Log.WARN))
+            log(Log.WARN, tag, message, null);
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public static void error(String tag, String message) {
-        log(Log.ERROR, tag, message, null);
+        if (isLoggable(Log.ERROR))
+            log(Log.ERROR, tag, message, null);
     }
 
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public static void error(String tag, String message, Throwable throwable) {
-        log(Log.ERROR, tag, message, throwable);
+        if (isLoggable(Log.ERROR))
+            log(Log.ERROR, tag, message, throwable);
     }
 
     public static void setLogHandler(@Nullable LogHandler logHandler) {
@@ -67,4 +198,27 @@ public final class MeshLogger {
         }
     }
 
+    /**
+     * Replaces each {} in the format with the next argument. Byte arrays are formatted as hex without the 0x prefix.
+     */
+    @NonNull
+    static String format(@NonNull String format, @NonNull Object... args) {
+        final StringBuilder builder = new StringBuilder(format.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            final int index = format.indexOf(PLACEHOLDER, start);
+            if (index < 0)
+                break;
+            builder.append(format, start, index);
+            if (arg instanceof byte[]) {
+                builder.append(MeshParserUtils.bytesToHex((byte[]) arg, false));
+            } else {
+                builder.append(arg);
+            }
+            start = index + PLACEHOLDER.length();
+        }
+        builder.append(format, start, format.length());
+        return builder.toString();
+    }
+
 }
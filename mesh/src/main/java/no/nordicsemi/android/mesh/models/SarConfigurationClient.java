@@ -24,6 +24,26 @@ package no.nordicsemi.android.mesh.models;
 
 import android.os.Parcel;
 
+import no.nordicsemi.android.mesh.MeshManagerApi;
+import no.nordicsemi.android.mesh.transport.ConfigSarReceiverGet;
+import no.nordicsemi.android.mesh.transport.ConfigSarReceiverSet;
+import no.nordicsemi.android.mesh.transport.ConfigSarTransmitterGet;
+import no.nordicsemi.android.mesh.transport.ConfigSarTransmitterSet;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
+
+/**
+ * SAR Configuration Client model.
+ * <p>
+ * The client reads and writes the SAR Transmitter and SAR Receiver states of the SAR Configuration Server of a node, which
+ * control how the node sends and receives segmented messages. The states are read with {@link ConfigSarTransmitterGet} and
+ * {@link ConfigSarReceiverGet} and written with {@link ConfigSarTransmitterSet} and {@link ConfigSarReceiverSet}. The states
+ * reported by the node are stored in its {@link SarConfigurationServer} model.
+ * </p>
+ * <p>
+ * The SAR Transmitter state used by this library when sending segmented messages is set with
+ * {@link MeshManagerApi#setSarTransmitterSettings(SarTransmitterSettings)}.
+ * </p>
+ */
 @SuppressWarnings("WeakerAccess")
 public class SarConfigurationClient extends SigModel {
 
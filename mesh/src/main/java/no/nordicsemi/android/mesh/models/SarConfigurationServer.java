@@ -24,9 +24,16 @@ package no.nordicsemi.android.mesh.models;
 
 import android.os.Parcel;
 
+import androidx.annotation.Nullable;
+import no.nordicsemi.android.mesh.utils.SarReceiverSettings;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
+
 @SuppressWarnings("WeakerAccess")
 public class SarConfigurationServer extends SigModel {
 
+    private SarTransmitterSettings sarTransmitterSettings = null;
+    private SarReceiverSettings sarReceiverSettings = null;
+
     public static final Creator<SarConfigurationServer> CREATOR = new Creator<SarConfigurationServer>() {
         @Override
         public SarConfigurationServer createFromParcel(final Parcel source) {
@@ -61,4 +68,38 @@ public class SarConfigurationServer extends SigModel {
     public void writeToParcel(final Parcel dest, final int flags) {
         super.parcelMeshModel(dest, flags);
     }
+
+    /**
+     * Returns the SAR Transmitter state last reported by the node, or null if it has not been read yet.
+     */
+    @Nullable
+    public SarTransmitterSettings getSarTransmitterSettings() {
+        return sarTransmitterSettings;
+    }
+
+    /**
+     * Sets the SAR Transmitter state.
+     *
+     * @param sarTransmitterSettings SAR Transmitter state.
+     */
+    public void setSarTransmitterSettings(@Nullable final SarTransmitterSettings sarTransmitterSettings) {
+        this.sarTransmitterSettings = sarTransmitterSettings;
+    }
+
+    /**
+     * Returns the SAR Receiver state last reported by the node, or null if it has not been read yet.
+     */
+    @Nullable
+    public SarReceiverSettings getSarReceiverSettings() {
+        return sarReceiverSettings;
+    }
+
+    /**
+     * Sets the SAR Receiver state.
+     *
+     * @param sarReceiverSettings SAR Receiver state.
+     */
+    public void setSarReceiverSettings(@Nullable final SarReceiverSettings sarReceiverSettings) {
+        this.sarReceiverSettings = sarReceiverSettings;
+    }
 }
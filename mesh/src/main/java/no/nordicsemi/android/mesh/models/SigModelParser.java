@@ -36,7 +36,7 @@ public class SigModelParser {
     private static final short MESH_PRIVATE_BEACON_CLIENT                 = 0x000B;
     private static final short ON_DEMAND_PRIVATE_PROXY_SERVER             = 0x000C;
     private static final short ON_DEMAND_PRIVATE_PROXY_CLIENT             = 0x000D;
-    private static final short SAR_CONFIGURATION_SERVER                   = 0x000E;
+    public static final short SAR_CONFIGURATION_SERVER                    = 0x000E;
     private static final short SAR_CONFIGURATION_CLIENT                   = 0x000F;
     private static final short OPCODES_AGGREGATOR_SERVER                  = 0x0010;
     private static final short OPCODES_AGGREGATOR_CLIENT                  = 0x0011;
@@ -379,4 +379,34 @@ public class ConfigMessageOpCodes {
      */
     public static final int CONFIG_VENDOR_MODEL_APP_LIST = 0x804E;
 
+    /**
+     * Opcode for the "SAR Transmitter Get" message.
+     */
+    public static final int CONFIG_SAR_TRANSMITTER_GET = 0x806C;
+
+    /**
+     * Opcode for the "SAR Transmitter Set" message.
+     */
+    public static final int CONFIG_SAR_TRANSMITTER_SET = 0x806D;
+
+    /**
+     * Opcode for the "SAR Transmitter Status" message.
+     */
+    public static final int CONFIG_SAR_TRANSMITTER_STATUS = 0x806E;
+
+    /**
+     * Opcode for the "SAR Receiver Get" message.
+     */
+    public static final int CONFIG_SAR_RECEIVER_GET = 0x806F;
+
+    /**
+     * Opcode for the "SAR Receiver Set" message.
+     */
+    public static final int CONFIG_SAR_RECEIVER_SET = 0x8070;
+
+    /**
+     * Opcode for the "SAR Receiver Status" message.
+     */
+    public static final int CONFIG_SAR_RECEIVER_STATUS = 0x8071;
+
 }
@@ -0,0 +1,140 @@
+package no.nordicsemi.android.mesh.opcodes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the opcodes of acknowledged mesh messages to the opcode of the status message that is sent in response.
+ */
+public final class StatusOpCodes {
+
+    /**
+     * Returned for messages that are not answered with a status message.
+     */
+    public static final int NO_STATUS = -1;
+
+    private static final Map<Integer, Integer> STATUS_OPCODES = new HashMap<>();
+
+    private StatusOpCodes() {
+    }
+
+    /**
+     * Returns the opcode of the status message sent in response to a message with the given opcode.
+     *
+     * @param opCode Opcode of an acknowledged message
+     * @return the opcode of the status message or {@link #NO_STATUS} for unacknowledged or unknown messages
+     */
+    public static int getStatusOpCode(final int opCode) {
+        final Integer statusOpCode = STATUS_OPCODES.get(opCode);
+        return statusOpCode == null ? NO_STATUS : statusOpCode;
+    }
+
+    private static void put(final int statusOpCode, final int... opCodes) {
+        for (int opCode : opCodes) {
+            STATUS_OPCODES.put(opCode, statusOpCode);
+        }
+    }
+
+    static {
+        put(ConfigMessageOpCodes.CONFIG_APPKEY_STATUS, ConfigMessageOpCodes.CONFIG_APPKEY_ADD,
+                ConfigMessageOpCodes.CONFIG_APPKEY_UPDATE, ConfigMessageOpCodes.CONFIG_APPKEY_DELETE);
+        put(ConfigMessageOpCodes.CONFIG_APPKEY_LIST, ConfigMessageOpCodes.CONFIG_APPKEY_GET);
+        put(ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_STATUS, ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_GET);
+        put(ConfigMessageOpCodes.CONFIG_BEACON_STATUS, ConfigMessageOpCodes.CONFIG_BEACON_GET, ConfigMessageOpCodes.CONFIG_BEACON_SET);
+        put(ConfigMessageOpCodes.CONFIG_DEFAULT_TTL_STATUS, ConfigMessageOpCodes.CONFIG_DEFAULT_TTL_GET,
+                ConfigMessageOpCodes.CONFIG_DEFAULT_TTL_SET);
+        put(ConfigMessageOpCodes.CONFIG_FRIEND_STATUS, ConfigMessageOpCodes.CONFIG_FRIEND_GET, ConfigMessageOpCodes.CONFIG_FRIEND_SET);
+        put(ConfigMessageOpCodes.CONFIG_GATT_PROXY_STATUS, ConfigMessageOpCodes.CONFIG_GATT_PROXY_GET,
+                ConfigMessageOpCodes.CONFIG_GATT_PROXY_SET);
+        put(ConfigMessageOpCodes.CONFIG_KEY_REFRESH_PHASE_STATUS, ConfigMessageOpCodes.CONFIG_KEY_REFRESH_PHASE_GET,
+                ConfigMessageOpCodes.CONFIG_KEY_REFRESH_PHASE_SET);
+        put(ConfigMessageOpCodes.CONFIG_MODEL_PUBLICATION_STATUS, ConfigMessageOpCodes.CONFIG_MODEL_PUBLICATION_GET,
+                ConfigMessageOpCodes.CONFIG_MODEL_PUBLICATION_SET, ConfigMessageOpCodes.CONFIG_MODEL_PUBLICATION_VIRTUAL_ADDRESS_SET);
+        put(ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_STATUS, ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_ADD,
+                ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_DELETE, ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_DELETE_ALL,
+                ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_OVERWRITE, ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_VIRTUAL_ADDRESS_ADD,
+                ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_VIRTUAL_ADDRESS_DELETE,
+                ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_VIRTUAL_ADDRESS_OVERWRITE);
+        put(ConfigMessageOpCodes.CONFIG_NETWORK_TRANSMIT_STATUS, ConfigMessageOpCodes.CONFIG_NETWORK_TRANSMIT_GET,
+                ConfigMessageOpCodes.CONFIG_NETWORK_TRANSMIT_SET);
+        put(ConfigMessageOpCodes.CONFIG_RELAY_STATUS, ConfigMessageOpCodes.CONFIG_RELAY_GET, ConfigMessageOpCodes.CONFIG_RELAY_SET);
+        put(ConfigMessageOpCodes.CONFIG_SAR_TRANSMITTER_STATUS, ConfigMessageOpCodes.CONFIG_SAR_TRANSMITTER_GET,
+                ConfigMessageOpCodes.CONFIG_SAR_TRANSMITTER_SET);
+        put(ConfigMessageOpCodes.CONFIG_SAR_RECEIVER_STATUS, ConfigMessageOpCodes.CONFIG_SAR_RECEIVER_GET,
+                ConfigMessageOpCodes.CONFIG_SAR_RECEIVER_SET);
+        put(ConfigMessageOpCodes.CONFIG_SIG_MODEL_SUBSCRIPTION_LIST, ConfigMessageOpCodes.CONFIG_SIG_MODEL_SUBSCRIPTION_GET);
+        put(ConfigMessageOpCodes.CONFIG_VENDOR_MODEL_SUBSCRIPTION_LIST, ConfigMessageOpCodes.CONFIG_VENDOR_MODEL_SUBSCRIPTION_GET);
+        put(ConfigMessageOpCodes.CONFIG_LOW_POWER_NODE_POLLTIMEOUT_STATUS, ConfigMessageOpCodes.CONFIG_LOW_POWER_NODE_POLLTIMEOUT_GET);
+        put(ConfigMessageOpCodes.CONFIG_HEARTBEAT_PUBLICATION_STATUS, ConfigMessageOpCodes.CONFIG_HEARTBEAT_PUBLICATION_GET,
+                ConfigMessageOpCodes.CONFIG_HEARTBEAT_PUBLICATION_SET);
+        put(ConfigMessageOpCodes.CONFIG_HEARTBEAT_SUBSCRIPTION_STATUS, ConfigMessageOpCodes.CONFIG_HEARTBEAT_SUBSCRIPTION_GET,
+                ConfigMessageOpCodes.CONFIG_HEARTBEAT_SUBSCRIPTION_SET);
+        put(ConfigMessageOpCodes.CONFIG_MODEL_APP_STATUS, ConfigMessageOpCodes.CONFIG_MODEL_APP_BIND,
+                ConfigMessageOpCodes.CONFIG_MODEL_APP_UNBIND);
+        put(ConfigMessageOpCodes.CONFIG_NETKEY_STATUS, ConfigMessageOpCodes.CONFIG_NETKEY_ADD,
+                ConfigMessageOpCodes.CONFIG_NETKEY_UPDATE, ConfigMessageOpCodes.CONFIG_NETKEY_DELETE);
+        put(ConfigMessageOpCodes.CONFIG_NETKEY_LIST, ConfigMessageOpCodes.CONFIG_NETKEY_GET);
+        put(ConfigMessageOpCodes.CONFIG_NODE_IDENTITY_STATUS, ConfigMessageOpCodes.CONFIG_NODE_IDENTITY_GET,
+                ConfigMessageOpCodes.CONFIG_NODE_IDENTITY_SET);
+        put(ConfigMessageOpCodes.CONFIG_NODE_RESET_STATUS, ConfigMessageOpCodes.CONFIG_NODE_RESET);
+        put(ConfigMessageOpCodes.CONFIG_SIG_MODEL_APP_LIST, ConfigMessageOpCodes.CONFIG_SIG_MODEL_APP_GET);
+        put(ConfigMessageOpCodes.CONFIG_VENDOR_MODEL_APP_LIST, ConfigMessageOpCodes.CONFIG_VENDOR_MODEL_APP_GET);
+
+        put(ApplicationMessageOpCodes.GENERIC_ON_OFF_STATUS, ApplicationMessageOpCodes.GENERIC_ON_OFF_GET,
+                ApplicationMessageOpCodes.GENERIC_ON_OFF_SET);
+        put(ApplicationMessageOpCodes.GENERIC_LEVEL_STATUS, ApplicationMessageOpCodes.GENERIC_LEVEL_GET,
+                ApplicationMessageOpCodes.GENERIC_LEVEL_SET, ApplicationMessageOpCodes.GENERIC_DELTA_SET);
+        put(ApplicationMessageOpCodes.GENERIC_POWER_LEVEL_STATUS, ApplicationMessageOpCodes.GENERIC_POWER_LEVEL_GET,
+                ApplicationMessageOpCodes.GENERIC_POWER_LEVEL_SET);
+        put(ApplicationMessageOpCodes.GENERIC_POWER_LAST_STATUS, ApplicationMessageOpCodes.GENERIC_POWER_LAST_GET);
+        put(ApplicationMessageOpCodes.GENERIC_POWER_DEFAULT_STATUS, ApplicationMessageOpCodes.GENERIC_POWER_DEFAULT_GET,
+                ApplicationMessageOpCodes.GENERIC_POWER_DEFAULT_SET);
+        put(ApplicationMessageOpCodes.GENERIC_POWER_RANGE_STATUS, ApplicationMessageOpCodes.GENERIC_POWER_RANGE_GET,
+                ApplicationMessageOpCodes.GENERIC_POWER_RANGE_SET);
+        put(ApplicationMessageOpCodes.GENERIC_LOCATION_GLOBAL_STATUS, ApplicationMessageOpCodes.GENERIC_LOCATION_GLOBAL_GET,
+                ApplicationMessageOpCodes.GENERIC_LOCATION_GLOBAL_SET);
+        put(ApplicationMessageOpCodes.GENERIC_BATTERY_STATUS, ApplicationMessageOpCodes.GENERIC_BATTERY_GET);
+        put(ApplicationMessageOpCodes.GENERIC_DEFAULT_TRANSITION_TIME_STATUS, ApplicationMessageOpCodes.GENERIC_DEFAULT_TRANSITION_TIME_GET,
+                ApplicationMessageOpCodes.GENERIC_DEFAULT_TRANSITION_TIME_SET);
+        put(ApplicationMessageOpCodes.GENERIC_ON_POWER_UP_STATUS, ApplicationMessageOpCodes.GENERIC_ON_POWER_UP_GET,
+                ApplicationMessageOpCodes.GENERIC_ON_POWER_UP_SET);
+        put(ApplicationMessageOpCodes.GENERIC_MANUFACTURER_PROPERTIES_STATUS, ApplicationMessageOpCodes.GENERIC_MANUFACTURER_PROPERTIES_GET);
+        put(ApplicationMessageOpCodes.GENERIC_MANUFACTURER_PROPERTY_STATUS, ApplicationMessageOpCodes.GENERIC_MANUFACTURER_PROPERTY_GET,
+                ApplicationMessageOpCodes.GENERIC_MANUFACTURER_PROPERTY_SET);
+        put(ApplicationMessageOpCodes.GENERIC_USER_PROPERTY_STATUS, ApplicationMessageOpCodes.GENERIC_USER_PROPERTY_SET);
+        put(ApplicationMessageOpCodes.GENERIC_ADMIN_PROPERTY_STATUS, ApplicationMessageOpCodes.GENERIC_ADMIN_PROPERTY_SET);
+        put(ApplicationMessageOpCodes.LIGHT_LIGHTNESS_STATUS, ApplicationMessageOpCodes.LIGHT_LIGHTNESS_GET,
+                ApplicationMessageOpCodes.LIGHT_LIGHTNESS_SET);
+        put(ApplicationMessageOpCodes.LIGHT_CTL_STATUS, ApplicationMessageOpCodes.LIGHT_CTL_GET, ApplicationMessageOpCodes.LIGHT_CTL_SET);
+        put(ApplicationMessageOpCodes.LIGHT_CTL_TEMPERATURE_RANGE_STATUS, ApplicationMessageOpCodes.LIGHT_CTL_TEMPERATURE_RANGE_GET,
+                ApplicationMessageOpCodes.LIGHT_CTL_TEMPERATURE_RANGE_SET);
+        put(ApplicationMessageOpCodes.LIGHT_HSL_STATUS, ApplicationMessageOpCodes.LIGHT_HSL_GET, ApplicationMessageOpCodes.LIGHT_HSL_SET);
+        put(ApplicationMessageOpCodes.LIGHT_LC_MODE_STATUS, ApplicationMessageOpCodes.LIGHT_LC_MODE_GET,
+                ApplicationMessageOpCodes.LIGHT_LC_MODE_SET);
+        put(ApplicationMessageOpCodes.LIGHT_LC_OCCUPANCY_MODE_STATUS, ApplicationMessageOpCodes.LIGHT_LC_OCCUPANCY_MODE_GET,
+                ApplicationMessageOpCodes.LIGHT_LC_OCCUPANCY_MODE_SET);
+        put(ApplicationMessageOpCodes.LIGHT_LC_LIGHT_ON_OFF_STATUS, ApplicationMessageOpCodes.LIGHT_LC_LIGHT_ON_OFF_GET,
+                ApplicationMessageOpCodes.LIGHT_LC_LIGHT_ON_OFF_SET);
+        put(ApplicationMessageOpCodes.LIGHT_LC_PROPERTY_STATUS, ApplicationMessageOpCodes.LIGHT_LC_PROPERTY_GET,
+                ApplicationMessageOpCodes.LIGHT_LC_PROPERTY_SET);
+        put(ApplicationMessageOpCodes.SCENE_STATUS, ApplicationMessageOpCodes.SCENE_GET, ApplicationMessageOpCodes.SCENE_RECALL);
+        put(ApplicationMessageOpCodes.SCENE_REGISTER_STATUS, ApplicationMessageOpCodes.SCENE_REGISTER_GET,
+                ApplicationMessageOpCodes.SCENE_STORE, ApplicationMessageOpCodes.SCENE_DELETE);
+        put(ApplicationMessageOpCodes.SENSOR_DESCRIPTOR_STATUS, ApplicationMessageOpCodes.SENSOR_DESCRIPTOR_GET);
+        put(ApplicationMessageOpCodes.SENSOR_STATUS, ApplicationMessageOpCodes.SENSOR_GET);
+        put(ApplicationMessageOpCodes.SENSOR_COLUMN_STATUS, ApplicationMessageOpCodes.SENSOR_COLUMN_GET);
+        put(ApplicationMessageOpCodes.SENSOR_SERIES_STATUS, ApplicationMessageOpCodes.SENSOR_SERIES_GET);
+        put(ApplicationMessageOpCodes.SENSOR_CADENCE_STATUS, ApplicationMessageOpCodes.SENSOR_CADENCE_GET,
+                ApplicationMessageOpCodes.SENSOR_CADENCE_SET);
+        put(ApplicationMessageOpCodes.SENSOR_SETTINGS_STATUS, ApplicationMessageOpCodes.SENSOR_SETTINGS_GET);
+        put(ApplicationMessageOpCodes.SENSOR_SETTING_STATUS, ApplicationMessageOpCodes.SENSOR_SETTING_GET,
+                ApplicationMessageOpCodes.SENSOR_SETTING_SET);
+        put(ApplicationMessageOpCodes.SCHEDULER_STATUS, ApplicationMessageOpCodes.SCHEDULER_GET);
+        put(ApplicationMessageOpCodes.SCHEDULER_ACTION_STATUS, ApplicationMessageOpCodes.SCHEDULER_ACTION_GET,
+                ApplicationMessageOpCodes.SCHEDULER_ACTION_SET);
+        put(ApplicationMessageOpCodes.TIME_STATUS, ApplicationMessageOpCodes.TIME_GET, ApplicationMessageOpCodes.TIME_SET);
+        put(ApplicationMessageOpCodes.TIME_ROLE_STATUS, ApplicationMessageOpCodes.TIME_ROLE_GET, ApplicationMessageOpCodes.TIME_ROLE_SET);
+        put(ApplicationMessageOpCodes.TIME_ZONE_STATUS, ApplicationMessageOpCodes.TIME_ZONE_GET, ApplicationMessageOpCodes.TIME_ZONE_SET);
+        put(ApplicationMessageOpCodes.HEALTH_FAULT_STATUS, ApplicationMessageOpCodes.HEALTH_FAULT_GET);
+    }
+}
@@ -0,0 +1,196 @@
+package no.nordicsemi.android.mesh.provisionerstates;
+
+import org.spongycastle.jce.ECNamedCurveTable;
+import org.spongycastle.jce.spec.ECNamedCurveParameterSpec;
+import org.spongycastle.jce.spec.ECPublicKeySpec;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.util.BigIntegers;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.KeyAgreement;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+
+/**
+ * Pool of secp256r1 key pairs used by the provisioner in the public key exchange.
+ * <p>
+ * Generating a key pair takes a significant amount of time on slower devices. The pool generates key pairs on a background
+ * thread when a node is identified and after a key pair was taken, so that the public key can be sent without delay. Each
+ * key pair is removed from the pool when it is taken and is therefore only used to provision a single node.
+ * </p>
+ * <p>
+ * The curve parameters and the key factory are created once and shared by all provisioning sessions.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class ProvisioningKeyPairPool {
+
+    private static final String TAG = ProvisioningKeyPairPool.class.getSimpleName();
+    /**
+     * Default number of key pairs kept in the pool.
+     */
+    public static final int DEFAULT_DEPTH = 2;
+    private static final String CURVE = "secp256r1";
+    private static final String ALGORITHM = "ECDH";
+    private static final String PROVIDER = "SC";
+    private static final int COORDINATE_LENGTH = 32;
+    private static final ProvisioningKeyPairPool INSTANCE = new ProvisioningKeyPairPool(Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, TAG);
+        thread.setDaemon(true);
+        return thread;
+    }), ProvisioningKeyPairPool::generateKeyPair);
+    private static ECNamedCurveParameterSpec parameterSpec;
+    private static KeyFactory keyFactory;
+    private static KeyAgreement keyAgreement;
+
+    private final Executor executor;
+    private final Callable<KeyPair> generator;
+    private final Queue<KeyPair> keyPairs = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private volatile int depth = DEFAULT_DEPTH;
+
+    /**
+     * Returns the key pair pool shared by all provisioning sessions.
+     */
+    @NonNull
+    public static ProvisioningKeyPairPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructs the pool
+     *
+     * @param executor  Executor on which the key pairs are generated
+     * @param generator Generates a new key pair
+     */
+    ProvisioningKeyPairPool(@NonNull final Executor executor, @NonNull final Callable<KeyPair> generator) {
+        this.executor = executor;
+        this.generator = generator;
+    }
+
+    /**
+     * Sets the number of key pairs kept in the pool. Key pairs exceeding the depth are discarded.
+     *
+     * @param depth Number of key pairs, 0 to generate the key pair of each node when it is needed
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public void setDepth(final int depth) {
+        if (depth < 0)
+            throw new IllegalArgumentException("Depth of the key pair pool cannot be negative");
+        this.depth = depth;
+        while (keyPairs.size() > depth && keyPairs.poll() != null) {
+            // Discard the key pairs exceeding the new depth
+        }
+        refill();
+    }
+
+    /**
+     * Returns the number of key pairs kept in the pool.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of key pairs currently available.
+     */
+    public int size() {
+        return keyPairs.size();
+    }
+
+    /**
+     * Removes a key pair from the pool and starts generating a replacement in the background.
+     *
+     * @return a key pair that has not been handed out before, or null if the pool is empty
+     */
+    @Nullable
+    public KeyPair poll() {
+        final KeyPair keyPair = keyPairs.poll();
+        refill();
+        return keyPair;
+    }
+
+    /**
+     * Generates key pairs in the background until the pool contains {@link #getDepth()} key pairs.
+     */
+    public void refill() {
+        if (keyPairs.size() < depth && refilling.compareAndSet(false, true)) {
+            executor.execute(this::fill);
+        }
+    }
+
+    private void fill() {
+        try {
+            while (keyPairs.size() < depth) {
+                keyPairs.add(generator.call());
+            }
+        } catch (Exception ex) {
+            MeshLogger.error(TAG, "Unable to generate provisioning key pair: " + ex.getMessage());
+            refilling.set(false);
+            return;
+        }
+        refilling.set(false);
+        // The depth may have been increased while the last key pair was generated
+        refill();
+    }
+
+    /**
+     * Generates a new secp256r1 key pair.
+     */
+    @NonNull
+    public static KeyPair generateKeyPair() throws GeneralSecurityException {
+        final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(ALGORITHM, PROVIDER);
+        keyPairGenerator.initialize(getParameterSpec());
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    /**
+     * Calculates the ECDH shared secret of the provisioner private key and the provisionee public key.
+     *
+     * @param privateKey Private key of the provisioner
+     * @param xy         X and Y coordinates of the public key of the provisionee
+     * @return the shared secret
+     * @throws IllegalArgumentException if the public key is not a point on the curve
+     */
+    @NonNull
+    public static byte[] generateSharedSecret(@NonNull final PrivateKey privateKey, @NonNull final byte[] xy) throws GeneralSecurityException {
+        final BigInteger x = BigIntegers.fromUnsignedByteArray(xy, 0, COORDINATE_LENGTH);
+        final BigInteger y = BigIntegers.fromUnsignedByteArray(xy, COORDINATE_LENGTH, COORDINATE_LENGTH);
+        final ECNamedCurveParameterSpec spec = getParameterSpec();
+        final ECPoint ecPoint = spec.getCurve().validatePoint(x, y);
+        synchronized (ProvisioningKeyPairPool.class) {
+            if (keyFactory == null) {
+                keyFactory = KeyFactory.getInstance(ALGORITHM, PROVIDER);
+                keyAgreement = KeyAgreement.getInstance(ALGORITHM, PROVIDER);
+            }
+            final PublicKey publicKey = keyFactory.generatePublic(new ECPublicKeySpec(ecPoint, spec));
+            keyAgreement.init(privateKey);
+            keyAgreement.doPhase(publicKey, true);
+            return keyAgreement.generateSecret();
+        }
+    }
+
+    @NonNull
+    private static synchronized ECNamedCurveParameterSpec getParameterSpec() {
+        if (parameterSpec == null) {
+            parameterSpec = ECNamedCurveTable.getParameterSpec(CURVE);
+        }
+        return parameterSpec;
+    }
+}
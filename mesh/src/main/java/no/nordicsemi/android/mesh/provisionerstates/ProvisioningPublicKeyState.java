@@ -23,31 +23,20 @@
 package no.nordicsemi.android.mesh.provisionerstates;
 
 
-import org.spongycastle.jce.ECNamedCurveTable;
 import org.spongycastle.jce.interfaces.ECPrivateKey;
 import org.spongycastle.jce.interfaces.ECPublicKey;
-import org.spongycastle.jce.spec.ECNamedCurveParameterSpec;
-import org.spongycastle.jce.spec.ECParameterSpec;
-import org.spongycastle.jce.spec.ECPublicKeySpec;
-import org.spongycastle.math.ec.ECCurve;
 import org.spongycastle.math.ec.ECPoint;
 import org.spongycastle.util.BigIntegers;
 
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.security.InvalidKeyException;
-import java.security.KeyFactory;
+import java.security.GeneralSecurityException;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
 import java.security.PrivateKey;
-import java.security.spec.InvalidKeySpecException;
 import java.util.Arrays;
 
-import javax.crypto.KeyAgreement;
-
 import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
 import no.nordicsemi.android.mesh.InternalTransportCallbacks;
 import no.nordicsemi.android.mesh.MeshManagerApi;
 import no.nordicsemi.android.mesh.MeshProvisioningStatusCallbacks;
@@ -63,6 +52,9 @@ public class ProvisioningPublicKeyState extends ProvisioningState {
     private final InternalTransportCallbacks internalTransportCallbacks;
 
     private PrivateKey mProvisionerPrivateKey;
+    private long keyPairTimeNanos;
+    private boolean keyPairPooled;
+    private long sharedSecretTimeNanos;
 
     /**
      * Constructs the provisioning publick key state.
@@ -87,7 +79,10 @@ public class ProvisioningPublicKeyState extends ProvisioningState {
 
     @Override
     public void executeSend() {
-        generateKeyPairs();
+        if (!generateKeyPairs()) {
+            provisioningStatusCallbacks.onProvisioningFailed(node, States.PROVISIONING_FAILED, null);
+            return;
+        }
         final byte[] pdu = generatePublicKeyXYPDU();
         provisioningStatusCallbacks.onProvisioningStateChanged(node, States.PROVISIONING_PUBLIC_KEY_SENT, pdu);
         internalTransportCallbacks.sendProvisioningPdu(node, pdu);
@@ -98,18 +93,48 @@ public class ProvisioningPublicKeyState extends ProvisioningState {
         if (node.getProvisioneePublicKeyXY() == null) {
             provisioningStatusCallbacks.onProvisioningStateChanged(node, States.PROVISIONING_PUBLIC_KEY_RECEIVED, data);
         }
-        generateSharedECDHSecret(data);
+        if (!generateSharedECDHSecret(data)) {
+            provisioningStatusCallbacks.onProvisioningFailed(node, States.PROVISIONING_FAILED, data);
+            return false;
+        }
         // Errata E16350 added an extra validation whether the received Public Key
         // is different than Provisioner's one.
         return !Arrays.equals(node.provisionerPublicKeyXY, node.provisioneePublicKeyXY);
     }
 
-    private void generateKeyPairs() {
+    /**
+     * Returns the time in nanoseconds it took to obtain the key pair of the provisioner.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public long getKeyPairTimeNanos() {
+        return keyPairTimeNanos;
+    }
+
+    /**
+     * Returns true if the key pair of the provisioner was taken from the {@link ProvisioningKeyPairPool}.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public boolean isKeyPairPooled() {
+        return keyPairPooled;
+    }
+
+    /**
+     * Returns the time in nanoseconds it took to calculate the shared ECDH secret.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public long getSharedSecretTimeNanos() {
+        return sharedSecretTimeNanos;
+    }
+
+    private boolean generateKeyPairs() {
         try {
-            final ECNamedCurveParameterSpec parameterSpec = ECNamedCurveTable.getParameterSpec("secp256r1");
-            final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("ECDH", "SC");
-            keyPairGenerator.initialize(parameterSpec);
-            final KeyPair keyPair = keyPairGenerator.generateKeyPair();
+            final long start = System.nanoTime();
+            KeyPair keyPair = ProvisioningKeyPairPool.getInstance().poll();
+            keyPairPooled = keyPair != null;
+            if (keyPair == null) {
+                keyPair = ProvisioningKeyPairPool.generateKeyPair();
+            }
+            keyPairTimeNanos = System.nanoTime() - start;
             final ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
 
             mProvisionerPrivateKey = (ECPrivateKey) keyPair.getPrivate();
@@ -131,8 +156,10 @@ public class ProvisioningPublicKeyState extends ProvisioningState {
             node.setProvisionerPublicKeyXY(tempXY);
 
             MeshLogger.verbose(TAG, "XY: " + MeshParserUtils.bytesToHex(tempXY, true));
+            return true;
         } catch (Exception e) {
-            e.printStackTrace();
+            MeshLogger.error(TAG, "Failed to generate the provisioner key pair", e);
+            return false;
         }
     }
 
@@ -145,7 +172,7 @@ public class ProvisioningPublicKeyState extends ProvisioningState {
         return buffer.array();
     }
 
-    private void generateSharedECDHSecret(final byte[] xy) {
+    private boolean generateSharedECDHSecret(final byte[] xy) {
         if(node.getProvisioneePublicKeyXY() == null) {
             node.setProvisioneePublicKeyXY(xy);
         } else {
@@ -164,35 +191,16 @@ public class ProvisioningPublicKeyState extends ProvisioningState {
         MeshLogger.verbose(TAG, "Provisionee X: " + MeshParserUtils.bytesToHex(yComponent, false));
         MeshLogger.verbose(TAG, "Provisionee Y: " + MeshParserUtils.bytesToHex(xComponent, false));
 
-        final BigInteger x = BigIntegers.fromUnsignedByteArray(xy, 0, 32);
-        final BigInteger y = BigIntegers.fromUnsignedByteArray(xy, 32, 32);
-
-        final ECParameterSpec ecParameters = ECNamedCurveTable.getParameterSpec("secp256r1");
-        ECCurve curve = ecParameters.getCurve();
-        ECPoint ecPoint = curve.validatePoint(x, y);
-
-        ECPublicKeySpec keySpec = new ECPublicKeySpec(ecPoint, ecParameters);
-        KeyFactory keyFactory;
         try {
-            keyFactory = KeyFactory.getInstance("ECDH", "SC");
-            ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(keySpec);
-
-            KeyAgreement a = KeyAgreement.getInstance("ECDH", "SC");
-            a.init(mProvisionerPrivateKey);
-            a.doPhase(publicKey, true);
-
-            final byte[] sharedECDHSecret = a.generateSecret();
+            final long start = System.nanoTime();
+            final byte[] sharedECDHSecret = ProvisioningKeyPairPool.generateSharedSecret(mProvisionerPrivateKey, xy);
+            sharedSecretTimeNanos = System.nanoTime() - start;
             node.setSharedECDHSecret(sharedECDHSecret);
             MeshLogger.verbose(TAG, "ECDH Secret: " + MeshParserUtils.bytesToHex(sharedECDHSecret, false));
-
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        } catch (NoSuchProviderException e) {
-            e.printStackTrace();
-        } catch (InvalidKeySpecException e) {
-            e.printStackTrace();
-        } catch (InvalidKeyException e) {
-            e.printStackTrace();
+            return true;
+        } catch (GeneralSecurityException e) {
+            MeshLogger.error(TAG, "Failed to generate the shared ECDH secret", e);
+            return false;
         }
     }
 }
@@ -23,14 +23,15 @@
 package no.nordicsemi.android.mesh.transport;
 
 import android.content.Context;
-import android.os.Handler;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
+import no.nordicsemi.android.mesh.MeshScheduler;
 
 import static no.nordicsemi.android.mesh.utils.MeshParserUtils.bytesToHex;
 import static no.nordicsemi.android.mesh.utils.MeshParserUtils.createVendorOpCode;
@@ -48,10 +49,10 @@ abstract class AccessLayer {
 
     private static final String TAG = AccessLayer.class.getSimpleName();
     protected Context mContext;
-    Handler mHandler;
+    MeshScheduler mScheduler;
     ProvisionedMeshNode mMeshNode;
 
-    protected abstract void initHandler();
+    protected abstract void initScheduler();
 
     /**
      * Creates an access message
@@ -90,7 +91,7 @@ abstract class AccessLayer {
         }
         final byte[] accessPdu = accessMessageBuffer.array();
 
-        MeshLogger.verbose(TAG, "Created Access PDU " + bytesToHex(accessPdu, false));
+        MeshLogger.verbose(TAG, "Created Access PDU {}", accessPdu);
         accessMessage.setAccessPdu(accessMessageBuffer.array());
     }
 
@@ -114,7 +115,7 @@ abstract class AccessLayer {
             accessMessageBuffer.put(vendorOpcode);
         }
         final byte[] accessPdu = accessMessageBuffer.array();
-        MeshLogger.verbose(TAG, "Created Access PDU " + bytesToHex(accessPdu, false));
+        MeshLogger.verbose(TAG, "Created Access PDU {}", accessPdu);
         accessMessage.setAccessPdu(accessPdu);
     }
 
@@ -132,10 +133,7 @@ abstract class AccessLayer {
         if(opCodeLength == 3) {
             message.setCompanyIdentifier(unsignedByteToInt(accessPayload[2]) << 8 | unsignedByteToInt(accessPayload[1]));
         }
-        final int length = accessPayload.length - opCodeLength;
-        final ByteBuffer paramsBuffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
-        paramsBuffer.put(accessPayload, opCodeLength, length);
-        message.setParameters(paramsBuffer.array());
-        MeshLogger.verbose(TAG, "Received Access PDU " + bytesToHex(accessPayload, false));
+        message.setParameters(Arrays.copyOfRange(accessPayload, opCodeLength, accessPayload.length));
+        MeshLogger.verbose(TAG, "Received Access PDU {}", accessPayload);
     }
 }
@@ -37,6 +37,8 @@ public final class AccessMessage extends Message {
     protected SparseArray<byte[]> lowerTransportAccessPdu = new SparseArray<>();
     private byte[] accessPdu;
     private byte[] transportPdu;
+    // Lower transport pdus of a received message, kept as slices of the decrypted network pdus until they are requested
+    private PduSlice[] receivedLowerTransportPdus;
 
     public static final Creator<AccessMessage> CREATOR = new Creator<AccessMessage>() {
         @Override
@@ -74,9 +76,9 @@ public final class AccessMessage extends Message {
     public void writeToParcel(final Parcel dest, final int flags) {
         super.writeToParcel(dest, flags);
         dest.writeParcelable(new ParcelUuid(label), flags);
-        writeSparseArrayToParcelable(dest, lowerTransportAccessPdu);
+        writeSparseArrayToParcelable(dest, getLowerTransportAccessPdu());
         dest.writeByteArray(accessPdu);
-        dest.writeByteArray(transportPdu);
+        dest.writeByteArray(getUpperTransportPdu());
     }
 
     @Override
@@ -101,6 +103,21 @@ public final class AccessMessage extends Message {
     }
 
     public final byte[] getUpperTransportPdu() {
+        if (transportPdu == null && receivedLowerTransportPdus != null) {
+            // The lower transport header is 4 bytes long for segmented and 1 byte long for unsegmented access messages
+            final int headerLength = isSegmented() ? 4 : 1;
+            int length = 0;
+            for (PduSlice pdu : receivedLowerTransportPdus) {
+                length += pdu.length() - headerLength;
+            }
+            final byte[] upperTransportPdu = new byte[length];
+            int offset = 0;
+            for (PduSlice pdu : receivedLowerTransportPdus) {
+                pdu.slice(headerLength).copyTo(upperTransportPdu, offset);
+                offset += pdu.length() - headerLength;
+            }
+            transportPdu = upperTransportPdu;
+        }
         return transportPdu;
     }
 
@@ -109,10 +126,34 @@ public final class AccessMessage extends Message {
     }
 
     public final SparseArray<byte[]> getLowerTransportAccessPdu() {
+        if (receivedLowerTransportPdus != null && lowerTransportAccessPdu.size() == 0) {
+            for (int segO = 0; segO < receivedLowerTransportPdus.length; segO++) {
+                lowerTransportAccessPdu.put(segO, receivedLowerTransportPdus[segO].toByteArray());
+            }
+        }
         return lowerTransportAccessPdu;
     }
 
     public final void setLowerTransportAccessPdu(final SparseArray<byte[]> lowerTransportAccessPdu) {
         this.lowerTransportAccessPdu = lowerTransportAccessPdu;
+        this.receivedLowerTransportPdus = null;
+    }
+
+    /**
+     * Returns the lower transport pdus of a received message, ordered by the segment offset, or null if the message was not received.
+     */
+    final PduSlice[] getReceivedLowerTransportPdus() {
+        return receivedLowerTransportPdus;
+    }
+
+    /**
+     * Sets the lower transport pdus of a received message without copying them.
+     *
+     * @param receivedLowerTransportPdus Lower transport pdus ordered by the segment offset
+     */
+    final void setReceivedLowerTransportPdus(@NonNull final PduSlice[] receivedLowerTransportPdus) {
+        this.receivedLowerTransportPdus = receivedLowerTransportPdus;
+        this.lowerTransportAccessPdu = new SparseArray<>();
+        this.transportPdu = null;
     }
 }
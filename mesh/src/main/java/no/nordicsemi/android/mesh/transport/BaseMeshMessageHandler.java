@@ -26,23 +26,24 @@ import android.content.Context;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 import android.util.SparseArray;
 
-import org.spongycastle.crypto.InvalidCipherTextException;
-
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.HandlerScheduler;
 import no.nordicsemi.android.mesh.InternalTransportCallbacks;
 import no.nordicsemi.android.mesh.MeshManagerApi;
 import no.nordicsemi.android.mesh.MeshNetwork;
+import no.nordicsemi.android.mesh.MeshScheduler;
 import no.nordicsemi.android.mesh.MeshStatusCallbacks;
-import no.nordicsemi.android.mesh.NetworkKey;
-import no.nordicsemi.android.mesh.utils.ExtendedInvalidCipherTextException;
+import no.nordicsemi.android.mesh.NetworkKeyTable;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
+import no.nordicsemi.android.mesh.utils.MeshCipher;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
 import no.nordicsemi.android.mesh.utils.SecureUtils;
 
 import static no.nordicsemi.android.mesh.transport.NetworkLayer.createNetworkNonce;
@@ -61,6 +62,13 @@ public abstract class BaseMeshMessageHandler implements MeshMessageHandlerApi, I
     private final NetworkLayerCallbacks networkLayerCallbacks;
     private final UpperTransportLayerCallbacks upperTransportLayerCallbacks;
     protected MeshStatusCallbacks mStatusCallbacks;
+    private final MeshScheduler mScheduler;
+    private final TransactionScheduler mTransactionScheduler;
+    private final SarTransmitter mSarTransmitter;
+    private final NetworkMessageCache mNetworkMessageCache = new NetworkMessageCache();
+    private final ReceiveCounters mReceiveCounters = new ReceiveCounters();
+    private final ReplayProtectionList mReplayProtectionList = new ReplayProtectionList();
+    private final StatusMessageRegistry mStatusMessageRegistry = new StatusMessageRegistry();
     private final SparseArray<MeshTransport> transportSparseArray = new SparseArray<>();
     private final SparseArray<MeshMessageState> stateSparseArray = new SparseArray<>();
 
@@ -76,10 +84,32 @@ public abstract class BaseMeshMessageHandler implements MeshMessageHandlerApi, I
                                      @NonNull final InternalTransportCallbacks internalTransportCallbacks,
                                      @NonNull final NetworkLayerCallbacks networkLayerCallbacks,
                                      @NonNull final UpperTransportLayerCallbacks upperTransportLayerCallbacks) {
+        this(context, null, internalTransportCallbacks, networkLayerCallbacks, upperTransportLayerCallbacks);
+    }
+
+    /**
+     * Constructs BaseMessageHandler
+     *
+     * @param context                      Context
+     * @param scheduler                    {@link MeshScheduler} executing the timers of the transport layers,
+     *                                     or null to use the main looper
+     * @param internalTransportCallbacks   {@link InternalTransportCallbacks} Callbacks
+     * @param networkLayerCallbacks        {@link NetworkLayerCallbacks} network layer callbacks
+     * @param upperTransportLayerCallbacks {@link UpperTransportLayerCallbacks} upper transport layer callbacks
+     */
+    protected BaseMeshMessageHandler(@NonNull final Context context,
+                                     @Nullable final MeshScheduler scheduler,
+                                     @NonNull final InternalTransportCallbacks internalTransportCallbacks,
+                                     @NonNull final NetworkLayerCallbacks networkLayerCallbacks,
+                                     @NonNull final UpperTransportLayerCallbacks upperTransportLayerCallbacks) {
         this.mContext = context;
+        this.mScheduler = scheduler;
         this.mInternalTransportCallbacks = internalTransportCallbacks;
         this.networkLayerCallbacks = networkLayerCallbacks;
         this.upperTransportLayerCallbacks = upperTransportLayerCallbacks;
+        final MeshScheduler timerScheduler = scheduler != null ? scheduler : new HandlerScheduler(context.getMainLooper());
+        this.mTransactionScheduler = new TransactionScheduler(timerScheduler, transactionCallbacks);
+        this.mSarTransmitter = new SarTransmitter(timerScheduler, sarTransmitterCallbacks);
     }
 
     /**
@@ -92,91 +122,88 @@ public abstract class BaseMeshMessageHandler implements MeshMessageHandlerApi, I
     /**
      * Parse the mesh network/proxy pdus
      * <p>
-     * This method will try to network layer de-obfuscation and decryption using the available network keys
+     * This method will try to network layer de-obfuscation and decryption using the available network keys.
+     * Pdus that have already been received are dropped by the network message cache before any decryption is done.
+     * Pdus that cannot be decrypted, e.g. pdus of neighbouring networks relayed by a proxy node, are dropped without
+     * throwing and counted in the {@link ReceiveStatistics}.
      * </p>
      *
      * @param pdu     mesh pdu that was sent
      * @param network {@link MeshNetwork}
      */
-    protected void parseMeshPduNotifications(@NonNull final byte[] pdu, @NonNull final MeshNetwork network) throws ExtendedInvalidCipherTextException {
-        final List<NetworkKey> networkKeys = network.getNetKeys();
+    protected void parseMeshPduNotifications(@NonNull final byte[] pdu, @NonNull final MeshNetwork network) {
+        if (mNetworkMessageCache.contains(pdu)) {
+            MeshLogger.verbose(TAG, "Dropping network pdu found in the network message cache");
+            return;
+        }
         final int ivi = ((pdu[1] & 0xFF) >>> 7) & 0x01;
         final int nid = pdu[1] & 0x7F;
+        //Only the network keys with a matching nid are considered, ordered by the last successful decryption.
+        final List<NetworkKeyTable.Candidate> candidates = network.getNetKeyCandidates(nid);
+        if (candidates.isEmpty()) {
+            mReceiveCounters.onUnknownNid();
+            return;
+        }
         final int acceptedIvIndex = network.getIvIndex().getIvIndex();
-        int ivIndex = acceptedIvIndex == 0 ? 0 : acceptedIvIndex - 1;
-        int tempIvIndex = ivIndex;
-        NetworkKey networkKey = null;
-        SecureUtils.K2Output k2Output = null;
-        byte[] networkHeader = null;
-        int ctlTtl = 0;
-        int ctl = 0;
-        int src = 0;
-        ProvisionedMeshNode node = null;
-        while (tempIvIndex <= ivIndex + 1) {
-            //Here we go through all the network keys and filter out network keys based on the nid.
-            for (int i = 0; i < networkKeys.size(); i++) {
-                networkKey = networkKeys.get(i);
-                k2Output = getMatchingK2Output(networkKey, nid);
-                if (k2Output != null) {
-                    networkHeader = deObfuscateNetworkHeader(pdu, MeshParserUtils.intToBytes(tempIvIndex), k2Output.getPrivacyKey());
-                    ctlTtl = networkHeader[0];
-                    ctl = (ctlTtl >> 7) & 0x01;
-                    src = MeshParserUtils.unsignedBytesToInt(networkHeader[5], networkHeader[4]);
-                    // Check if the src is known to the network and if found let's break
-                    // Note a node may not be found if there are two provisioners are operating independently without syncing the network.
-                    node = network.getNode(src);
-                    if (node != null) {
-                        break;
-                    }
+        final int ivIndex = acceptedIvIndex == 0 ? 0 : acceptedIvIndex - 1;
+        boolean sourceFound = false;
+        for (int tempIvIndex = ivIndex; tempIvIndex <= ivIndex + 1; tempIvIndex++) {
+            // Every candidate decoding to a known source is tried until one authenticates, as the header of a pdu of
+            // another network using a network key with the same nid may decode to a known source by chance.
+            for (int i = 0; i < candidates.size(); i++) {
+                final NetworkKeyTable.Candidate candidate = candidates.get(i);
+                final SecureUtils.K2Output k2Output = candidate.getK2Output();
+                final byte[] networkHeader = deObfuscateNetworkHeader(pdu, MeshParserUtils.intToBytes(tempIvIndex), k2Output.getPrivacyCipher());
+                final int ctlTtl = networkHeader[0];
+                final int ctl = (ctlTtl >> 7) & 0x01;
+                final int src = MeshParserUtils.unsignedBytesToInt(networkHeader[5], networkHeader[4]);
+                // Note a node may not be found if there are two provisioners are operating independently without syncing the network.
+                final ProvisionedMeshNode node = network.getNode(src);
+                if (node == null) {
+                    continue;
                 }
-            }
-            // IF the node was found we can safely try to decrypt message with the network key which we found src of the message.
-            if(node != null && k2Output != null) {
-                final byte[] sequenceNumber = ByteBuffer.allocate(3).order(ByteOrder.BIG_ENDIAN).put(networkHeader, 1, 3).array();
-                MeshLogger.verbose(TAG, "Sequence number of received Network PDU: " + MeshParserUtils.convert24BitsToInt(sequenceNumber));
+                // The node was found, let's try to decrypt the message with the network key which we found src of the message.
+                sourceFound = true;
+                final byte[] sequenceNumber = Arrays.copyOfRange(networkHeader, 1, 4);
+                MeshLogger.verbose(TAG, "Sequence number of received Network PDU: {}", MeshParserUtils.convert24BitsToInt(sequenceNumber));
                 //TODO validate ivi
-                byte[] nonce;
-                try {
-                    final int networkPayloadLength = pdu.length - (2 + networkHeader.length);
-                    final byte[] transportPdu = new byte[networkPayloadLength];
-                    System.arraycopy(pdu, 8, transportPdu, 0, networkPayloadLength);
-                    final byte[] decryptedPayload;
-                    final MeshMessageState state;
-                    if (pdu[0] == MeshManagerApi.PDU_TYPE_NETWORK) {
-                        nonce = createNetworkNonce((byte) ctlTtl, sequenceNumber, src, MeshParserUtils.intToBytes(tempIvIndex));
-                        decryptedPayload = SecureUtils.decryptCCM(transportPdu, k2Output.getEncryptionKey(), nonce, SecureUtils.getNetMicLength(ctl));
-                        state = getState(src);
-                    } else {
-                        nonce = createProxyNonce(sequenceNumber, src, MeshParserUtils.intToBytes(tempIvIndex));
-                        decryptedPayload = SecureUtils.decryptCCM(transportPdu, k2Output.getEncryptionKey(), nonce, SecureUtils.getNetMicLength(ctl));
-                        state = getState(MeshAddress.UNASSIGNED_ADDRESS);
-                    }
+                final byte[] nonce;
+                // The network payload is decrypted right after the de-obfuscated network header, so that the lower transport
+                // layers can use slices of the decrypted pdu instead of copying it.
+                final int netMicLength = SecureUtils.getNetMicLength(ctl);
+                final byte[] decryptedPdu = new byte[pdu.length - netMicLength];
+                decryptedPdu[0] = pdu[0];
+                decryptedPdu[1] = pdu[1];
+                System.arraycopy(networkHeader, 0, decryptedPdu, 2, networkHeader.length);
+                final int networkPayloadOffset = 2 + networkHeader.length;
+                final MeshMessageState state;
+                if (pdu[0] == MeshManagerApi.PDU_TYPE_NETWORK) {
+                    nonce = createNetworkNonce((byte) ctlTtl, sequenceNumber, src, MeshParserUtils.intToBytes(tempIvIndex));
+                    state = getState(src);
+                } else {
+                    nonce = createProxyNonce(sequenceNumber, src, MeshParserUtils.intToBytes(tempIvIndex));
+                    state = getState(MeshAddress.UNASSIGNED_ADDRESS);
+                }
+                // A message integrity check failure is expected for pdus of other networks using a network key with the same nid,
+                // so the non throwing variant is used and the next candidate or iv index is tried.
+                final int decryptedLength = k2Output.getEncryptionCipher().tryDecryptCCM(pdu, networkPayloadOffset,
+                        pdu.length - networkPayloadOffset, nonce, null, netMicLength, decryptedPdu, networkPayloadOffset);
+                if (decryptedLength != MeshCipher.DECRYPTION_FAILED) {
+                    network.onNetKeyDecrypted(candidate);
+                    mNetworkMessageCache.add(pdu);
                     if (state != null) {
                         //TODO look in to proxy filter messages
-                        ((DefaultNoOperationMessageState) state).parseMeshPdu(networkKey, node, pdu, networkHeader, decryptedPayload, tempIvIndex, sequenceNumber);
-                        return;
+                        ((DefaultNoOperationMessageState) state).parseMeshPdu(candidate.getNetworkKey(), node, pdu, decryptedPdu, tempIvIndex, sequenceNumber);
                     }
-                } catch (InvalidCipherTextException ex) {
-                    throw new ExtendedInvalidCipherTextException(ex.getMessage(), ex.getCause(), TAG);
+                    return;
                 }
             }
-            tempIvIndex++;
         }
-    }
-
-    /**
-     * Returns the K2output for a given Network Key matching the received NID
-     *
-     * @param networkKey NetworkKey
-     * @param nid        NID
-     * @return {@link SecureUtils.K2Output} or null if the NID doesn't match.
-     */
-    private SecureUtils.K2Output getMatchingK2Output(@NonNull final NetworkKey networkKey, final int nid) {
-        if (nid == networkKey.getDerivatives().getNid())
-            return networkKey.getDerivatives();
-        else if (networkKey.getOldDerivatives() != null && nid == networkKey.getOldDerivatives().getNid())
-            return networkKey.getOldDerivatives();
-        return null;
+        if (sourceFound) {
+            mReceiveCounters.onNetworkMicFailure();
+        } else {
+            mReceiveCounters.onUnknownSource();
+        }
     }
 
     @Override
@@ -192,7 +219,8 @@ public abstract class BaseMeshMessageHandler implements MeshMessageHandlerApi, I
      * @param meshMessage Mesh message
      */
     private DefaultNoOperationMessageState toggleState(@NonNull final MeshTransport transport, @Nullable final MeshMessage meshMessage) {
-        return new DefaultNoOperationMessageState(meshMessage, transport, this, mInternalTransportCallbacks, mStatusCallbacks);
+        return new DefaultNoOperationMessageState(meshMessage, transport, this, mInternalTransportCallbacks, mStatusCallbacks,
+                mStatusMessageRegistry);
     }
 
     /**
@@ -204,7 +232,7 @@ public abstract class BaseMeshMessageHandler implements MeshMessageHandlerApi, I
         MeshMessageState state = stateSparseArray.get(address);
         if (state == null) {
             state = new DefaultNoOperationMessageState(null, getTransport(address),
-                    this, mInternalTransportCallbacks, mStatusCallbacks);
+                    this, mInternalTransportCallbacks, mStatusCallbacks, mStatusMessageRegistry);
             stateSparseArray.put(address, state);
         }
         return state;
@@ -218,9 +246,11 @@ public abstract class BaseMeshMessageHandler implements MeshMessageHandlerApi, I
     private MeshTransport getTransport(final int address) {
         MeshTransport transport = transportSparseArray.get(address);
         if (transport == null) {
-            transport = new MeshTransport(mContext);
+            transport = mScheduler == null ? new MeshTransport(mContext) : new MeshTransport(mContext, mScheduler);
             transport.setNetworkLayerCallbacks(networkLayerCallbacks);
             transport.setUpperTransportLayerCallbacks(upperTransportLayerCallbacks);
+            transport.setReceiveCounters(mReceiveCounters);
+            transport.setReplayProtectionList(mReplayProtectionList);
             transportSparseArray.put(address, transport);
         }
         return transport;
@@ -234,10 +264,252 @@ public abstract class BaseMeshMessageHandler implements MeshMessageHandlerApi, I
     public void resetState(final int address) {
         stateSparseArray.remove(address);
         transportSparseArray.remove(address);
+        mTransactionScheduler.clear(address);
+        mSarTransmitter.clear(address);
+    }
+
+    @Nullable
+    @Override
+    public final MeshMessage onAccessMessageReceived(final int src, final int opCode) {
+        return mTransactionScheduler.onResponseReceived(src, opCode);
+    }
+
+    @Override
+    public final void sendSegmentedMessage(@NonNull final MeshTransport transport, @NonNull final Message message) {
+        mSarTransmitter.send(transport, message);
+    }
+
+    @Override
+    public final void onSegmentAcknowledgementReceived(final int src, final int seqZero, final int blockAck) {
+        mSarTransmitter.onSegmentAcknowledgement(src, seqZero, blockAck);
+    }
+
+    /**
+     * Sets the SAR Transmitter state used when sending segmented messages.
+     *
+     * @param settings {@link SarTransmitterSettings}
+     */
+    public void setSarTransmitterSettings(@NonNull final SarTransmitterSettings settings) {
+        mSarTransmitter.setSettings(settings);
+    }
+
+    /**
+     * Returns the SAR Transmitter state used when sending segmented messages.
+     */
+    @NonNull
+    public SarTransmitterSettings getSarTransmitterSettings() {
+        return mSarTransmitter.getSettings();
+    }
+
+    /**
+     * Sets the number of acknowledged messages that may be awaiting a response from a single node.
+     * <p>
+     * Messages to a node are queued until a slot is available. By default the number is not limited and messages are sent
+     * right away.
+     * </p>
+     *
+     * @param maxInFlight Number of messages, at least 1
+     * @throws IllegalArgumentException if the number is less than 1
+     */
+    public void setMaxTransactionsInFlight(final int maxInFlight) {
+        mTransactionScheduler.setMaxInFlight(maxInFlight);
+    }
+
+    /**
+     * Sets the retransmission policy of acknowledged messages that do not receive a response.
+     * <p>
+     * By default unanswered messages are not retransmitted and {@link MeshStatusCallbacks#onTransactionFailed(int, boolean)}
+     * is invoked if no response has been received within 30 seconds.
+     * </p>
+     *
+     * @param retransmitCount Number of retransmissions before {@link MeshStatusCallbacks#onTransactionFailed(int, boolean)} is invoked
+     * @param timeoutMs       Time to wait for the response to the first transmission, doubled on every retransmission
+     * @throws IllegalArgumentException if the retransmit count is negative or the timeout is not positive
+     */
+    public void setTransactionRetransmission(final int retransmitCount, final long timeoutMs) {
+        mTransactionScheduler.setRetransmission(retransmitCount, timeoutMs);
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent to the given address.
+     *
+     * @param address Destination address
+     */
+    public int getTransactionQueueDepth(final int address) {
+        return mTransactionScheduler.getQueueDepth(address);
+    }
+
+    /**
+     * Returns a snapshot of the metrics of the outgoing messages.
+     */
+    @NonNull
+    public TransactionMetrics getTransactionMetrics() {
+        return mTransactionScheduler.getMetrics();
+    }
+
+    /**
+     * Returns the registry of the status messages parsed from received access messages.
+     */
+    @NonNull
+    public StatusMessageRegistry getStatusMessageRegistry() {
+        return mStatusMessageRegistry;
+    }
+
+    /**
+     * Sets the number of received network pdus remembered by the network message cache. Cached pdus are cleared.
+     *
+     * @param capacity Number of pdus, 0 disables the cache
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public void setNetworkMessageCacheCapacity(final int capacity) {
+        mNetworkMessageCache.setCapacity(capacity);
+    }
+
+    /**
+     * Returns the number of received network pdus that were dropped by the network message cache.
+     */
+    public long getNetworkMessageCacheHits() {
+        return mNetworkMessageCache.getHits();
+    }
+
+    /**
+     * Returns the number of received network pdus that were not found in the network message cache.
+     */
+    public long getNetworkMessageCacheMisses() {
+        return mNetworkMessageCache.getMisses();
+    }
+
+    /**
+     * Returns a snapshot of the counters of the received pdus that were dropped by the network and transport layers.
+     */
+    @NonNull
+    public ReceiveStatistics getReceiveStatistics() {
+        return mReceiveCounters.getStatistics();
+    }
+
+    /**
+     * Resets the counters of the received pdus that were dropped by the network and transport layers.
+     */
+    public void resetReceiveStatistics() {
+        mReceiveCounters.reset();
+    }
+
+    /**
+     * Sets the maximum number of source addresses in the replay protection list.
+     *
+     * @param capacity Maximum number of source addresses
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public void setReplayProtectionListCapacity(final int capacity) {
+        mReplayProtectionList.setCapacity(capacity);
+    }
+
+    /**
+     * Sets the behaviour of the replay protection list when a message is received from a new source while the list is full.
+     *
+     * @param evictionPolicy {@link ReplayProtectionList.EvictionPolicy}
+     */
+    public void setReplayProtectionListEvictionPolicy(@NonNull final ReplayProtectionList.EvictionPolicy evictionPolicy) {
+        mReplayProtectionList.setEvictionPolicy(evictionPolicy);
+    }
+
+    /**
+     * Returns the SeqAuth of the last message received from the given source address.
+     *
+     * @param src Source address
+     * @return SeqAuth made of the IV Index and the sequence number, or null if no message was received from the source
+     */
+    @Nullable
+    public Long getSeqAuth(final int src) {
+        return mReplayProtectionList.get(src);
+    }
+
+    /**
+     * Returns the number of source addresses in the replay protection list.
+     */
+    public int getReplayProtectionListSize() {
+        return mReplayProtectionList.size();
+    }
+
+    /**
+     * Replaces the entries of the replay protection list with the ones stored in the given log and persists all further updates to it.
+     *
+     * @param log {@link ReplayProtectionLog} of the mesh network or null to clear the replay protection list
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void attachReplayProtectionLog(@Nullable final ReplayProtectionLog log) {
+        mReplayProtectionList.attach(log);
+    }
+
+    /**
+     * Removes the entries of the replay protection list that were received with an IV Index other than the current or
+     * the previous IV Index.
+     *
+     * @param ivIndex Current IV Index of the network
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void pruneReplayProtectionList(final int ivIndex) {
+        mReplayProtectionList.prune(ivIndex);
+    }
+
+    /**
+     * Clears the replay protection list, so that messages that were already received are accepted again.
+     */
+    public void clearReplayProtectionList() {
+        mReplayProtectionList.clear();
+    }
+
+    /**
+     * Clears the network message cache.
+     */
+    public void clearNetworkMessageCache() {
+        mNetworkMessageCache.clear();
     }
 
     @Override
     public void createMeshMessage(final int src, final int dst, @Nullable final UUID label, @NonNull final MeshMessage meshMessage) {
+        mTransactionScheduler.submit(new TransactionScheduler.Transaction(src, dst, label, meshMessage));
+    }
+
+    private final TransactionScheduler.Callbacks transactionCallbacks = new TransactionScheduler.Callbacks() {
+        @Override
+        public void onSendTransaction(@NonNull final TransactionScheduler.Transaction transaction) {
+            sendMeshMessage(transaction.src, transaction.dst, transaction.label, transaction.meshMessage);
+        }
+
+        @Override
+        public void onTransactionTimedOut(@NonNull final TransactionScheduler.Transaction transaction) {
+            MeshLogger.warn(TAG, "No response received for message with opcode " + Integer.toHexString(transaction.meshMessage.getOpCode()));
+            if (mStatusCallbacks != null) {
+                mStatusCallbacks.onTransactionFailed(transaction.dst, false);
+            }
+        }
+    };
+
+    private final SarTransmitter.Callbacks sarTransmitterCallbacks = new SarTransmitter.Callbacks() {
+        @Override
+        public void onSegmentSend(final int dst, @NonNull final byte[] pdu) {
+            mInternalTransportCallbacks.onMeshPduCreated(dst, pdu);
+        }
+
+        @Override
+        public void onTransferFailed(final int dst) {
+            // Acknowledged messages are retransmitted by the transaction scheduler, which reports the failure if all attempts fail
+            if (mStatusCallbacks != null && !mTransactionScheduler.isAwaitingResponse(dst)) {
+                mStatusCallbacks.onTransactionFailed(dst, false);
+            }
+        }
+    };
+
+    /**
+     * Creates and sends the pdus of a mesh message.
+     *
+     * @param src         Source address
+     * @param dst         Destination address
+     * @param label       Label UUID of the destination address, if the destination is a virtual address
+     * @param meshMessage Mesh message
+     */
+    private void sendMeshMessage(final int src, final int dst, @Nullable final UUID label, @NonNull final MeshMessage meshMessage) {
         if (meshMessage instanceof ProxyConfigMessage) {
             createProxyConfigMeshMessage(src, dst, (ProxyConfigMessage) meshMessage);
         } else if (meshMessage instanceof ConfigMessage) {
@@ -100,4 +100,22 @@ public final class ConfigModelSubscriptionAdd extends ConfigMessage {
         }
         mParameters = paramsBuffer.array();
     }
+
+    /**
+     * Returns the address of the element to which the model belongs to.
+     *
+     * @return element address
+     */
+    public int getElementAddress() {
+        return elementAddress;
+    }
+
+    /**
+     * Returns the identifier of the model to be subscribed.
+     *
+     * @return 16-bit or 32-bit vendor model identifier
+     */
+    public int getModelIdentifier() {
+        return mModelIdentifier;
+    }
 }
@@ -107,4 +107,22 @@ public final class ConfigModelSubscriptionVirtualAddressAdd extends ConfigMessag
     public UUID getLabelUuid() {
         return labelUuid;
     }
+
+    /**
+     * Returns the address of the element to which the model belongs to.
+     *
+     * @return element address
+     */
+    public int getElementAddress() {
+        return elementAddress;
+    }
+
+    /**
+     * Returns the identifier of the model to be subscribed.
+     *
+     * @return 16-bit or 32-bit vendor model identifier
+     */
+    public int getModelIdentifier() {
+        return mModelIdentifier;
+    }
 }
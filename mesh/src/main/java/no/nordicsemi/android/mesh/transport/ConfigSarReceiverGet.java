@@ -0,0 +1,30 @@
+package no.nordicsemi.android.mesh.transport;
+
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+
+/**
+ * To be used as a wrapper class for when creating the ConfigSarReceiverGet message.
+ */
+@SuppressWarnings({"unused"})
+public final class ConfigSarReceiverGet extends ConfigMessage {
+
+    private static final String TAG = ConfigSarReceiverGet.class.getSimpleName();
+    private static final int OP_CODE = ConfigMessageOpCodes.CONFIG_SAR_RECEIVER_GET;
+
+    /**
+     * Constructs a ConfigSarReceiverGet message
+     */
+    public ConfigSarReceiverGet() {
+        assembleMessageParameters();
+    }
+
+    @Override
+    public int getOpCode() {
+        return OP_CODE;
+    }
+
+    @Override
+    final void assembleMessageParameters() {
+        // Do nothing as this message has no parameters
+    }
+}
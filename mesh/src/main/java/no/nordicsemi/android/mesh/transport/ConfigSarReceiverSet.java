@@ -0,0 +1,50 @@
+package no.nordicsemi.android.mesh.transport;
+
+import androidx.annotation.NonNull;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+import no.nordicsemi.android.mesh.utils.SarReceiverSettings;
+
+/**
+ * To be used as a wrapper class for when creating the ConfigSarReceiverSet message.
+ */
+@SuppressWarnings({"unused"})
+public final class ConfigSarReceiverSet extends ConfigMessage {
+
+    private static final String TAG = ConfigSarReceiverSet.class.getSimpleName();
+    private static final int OP_CODE = ConfigMessageOpCodes.CONFIG_SAR_RECEIVER_SET;
+
+    private final SarReceiverSettings mSarReceiverSettings;
+
+    /**
+     * Constructs a ConfigSarReceiverSet message.
+     *
+     * @param sarReceiverSettings The SAR Receiver state to be set
+     */
+    public ConfigSarReceiverSet(@NonNull final SarReceiverSettings sarReceiverSettings) {
+        this.mSarReceiverSettings = sarReceiverSettings;
+        assembleMessageParameters();
+    }
+
+    @Override
+    final void assembleMessageParameters() {
+        final SarReceiverSettings settings = mSarReceiverSettings;
+        mParameters = new byte[]{
+                (byte) ((settings.getAcknowledgmentDelayIncrement() << 5) | settings.getSegmentsThreshold()),
+                (byte) ((settings.getReceiverSegmentIntervalStep() << 4) | settings.getDiscardTimeout()),
+                (byte) settings.getAcknowledgmentRetransmissionsCount()
+        };
+    }
+
+    @Override
+    public int getOpCode() {
+        return OP_CODE;
+    }
+
+    /**
+     * Returns the SAR Receiver state set in this message
+     */
+    @NonNull
+    public SarReceiverSettings getSarReceiverSettings() {
+        return mSarReceiverSettings;
+    }
+}
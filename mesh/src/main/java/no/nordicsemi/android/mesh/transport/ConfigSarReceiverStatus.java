@@ -0,0 +1,77 @@
+package no.nordicsemi.android.mesh.transport;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+import no.nordicsemi.android.mesh.utils.SarReceiverSettings;
+
+/**
+ * To be used as a wrapper class for when creating the ConfigSarReceiverStatus message.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ConfigSarReceiverStatus extends ConfigStatusMessage implements Parcelable {
+
+    private static final String TAG = ConfigSarReceiverStatus.class.getSimpleName();
+    private static final int OP_CODE = ConfigMessageOpCodes.CONFIG_SAR_RECEIVER_STATUS;
+    private SarReceiverSettings mSarReceiverSettings;
+
+    private static final Creator<ConfigSarReceiverStatus> CREATOR = new Creator<ConfigSarReceiverStatus>() {
+        @Override
+        public ConfigSarReceiverStatus createFromParcel(Parcel in) {
+            final AccessMessage message = in.readParcelable(AccessMessage.class.getClassLoader());
+            //noinspection ConstantConditions
+            return new ConfigSarReceiverStatus(message);
+        }
+
+        @Override
+        public ConfigSarReceiverStatus[] newArray(int size) {
+            return new ConfigSarReceiverStatus[size];
+        }
+    };
+
+    /**
+     * Constructs a ConfigSarReceiverStatus message.
+     *
+     * @param message Access message received
+     * @throws IllegalArgumentException if any illegal arguments are passed
+     */
+    public ConfigSarReceiverStatus(@NonNull final AccessMessage message) {
+        super(message);
+        this.mParameters = message.getParameters();
+        parseStatusParameters();
+    }
+
+    @Override
+    public int getOpCode() {
+        return OP_CODE;
+    }
+
+    @Override
+    void parseStatusParameters() {
+        mSarReceiverSettings = new SarReceiverSettings(
+                mParameters[0] & 0x1F, (mParameters[0] >> 5) & 0x07,
+                mParameters[1] & 0x0F, (mParameters[1] >> 4) & 0x0F,
+                mParameters[2] & 0x03);
+    }
+
+    /**
+     * Returns the SAR Receiver state reported by the node
+     */
+    @NonNull
+    public SarReceiverSettings getSarReceiverSettings() {
+        return mSarReceiverSettings;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(final Parcel dest, final int flags) {
+        final AccessMessage message = (AccessMessage) mMessage;
+        dest.writeParcelable(message, flags);
+    }
+}
@@ -0,0 +1,30 @@
+package no.nordicsemi.android.mesh.transport;
+
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+
+/**
+ * To be used as a wrapper class for when creating the ConfigSarTransmitterGet message.
+ */
+@SuppressWarnings({"unused"})
+public final class ConfigSarTransmitterGet extends ConfigMessage {
+
+    private static final String TAG = ConfigSarTransmitterGet.class.getSimpleName();
+    private static final int OP_CODE = ConfigMessageOpCodes.CONFIG_SAR_TRANSMITTER_GET;
+
+    /**
+     * Constructs a ConfigSarTransmitterGet message
+     */
+    public ConfigSarTransmitterGet() {
+        assembleMessageParameters();
+    }
+
+    @Override
+    public int getOpCode() {
+        return OP_CODE;
+    }
+
+    @Override
+    final void assembleMessageParameters() {
+        // Do nothing as this message has no parameters
+    }
+}
@@ -0,0 +1,51 @@
+package no.nordicsemi.android.mesh.transport;
+
+import androidx.annotation.NonNull;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
+
+/**
+ * To be used as a wrapper class for when creating the ConfigSarTransmitterSet message.
+ */
+@SuppressWarnings({"unused"})
+public final class ConfigSarTransmitterSet extends ConfigMessage {
+
+    private static final String TAG = ConfigSarTransmitterSet.class.getSimpleName();
+    private static final int OP_CODE = ConfigMessageOpCodes.CONFIG_SAR_TRANSMITTER_SET;
+
+    private final SarTransmitterSettings mSarTransmitterSettings;
+
+    /**
+     * Constructs a ConfigSarTransmitterSet message.
+     *
+     * @param sarTransmitterSettings The SAR Transmitter state to be set
+     */
+    public ConfigSarTransmitterSet(@NonNull final SarTransmitterSettings sarTransmitterSettings) {
+        this.mSarTransmitterSettings = sarTransmitterSettings;
+        assembleMessageParameters();
+    }
+
+    @Override
+    final void assembleMessageParameters() {
+        final SarTransmitterSettings settings = mSarTransmitterSettings;
+        mParameters = new byte[]{
+                (byte) ((settings.getUnicastRetransmissionsCount() << 4) | settings.getSegmentIntervalStep()),
+                (byte) ((settings.getUnicastRetransmissionsIntervalStep() << 4) | settings.getUnicastRetransmissionsWithoutProgressCount()),
+                (byte) ((settings.getMulticastRetransmissionsCount() << 4) | settings.getUnicastRetransmissionsIntervalIncrement()),
+                (byte) settings.getMulticastRetransmissionsIntervalStep()
+        };
+    }
+
+    @Override
+    public int getOpCode() {
+        return OP_CODE;
+    }
+
+    /**
+     * Returns the SAR Transmitter state set in this message
+     */
+    @NonNull
+    public SarTransmitterSettings getSarTransmitterSettings() {
+        return mSarTransmitterSettings;
+    }
+}
@@ -0,0 +1,78 @@
+package no.nordicsemi.android.mesh.transport;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
+
+/**
+ * To be used as a wrapper class for when creating the ConfigSarTransmitterStatus message.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ConfigSarTransmitterStatus extends ConfigStatusMessage implements Parcelable {
+
+    private static final String TAG = ConfigSarTransmitterStatus.class.getSimpleName();
+    private static final int OP_CODE = ConfigMessageOpCodes.CONFIG_SAR_TRANSMITTER_STATUS;
+    private SarTransmitterSettings mSarTransmitterSettings;
+
+    private static final Creator<ConfigSarTransmitterStatus> CREATOR = new Creator<ConfigSarTransmitterStatus>() {
+        @Override
+        public ConfigSarTransmitterStatus createFromParcel(Parcel in) {
+            final AccessMessage message = in.readParcelable(AccessMessage.class.getClassLoader());
+            //noinspection ConstantConditions
+            return new ConfigSarTransmitterStatus(message);
+        }
+
+        @Override
+        public ConfigSarTransmitterStatus[] newArray(int size) {
+            return new ConfigSarTransmitterStatus[size];
+        }
+    };
+
+    /**
+     * Constructs a ConfigSarTransmitterStatus message.
+     *
+     * @param message Access message received
+     * @throws IllegalArgumentException if any illegal arguments are passed
+     */
+    public ConfigSarTransmitterStatus(@NonNull final AccessMessage message) {
+        super(message);
+        this.mParameters = message.getParameters();
+        parseStatusParameters();
+    }
+
+    @Override
+    public int getOpCode() {
+        return OP_CODE;
+    }
+
+    @Override
+    void parseStatusParameters() {
+        mSarTransmitterSettings = new SarTransmitterSettings(
+                mParameters[0] & 0x0F, (mParameters[0] >> 4) & 0x0F,
+                mParameters[1] & 0x0F, (mParameters[1] >> 4) & 0x0F,
+                mParameters[2] & 0x0F, (mParameters[2] >> 4) & 0x0F,
+                mParameters[3] & 0x0F);
+    }
+
+    /**
+     * Returns the SAR Transmitter state reported by the node
+     */
+    @NonNull
+    public SarTransmitterSettings getSarTransmitterSettings() {
+        return mSarTransmitterSettings;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(final Parcel dest, final int flags) {
+        final AccessMessage message = (AccessMessage) mMessage;
+        dest.writeParcelable(message, flags);
+    }
+}
@@ -25,12 +25,16 @@ package no.nordicsemi.android.mesh.transport;
 import android.os.Parcel;
 import android.util.SparseArray;
 
+import androidx.annotation.NonNull;
+
 import no.nordicsemi.android.mesh.control.TransportControlMessage;
 
 @SuppressWarnings("WeakerAccess")
 public final class ControlMessage extends Message {
 
     protected SparseArray<byte[]> lowerTransportControlPdu = new SparseArray<>();
+    // Lower transport pdus of a received message, kept as slices of the decrypted network pdus until they are requested
+    private PduSlice[] receivedLowerTransportPdus;
     private byte[] transportControlPdu;
     private TransportControlMessage transportControlMessage;
 
@@ -71,11 +75,34 @@ public final class ControlMessage extends Message {
     }
 
     public SparseArray<byte[]> getLowerTransportControlPdu() {
+        if (receivedLowerTransportPdus != null && lowerTransportControlPdu.size() == 0) {
+            for (int segO = 0; segO < receivedLowerTransportPdus.length; segO++) {
+                lowerTransportControlPdu.put(segO, receivedLowerTransportPdus[segO].toByteArray());
+            }
+        }
         return lowerTransportControlPdu;
     }
 
     public void setLowerTransportControlPdu(final SparseArray<byte[]> segmentedAccessMessages) {
         this.lowerTransportControlPdu = segmentedAccessMessages;
+        this.receivedLowerTransportPdus = null;
+    }
+
+    /**
+     * Returns the lower transport pdus of a received message, ordered by the segment offset, or null if the message was not received.
+     */
+    final PduSlice[] getReceivedLowerTransportPdus() {
+        return receivedLowerTransportPdus;
+    }
+
+    /**
+     * Sets the lower transport pdus of a received message without copying them.
+     *
+     * @param receivedLowerTransportPdus Lower transport pdus ordered by the segment offset
+     */
+    final void setReceivedLowerTransportPdus(@NonNull final PduSlice[] receivedLowerTransportPdus) {
+        this.receivedLowerTransportPdus = receivedLowerTransportPdus;
+        this.lowerTransportControlPdu = new SparseArray<>();
     }
 
     public TransportControlMessage getTransportControlMessage() {
@@ -94,7 +121,7 @@ public final class ControlMessage extends Message {
     @Override
     public void writeToParcel(final Parcel dest, final int flags) {
         super.writeToParcel(dest, flags);
-        writeSparseArrayToParcelable(dest, lowerTransportControlPdu);
+        writeSparseArrayToParcelable(dest, getLowerTransportControlPdu());
         dest.writeByteArray(transportControlPdu);
         dest.writeValue(transportControlMessage);
     }
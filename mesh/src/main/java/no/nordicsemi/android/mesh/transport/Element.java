@@ -30,7 +30,6 @@ import com.google.gson.annotations.Expose;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -38,6 +37,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import no.nordicsemi.android.mesh.models.SigModel;
 import no.nordicsemi.android.mesh.models.VendorModel;
+import no.nordicsemi.android.mesh.utils.IntKeyArrayMap;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
 
 @SuppressWarnings({"WeakerAccess", "unused"})
@@ -87,19 +87,19 @@ public final class Element implements Parcelable, Cloneable {
     Element(final int elementAddress, final int locationDescriptor, @NonNull final Map<Integer, MeshModel> models, @NonNull final String name) {
         this.elementAddress = elementAddress;
         this.locationDescriptor = locationDescriptor;
-        this.meshModels = models;
+        this.meshModels = new IntKeyArrayMap<>(models);
         this.name = name;
     }
 
     Element(final int locationDescriptor, @NonNull final Map<Integer, MeshModel> models) {
         this.locationDescriptor = locationDescriptor;
-        this.meshModels = models;
+        this.meshModels = new IntKeyArrayMap<>(models);
     }
 
     protected Element(Parcel in) {
         elementAddress = in.readInt();
         locationDescriptor = in.readInt();
-        meshModels = new LinkedHashMap<>();
+        meshModels = new IntKeyArrayMap<>();
         sortModels(in.readHashMap(MeshModel.class.getClassLoader()));
         name = in.readString();
     }
@@ -22,6 +22,9 @@
 
 package no.nordicsemi.android.mesh.transport;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 /**
  * Callbacks to notify the mesh message handler to notify events from transport layers.
  */
@@ -34,4 +37,31 @@ interface InternalMeshMsgHandlerCallbacks {
      */
     void onIncompleteTimerExpired(final int address);
 
+    /**
+     * Callback to notify that an access message was received, before it is parsed.
+     *
+     * @param src    source address of the message
+     * @param opCode opcode of the message
+     * @return the message that was sent to the source and is answered by the received message, or null if unknown
+     */
+    @Nullable
+    MeshMessage onAccessMessageReceived(final int src, final int opCode);
+
+    /**
+     * Callback to send the segments of a segmented message, paced and retransmitted by the SAR transmitter.
+     *
+     * @param transport mesh transport used to retransmit the segments
+     * @param message   segmented message
+     */
+    void sendSegmentedMessage(@NonNull final MeshTransport transport, @NonNull final Message message);
+
+    /**
+     * Callback to notify that a segment acknowledgement was received.
+     *
+     * @param src      source address of the acknowledgement
+     * @param seqZero  SeqZero of the acknowledged message
+     * @param blockAck block acknowledgement
+     */
+    void onSegmentAcknowledgementReceived(final int src, final int seqZero, final int blockAck);
+
 }
@@ -35,7 +35,6 @@ import no.nordicsemi.android.mesh.control.BlockAcknowledgementMessage;
 import no.nordicsemi.android.mesh.control.HeartbeatMessage;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 import no.nordicsemi.android.mesh.opcodes.TransportLayerOpCodes;
-import no.nordicsemi.android.mesh.utils.ExtendedInvalidCipherTextException;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 
@@ -57,27 +56,15 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
     private static final int UNSEGMENTED_ACK_MESSAGE_HEADER_LENGTH = 3;
     private static final long INCOMPLETE_TIMER_DELAY = 10 * 1000; // According to the spec the incomplete timer must be a minimum of 10 seconds.
 
-    private final SparseArray<byte[]> segmentedAccessMessageMap = new SparseArray<>();
-    private final SparseArray<byte[]> segmentedControlMessageMap = new SparseArray<>();
-    LowerTransportLayerCallbacks mLowerTransportLayerCallbacks;
-    private boolean mSegmentedAccessAcknowledgementTimerStarted;
-    private Integer mSegmentedAccessBlockAck;
-    private boolean mSegmentedControlAcknowledgementTimerStarted;
-    private Integer mSegmentedControlBlockAck;
-    private boolean mIncompleteTimerStarted;
     /**
-     * Runnable for incomplete timer
+     * Cancels the timers of a message that was evicted from a reassembly table before it was completed
      */
-    private final Runnable mIncompleteTimerRunnable = new Runnable() {
-        @Override
-        public void run() {
-            mLowerTransportLayerCallbacks.onIncompleteTimerExpired();
-            //Reset the incomplete timer flag once it expires
-            mIncompleteTimerStarted = false;
-        }
-    };
-    private boolean mBlockAckSent;
-    private long mDuration;
+    private final ReassemblyTable.EvictionListener mEvictionListener = this::cancelTimers;
+    private final ReassemblyTable mSegmentedAccessMessages = new ReassemblyTable(ReassemblyTable.DEFAULT_MAX_ENTRIES, INCOMPLETE_TIMER_DELAY, mEvictionListener);
+    private final ReassemblyTable mSegmentedControlMessages = new ReassemblyTable(ReassemblyTable.DEFAULT_MAX_ENTRIES, INCOMPLETE_TIMER_DELAY, mEvictionListener);
+    private final PduBufferPool mBufferPool = new PduBufferPool();
+    LowerTransportLayerCallbacks mLowerTransportLayerCallbacks;
+    ReplayProtectionList mReplayProtectionList = new ReplayProtectionList();
 
     /**
      * Sets the lower transport layer callbacks
@@ -86,6 +73,15 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
      */
     abstract void setLowerTransportLayerCallbacks(@NonNull final LowerTransportLayerCallbacks callbacks);
 
+    /**
+     * Sets the replay protection list used to drop replayed access messages
+     *
+     * @param replayProtectionList {@link ReplayProtectionList} shared by the transports of a message handler
+     */
+    final void setReplayProtectionList(@NonNull final ReplayProtectionList replayProtectionList) {
+        mReplayProtectionList = replayProtectionList;
+    }
+
     /**
      * Creates the network layer pdu
      *
@@ -154,84 +150,98 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
     }
 
     @Override
-    final void reassembleLowerTransportAccessPDU(@NonNull final AccessMessage accessMessage) {
-        final SparseArray<byte[]> lowerTransportAccessPdu = removeLowerTransportAccessMessageHeader(accessMessage);
-        final byte[] upperTransportPdu = MeshParserUtils.concatenateSegmentedMessages(lowerTransportAccessPdu);
-        accessMessage.setUpperTransportPdu(upperTransportPdu);
+    final PduSlice reassembleLowerTransportAccessPDU(@NonNull final AccessMessage accessMessage) {
+        final PduSlice[] lowerTransportPdus = getLowerTransportPdus(accessMessage);
+        final int headerLength = accessMessage.isSegmented() ? SEGMENTED_MESSAGE_HEADER_LENGTH : UNSEGMENTED_MESSAGE_HEADER_LENGTH;
+        if (lowerTransportPdus.length == 1) {
+            return lowerTransportPdus[0].slice(headerLength);
+        }
+        // The joined pdu is only needed until it has been decrypted, so it is built in a pooled buffer
+        final byte[] buffer = mBufferPool.acquire(getPayloadLength(lowerTransportPdus, headerLength));
+        return new PduSlice(buffer, 0, joinPayloads(lowerTransportPdus, headerLength, buffer));
+    }
+
+    @Override
+    final void releaseUpperTransportPDU(@NonNull final AccessMessage accessMessage, @NonNull final PduSlice upperTransportPdu) {
+        if (getLowerTransportPdus(accessMessage).length > 1) {
+            mBufferPool.release(upperTransportPdu.array());
+        }
     }
 
     @Override
     final void reassembleLowerTransportControlPDU(@NonNull final ControlMessage controlMessage) {
-        final SparseArray<byte[]> lowerTransportPdu = removeLowerTransportControlMessageHeader(controlMessage);
-        final byte[] lowerTransportControlPdu = MeshParserUtils.concatenateSegmentedMessages(lowerTransportPdu);
-        controlMessage.setTransportControlPdu(lowerTransportControlPdu);
+        final PduSlice[] lowerTransportPdus = getLowerTransportPdus(controlMessage);
+        final int headerLength;
+        if (lowerTransportPdus.length > 1) {
+            headerLength = SEGMENTED_MESSAGE_HEADER_LENGTH;
+        } else if (controlMessage.getOpCode() == TransportLayerOpCodes.SAR_ACK_OPCODE) {
+            headerLength = UNSEGMENTED_ACK_MESSAGE_HEADER_LENGTH;
+        } else {
+            headerLength = UNSEGMENTED_MESSAGE_HEADER_LENGTH;
+        }
+        final byte[] transportControlPdu = new byte[getPayloadLength(lowerTransportPdus, headerLength)];
+        joinPayloads(lowerTransportPdus, headerLength, transportControlPdu);
+        controlMessage.setTransportControlPdu(transportControlPdu);
     }
 
     /**
-     * Removes the transport header of the access message.
+     * Returns the lower transport pdus of a received access message, ordered by the segment offset.
      *
      * @param message access message received.
-     * @return map containing the messages.
      */
-    private SparseArray<byte[]> removeLowerTransportAccessMessageHeader(@NonNull final AccessMessage message) {
-        final SparseArray<byte[]> messages = message.getLowerTransportAccessPdu();
-        if (message.isSegmented()) {
-            for (int i = 0; i < messages.size(); i++) {
-                final byte[] data = messages.get(i);
-                final int length = data.length - SEGMENTED_MESSAGE_HEADER_LENGTH; //header size of unsegmented messages is 4;
-                messages.put(i, removeHeader(data, 4, length));
-            }
-        } else {
-            final byte[] data = messages.get(0);
-            final int length = data.length - UNSEGMENTED_MESSAGE_HEADER_LENGTH; //header size of unsegmented messages is 1;
-            messages.put(0, removeHeader(data, 1, length));
+    private PduSlice[] getLowerTransportPdus(@NonNull final AccessMessage message) {
+        final PduSlice[] pdus = message.getReceivedLowerTransportPdus();
+        return pdus != null ? pdus : wrap(message.getLowerTransportAccessPdu());
+    }
+
+    /**
+     * Returns the lower transport pdus of a received control message, ordered by the segment offset.
+     *
+     * @param message control message received.
+     */
+    private PduSlice[] getLowerTransportPdus(@NonNull final ControlMessage message) {
+        final PduSlice[] pdus = message.getReceivedLowerTransportPdus();
+        return pdus != null ? pdus : wrap(message.getLowerTransportControlPdu());
+    }
+
+    private static PduSlice[] wrap(@NonNull final SparseArray<byte[]> pdus) {
+        final PduSlice[] slices = new PduSlice[pdus.size()];
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = PduSlice.wrap(pdus.get(i));
         }
-        return messages;
+        return slices;
     }
 
     /**
-     * Removes the transport header of the control message.
+     * Returns the length of the lower transport pdus without their headers.
      *
-     * @param message control message.
-     * @return map containing the messages.
+     * @param pdus         lower transport pdus.
+     * @param headerLength length of the header of each pdu.
      */
-    private SparseArray<byte[]> removeLowerTransportControlMessageHeader(@NonNull final ControlMessage message) {
-        final SparseArray<byte[]> messages = message.getLowerTransportControlPdu();
-        if (messages.size() > 1) {
-            for (int i = 0; i < messages.size(); i++) {
-                final byte[] data = messages.get(i);
-                final int length = data.length - SEGMENTED_MESSAGE_HEADER_LENGTH; //header size of unsegmented messages is 4;
-                messages.put(i, removeHeader(data, 4, length));
-            }
-        } else {
-            final int opCode = message.getOpCode();
-            final byte[] data;
-            final int length;
-            if (opCode == TransportLayerOpCodes.SAR_ACK_OPCODE) {
-                data = messages.get(0);
-                length = data.length - UNSEGMENTED_ACK_MESSAGE_HEADER_LENGTH; //header size of unsegmented acknowledgement messages is 3;
-                messages.put(0, removeHeader(data, UNSEGMENTED_ACK_MESSAGE_HEADER_LENGTH, length));
-            } else {
-                data = messages.get(0);
-                length = data.length - UNSEGMENTED_MESSAGE_HEADER_LENGTH; //header size of unsegmented messages is 1;
-                messages.put(0, removeHeader(data, UNSEGMENTED_MESSAGE_HEADER_LENGTH, length));
-            }
+    private static int getPayloadLength(@NonNull final PduSlice[] pdus, final int headerLength) {
+        int length = 0;
+        for (PduSlice pdu : pdus) {
+            length += pdu.length() - headerLength;
         }
-        return messages;
+        return length;
     }
 
     /**
-     * Removes the header from a given array.
+     * Copies the lower transport pdus without their headers one after another in to the given buffer.
      *
-     * @param data   message.
-     * @param offset header offset.
-     * @param length header length.
-     * @return an array without the header.
+     * @param pdus         lower transport pdus.
+     * @param headerLength length of the header of each pdu.
+     * @param buffer       buffer the payloads are copied to.
+     * @return number of bytes copied.
      */
-    private byte[] removeHeader(@NonNull final byte[] data, final int offset, final int length) {
-        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
-        buffer.put(data, offset, length);
-        return buffer.array();
+    private static int joinPayloads(@NonNull final PduSlice[] pdus, final int headerLength, @NonNull final byte[] buffer) {
+        int offset = 0;
+        for (PduSlice pdu : pdus) {
+            final int length = pdu.length() - headerLength;
+            System.arraycopy(pdu.array(), pdu.offset() + headerLength, buffer, offset, length);
+            offset += length;
+        }
+        return offset;
     }
 
     /**
@@ -249,7 +259,7 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
         lowerTransportBuffer.put(header);
         lowerTransportBuffer.put(encryptedUpperTransportPDU);
         final byte[] lowerTransportPDU = lowerTransportBuffer.array();
-        MeshLogger.verbose(TAG, "Unsegmented Lower transport access PDU " + MeshParserUtils.bytesToHex(lowerTransportPDU, false));
+        MeshLogger.verbose(TAG, "Unsegmented Lower transport access PDU {}", lowerTransportPDU);
         return lowerTransportPDU;
     }
 
@@ -283,7 +293,7 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
             offset += length;
 
             final byte[] lowerTransportPDU = lowerTransportBuffer.array();
-            MeshLogger.verbose(TAG, "Segmented Lower transport access PDU: " + MeshParserUtils.bytesToHex(lowerTransportPDU, false) + " " + segO + " of " + numberOfSegments);
+            MeshLogger.verbose(TAG, "Segmented Lower transport access PDU: {} {} of {}", lowerTransportPDU, segO, numberOfSegments);
             lowerTransportPduMap.put(segO, lowerTransportPDU);
         }
         return lowerTransportPduMap;
@@ -316,7 +326,7 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
 
         lowerTransportBuffer.put(upperTransportControlPDU);
         final byte[] lowerTransportPDU = lowerTransportBuffer.array();
-        MeshLogger.verbose(TAG, "Unsegmented Lower transport control PDU " + MeshParserUtils.bytesToHex(lowerTransportPDU, false));
+        MeshLogger.verbose(TAG, "Unsegmented Lower transport control PDU {}", lowerTransportPDU);
         final SparseArray<byte[]> lowerTransportControlPduMap = new SparseArray<>();
         lowerTransportControlPduMap.put(0, lowerTransportPDU);
         message.setLowerTransportControlPdu(lowerTransportControlPduMap);
@@ -352,7 +362,7 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
             offset += length;
 
             final byte[] lowerTransportPDU = lowerTransportBuffer.array();
-            MeshLogger.verbose(TAG, "Segmented Lower transport access PDU: " + MeshParserUtils.bytesToHex(lowerTransportPDU, false) + " " + segO + " of " + numberOfSegments);
+            MeshLogger.verbose(TAG, "Segmented Lower transport access PDU: {} {} of {}", lowerTransportPDU, segO, numberOfSegments);
             lowerTransportControlPduMap.put(segO, lowerTransportPDU);
         }
         controlMessage.setLowerTransportControlPdu(lowerTransportControlPduMap);
@@ -387,59 +397,45 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
         final int akf = (header >> 6) & 0x01;
         final int aid = header & 0x3F;
         if (seg == 0) { //Unsegmented message
-            MeshLogger.debug(TAG, "IV Index of received message: " + ivIndex);
-            final int seqAuth = (ivIndex << 24) | MeshParserUtils.convert24BitsToInt(sequenceNumber);
-            final byte[] src = MeshParserUtils.getSrcAddress(pdu);
-            final int srcAdd = MeshParserUtils.unsignedBytesToInt(src[1], src[0]);
-            MeshLogger.debug(TAG, "SeqAuth: " + seqAuth);
-            if (!isValidSeqAuth(seqAuth, srcAdd)) {
+            MeshLogger.debug(TAG, "IV Index of received message: {}", ivIndex);
+            final long seqAuth = ReplayProtectionList.seqAuth(ivIndex, MeshParserUtils.convert24BitsToInt(sequenceNumber));
+            final int srcAdd = MeshParserUtils.unsignedBytesToInt(pdu[7], pdu[6]);
+            MeshLogger.debug(TAG, "SeqAuth: {}", seqAuth);
+            if (!mReplayProtectionList.isValid(srcAdd, seqAuth)) {
+                mReceiveCounters.onReplayRejected();
                 return null;
             }
-            mMeshNode.setSeqAuth(srcAdd, seqAuth);
+            mReplayProtectionList.put(srcAdd, seqAuth);
             // We do not need to rely on the sequence number here
             // Setting hte sequence number here will reset the already incremented sequence number for a message sent to all nodes.
             // mMeshNode.setSequenceNumber(MeshParserUtils.convert24BitsToInt(sequenceNumber));
             message = new AccessMessage();
-            if (akf == 0) {// device key was used to encrypt
-                final int lowerTransportPduLength = pdu.length - 10;
-                final ByteBuffer lowerTransportBuffer = ByteBuffer.allocate(lowerTransportPduLength).order(ByteOrder.BIG_ENDIAN);
-                lowerTransportBuffer.put(pdu, 10, lowerTransportPduLength);
-                final byte[] lowerTransportPDU = lowerTransportBuffer.array();
-                final SparseArray<byte[]> messages = new SparseArray<>();
-                messages.put(0, lowerTransportPDU);
-                message.setSegmented(false);
-                message.setAszmic(0); //aszmic is always 0 for unsegmented access messages
-                message.setAkf(akf);
-                message.setAid(aid);
-                message.setLowerTransportAccessPdu(messages);
-            } else {
-                final int lowerTransportPduLength = pdu.length - 10;
-                final ByteBuffer lowerTransportBuffer = ByteBuffer.allocate(lowerTransportPduLength).order(ByteOrder.BIG_ENDIAN);
-                lowerTransportBuffer.put(pdu, 10, lowerTransportPduLength);
-                final byte[] lowerTransportPDU = lowerTransportBuffer.array();
-                final SparseArray<byte[]> messages = new SparseArray<>();
-                messages.put(0, lowerTransportPDU);
-                message.setSegmented(false);
-                message.setAszmic(0); //aszmic is always 0 for unsegmented access messages
-                message.setAkf(akf);
-                message.setAid(aid);
-                message.setLowerTransportAccessPdu(messages);
-            }
+            message.setSegmented(false);
+            message.setAszmic(0); //aszmic is always 0 for unsegmented access messages
+            message.setAkf(akf);
+            message.setAid(aid);
+            message.setReceivedLowerTransportPdus(new PduSlice[]{new PduSlice(pdu, 10, pdu.length - 10)});
         }
         return message;
     }
 
     /**
      * Parses a segmented lower transport access pdu.
+     * <p>
+     * Segments are reassembled per source address and SeqAuth, allowing segmented messages from multiple nodes to be received at the same time.
+     * </p>
      *
      * @param ttl            TTL of the acknowledgement
      * @param pdu            The complete pdu was received from the node. This is already de-obfuscated and decrypted at network layer.
+     * @param networkPdu     Network pdu containing the segment
      * @param ivIndex        Current IV Index of the network
      * @param sequenceNumber Sequence number
+     * @return a complete {@link AccessMessage} once all segments have been received or null otherwise.
      */
     /*package*/
     final AccessMessage parseSegmentedAccessLowerTransportPDU(final int ttl,
                                                               @NonNull final byte[] pdu,
+                                                              @NonNull final byte[] networkPdu,
                                                               final int ivIndex,
                                                               @NonNull final byte[] sequenceNumber) {
         final byte header = pdu[10]; //Lower transport pdu starts here
@@ -451,131 +447,84 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
         final int segO = ((pdu[12] & 0x03) << 3) | ((pdu[13] & 0xE0) >> 5);
         final int segN = ((pdu[13]) & 0x1F);
 
-        final byte[] src = MeshParserUtils.getSrcAddress(pdu);
-        final byte[] dst = MeshParserUtils.getDstAddress(pdu);
-
-        final int blockAckSrc = MeshParserUtils.unsignedBytesToInt(dst[1], dst[0]); //Destination of the received packet would be the source for the ack
-        final int blockAckDst = MeshParserUtils.unsignedBytesToInt(src[1], src[0]); //Source of the received packet would be the destination for the ack
+        final int blockAckSrc = MeshParserUtils.unsignedBytesToInt(pdu[9], pdu[8]); //Destination of the received packet would be the source for the ack
+        final int blockAckDst = MeshParserUtils.unsignedBytesToInt(pdu[7], pdu[6]); //Source of the received packet would be the destination for the ack
 
-        MeshLogger.verbose(TAG, "SEG O: " + segO);
-        MeshLogger.verbose(TAG, "SEG N: " + segN);
+        MeshLogger.verbose(TAG, "SEG O: {}", segO);
+        MeshLogger.verbose(TAG, "SEG N: {}", segN);
 
         final int seqNumber = getTransportLayerSequenceNumber(MeshParserUtils.convert24BitsToInt(sequenceNumber), seqZero);
-        final int seqAuth = ivIndex << 24 | seqNumber;
-        final Integer lastSeqAuth = mMeshNode.getSeqAuth(blockAckDst);
+        final long seqAuth = ReplayProtectionList.seqAuth(ivIndex, seqNumber);
+        // Messages being reassembled are only kept for a short time, the lower 32 bits of the SeqAuth identify them
+        final int reassemblySeqAuth = (int) seqAuth;
+        final Long lastSeqAuth = mReplayProtectionList.get(blockAckDst);
         if (lastSeqAuth != null)
-            MeshLogger.verbose(TAG, "Last SeqAuth value " + lastSeqAuth);
+            MeshLogger.verbose(TAG, "Last SeqAuth value {}", lastSeqAuth);
 
-        MeshLogger.verbose(TAG, "Current SeqAuth value " + seqAuth);
+        MeshLogger.verbose(TAG, "Current SeqAuth value {}", seqAuth);
 
-        final int payloadLength = pdu.length - 10;
-        final ByteBuffer payloadBuffer = ByteBuffer.allocate(payloadLength);
-        payloadBuffer.put(pdu, 10, payloadLength);
-
-        //Check if the current SeqAuth value is greater than the last and if the incomplete timer has not started, start it!
-        if ((lastSeqAuth == null || lastSeqAuth < seqAuth)) {
+        final long now = System.currentTimeMillis();
+        final ReassemblyTable.Entry entry;
+        //Check if the current SeqAuth value is greater than the last, if so this is the start of a new message from this src
+        if (lastSeqAuth == null || lastSeqAuth < seqAuth) {
             // We do not need to rely on the sequence number here
             // Setting hte sequence number here will reset the already incremented sequence number for a message sent to all nodes.
             // mMeshNode.setSequenceNumber(seqNumber);
-            segmentedAccessMessageMap.clear();
-            segmentedAccessMessageMap.put(segO, payloadBuffer.array());
-            mMeshNode.setSeqAuth(blockAckDst, seqAuth);
-
-            MeshLogger.verbose(TAG, "Starting incomplete timer for src: " + MeshAddress.formatAddress(blockAckDst, false));
-            initIncompleteTimer();
-
-            // Start acknowledgement calculation and timer only for messages directed to a unicast address.
-            if (MeshAddress.isValidUnicastAddress(dst)) {
-                // Calculate the initial block acknowledgement value
-                mSegmentedAccessBlockAck = BlockAcknowledgementMessage.calculateBlockAcknowledgement(null, segO);
-                //Start the block acknowledgement timer irrespective of which segment was received first
-                initSegmentedAccessAcknowledgementTimer(seqZero, ttl, blockAckSrc, blockAckDst, segN);
+            if (!mReplayProtectionList.put(blockAckDst, seqAuth)) {
+                // The replay protection list is full and does not accept new sources
+                mReceiveCounters.onReplayRejected();
+                return null;
             }
+            entry = mSegmentedAccessMessages.start(blockAckDst, blockAckSrc, reassemblySeqAuth, seqZero, segN, now);
+            MeshLogger.verbose(TAG, "Starting incomplete timer for src: {}", MeshAddress.addressIntToBytes(blockAckDst));
+        } else if (lastSeqAuth == seqAuth) {
+            entry = mSegmentedAccessMessages.get(blockAckDst, reassemblySeqAuth);
+            if (entry == null) {
+                MeshLogger.verbose(TAG, "Ignoring message since the incomplete timer has expired and all messages have been received");
+                return null;
+            }
+            MeshLogger.verbose(TAG, "Restarting incomplete timer for src: {}", MeshAddress.addressIntToBytes(blockAckDst));
+        } else {
+            mReceiveCounters.onReplayRejected();
+            return null;
+        }
 
-            // We need to ensure there could be an unsegmented message that could be sent as a
-            // segmented message i.e. segO = 0 and segN = 0. This will ensure the multi-segmented
-            // messages that may not arrive in order will be reassembled correctly or rather ignored.
-            if (segO == 0 && segN == 0) {
-                if (MeshAddress.isValidUnicastAddress(dst)) {
-                    mSegmentedAccessBlockAck = BlockAcknowledgementMessage.calculateBlockAcknowledgement(mSegmentedAccessBlockAck, segO);
-                    handleImmediateBlockAcks(seqZero, ttl, blockAckSrc, blockAckDst, segN);
-                } else {
-                    //We should cancel the incomplete timer since we have received all segments
-                    cancelIncompleteTimer();
-                }
+        entry.putSegment(segO, new PduSlice(pdu, 10, pdu.length - 10), networkPdu);
+        entry.lastActivity = now;
+        MeshLogger.verbose(TAG, "Received segment message count: {}", entry.getReceivedCount());
 
-                final AccessMessage accessMessage = new AccessMessage();
-                accessMessage.setAszmic(szmic);
-                accessMessage.setSequenceNumber(MeshParserUtils.getSequenceNumberBytes(seqNumber));
-                accessMessage.setAkf(akf);
-                accessMessage.setAid(aid);
-                accessMessage.setSegmented(true);
-                final SparseArray<byte[]> segmentedMessages = segmentedAccessMessageMap.clone();
-                accessMessage.setLowerTransportAccessPdu(segmentedMessages);
-                return accessMessage;
-            }
+        // Start acknowledgement calculation and timer only for messages directed to a unicast address.
+        final boolean acknowledged = MeshAddress.isValidUnicastAddress(blockAckSrc);
+        if (acknowledged) {
+            entry.blockAck = BlockAcknowledgementMessage.calculateBlockAcknowledgement(entry.blockAck, segO);
+        }
 
-        } else {
-            //if the seqauth values are the same and the init complete timer has already started for a received segmented message, we need to restart the incomplete timer
-            if (lastSeqAuth == seqAuth) {
-                if (mIncompleteTimerStarted) {
-                    if (segmentedAccessMessageMap.get(segO) == null) {
-                        segmentedAccessMessageMap.put(segO, payloadBuffer.array());
-                    }
-                    final int receivedSegmentedMessageCount = segmentedAccessMessageMap.size();
-                    MeshLogger.verbose(TAG, "Received segment message count: " + receivedSegmentedMessageCount);
-                    //Add +1 to segN since its zero based
-                    if (receivedSegmentedMessageCount != (segN + 1)) {
-                        restartIncompleteTimer();
-                        mSegmentedAccessBlockAck = BlockAcknowledgementMessage.calculateBlockAcknowledgement(mSegmentedAccessBlockAck, segO);
-                        MeshLogger.verbose(TAG, "Restarting incomplete timer for src: " + MeshAddress.formatAddress(blockAckDst, false));
-
-                        //Start acknowledgement calculation and timer only for messages directed to a unicast address.
-                        //We also have to make sure we restart the acknowledgement timer only if the acknowledgement timer is not active and the incomplete timer is active
-                        if (MeshAddress.isValidUnicastAddress(dst) && !mSegmentedAccessAcknowledgementTimerStarted) {
-                            MeshLogger.verbose(TAG, "Restarting block acknowledgement timer for src: " + MeshAddress.formatAddress(blockAckDst, false));
-                            //Start the block acknowledgement timer irrespective of which segment was received first
-                            initSegmentedAccessAcknowledgementTimer(seqZero, ttl, blockAckSrc, blockAckDst, segN);
-                        }
-                    } else {
-                        if (MeshAddress.isValidUnicastAddress(dst)) {
-                            mSegmentedAccessBlockAck = BlockAcknowledgementMessage.calculateBlockAcknowledgement(mSegmentedAccessBlockAck, segO);
-                            handleImmediateBlockAcks(seqZero, ttl, blockAckSrc, blockAckDst, segN);
-                        } else {
-                            //We should cancel the incomplete timer since we have received all segments
-                            cancelIncompleteTimer();
-                        }
-
-                        final AccessMessage accessMessage = new AccessMessage();
-                        accessMessage.setAszmic(szmic);
-                        accessMessage.setSequenceNumber(MeshParserUtils.getSequenceNumberBytes(seqNumber));
-                        accessMessage.setAkf(akf);
-                        accessMessage.setAid(aid);
-                        accessMessage.setSegmented(true);
-                        final SparseArray<byte[]> segmentedMessages = segmentedAccessMessageMap.clone();
-                        accessMessage.setLowerTransportAccessPdu(segmentedMessages);
-                        return accessMessage;
-                    }
-                } else {
-                    MeshLogger.verbose(TAG, "Ignoring message since the incomplete timer has expired and all messages have been received");
-                }
+        if (!entry.isComplete()) {
+            restartIncompleteTimer(mSegmentedAccessMessages, entry);
+            //We also have to make sure we restart the acknowledgement timer only if the acknowledgement timer is not active
+            if (acknowledged && !entry.acknowledgementTimerStarted) {
+                //Start the block acknowledgement timer irrespective of which segment was received first
+                initSegmentedAcknowledgementTimer(entry, ttl);
             }
+            return null;
         }
-        return null;
-    }
 
-    /**
-     * Send immediate block acknowledgement
-     *
-     * @param seqZero seqzero of the message
-     * @param ttl     ttl of the message
-     * @param src     source address of the message
-     * @param dst     destination address of the message
-     * @param segN    total segment count
-     */
-    private void handleImmediateBlockAcks(final int seqZero, final int ttl, final int src, final int dst, final int segN) {
-        cancelIncompleteTimer();
-        sendBlockAck(seqZero, ttl, src, dst, segN);
+        //We should cancel the timers since we have received all segments
+        mSegmentedAccessMessages.remove(entry);
+        cancelTimers(entry);
+        if (acknowledged) {
+            sendBlockAck(entry, ttl);
+        }
+
+        final AccessMessage accessMessage = new AccessMessage();
+        accessMessage.setAszmic(szmic);
+        accessMessage.setSequenceNumber(MeshParserUtils.getSequenceNumberBytes(seqNumber));
+        accessMessage.setAkf(akf);
+        accessMessage.setAid(aid);
+        accessMessage.setSegmented(true);
+        accessMessage.setReceivedLowerTransportPdus(getSegments(entry));
+        accessMessage.setNetworkLayerPdu(getNetworkPdus(entry));
+        return accessMessage;
     }
 
     /**
@@ -585,14 +534,9 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
      */
     /*package*/
     final void parseUnsegmentedControlLowerTransportPDU(@NonNull final ControlMessage controlMessage,
-                                                        @NonNull final byte[] decryptedProxyPdu) throws ExtendedInvalidCipherTextException {
+                                                        @NonNull final byte[] decryptedProxyPdu) {
 
-        final SparseArray<byte[]> unsegmentedMessages = new SparseArray<>();
-        final int lowerTransportPduLength = decryptedProxyPdu.length - 10;
-        final ByteBuffer lowerTransportBuffer = ByteBuffer.allocate(lowerTransportPduLength).order(ByteOrder.BIG_ENDIAN);
-        lowerTransportBuffer.put(decryptedProxyPdu, 10, lowerTransportPduLength);
-        final byte[] lowerTransportPDU = lowerTransportBuffer.array();
-        unsegmentedMessages.put(0, lowerTransportPDU);
+        final PduSlice[] unsegmentedMessages = new PduSlice[]{new PduSlice(decryptedProxyPdu, 10, decryptedProxyPdu.length - 10)};
         final int opCode;
         final int pduType = decryptedProxyPdu[0];
         switch (pduType) {
@@ -602,12 +546,12 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
                 controlMessage.setPduType(MeshManagerApi.PDU_TYPE_NETWORK);//Set the pdu type here
                 controlMessage.setAszmic(0);
                 controlMessage.setOpCode(opCode);
-                controlMessage.setLowerTransportControlPdu(unsegmentedMessages);
+                controlMessage.setReceivedLowerTransportPdus(unsegmentedMessages);
                 parseLowerTransportLayerPDU(controlMessage);
                 break;
             case MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION:
                 controlMessage.setPduType(MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION);
-                controlMessage.setLowerTransportControlPdu(unsegmentedMessages);
+                controlMessage.setReceivedLowerTransportPdus(unsegmentedMessages);
                 parseUpperTransportPDU(controlMessage);
                 break;
         }
@@ -616,10 +560,12 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
     /**
      * Parses a segmented lower transport control pdu.
      *
-     * @param pdu The complete pdu was received from the node. This is already de-obfuscated and decrypted at network layer.
+     * @param pdu        The complete pdu was received from the node. This is already de-obfuscated and decrypted at network layer.
+     * @param networkPdu Network pdu containing the segment
+     * @return a complete {@link ControlMessage} once all segments have been received or null otherwise.
      */
     /*package*/
-    final ControlMessage parseSegmentedControlLowerTransportPDU(@NonNull final byte[] pdu) {
+    final ControlMessage parseSegmentedControlLowerTransportPDU(@NonNull final byte[] pdu, @NonNull final byte[] networkPdu) {
 
         final byte header = pdu[10]; //Lower transport pdu starts here
         final int akf = (header >> 6) & 0x01;
@@ -631,52 +577,47 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
         final int segN = ((pdu[13]) & 0x1F);
 
         final int ttl = pdu[2] & 0x7F;
-        final byte[] src = MeshParserUtils.getSrcAddress(pdu);
-        final byte[] dst = MeshParserUtils.getDstAddress(pdu);
-
-        final int blockAckSrc = MeshParserUtils.unsignedBytesToInt(dst[1], dst[0]); //Destination of the received packet would be the source for the ack
-        final int blockAckDst = MeshParserUtils.unsignedBytesToInt(src[1], src[0]); //Source of the received packet would be the destination for the ack
-
-        MeshLogger.verbose(TAG, "SEG O: " + segO);
-        MeshLogger.verbose(TAG, "SEG N: " + segN);
+        final int blockAckSrc = MeshParserUtils.unsignedBytesToInt(pdu[9], pdu[8]); //Destination of the received packet would be the source for the ack
+        final int blockAckDst = MeshParserUtils.unsignedBytesToInt(pdu[7], pdu[6]); //Source of the received packet would be the destination for the ack
+
+        MeshLogger.verbose(TAG, "SEG O: {}", segO);
+        MeshLogger.verbose(TAG, "SEG N: {}", segN);
+
+        final int upperTransportSequenceNumber = getTransportLayerSequenceNumber(MeshParserUtils.getSequenceNumberFromPDU(pdu), seqZero);
+        final int seqAuth = MeshParserUtils.bytesToInt(mUpperTransportLayerCallbacks.getIvIndex()) << 24 | upperTransportSequenceNumber;
+        final long now = System.currentTimeMillis();
+        ReassemblyTable.Entry entry = mSegmentedControlMessages.get(blockAckDst, seqAuth);
+        if (entry == null) {
+            entry = mSegmentedControlMessages.start(blockAckDst, blockAckSrc, seqAuth, seqZero, segN, now);
+        }
+        entry.putSegment(segO, new PduSlice(pdu, 10, pdu.length - 10), networkPdu);
+        entry.lastActivity = now;
 
         //Start the timer irrespective of which segment was received first
-        initSegmentedControlAcknowledgementTimer(seqZero, ttl, blockAckDst, blockAckSrc, segN);
-        mSegmentedControlBlockAck = BlockAcknowledgementMessage.calculateBlockAcknowledgement(mSegmentedControlBlockAck, segO);
-        MeshLogger.verbose(TAG, "Block acknowledgement value for " + mSegmentedControlBlockAck + " Seg O " + segO);
-
-        final int payloadLength = pdu.length - 10;
-
-        final ByteBuffer payloadBuffer = ByteBuffer.allocate(payloadLength);
-        payloadBuffer.put(pdu, 10, payloadLength);
-        segmentedControlMessageMap.put(segO, payloadBuffer.array());
+        if (!entry.acknowledgementTimerStarted) {
+            initSegmentedAcknowledgementTimer(entry, ttl);
+        }
+        entry.blockAck = BlockAcknowledgementMessage.calculateBlockAcknowledgement(entry.blockAck, segO);
+        MeshLogger.verbose(TAG, "Block acknowledgement value for {} Seg O {}", entry.blockAck, segO);
 
-        //Check the message count against the zero-based segN;
-        final int receivedSegmentedMessageCount = segmentedControlMessageMap.size() - 1;
-        if (segN == receivedSegmentedMessageCount) {
+        if (entry.isComplete()) {
             MeshLogger.verbose(TAG, "All segments received");
-            //Remove the incomplete timer if all segments were received
-            mHandler.removeCallbacks(mIncompleteTimerRunnable);
-            MeshLogger.verbose(TAG, "Block ack sent? " + mBlockAckSent);
-            if (mDuration > System.currentTimeMillis() && !mBlockAckSent) {
-                if (MeshAddress.isValidUnicastAddress(dst)) {
-                    mHandler.removeCallbacksAndMessages(null);
-                    MeshLogger.verbose(TAG, "Cancelling Scheduled block ack and incomplete timer, sending an immediate block ack");
-                    sendBlockAck(seqZero, ttl, blockAckSrc, blockAckDst, segN);
-                    //mBlockAckSent = false;
-                }
+            mSegmentedControlMessages.remove(entry);
+            MeshLogger.verbose(TAG, "Block ack sent? {}", entry.blockAckSent);
+            final boolean sendImmediateBlockAck = entry.acknowledgementDeadline > now && !entry.blockAckSent;
+            cancelTimers(entry);
+            if (sendImmediateBlockAck && MeshAddress.isValidUnicastAddress(blockAckSrc)) {
+                MeshLogger.verbose(TAG, "Cancelling Scheduled block ack, sending an immediate block ack");
+                sendBlockAck(entry, ttl);
             }
-            final int upperTransportSequenceNumber = getTransportLayerSequenceNumber(MeshParserUtils.getSequenceNumberFromPDU(pdu), seqZero);
-            final byte[] sequenceNumber = MeshParserUtils.getSequenceNumberBytes(upperTransportSequenceNumber);
             final ControlMessage message = new ControlMessage();
             message.setAszmic(szmic);
-            message.setSequenceNumber(sequenceNumber);
+            message.setSequenceNumber(MeshParserUtils.getSequenceNumberBytes(upperTransportSequenceNumber));
             message.setAkf(akf);
             message.setAid(aid);
             message.setSegmented(true);
-            final SparseArray<byte[]> segmentedMessages = segmentedControlMessageMap.clone();
-            segmentedControlMessageMap.clear();
-            message.setLowerTransportControlPdu(segmentedMessages);
+            message.setReceivedLowerTransportPdus(getSegments(entry));
+            message.setNetworkLayerPdu(getNetworkPdus(entry));
             return message;
         }
 
@@ -684,103 +625,114 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
     }
 
     /**
-     * Start incomplete timer for segmented messages.
+     * Returns the received segments of a message ordered by the segment offset.
+     *
+     * @param entry Reassembly entry of the message
      */
-    private void initIncompleteTimer() {
-        mHandler.postDelayed(mIncompleteTimerRunnable, INCOMPLETE_TIMER_DELAY);
-        mIncompleteTimerStarted = true;
+    private PduSlice[] getSegments(@NonNull final ReassemblyTable.Entry entry) {
+        final PduSlice[] segments = new PduSlice[entry.segN + 1];
+        for (int segO = 0; segO <= entry.segN; segO++) {
+            segments[segO] = entry.getSegment(segO);
+        }
+        return segments;
     }
 
     /**
-     * Restarts the incomplete timer
+     * Returns the network pdus the segments of a message were received in, keyed by the segment offset.
+     *
+     * @param entry Reassembly entry of the message
      */
-    private void restartIncompleteTimer() {
-        //Remove the existing incomplete timer
-        if (mIncompleteTimerStarted) {
-            mHandler.removeCallbacks(mIncompleteTimerRunnable);
+    private SparseArray<byte[]> getNetworkPdus(@NonNull final ReassemblyTable.Entry entry) {
+        final SparseArray<byte[]> networkPdus = new SparseArray<>();
+        for (int segO = 0; segO <= entry.segN; segO++) {
+            networkPdus.put(segO, entry.getNetworkPdu(segO));
         }
-        //Call init to start the timer again
-        initIncompleteTimer();
+        return networkPdus;
     }
 
     /**
-     * Cancels an already started the incomplete timer
+     * Restarts the incomplete timer of a segmented message.
+     *
+     * @param table Reassembly table containing the message
+     * @param entry Reassembly entry of the message
      */
-    private void cancelIncompleteTimer() {
+    private void restartIncompleteTimer(@NonNull final ReassemblyTable table, @NonNull final ReassemblyTable.Entry entry) {
         //Remove the existing incomplete timer
-        mIncompleteTimerStarted = false;
-        mHandler.removeCallbacks(mIncompleteTimerRunnable);
+        if (entry.incompleteTimer != null) {
+            mScheduler.cancel(entry.incompleteTimer);
+        }
+        entry.incompleteTimer = () -> {
+            MeshLogger.verbose(TAG, "Incomplete timer expired for src: {}", MeshAddress.addressIntToBytes(entry.src));
+            entry.incompleteTimer = null;
+            table.remove(entry);
+            cancelTimers(entry);
+            mLowerTransportLayerCallbacks.onIncompleteTimerExpired();
+        };
+        mScheduler.schedule(entry.incompleteTimer, INCOMPLETE_TIMER_DELAY);
     }
 
     /**
-     * Start acknowledgement timer for segmented messages.
+     * Cancels the incomplete and acknowledgement timers of a segmented message.
      *
-     * @param seqZero Seqzero of the segmented messages.
-     * @param ttl     TTL of the segmented messages.
-     * @param dst     Destination address.
+     * @param entry Reassembly entry of the message
      */
-    private void initSegmentedAccessAcknowledgementTimer(final int seqZero, final int ttl, final int src, final int dst, final int segN) {
-        if (!mSegmentedAccessAcknowledgementTimerStarted) {
-            mSegmentedAccessAcknowledgementTimerStarted = true;
-            MeshLogger.verbose(TAG, "TTL: " + ttl);
-            final int duration = (BLOCK_ACK_TIMER + (50 * ttl));
-            MeshLogger.verbose(TAG, "Duration: " + duration);
-            mDuration = System.currentTimeMillis() + duration;
-            mHandler.postDelayed(() -> {
-                MeshLogger.verbose(TAG, "Acknowledgement timer expiring");
-                sendBlockAck(seqZero, ttl, src, dst, segN);
-            }, duration);
+    private void cancelTimers(@NonNull final ReassemblyTable.Entry entry) {
+        if (entry.incompleteTimer != null) {
+            mScheduler.cancel(entry.incompleteTimer);
+            entry.incompleteTimer = null;
         }
+        if (entry.acknowledgementTimer != null) {
+            mScheduler.cancel(entry.acknowledgementTimer);
+            entry.acknowledgementTimer = null;
+        }
+        entry.acknowledgementTimerStarted = false;
     }
 
     /**
      * Start acknowledgement timer for segmented messages.
      *
-     * @param seqZero Seqzero of the segmented messages.
-     * @param ttl     TTL of the segmented messages.
-     * @param src     Source address which is the element address
-     * @param dst     Destination address.
+     * @param entry Reassembly entry of the message
+     * @param ttl   TTL of the segmented messages.
      */
-    private void initSegmentedControlAcknowledgementTimer(final int seqZero, final int ttl, final int src, final int dst, final int segN) {
-        if (!mSegmentedControlAcknowledgementTimerStarted) {
-            mSegmentedControlAcknowledgementTimerStarted = true;
-            final int duration = BLOCK_ACK_TIMER + (50 * ttl);
-            mDuration = System.currentTimeMillis() + duration;
-            mHandler.postDelayed(() -> sendBlockAck(seqZero, ttl, src, dst, segN), duration);
-        }
+    private void initSegmentedAcknowledgementTimer(@NonNull final ReassemblyTable.Entry entry, final int ttl) {
+        entry.acknowledgementTimerStarted = true;
+        MeshLogger.verbose(TAG, "TTL: {}", ttl);
+        final int duration = (BLOCK_ACK_TIMER + (50 * ttl));
+        MeshLogger.verbose(TAG, "Duration: {}", duration);
+        entry.acknowledgementDeadline = System.currentTimeMillis() + duration;
+        entry.acknowledgementTimer = () -> {
+            MeshLogger.verbose(TAG, "Acknowledgement timer expiring");
+            entry.acknowledgementTimer = null;
+            sendBlockAck(entry, ttl);
+        };
+        mScheduler.schedule(entry.acknowledgementTimer, duration);
     }
 
     /**
      * Send block acknowledgement
      *
-     * @param seqZero Seqzero of the segmented messages.
-     * @param ttl     TTL of the segmented messages.
-     * @param src     Source address which is the element address
-     * @param dst     Destination address.
+     * @param entry Reassembly entry of the segmented message.
+     * @param ttl   TTL of the segmented messages.
      */
-    private void sendBlockAck(final int seqZero, final int ttl, final int src, final int dst, final int segN) {
-        final int blockAck = mSegmentedAccessBlockAck;
-        if (BlockAcknowledgementMessage.hasAllSegmentsBeenReceived(blockAck, segN)) {
-            MeshLogger.verbose(TAG, "All segments received cancelling incomplete timer");
-            cancelIncompleteTimer();
-        }
-
-        final byte[] upperTransportControlPdu = createAcknowledgementPayload(seqZero, blockAck);
-        MeshLogger.verbose(TAG, "Block acknowledgement payload: " + MeshParserUtils.bytesToHex(upperTransportControlPdu, false));
+    private void sendBlockAck(@NonNull final ReassemblyTable.Entry entry, final int ttl) {
+        final int blockAck = entry.blockAck;
+        final byte[] upperTransportControlPdu = createAcknowledgementPayload(entry.seqZero, blockAck);
+        MeshLogger.verbose(TAG, "Block acknowledgement payload: {}", upperTransportControlPdu);
         final ControlMessage controlMessage = new ControlMessage();
         controlMessage.setOpCode(TransportLayerOpCodes.SAR_ACK_OPCODE);
         controlMessage.setTransportControlPdu(upperTransportControlPdu);
         controlMessage.setTtl(ttl);
         controlMessage.setPduType(MeshManagerApi.PDU_TYPE_NETWORK);
-        controlMessage.setSrc(src);
-        controlMessage.setDst(dst);
+        //Destination of the received message is the source of the acknowledgement and vice versa
+        controlMessage.setSrc(entry.dst);
+        controlMessage.setDst(entry.src);
         controlMessage.setIvIndex(mUpperTransportLayerCallbacks.getIvIndex());
         final int sequenceNumber = mUpperTransportLayerCallbacks.getNode(controlMessage.getSrc()).incrementSequenceNumber();
         final byte[] sequenceNum = MeshParserUtils.getSequenceNumberBytes(sequenceNumber);
         controlMessage.setSequenceNumber(sequenceNum);
-        mBlockAckSent = true;
+        entry.blockAckSent = true;
+        entry.acknowledgementTimerStarted = false;
         mLowerTransportLayerCallbacks.sendSegmentAcknowledgementMessage(controlMessage);
-        mSegmentedAccessAcknowledgementTimerStarted = false;
     }
 
     /**
@@ -807,13 +759,21 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
      * @param controlMessage underlying message containing the access pdu.
      */
     private void parseLowerTransportLayerPDU(@NonNull final ControlMessage controlMessage) {
+        final int opCode = controlMessage.getOpCode();
+        // The SeqZero of an acknowledgement is part of the header that is removed when reassembling the message
+        final int ackSeqZero;
+        if (opCode == TransportLayerOpCodes.SAR_ACK_OPCODE) {
+            final PduSlice pdu = getLowerTransportPdus(controlMessage)[0];
+            ackSeqZero = ((pdu.get(1) & 0x7F) << 6) | ((pdu.get(2) & 0xFC) >> 2);
+        } else {
+            ackSeqZero = 0;
+        }
         //First we reassemble the transport layer message if its a segmented message
         reassembleLowerTransportControlPDU(controlMessage);
         final byte[] transportControlPdu = controlMessage.getTransportControlPdu();
-        final int opCode = controlMessage.getOpCode();
 
         if (opCode == TransportLayerOpCodes.SAR_ACK_OPCODE) {
-            final BlockAcknowledgementMessage acknowledgement = new BlockAcknowledgementMessage(transportControlPdu);
+            final BlockAcknowledgementMessage acknowledgement = new BlockAcknowledgementMessage(ackSeqZero, transportControlPdu);
             controlMessage.setTransportControlMessage(acknowledgement);
         }
 
@@ -822,16 +782,4 @@ abstract class LowerTransportLayer extends UpperTransportLayer {
             controlMessage.setTransportControlMessage(heartbeatMessage);
         }
     }
-
-    /**
-     * Validates Sequence authentication value.
-     *
-     * @param seqAuth Sequence authentication.
-     * @param src     Source address.
-     */
-    private boolean isValidSeqAuth(final int seqAuth,
-                                   final int src) {
-        final Integer lastSeqAuth = mMeshNode.getSeqAuth(src);
-        return lastSeqAuth == null || lastSeqAuth < seqAuth;
-    }
 }
@@ -2,11 +2,10 @@ package no.nordicsemi.android.mesh.transport;
 
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 
-import java.util.List;
-
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import no.nordicsemi.android.mesh.InternalTransportCallbacks;
+import no.nordicsemi.android.mesh.MeshManagerApi;
 import no.nordicsemi.android.mesh.MeshStatusCallbacks;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 
@@ -24,7 +23,7 @@ abstract class MeshMessageState implements LowerTransportLayerCallbacks {
 
     MeshMessage mMeshMessage;
     final MeshTransport mMeshTransport;
-    private final InternalMeshMsgHandlerCallbacks meshMessageHandlerCallbacks;
+    final InternalMeshMsgHandlerCallbacks meshMessageHandlerCallbacks;
     protected InternalTransportCallbacks mInternalTransportCallbacks;
     MeshStatusCallbacks mMeshStatusCallbacks;
     int mSrc;
@@ -77,11 +76,18 @@ abstract class MeshMessageState implements LowerTransportLayerCallbacks {
 
     /**
      * Starts sending the mesh pdu
+     * <p>
+     * Segments of a segmented network pdu are handed over to the SAR transmitter, which paces and retransmits them.
+     * </p>
      */
     public void executeSend() {
         if (message.getNetworkLayerPdu().size() > 0) {
-            for (int i = 0; i < message.getNetworkLayerPdu().size(); i++) {
-                mInternalTransportCallbacks.onMeshPduCreated(mDst, message.getNetworkLayerPdu().get(i));
+            if (message.isSegmented() && message.getPduType() == MeshManagerApi.PDU_TYPE_NETWORK) {
+                meshMessageHandlerCallbacks.sendSegmentedMessage(mMeshTransport, message);
+            } else {
+                for (int i = 0; i < message.getNetworkLayerPdu().size(); i++) {
+                    mInternalTransportCallbacks.onMeshPduCreated(mDst, message.getNetworkLayerPdu().get(i));
+                }
             }
 
             if (mMeshStatusCallbacks != null) {
@@ -90,25 +96,6 @@ abstract class MeshMessageState implements LowerTransportLayerCallbacks {
         }
     }
 
-    /**
-     * Re-sends the mesh pdu segments that were lost in flight
-     *
-     * @param retransmitPduIndexes list of indexes of the messages to be
-     */
-    final void executeResend(final List<Integer> retransmitPduIndexes) {
-        if (message.getNetworkLayerPdu().size() > 0 && !retransmitPduIndexes.isEmpty()) {
-            for (int i = 0; i < retransmitPduIndexes.size(); i++) {
-                final int segO = retransmitPduIndexes.get(i);
-                if (message.getNetworkLayerPdu().get(segO) != null) {
-                    final byte[] pdu = message.getNetworkLayerPdu().get(segO);
-                    MeshLogger.verbose(TAG, "Resending segment " + segO + " : " + MeshParserUtils.bytesToHex(pdu, false));
-                    final Message retransmitMeshMessage = mMeshTransport.createRetransmitMeshMessage(message, segO);
-                    mInternalTransportCallbacks.onMeshPduCreated(mDst, retransmitMeshMessage.getNetworkLayerPdu().get(segO));
-                }
-            }
-        }
-    }
-
     @Override
     public void onIncompleteTimerExpired() {
         MeshLogger.verbose(TAG, "Incomplete timer has expired, all segments were not received!");
@@ -130,7 +117,7 @@ abstract class MeshMessageState implements LowerTransportLayerCallbacks {
     public void sendSegmentAcknowledgementMessage(final ControlMessage controlMessage) {
         //We don't send acknowledgements here
         final ControlMessage message = mMeshTransport.createSegmentBlockAcknowledgementMessage(controlMessage);
-        MeshLogger.verbose(TAG, "Sending acknowledgement: " + MeshParserUtils.bytesToHex(message.getNetworkLayerPdu().get(0), false));
+        MeshLogger.verbose(TAG, "Sending acknowledgement: {}", message.getNetworkLayerPdu().get(0));
         mInternalTransportCallbacks.onMeshPduCreated(message.getDst(), message.getNetworkLayerPdu().get(0));
         mMeshStatusCallbacks.onBlockAcknowledgementProcessed(message.getDst(), controlMessage);
     }
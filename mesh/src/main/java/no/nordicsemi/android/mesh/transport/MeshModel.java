@@ -29,14 +29,15 @@ import com.google.gson.annotations.Expose;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import no.nordicsemi.android.mesh.utils.IntKeyArrayMap;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
+import no.nordicsemi.android.mesh.utils.UnsignedShortArrayList;
 
 /**
  * Base mesh model class
@@ -51,11 +52,11 @@ public abstract class MeshModel implements Parcelable {
     @Expose
     protected int mModelId;
     @Expose
-    final List<Integer> mBoundAppKeyIndexes = new ArrayList<>();
+    final List<Integer> mBoundAppKeyIndexes = new UnsignedShortArrayList();
     @Expose(serialize = false)
-    final Map<Integer, String> mBoundAppKeys = new LinkedHashMap<>();
+    final Map<Integer, String> mBoundAppKeys = new IntKeyArrayMap<>();
     @Expose
-    final List<Integer> subscriptionAddresses = new ArrayList<>();
+    final List<Integer> subscriptionAddresses = new UnsignedShortArrayList();
     @Expose
     final List<UUID> labelUuids = new ArrayList<>();
     @Expose
@@ -23,7 +23,6 @@
 package no.nordicsemi.android.mesh.transport;
 
 import android.content.Context;
-import android.os.Handler;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 
 import java.util.UUID;
@@ -32,7 +31,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import no.nordicsemi.android.mesh.ApplicationKey;
+import no.nordicsemi.android.mesh.HandlerScheduler;
 import no.nordicsemi.android.mesh.MeshManagerApi;
+import no.nordicsemi.android.mesh.MeshScheduler;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 
@@ -51,7 +52,18 @@ final class MeshTransport extends NetworkLayer {
      */
     MeshTransport(@NonNull final Context context) {
         this.mContext = context;
-        initHandler();
+        initScheduler();
+    }
+
+    /**
+     * Constructs the MeshTransport
+     *
+     * @param context   context
+     * @param scheduler {@link MeshScheduler} executing the timers of the transport layers
+     */
+    MeshTransport(@NonNull final Context context, @NonNull final MeshScheduler scheduler) {
+        this.mContext = context;
+        this.mScheduler = scheduler;
     }
 
     /**
@@ -65,12 +77,12 @@ final class MeshTransport extends NetworkLayer {
         super();
         this.mContext = context;
         this.mMeshNode = node;
-        initHandler();
+        initScheduler();
     }
 
     @Override
-    protected void initHandler() {
-        this.mHandler = new Handler(mContext.getMainLooper());
+    protected void initScheduler() {
+        this.mScheduler = new HandlerScheduler(mContext.getMainLooper());
     }
 
     @Override
@@ -129,15 +141,15 @@ final class MeshTransport extends NetworkLayer {
         final int sequenceNumber = node.incrementSequenceNumber();
         final byte[] sequenceNum = MeshParserUtils.getSequenceNumberBytes(sequenceNumber);
 
-        MeshLogger.verbose(TAG, "Src address: " + MeshAddress.formatAddress(src, false));
-        MeshLogger.verbose(TAG, "Dst address: " + MeshAddress.formatAddress(dst, false));
+        MeshLogger.verbose(TAG, "Src address: {}", MeshAddress.addressIntToBytes(src));
+        MeshLogger.verbose(TAG, "Dst address: {}", MeshAddress.addressIntToBytes(dst));
         // MeshLogger.verbose(TAG, "Key: " + + key.getName());
-        MeshLogger.verbose(TAG, "akf: " + akf);
-        MeshLogger.verbose(TAG, "aid: " + aid);
-        MeshLogger.verbose(TAG, "aszmic: " + aszmic);
-        MeshLogger.verbose(TAG, "Sequence number: " + sequenceNumber);
-        MeshLogger.verbose(TAG, "Access message opcode: " + Integer.toHexString(accessOpCode));
-        MeshLogger.verbose(TAG, "Access message parameters: " + MeshParserUtils.bytesToHex(accessMessageParameters, false));
+        MeshLogger.verbose(TAG, "akf: {}", akf);
+        MeshLogger.verbose(TAG, "aid: {}", aid);
+        MeshLogger.verbose(TAG, "aszmic: {}", aszmic);
+        MeshLogger.verbose(TAG, "Sequence number: {}", sequenceNumber);
+        MeshLogger.verbose(TAG, "Access message opcode: {}", MeshParserUtils.getOpCode(accessOpCode));
+        MeshLogger.verbose(TAG, "Access message parameters: {}", accessMessageParameters);
 
         final AccessMessage message = new AccessMessage();
         message.setSrc(src);
@@ -188,15 +200,15 @@ final class MeshTransport extends NetworkLayer {
         final int sequenceNumber = node.incrementSequenceNumber();
         final byte[] sequenceNum = MeshParserUtils.getSequenceNumberBytes(sequenceNumber);
 
-        MeshLogger.verbose(TAG, "Src address: " + MeshAddress.formatAddress(src, false));
-        MeshLogger.verbose(TAG, "Dst address: " + MeshAddress.formatAddress(dst, false));
-        MeshLogger.verbose(TAG, "Key: " + key.getName());
-        MeshLogger.verbose(TAG, "akf: " + akf);
-        MeshLogger.verbose(TAG, "aid: " + aid);
-        MeshLogger.verbose(TAG, "aszmic: " + aszmic);
-        MeshLogger.verbose(TAG, "Sequence number: " + sequenceNumber);
-        MeshLogger.verbose(TAG, "Access message opcode: " + Integer.toHexString(accessOpCode));
-        MeshLogger.verbose(TAG, "Access message parameters: " + MeshParserUtils.bytesToHex(accessMessageParameters, false));
+        MeshLogger.verbose(TAG, "Src address: {}", MeshAddress.addressIntToBytes(src));
+        MeshLogger.verbose(TAG, "Dst address: {}", MeshAddress.addressIntToBytes(dst));
+        MeshLogger.verbose(TAG, "Key: {}", key.getName());
+        MeshLogger.verbose(TAG, "akf: {}", akf);
+        MeshLogger.verbose(TAG, "aid: {}", aid);
+        MeshLogger.verbose(TAG, "aszmic: {}", aszmic);
+        MeshLogger.verbose(TAG, "Sequence number: {}", sequenceNumber);
+        MeshLogger.verbose(TAG, "Access message opcode: {}", MeshParserUtils.getOpCode(accessOpCode));
+        MeshLogger.verbose(TAG, "Access message parameters: {}", accessMessageParameters);
 
         final AccessMessage message = new AccessMessage();
         message.setSrc(src);
@@ -251,15 +263,15 @@ final class MeshTransport extends NetworkLayer {
         final int sequenceNumber = node.incrementSequenceNumber();
         final byte[] sequenceNum = MeshParserUtils.getSequenceNumberBytes(sequenceNumber);
 
-        MeshLogger.verbose(TAG, "Src address: " + MeshAddress.formatAddress(src, false));
-        MeshLogger.verbose(TAG, "Dst address: " + MeshAddress.formatAddress(dst, false));
-        MeshLogger.verbose(TAG, "Key: " + key.getName());
-        MeshLogger.verbose(TAG, "akf: " + akf);
-        MeshLogger.verbose(TAG, "aid: " + aid);
-        MeshLogger.verbose(TAG, "aszmic: " + aszmic);
-        MeshLogger.verbose(TAG, "Sequence number: " + sequenceNumber);
-        MeshLogger.verbose(TAG, "Access message opcode: " + Integer.toHexString(accessOpCode));
-        MeshLogger.verbose(TAG, "Access message parameters: " + MeshParserUtils.bytesToHex(accessMessageParameters, false));
+        MeshLogger.verbose(TAG, "Src address: {}", MeshAddress.addressIntToBytes(src));
+        MeshLogger.verbose(TAG, "Dst address: {}", MeshAddress.addressIntToBytes(dst));
+        MeshLogger.verbose(TAG, "Key: {}", key.getName());
+        MeshLogger.verbose(TAG, "akf: {}", akf);
+        MeshLogger.verbose(TAG, "aid: {}", aid);
+        MeshLogger.verbose(TAG, "aszmic: {}", aszmic);
+        MeshLogger.verbose(TAG, "Sequence number: {}", sequenceNumber);
+        MeshLogger.verbose(TAG, "Access message opcode: {}", MeshParserUtils.getOpCode(accessOpCode));
+        MeshLogger.verbose(TAG, "Access message parameters: {}", accessMessageParameters);
 
         final AccessMessage message = new AccessMessage();
         message.setCompanyIdentifier(companyIdentifier);
@@ -299,11 +311,11 @@ final class MeshTransport extends NetworkLayer {
         final int sequenceNumber = node.incrementSequenceNumber();
         final byte[] sequenceNum = MeshParserUtils.getSequenceNumberBytes(sequenceNumber);
 
-        MeshLogger.verbose(TAG, "Src address: " + MeshAddress.formatAddress(src, false));
-        MeshLogger.verbose(TAG, "Dst address: " + MeshAddress.formatAddress(dst, false));
-        MeshLogger.verbose(TAG, "Sequence number: " + sequenceNumber);
-        MeshLogger.verbose(TAG, "Control message opcode: " + Integer.toHexString(opcode));
-        MeshLogger.verbose(TAG, "Control message parameters: " + MeshParserUtils.bytesToHex(parameters, false));
+        MeshLogger.verbose(TAG, "Src address: {}", MeshAddress.addressIntToBytes(src));
+        MeshLogger.verbose(TAG, "Dst address: {}", MeshAddress.addressIntToBytes(dst));
+        MeshLogger.verbose(TAG, "Sequence number: {}", sequenceNumber);
+        MeshLogger.verbose(TAG, "Control message opcode: {}", MeshParserUtils.getOpCode(opcode));
+        MeshLogger.verbose(TAG, "Control message parameters: {}", parameters);
 
         final ControlMessage message = new ControlMessage();
         message.setSrc(src);
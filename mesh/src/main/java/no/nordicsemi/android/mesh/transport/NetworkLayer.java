@@ -24,8 +24,6 @@ package no.nordicsemi.android.mesh.transport;
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 import android.util.SparseArray;
 
-import org.spongycastle.crypto.InvalidCipherTextException;
-
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
@@ -37,8 +35,8 @@ import androidx.annotation.VisibleForTesting;
 import no.nordicsemi.android.mesh.MeshManagerApi;
 import no.nordicsemi.android.mesh.NetworkKey;
 import no.nordicsemi.android.mesh.Provisioner;
-import no.nordicsemi.android.mesh.utils.ExtendedInvalidCipherTextException;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
+import no.nordicsemi.android.mesh.utils.MeshCipher;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 import no.nordicsemi.android.mesh.utils.SecureUtils;
 
@@ -52,8 +50,6 @@ abstract class NetworkLayer extends LowerTransportLayer {
 
     private static final String TAG = NetworkLayer.class.getSimpleName();
     NetworkLayerCallbacks mNetworkLayerCallbacks;
-    private SparseArray<byte[]> segmentedAccessMessagesMessages;
-    private SparseArray<byte[]> segmentedControlMessagesMessages;
 
     /**
      * Set network layer callbacks
@@ -94,9 +90,9 @@ abstract class NetworkLayer extends LowerTransportLayer {
     public final Message createNetworkLayerPDU(@NonNull final Message message) {
         final SecureUtils.K2Output k2Output = getK2Output(message);
         final int nid = k2Output.getNid();
-        final byte[] encryptionKey = k2Output.getEncryptionKey();
+        final MeshCipher encryptionCipher = k2Output.getEncryptionCipher();
 
-        final byte[] privacyKey = k2Output.getPrivacyKey();
+        final MeshCipher privacyCipher = k2Output.getPrivacyCipher();
         final int ctl = message.getCtl();
         final int ttl = message.getTtl();
         final int ivi = message.getIvIndex()[3] & 0x01; // least significant bit of IV Index
@@ -125,11 +121,11 @@ abstract class NetworkLayer extends LowerTransportLayer {
                         message.setSequenceNumber(sequenceNumber);
                     }
                     sequenceNumbers.add(message.getSequenceNumber());
-                    MeshLogger.verbose(TAG, "Sequence Number: " + MeshParserUtils.bytesToHex(sequenceNumbers.get(i), false));
+                    MeshLogger.verbose(TAG, "Sequence Number: {}", sequenceNumbers.get(i));
                     final byte[] nonce = createNetworkNonce(ctlTTL, sequenceNumbers.get(i), src, message.getIvIndex());
-                    final byte[] encryptedPayload = encryptPdu(lowerTransportPdu, encryptionKey, nonce, message.getDst(), SecureUtils.getNetMicLength(message.getCtl()));
+                    final byte[] encryptedPayload = encryptPdu(lowerTransportPdu, encryptionCipher, nonce, message.getDst(), SecureUtils.getNetMicLength(message.getCtl()));
                     encryptedPduPayload.put(i, encryptedPayload);
-                    MeshLogger.verbose(TAG, "Encrypted Network payload: " + MeshParserUtils.bytesToHex(encryptedPayload, false));
+                    MeshLogger.verbose(TAG, "Encrypted Network payload: {}", encryptedPayload);
                 }
                 break;
             case MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION:
@@ -140,9 +136,9 @@ abstract class NetworkLayer extends LowerTransportLayer {
                     message.setSequenceNumber(sequenceNum);
                     sequenceNumbers.add(message.getSequenceNumber());
                     final byte[] nonce = createProxyNonce(message.getSequenceNumber(), src, message.getIvIndex());
-                    final byte[] encryptedPayload = encryptPdu(lowerTransportPdu, encryptionKey, nonce, message.getDst(), SecureUtils.getNetMicLength(message.getCtl()));
+                    final byte[] encryptedPayload = encryptPdu(lowerTransportPdu, encryptionCipher, nonce, message.getDst(), SecureUtils.getNetMicLength(message.getCtl()));
                     encryptedPduPayload.put(i, encryptedPayload);
-                    MeshLogger.verbose(TAG, "Encrypted Network payload: " + MeshParserUtils.bytesToHex(encryptedPayload, false));
+                    MeshLogger.verbose(TAG, "Encrypted Network payload: {}", encryptedPayload);
                 }
                 break;
         }
@@ -153,7 +149,7 @@ abstract class NetworkLayer extends LowerTransportLayer {
             final byte[] encryptedPayload = encryptedPduPayload.get(i);
             final byte[] privacyRandom = createPrivacyRandom(encryptedPayload);
             //Next we create the PECB
-            final byte[] pecb = createPECB(message.getIvIndex(), privacyRandom, privacyKey);
+            final byte[] pecb = createPECB(message.getIvIndex(), privacyRandom, privacyCipher);
 
             final byte[] header = obfuscateNetworkHeader(ctlTTL, sequenceNumbers.get(i), src, pecb);
             final byte[] pdu = ByteBuffer.allocate(1 + 1 + header.length + encryptedPayload.length).order(ByteOrder.BIG_ENDIAN)
@@ -173,9 +169,9 @@ abstract class NetworkLayer extends LowerTransportLayer {
     final Message createRetransmitNetworkLayerPDU(@NonNull final Message message, final int segment) {
         final SecureUtils.K2Output k2Output = getK2Output(message);
         final int nid = k2Output.getNid();
-        final byte[] encryptionKey = k2Output.getEncryptionKey();
+        final MeshCipher encryptionCipher = k2Output.getEncryptionCipher();
 
-        final byte[] privacyKey = k2Output.getPrivacyKey();
+        final MeshCipher privacyCipher = k2Output.getPrivacyCipher();
         final int ctl = message.getCtl();
         final int ttl = message.getTtl();
         final int ivi = message.getIvIndex()[3] & 0x01; // least significant bit of IV Index
@@ -195,18 +191,17 @@ abstract class NetworkLayer extends LowerTransportLayer {
         if (message.getPduType() == MeshManagerApi.PDU_TYPE_NETWORK) {
             final ProvisionedMeshNode node = mUpperTransportLayerCallbacks.getNode(message.getSrc());
             final byte[] lowerTransportPdu = lowerTransportPduMap.get(segment);
-            node.setSequenceNumber(MeshParserUtils.convert24BitsToInt(message.getSequenceNumber()));
-            //final int sequenceNumber = node.incrementSequenceNumber();//incrementSequenceNumber(mNetworkLayerCallbacks.getProvisioner(), message.getSequenceNumber());
+            // Other messages may have been sent since the segment was created, the next sequence number of the node is used
             final byte[] sequenceNum = MeshParserUtils.getSequenceNumberBytes(node.incrementSequenceNumber());
             message.setSequenceNumber(sequenceNum);
 
-            MeshLogger.verbose(TAG, "Sequence Number: " + MeshParserUtils.bytesToHex(sequenceNum, false));
+            MeshLogger.verbose(TAG, "Sequence Number: {}", sequenceNum);
 
             final byte[] nonce = createNetworkNonce(ctlTTL, sequenceNum, src, message.getIvIndex());
-            encryptedNetworkPayload = encryptPdu(lowerTransportPdu, encryptionKey, nonce, message.getDst(), SecureUtils.getNetMicLength(message.getCtl()));
+            encryptedNetworkPayload = encryptPdu(lowerTransportPdu, encryptionCipher, nonce, message.getDst(), SecureUtils.getNetMicLength(message.getCtl()));
             if (encryptedNetworkPayload == null)
                 return null;
-            MeshLogger.verbose(TAG, "Encrypted Network payload: " + MeshParserUtils.bytesToHex(encryptedNetworkPayload, false));
+            MeshLogger.verbose(TAG, "Encrypted Network payload: {}", encryptedNetworkPayload);
         }
 
         if (encryptedNetworkPayload == null)
@@ -214,7 +209,7 @@ abstract class NetworkLayer extends LowerTransportLayer {
 
         final byte[] privacyRandom = createPrivacyRandom(encryptedNetworkPayload);
         //Next we create the PECB
-        final byte[] pecb = createPECB(message.getIvIndex(), privacyRandom, privacyKey);
+        final byte[] pecb = createPECB(message.getIvIndex(), privacyRandom, privacyCipher);
 
         final byte[] header = obfuscateNetworkHeader(ctlTTL, message.getSequenceNumber(), src, pecb);
         final byte[] pdu = ByteBuffer.allocate(1 + 1 + header.length + encryptedNetworkPayload.length).order(ByteOrder.BIG_ENDIAN)
@@ -233,217 +228,166 @@ abstract class NetworkLayer extends LowerTransportLayer {
      * This method will drop messages with an invalid sequence number as all mesh messages are supposed to have a sequence
      * </p>
      *
-     * @param key                     Network Key used to decrypt
-     * @param node                    Mesh node.
-     * @param data                    PDU received from the mesh node.
-     * @param networkHeader           Network header.
-     * @param decryptedNetworkPayload Decrypted network payload.
-     * @param ivIndex                 IV Index of the network.
+     * @param key            Network Key used to decrypt
+     * @param node           Mesh node.
+     * @param data           PDU received from the mesh node.
+     * @param decryptedPdu   Received PDU with a de-obfuscated network header and a decrypted network payload, without the NetMIC.
+     * @param ivIndex        IV Index of the network.
+     * @param sequenceNumber Sequence number of the received message.
      * @return complete {@link Message} that was successfully parsed or null otherwise.
      */
     final Message parseMeshMessage(@NonNull final NetworkKey key,
                                    @NonNull final ProvisionedMeshNode node,
                                    @NonNull final byte[] data,
-                                   @NonNull final byte[] networkHeader,
-                                   @NonNull final byte[] decryptedNetworkPayload,
+                                   @NonNull final byte[] decryptedPdu,
                                    final int ivIndex,
-                                   @NonNull final byte[] sequenceNumber) throws ExtendedInvalidCipherTextException {
+                                   @NonNull final byte[] sequenceNumber) {
         mMeshNode = node;
+        node.replayProtectionList = mReplayProtectionList;
         final Provisioner provisioner = mNetworkLayerCallbacks.getProvisioner();
-        final int ctlTtl = networkHeader[0];
+        final int ctlTtl = decryptedPdu[2];
         final int ctl = (ctlTtl >> 7) & 0x01;
         final int ttl = ctlTtl & 0x7F;
-        MeshLogger.verbose(TAG, "TTL for received message: " + ttl);
-        final int src = MeshParserUtils.unsignedBytesToInt(networkHeader[5], networkHeader[4]);
+        MeshLogger.verbose(TAG, "TTL for received message: {}", ttl);
+        final int src = MeshParserUtils.unsignedBytesToInt(decryptedPdu[7], decryptedPdu[6]);
         if (ctl == 1) {
-            return parseControlMessage(key, provisioner.getProvisionerAddress(), data, networkHeader, decryptedNetworkPayload, src, sequenceNumber);
+            return parseControlMessage(key, provisioner.getProvisionerAddress(), data, decryptedPdu, src, sequenceNumber);
         } else {
-            return parseAccessMessage(key, data, networkHeader, decryptedNetworkPayload, src, sequenceNumber, ivIndex);
+            return parseAccessMessage(key, data, decryptedPdu, src, sequenceNumber, ivIndex);
         }
     }
 
     /**
      * Parses access message
      *
-     * @param key                     Network Key used to decrypt
-     * @param data                    Received from the node.
-     * @param networkHeader           De-obfuscated network header.
-     * @param decryptedNetworkPayload Decrypted network payload.
-     * @param src                     Source address.
-     * @param sequenceNumber          Sequence number of the received message.
-     * @param ivIndex                 IV Index used for decryption.
-     * @return access message
+     * @param key            Network Key used to decrypt
+     * @param data           Received from the node.
+     * @param decryptedPdu   Received PDU with a de-obfuscated network header and a decrypted network payload.
+     * @param src            Source address.
+     * @param sequenceNumber Sequence number of the received message.
+     * @param ivIndex        IV Index used for decryption.
+     * @return access message, without an access pdu if the upper transport pdu could not be decrypted
      */
     @VisibleForTesting
     private AccessMessage parseAccessMessage(@NonNull final NetworkKey key,
                                              @NonNull final byte[] data,
-                                             @NonNull final byte[] networkHeader,
-                                             @NonNull final byte[] decryptedNetworkPayload,
+                                             @NonNull final byte[] decryptedPdu,
                                              final int src,
                                              @NonNull final byte[] sequenceNumber,
-                                             int ivIndex) throws ExtendedInvalidCipherTextException {
-        try {
-            int receivedTtl = networkHeader[0] & 0x7F;
-            final int dst = MeshParserUtils.unsignedBytesToInt(decryptedNetworkPayload[1], decryptedNetworkPayload[0]);
-            MeshLogger.verbose(TAG, "Dst: " + MeshAddress.formatAddress(dst, true));
-
-            if (isSegmentedMessage(decryptedNetworkPayload[2])) {
-                MeshLogger.verbose(TAG, "Received a segmented access message from: " + MeshAddress.formatAddress(src, false));
-
-                //Check if the received segmented message is from the same src as the previous segment
-                //Ideal case this check is not needed but let's leave it for now.
-                if (!mMeshNode.hasUnicastAddress(src)) {
-                    MeshLogger.verbose(TAG, "Segment received is from a different src than the one we are processing, let's drop it");
-                    return null;
-                }
+                                             int ivIndex) {
+        int receivedTtl = decryptedPdu[2] & 0x7F;
+        final int dst = MeshParserUtils.unsignedBytesToInt(decryptedPdu[9], decryptedPdu[8]);
+        MeshLogger.verbose(TAG, "Dst: 0x{}", MeshAddress.addressIntToBytes(dst));
 
-                if (segmentedAccessMessagesMessages == null) {
-                    segmentedAccessMessagesMessages = new SparseArray<>();
-                    segmentedAccessMessagesMessages.put(0, data);
-                } else {
-                    final int k = segmentedAccessMessagesMessages.size();
-                    segmentedAccessMessagesMessages.put(k, data);
-                }
-                //Removing the mDst here
-                final byte[] pdu = ByteBuffer.allocate(2 + networkHeader.length + decryptedNetworkPayload.length)
-                        .order(ByteOrder.BIG_ENDIAN)
-                        .put(data, 0, 2)
-                        .put(networkHeader)
-                        .put(decryptedNetworkPayload)
-                        .array();
-
-                // Spec states, section 3.5.2.4 page 77
-                // If the received segments were sent with TTL set to 0, it is recommended that the
-                // corresponding Segment Acknowledgment message is sent with TTL set to 0.
-                final int ttl = receivedTtl == 0 ? receivedTtl : mNetworkLayerCallbacks.getProvisioner().getGlobalTtl();
-                final AccessMessage message = parseSegmentedAccessLowerTransportPDU(ttl, pdu, ivIndex, sequenceNumber);
-
-                if (message != null) {
-                    final SparseArray<byte[]> segmentedMessages = segmentedAccessMessagesMessages.clone();
-                    segmentedAccessMessagesMessages = null;
-                    message.setNetworkKey(key);
-                    message.setIvIndex(MeshParserUtils.intToBytes(ivIndex));
-                    message.setNetworkLayerPdu(segmentedMessages);
-                    message.setTtl(receivedTtl);
-                    message.setSrc(src);
-                    message.setDst(dst);
-                    parseUpperTransportPDU(message);
-                    parseAccessLayerPDU(message);
-                }
-                return message;
-
-            } else {
-
-                //Removing the mDst here
-                final byte[] pdu = ByteBuffer.allocate(2 + networkHeader.length + decryptedNetworkPayload.length)
-                        .order(ByteOrder.BIG_ENDIAN)
-                        .put(data, 0, 2)
-                        .put(networkHeader)
-                        .put(decryptedNetworkPayload)
-                        .array();
-                final AccessMessage message = parseUnsegmentedAccessLowerTransportPDU(pdu, ivIndex, sequenceNumber);
-                if (message == null)
-                    return null;
+        if (isSegmentedMessage(decryptedPdu[10])) {
+            MeshLogger.verbose(TAG, "Received a segmented access message from: {}", MeshAddress.addressIntToBytes(src));
+
+            // Spec states, section 3.5.2.4 page 77
+            // If the received segments were sent with TTL set to 0, it is recommended that the
+            // corresponding Segment Acknowledgment message is sent with TTL set to 0.
+            final int ttl = receivedTtl == 0 ? receivedTtl : mNetworkLayerCallbacks.getProvisioner().getGlobalTtl();
+            final AccessMessage message = parseSegmentedAccessLowerTransportPDU(ttl, decryptedPdu, data, ivIndex, sequenceNumber);
+
+            if (message != null) {
                 message.setNetworkKey(key);
                 message.setIvIndex(MeshParserUtils.intToBytes(ivIndex));
-                final SparseArray<byte[]> pduArray = new SparseArray<>();
-                pduArray.put(0, data);
-                message.setNetworkLayerPdu(pduArray);
                 message.setTtl(receivedTtl);
                 message.setSrc(src);
                 message.setDst(dst);
-                message.setSequenceNumber(sequenceNumber);
-                parseUpperTransportPDU(message);
+                if (parseUpperTransportPDU(message)) {
+                    parseAccessLayerPDU(message);
+                }
+            }
+            return message;
+
+        } else {
+            final AccessMessage message = parseUnsegmentedAccessLowerTransportPDU(decryptedPdu, ivIndex, sequenceNumber);
+            if (message == null)
+                return null;
+            message.setNetworkKey(key);
+            message.setIvIndex(MeshParserUtils.intToBytes(ivIndex));
+            final SparseArray<byte[]> pduArray = new SparseArray<>();
+            pduArray.put(0, data);
+            message.setNetworkLayerPdu(pduArray);
+            message.setTtl(receivedTtl);
+            message.setSrc(src);
+            message.setDst(dst);
+            message.setSequenceNumber(sequenceNumber);
+            if (parseUpperTransportPDU(message)) {
                 parseAccessLayerPDU(message);
-                return message;
             }
-        } catch (InvalidCipherTextException ex) {
-            throw new ExtendedInvalidCipherTextException(ex.getMessage(), ex.getCause(), TAG);
+            return message;
         }
     }
 
     /**
      * Parses control message
      *
-     * @param key                     Network Key used to decrypt
-     * @param provisionerAddress      Provisioner address.
-     * @param data                    Data received from the node.
-     * @param networkHeader           De-obfuscated network header.
-     * @param decryptedNetworkPayload Decrypted network payload.
-     * @param src                     Source address where the pdu originated from.
-     * @param sequenceNumber          Sequence number of the received message.
+     * @param key                Network Key used to decrypt
+     * @param provisionerAddress Provisioner address.
+     * @param data               Data received from the node.
+     * @param decryptedPdu       Received PDU with a de-obfuscated network header and a decrypted network payload.
+     * @param src                Source address where the pdu originated from.
+     * @param sequenceNumber     Sequence number of the received message.
      * @return a complete {@link ControlMessage} or null if the message was unable to parsed
      */
     private ControlMessage parseControlMessage(@NonNull final NetworkKey key,
                                                @Nullable final Integer provisionerAddress,
                                                @NonNull final byte[] data,
-                                               @NonNull final byte[] networkHeader,
-                                               @NonNull final byte[] decryptedNetworkPayload,
+                                               @NonNull final byte[] decryptedPdu,
                                                final int src,
-                                               @NonNull final byte[] sequenceNumber) throws ExtendedInvalidCipherTextException {
-        try {
-            final int ttl = networkHeader[0] & 0x7F;
-            final int dst = MeshParserUtils.unsignedBytesToInt(decryptedNetworkPayload[1], decryptedNetworkPayload[0]);
-
-            //Removing the mDst here
-            final byte[] decryptedProxyPdu = ByteBuffer.allocate(2 + networkHeader.length + decryptedNetworkPayload.length)
-                    .order(ByteOrder.BIG_ENDIAN)
-                    .put(data, 0, 2)
-                    .put(networkHeader)
-                    .put(decryptedNetworkPayload)
-                    .array();
-
-            //We check the pdu type
-            final int pduType = data[0];
-            switch (pduType) {
-                case MeshManagerApi.PDU_TYPE_NETWORK:
+                                               @NonNull final byte[] sequenceNumber) {
+        final int ttl = decryptedPdu[2] & 0x7F;
+        final int dst = MeshParserUtils.unsignedBytesToInt(decryptedPdu[9], decryptedPdu[8]);
 
-                    //This is not possible however let's return null
-                    if (provisionerAddress == null) {
-                        return null;
-                    }
+        //We check the pdu type
+        final int pduType = data[0];
+        switch (pduType) {
+            case MeshManagerApi.PDU_TYPE_NETWORK:
 
-                    //Check if the message is directed to us, if its not ignore the message
-                    if (provisionerAddress != dst) {
-                        MeshLogger.verbose(TAG, "Received a control message that was not directed to us, so we drop it");
-                        return null;
-                    }
+                //This is not possible however let's return null
+                if (provisionerAddress == null) {
+                    return null;
+                }
 
-                    if (isSegmentedMessage(decryptedNetworkPayload[2])) {
-                        return parseSegmentedControlMessage(key, data, decryptedProxyPdu, ttl, src, dst);
-                    } else {
-                        return parseUnsegmentedControlMessage(key, data, decryptedProxyPdu, ttl, src, dst, sequenceNumber);
-                    }
-                case MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION:
-                    //Proxy configuration messages are segmented only at the gatt level
-                    return parseUnsegmentedControlMessage(key, data, decryptedProxyPdu, ttl, src, dst, sequenceNumber);
-                default:
+                //Check if the message is directed to us, if its not ignore the message
+                if (provisionerAddress != dst) {
+                    MeshLogger.verbose(TAG, "Received a control message that was not directed to us, so we drop it");
                     return null;
-            }
-        } catch (InvalidCipherTextException ex) {
-            throw new ExtendedInvalidCipherTextException(ex.getMessage(), ex.getCause(), TAG);
+                }
+
+                if (isSegmentedMessage(decryptedPdu[10])) {
+                    return parseSegmentedControlMessage(key, data, decryptedPdu, ttl, src, dst);
+                } else {
+                    return parseUnsegmentedControlMessage(key, data, decryptedPdu, ttl, src, dst, sequenceNumber);
+                }
+            case MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION:
+                //Proxy configuration messages are segmented only at the gatt level
+                return parseUnsegmentedControlMessage(key, data, decryptedPdu, ttl, src, dst, sequenceNumber);
+            default:
+                return null;
         }
     }
 
     /**
      * Parses an unsegmented control message
      *
-     * @param key               Network Key used to decrypt
-     * @param data              Received pdu data
-     * @param decryptedProxyPdu Decrypted proxy pdu
-     * @param ttl               TTL of the pdu
-     * @param src               Source address where the pdu originated from
-     * @param dst               Destination address to which the pdu was sent
-     * @param sequenceNumber    Sequence number of the pdu
+     * @param key            Network Key used to decrypt
+     * @param data           Received pdu data
+     * @param decryptedPdu   Decrypted pdu
+     * @param ttl            TTL of the pdu
+     * @param src            Source address where the pdu originated from
+     * @param dst            Destination address to which the pdu was sent
+     * @param sequenceNumber Sequence number of the pdu
      * @return a complete {@link ControlMessage} or null if the message was unable to parsed
      */
     private ControlMessage parseUnsegmentedControlMessage(@NonNull final NetworkKey key,
                                                           @NonNull final byte[] data,
-                                                          @NonNull final byte[] decryptedProxyPdu,
+                                                          @NonNull final byte[] decryptedPdu,
                                                           final int ttl,
                                                           final int src,
                                                           final int dst,
-                                                          @NonNull final byte[] sequenceNumber) throws ExtendedInvalidCipherTextException {
+                                                          @NonNull final byte[] sequenceNumber) {
         final ControlMessage message = new ControlMessage();
         message.setNetworkKey(key);
         message.setIvIndex(mUpperTransportLayerCallbacks.getIvIndex());
@@ -455,7 +399,7 @@ abstract class NetworkLayer extends LowerTransportLayer {
         message.setDst(dst);
         message.setSequenceNumber(sequenceNumber);
         message.setSegmented(false);
-        parseUnsegmentedControlLowerTransportPDU(message, decryptedProxyPdu);
+        parseUnsegmentedControlLowerTransportPDU(message, decryptedPdu);
 
         return message;
     }
@@ -463,30 +407,19 @@ abstract class NetworkLayer extends LowerTransportLayer {
     /**
      * Parses a unsegmented control message
      *
-     * @param key               Network Key used to decrypt
-     * @param data              Received pdu data
-     * @param decryptedProxyPdu Decrypted proxy pdu
-     * @param ttl               TTL of the pdu
-     * @param src               Source address where the pdu originated from
-     * @param dst               Destination address to which the pdu was sent
+     * @param key          Network Key used to decrypt
+     * @param data         Received pdu data
+     * @param decryptedPdu Decrypted pdu
+     * @param ttl          TTL of the pdu
+     * @param src          Source address where the pdu originated from
+     * @param dst          Destination address to which the pdu was sent
      * @return a complete {@link ControlMessage} or null if the message was unable to parsed
      */
-    private ControlMessage parseSegmentedControlMessage(@NonNull final NetworkKey key, @NonNull final byte[] data, @NonNull final byte[] decryptedProxyPdu, final int ttl, final int src, final int dst) {
-        if (segmentedControlMessagesMessages == null) {
-            segmentedControlMessagesMessages = new SparseArray<>();
-            segmentedControlMessagesMessages.put(0, data);
-        } else {
-            final int k = segmentedControlMessagesMessages.size();
-            segmentedAccessMessagesMessages.put(k, data);
-        }
-
-        final ControlMessage message = parseSegmentedControlLowerTransportPDU(decryptedProxyPdu);
+    private ControlMessage parseSegmentedControlMessage(@NonNull final NetworkKey key, @NonNull final byte[] data, @NonNull final byte[] decryptedPdu, final int ttl, final int src, final int dst) {
+        final ControlMessage message = parseSegmentedControlLowerTransportPDU(decryptedPdu, data);
         if (message != null) {
-            final SparseArray<byte[]> segmentedMessages = segmentedControlMessagesMessages.clone();
-            segmentedControlMessagesMessages = null;
             message.setNetworkKey(key);
             message.setIvIndex(mUpperTransportLayerCallbacks.getIvIndex());
-            message.setNetworkLayerPdu(segmentedMessages);
             message.setTtl(ttl);
             message.setSrc(src);
             message.setDst(dst);
@@ -546,7 +479,7 @@ abstract class NetworkLayer extends LowerTransportLayer {
      */
     static byte[] deObfuscateNetworkHeader(@NonNull final byte[] pdu,
                                            @NonNull final byte[] ivIndex,
-                                           @NonNull final byte[] privacyKey) {
+                                           @NonNull final MeshCipher privacyCipher) {
         final ByteBuffer obfuscatedNetworkBuffer = ByteBuffer.allocate(6);
         obfuscatedNetworkBuffer.order(ByteOrder.BIG_ENDIAN);
         obfuscatedNetworkBuffer.put(pdu, 2, 6);
@@ -557,7 +490,7 @@ abstract class NetworkLayer extends LowerTransportLayer {
         privacyRandomBuffer.put(pdu, 8, 7);
         final byte[] privacyRandom = createPrivacyRandom(privacyRandomBuffer.array());
 
-        final byte[] pecb = createPECB(ivIndex, privacyRandom, privacyKey);
+        final byte[] pecb = createPECB(ivIndex, privacyRandom, privacyCipher);
         final byte[] deObfuscatedData = new byte[6];
 
         for (int i = 0; i < 6; i++)
@@ -578,14 +511,14 @@ abstract class NetworkLayer extends LowerTransportLayer {
         return privacyRandom;
     }
 
-    private static byte[] createPECB(@NonNull final byte[] ivIndex, @NonNull final byte[] privacyRandom, @NonNull final byte[] privacyKey) {
+    private static byte[] createPECB(@NonNull final byte[] ivIndex, @NonNull final byte[] privacyRandom, @NonNull final MeshCipher privacyCipher) {
         final ByteBuffer buffer = ByteBuffer.allocate(5 + privacyRandom.length + ivIndex.length);
         buffer.order(ByteOrder.BIG_ENDIAN);
         buffer.put(new byte[]{0x00, 0x00, 0x00, 0x00, 0x00});
         buffer.put(ivIndex);
         buffer.put(privacyRandom);
         final byte[] temp = buffer.array();
-        return SecureUtils.encryptWithAES(temp, privacyKey);
+        return privacyCipher.encrypt(temp);
     }
 
     /**
@@ -629,13 +562,13 @@ abstract class NetworkLayer extends LowerTransportLayer {
      * Encrypts the pdu
      *
      * @param lowerTransportPdu lower transport pdu to be encrypted
-     * @param encryptionKey     Encryption key
+     * @param encryptionCipher  Cipher context of the encryption key
      * @param nonce             nonce depending on the pdu type
      * @param dst               Destination address
      * @param micLength         Message integrity check length
      */
     private byte[] encryptPdu(@NonNull final byte[] lowerTransportPdu,
-                              @NonNull final byte[] encryptionKey,
+                              @NonNull final MeshCipher encryptionCipher,
                               @NonNull final byte[] nonce,
                               final int dst,
                               final int micLength) {
@@ -644,6 +577,6 @@ abstract class NetworkLayer extends LowerTransportLayer {
                 .putShort((short) dst)
                 .put(lowerTransportPdu).array();
         //Network layer encryption
-        return SecureUtils.encryptCCM(unencryptedNetworkPayload, encryptionKey, nonce, micLength);
+        return encryptionCipher.encryptCCM(unencryptedNetworkPayload, nonce, null, micLength);
     }
 }
@@ -0,0 +1,220 @@
+package no.nordicsemi.android.mesh.transport;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Network message cache as described in the Mesh Profile specification.
+ * <p>
+ * The same network pdu is usually received several times, relayed by different nodes or delivered by more than one bearer.
+ * The cache remembers the obfuscated network header and the NetMIC of the most recently received pdus, so that copies can be
+ * dropped before the network header is de-obfuscated and the pdu is decrypted.
+ * </p>
+ * <p>
+ * Entries are stored in an open addressing hash table backed by primitive arrays, which are allocated only when the capacity
+ * is changed. When the cache is full the oldest entry is evicted.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class NetworkMessageCache {
+
+    static final int DEFAULT_CAPACITY = 256;
+    // Pdu type, IVI/NID, obfuscated network header, destination address, transport pdu and a 32-bit NetMIC
+    private static final int MIN_PDU_LENGTH = 1 + 1 + 6 + 2 + 1 + 4;
+
+    private int capacity;
+    private int mask;
+    private long[] headers;
+    private int[] mics;
+    private boolean[] occupied;
+    // Entries in insertion order, used to evict the oldest entry
+    private long[] fifoHeaders;
+    private int[] fifoMics;
+    private int fifoStart;
+    private int size;
+    private long hits;
+    private long misses;
+
+    NetworkMessageCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    NetworkMessageCache(final int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Sets the number of pdus remembered by the cache. Cached entries are cleared.
+     *
+     * @param capacity Number of pdus, 0 disables the cache
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    synchronized void setCapacity(final int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Network message cache capacity must not be negative");
+        this.capacity = capacity;
+        // The table is kept at most half full to keep the probe sequences short
+        int tableSize = 1;
+        while (tableSize < capacity * 2) {
+            tableSize <<= 1;
+        }
+        mask = tableSize - 1;
+        headers = new long[tableSize];
+        mics = new int[tableSize];
+        occupied = new boolean[tableSize];
+        fifoHeaders = new long[capacity];
+        fifoMics = new int[capacity];
+        fifoStart = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of pdus remembered by the cache.
+     */
+    synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of cached pdus.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of received pdus that were found in the cache.
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of received pdus that were not found in the cache.
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes all cached pdus. The hit and miss counters are not reset.
+     */
+    synchronized void clear() {
+        for (int i = 0; i < occupied.length; i++) {
+            occupied[i] = false;
+        }
+        fifoStart = 0;
+        size = 0;
+    }
+
+    /**
+     * Checks if the given network pdu has already been received and counts the result as a hit or a miss.
+     *
+     * @param pdu Network or proxy configuration pdu including the pdu type
+     * @return true if the pdu is in the cache and should be dropped
+     */
+    synchronized boolean contains(@NonNull final byte[] pdu) {
+        if (capacity == 0 || pdu.length < MIN_PDU_LENGTH)
+            return false;
+        final long header = getHeader(pdu);
+        final int mic = getMic(pdu);
+        if (find(header, mic) >= 0) {
+            hits++;
+            return true;
+        }
+        misses++;
+        return false;
+    }
+
+    /**
+     * Adds a network pdu to the cache, evicting the oldest entry if the cache is full.
+     * <p>
+     * Only pdus that have been successfully decrypted should be added, so that invalid pdus cannot evict valid entries.
+     * </p>
+     *
+     * @param pdu Network or proxy configuration pdu including the pdu type
+     */
+    synchronized void add(@NonNull final byte[] pdu) {
+        if (capacity == 0 || pdu.length < MIN_PDU_LENGTH)
+            return;
+        final long header = getHeader(pdu);
+        final int mic = getMic(pdu);
+        if (find(header, mic) >= 0)
+            return;
+        if (size == capacity) {
+            remove(find(fifoHeaders[fifoStart], fifoMics[fifoStart]));
+            fifoStart = (fifoStart + 1) % capacity;
+            size--;
+        }
+        final int end = (fifoStart + size) % capacity;
+        fifoHeaders[end] = header;
+        fifoMics[end] = mic;
+        size++;
+
+        int slot = index(header, mic);
+        while (occupied[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        headers[slot] = header;
+        mics[slot] = mic;
+        occupied[slot] = true;
+    }
+
+    private int find(final long header, final int mic) {
+        int slot = index(header, mic);
+        while (occupied[slot]) {
+            if (headers[slot] == header && mics[slot] == mic)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry at the given slot, moving back the following entries of the probe sequence so that no tombstones are needed.
+     */
+    private void remove(int slot) {
+        occupied[slot] = false;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (!occupied[next])
+                return;
+            final int home = index(headers[next], mics[next]);
+            // The entry stays if its home slot lies cyclically within (slot, next]
+            final boolean stays = slot <= next ? (slot < home && home <= next) : (slot < home || home <= next);
+            if (!stays) {
+                headers[slot] = headers[next];
+                mics[slot] = mics[next];
+                occupied[slot] = true;
+                occupied[next] = false;
+                slot = next;
+            }
+        }
+    }
+
+    private int index(final long header, final int mic) {
+        long hash = (header ^ (mic & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L) * 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 32;
+        return (int) hash & mask;
+    }
+
+    /**
+     * Returns the pdu type, IVI, NID and the obfuscated network header.
+     */
+    private static long getHeader(@NonNull final byte[] pdu) {
+        long header = 0;
+        for (int i = 0; i < 8; i++) {
+            header = (header << 8) | (pdu[i] & 0xFF);
+        }
+        return header;
+    }
+
+    /**
+     * Returns the last 32 bits of the NetMIC, which is 32 bits long for access messages and 64 bits for control messages.
+     */
+    private static int getMic(@NonNull final byte[] pdu) {
+        final int offset = pdu.length - 4;
+        return ((pdu[offset] & 0xFF) << 24) | ((pdu[offset + 1] & 0xFF) << 16) | ((pdu[offset + 2] & 0xFF) << 8) | (pdu[offset + 3] & 0xFF);
+    }
+}
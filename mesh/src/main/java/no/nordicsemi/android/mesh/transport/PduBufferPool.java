@@ -0,0 +1,81 @@
+package no.nordicsemi.android.mesh.transport;
+
+import java.util.ArrayDeque;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Small pool of byte arrays used as scratch buffers while parsing received pdus.
+ * <p>
+ * The segments of a segmented message have to be joined before the upper transport pdu can be decrypted, but the joined pdu
+ * is no longer needed once it has been decrypted. Borrowing the buffer from a pool avoids allocating up to
+ * {@link #MAX_UPPER_TRANSPORT_PDU_LENGTH} bytes for every segmented message received.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class PduBufferPool {
+
+    // 32 segments carrying 12 bytes of a segmented access message each
+    static final int MAX_UPPER_TRANSPORT_PDU_LENGTH = 32 * 12;
+    static final int DEFAULT_MAX_BUFFERS = 2;
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final ArrayDeque<byte[]> buffers;
+
+    PduBufferPool() {
+        this(MAX_UPPER_TRANSPORT_PDU_LENGTH, DEFAULT_MAX_BUFFERS);
+    }
+
+    /**
+     * Constructs a buffer pool.
+     *
+     * @param bufferSize Size of the pooled buffers
+     * @param maxBuffers Maximum number of buffers kept in the pool
+     * @throws IllegalArgumentException if the buffer size is not positive or the maximum number of buffers is negative
+     */
+    PduBufferPool(final int bufferSize, final int maxBuffers) {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive");
+        if (maxBuffers < 0)
+            throw new IllegalArgumentException("Maximum number of buffers must not be negative");
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.buffers = new ArrayDeque<>(maxBuffers);
+    }
+
+    /**
+     * Returns a buffer of at least the given length. The content of the buffer is undefined.
+     * <p>
+     * Buffers larger than the pooled buffer size are allocated and are not pooled when released.
+     * </p>
+     *
+     * @param length Minimum length of the buffer
+     */
+    @NonNull
+    synchronized byte[] acquire(final int length) {
+        if (length > bufferSize)
+            return new byte[length];
+        final byte[] buffer = buffers.poll();
+        return buffer == null ? new byte[bufferSize] : buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used after it has been released.
+     *
+     * @param buffer Buffer obtained from {@link #acquire(int)}
+     */
+    synchronized void release(@NonNull final byte[] buffer) {
+        if (buffer.length == bufferSize && buffers.size() < maxBuffers) {
+            buffers.push(buffer);
+        }
+    }
+
+    /**
+     * Returns the number of buffers currently available in the pool.
+     */
+    synchronized int getAvailableCount() {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,126 @@
+package no.nordicsemi.android.mesh.transport;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Read only view of a range of a byte array.
+ * <p>
+ * Received pdus are decrypted once by the network layer, after which the lower and upper transport layers only need to skip
+ * their headers. Passing slices of the decrypted network pdu between the layers, instead of copying the remaining bytes into a new
+ * array on every layer, leaves the final access or transport control pdu as the only copy.
+ * </p>
+ * <p>
+ * A slice does not copy the array it is created from, so the array must not be modified while the slice is in use.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class PduSlice {
+
+    private final byte[] array;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Constructs a slice of the given array.
+     *
+     * @param array  Array
+     * @param offset Offset of the first byte of the slice
+     * @param length Number of bytes in the slice
+     * @throws IllegalArgumentException if the range is not within the array
+     */
+    PduSlice(@NonNull final byte[] array, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset + length > array.length)
+            throw new IllegalArgumentException("Slice [" + offset + ", " + (offset + length) + ") is out of bounds of an array of length " + array.length);
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns a slice of the whole array.
+     *
+     * @param array Array
+     */
+    @NonNull
+    static PduSlice wrap(@NonNull final byte[] array) {
+        return new PduSlice(array, 0, array.length);
+    }
+
+    /**
+     * Returns the array backing the slice.
+     */
+    @NonNull
+    byte[] array() {
+        return array;
+    }
+
+    /**
+     * Returns the offset of the slice in the backing array.
+     */
+    int offset() {
+        return offset;
+    }
+
+    /**
+     * Returns the number of bytes in the slice.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Returns the byte at the given index of the slice.
+     *
+     * @param index Index relative to the start of the slice
+     */
+    byte get(final int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds of a slice of length " + length);
+        return array[offset + index];
+    }
+
+    /**
+     * Returns a slice starting at the given index of this slice and ending where this slice ends.
+     *
+     * @param from Index relative to the start of this slice
+     */
+    @NonNull
+    PduSlice slice(final int from) {
+        return slice(from, length - from);
+    }
+
+    /**
+     * Returns a slice of this slice sharing the same backing array.
+     *
+     * @param from   Index relative to the start of this slice
+     * @param length Number of bytes in the new slice
+     * @throws IllegalArgumentException if the range is not within this slice
+     */
+    @NonNull
+    PduSlice slice(final int from, final int length) {
+        if (from < 0 || length < 0 || from + length > this.length)
+            throw new IllegalArgumentException("Slice [" + from + ", " + (from + length) + ") is out of bounds of a slice of length " + this.length);
+        return new PduSlice(array, offset + from, length);
+    }
+
+    /**
+     * Copies the bytes of the slice into the given array.
+     *
+     * @param destination       Destination array
+     * @param destinationOffset Offset in the destination array
+     */
+    void copyTo(@NonNull final byte[] destination, final int destinationOffset) {
+        System.arraycopy(array, offset, destination, destinationOffset, length);
+    }
+
+    /**
+     * Returns a copy of the bytes of the slice.
+     */
+    @NonNull
+    byte[] toByteArray() {
+        final byte[] bytes = new byte[length];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+}
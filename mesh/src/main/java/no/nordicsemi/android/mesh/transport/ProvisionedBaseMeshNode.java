@@ -31,7 +31,6 @@ import com.google.gson.annotations.SerializedName;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -49,9 +48,9 @@ import no.nordicsemi.android.mesh.MeshNetwork;
 import no.nordicsemi.android.mesh.MeshTypeConverters;
 import no.nordicsemi.android.mesh.NodeKey;
 import no.nordicsemi.android.mesh.SecureNetworkBeacon;
+import no.nordicsemi.android.mesh.utils.IntKeyArrayMap;
 import no.nordicsemi.android.mesh.utils.NetworkTransmitSettings;
 import no.nordicsemi.android.mesh.utils.RelaySettings;
-import no.nordicsemi.android.mesh.utils.SparseIntArrayParcelable;
 
 @SuppressWarnings({"WeakerAccess"})
 abstract class ProvisionedBaseMeshNode implements Parcelable {
@@ -128,8 +127,7 @@ abstract class ProvisionedBaseMeshNode implements Parcelable {
     @Expose
     Features nodeFeatures = null;
     @Ignore
-    @Expose
-    SparseIntArrayParcelable mSeqAuth = new SparseIntArrayParcelable();
+    transient ReplayProtectionList replayProtectionList;
     @TypeConverters(MeshTypeConverters.class)
     @SerializedName("netKeys")
     @ColumnInfo(name = "netKeys")
@@ -146,7 +144,7 @@ abstract class ProvisionedBaseMeshNode implements Parcelable {
     @ColumnInfo(name = "elements")
     @TypeConverters(MeshTypeConverters.class)
     @Expose
-    Map<Integer, Element> mElements = new LinkedHashMap<>();
+    Map<Integer, Element> mElements = new IntKeyArrayMap<>();
     @ColumnInfo(name = "excluded")
     boolean excluded = false;
     @Ignore
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Set;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.room.Entity;
@@ -48,11 +49,11 @@ import no.nordicsemi.android.mesh.Provisioner;
 import no.nordicsemi.android.mesh.models.ConfigurationServerModel;
 import no.nordicsemi.android.mesh.models.SigModelParser;
 import no.nordicsemi.android.mesh.provisionerstates.UnprovisionedMeshNode;
+import no.nordicsemi.android.mesh.utils.IntKeyArrayMap;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
 import no.nordicsemi.android.mesh.utils.NetworkTransmitSettings;
 import no.nordicsemi.android.mesh.utils.RelaySettings;
 import no.nordicsemi.android.mesh.utils.SecureUtils;
-import no.nordicsemi.android.mesh.utils.SparseIntArrayParcelable;
 
 import static androidx.room.ForeignKey.CASCADE;
 
@@ -139,9 +140,7 @@ public final class ProvisionedMeshNode extends ProvisionedBaseMeshNode {
         final HashMap<Integer, MeshModel> models = new HashMap<>();
         models.put(model.getModelId(), model);
         final Element element = new Element(unicastAddress, 0, models);
-        final HashMap<Integer, Element> elements = new HashMap<>();
-        elements.put(unicastAddress, element);
-        mElements = elements;
+        mElements.put(unicastAddress, element);
         nodeFeatures = new Features(Features.UNSUPPORTED, Features.UNSUPPORTED, Features.UNSUPPORTED, Features.UNSUPPORTED);
     }
 
@@ -166,7 +165,6 @@ public final class ProvisionedMeshNode extends ProvisionedBaseMeshNode {
         sortElements(mElements);
         in.readList(mAddedAppKeys, NodeKey.class.getClassLoader());
         mTimeStampInMillis = in.readLong();
-        mSeqAuth = in.readParcelable(SparseIntArrayParcelable.class.getClassLoader());
         secureNetworkBeaconSupported = (Boolean) in.readValue(Boolean.class.getClassLoader());
         networkTransmitSettings = in.readParcelable(NetworkTransmitSettings.class.getClassLoader());
         relaySettings = in.readParcelable(RelaySettings.class.getClassLoader());
@@ -193,7 +191,6 @@ public final class ProvisionedMeshNode extends ProvisionedBaseMeshNode {
         dest.writeMap(mElements);
         dest.writeList(mAddedAppKeys);
         dest.writeLong(mTimeStampInMillis);
-        dest.writeParcelable(mSeqAuth, flags);
         dest.writeValue(secureNetworkBeaconSupported);
         dest.writeParcelable(networkTransmitSettings, flags);
         dest.writeParcelable(relaySettings, flags);
@@ -227,7 +224,7 @@ public final class ProvisionedMeshNode extends ProvisionedBaseMeshNode {
 
     @RestrictTo(RestrictTo.Scope.LIBRARY)
     public void setElements(final Map<Integer, Element> elements) {
-        mElements = elements;
+        mElements = new IntKeyArrayMap<>(elements);
     }
 
     public byte[] getDeviceKey() {
@@ -559,17 +556,25 @@ public final class ProvisionedMeshNode extends ProvisionedBaseMeshNode {
         }
     }
 
-    @RestrictTo(RestrictTo.Scope.LIBRARY)
-    void setSeqAuth(final int src, final int seqAuth) {
-        mSeqAuth.put(src, seqAuth);
-    }
-
+    /**
+     * Returns the SeqAuth of the last message received from an element of this node.
+     * <p>
+     * The value is truncated to 32 bits and contains only the 8 least significant bits of the IV Index.
+     * </p>
+     *
+     * @param src Unicast address of an element of this node
+     * @return SeqAuth or null if no message was received from the element
+     * @deprecated The replay protection list is no longer stored on the node, use
+     * {@link no.nordicsemi.android.mesh.MeshManagerApi#getSeqAuth(int)} instead.
+     */
+    @Deprecated
+    @Nullable
     public Integer getSeqAuth(final int src) {
-        if (mSeqAuth.size() == 0) {
+        final ReplayProtectionList list = replayProtectionList;
+        if (list == null || !hasUnicastAddress(src))
             return null;
-        }
-
-        return mSeqAuth.get(src);
+        final Long seqAuth = list.get(src);
+        return seqAuth == null ? null : (int) (long) seqAuth;
     }
 
     public boolean isExist(final int modelId) {
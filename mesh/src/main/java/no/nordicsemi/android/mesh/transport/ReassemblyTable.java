@@ -0,0 +1,217 @@
+package no.nordicsemi.android.mesh.transport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Reassembly table for segmented lower transport pdus.
+ * <p>
+ * Each segmented message being received is tracked in its own {@link Entry}, keyed by the source address and the SeqAuth
+ * of the message, so that segments of messages sent at the same time by different nodes, e.g. responses to a message sent to
+ * a group address, do not interfere with each other. Every entry has its own block acknowledgement and timers.
+ * </p>
+ * <p>
+ * The number of entries is bounded. When the table is full the least recently used entry is evicted, and entries that have not
+ * received a segment within the stale timeout are dropped when a new message starts.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class ReassemblyTable {
+
+    static final int DEFAULT_MAX_ENTRIES = 16;
+    private static final int MAX_SEGMENTS = 32;
+
+    private final int maxEntries;
+    private final long staleTimeout;
+    private final EvictionListener listener;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(DEFAULT_MAX_ENTRIES, 0.75f, true);
+
+    /**
+     * Notifies when an entry is removed from the table before it was completed, so that its timers can be cancelled.
+     */
+    interface EvictionListener {
+
+        /**
+         * Invoked when an entry was evicted.
+         *
+         * @param entry Evicted entry
+         */
+        void onEvicted(@NonNull final Entry entry);
+    }
+
+    /**
+     * State of a single segmented message being reassembled.
+     */
+    static final class Entry {
+        final int src;
+        final int dst;
+        final int seqAuth;
+        final int seqZero;
+        final int segN;
+        private final PduSlice[] segments;
+        private final byte[][] networkPdus;
+        private int receivedCount;
+        int blockAck;
+        boolean acknowledgementTimerStarted;
+        boolean blockAckSent;
+        long acknowledgementDeadline;
+        Runnable acknowledgementTimer;
+        Runnable incompleteTimer;
+        long lastActivity;
+
+        Entry(final int src, final int dst, final int seqAuth, final int seqZero, final int segN) {
+            this.src = src;
+            this.dst = dst;
+            this.seqAuth = seqAuth;
+            this.seqZero = seqZero;
+            this.segN = segN;
+            this.segments = new PduSlice[segN + 1];
+            this.networkPdus = new byte[segN + 1][];
+        }
+
+        /**
+         * Stores a received segment.
+         *
+         * @param segO       Segment offset
+         * @param segment    Lower transport pdu of the segment
+         * @param networkPdu Network pdu the segment was received in
+         * @return true if the segment was not received before
+         */
+        boolean putSegment(final int segO, @NonNull final PduSlice segment, @Nullable final byte[] networkPdu) {
+            if (segO > segN || segments[segO] != null)
+                return false;
+            segments[segO] = segment;
+            networkPdus[segO] = networkPdu;
+            receivedCount++;
+            return true;
+        }
+
+        /**
+         * Returns the segment at the given offset or null if it has not been received.
+         */
+        @Nullable
+        PduSlice getSegment(final int segO) {
+            return segments[segO];
+        }
+
+        /**
+         * Returns the network pdu containing the segment at the given offset or null if it has not been received.
+         */
+        @Nullable
+        byte[] getNetworkPdu(final int segO) {
+            return networkPdus[segO];
+        }
+
+        /**
+         * Returns the number of distinct segments received.
+         */
+        int getReceivedCount() {
+            return receivedCount;
+        }
+
+        /**
+         * Returns true if all segments have been received.
+         */
+        boolean isComplete() {
+            return receivedCount == segN + 1;
+        }
+    }
+
+    /**
+     * Constructs the reassembly table
+     *
+     * @param maxEntries   Maximum number of messages reassembled at the same time
+     * @param staleTimeout Time in milliseconds after which an entry that has not received any segments is considered stale
+     * @param listener     {@link EvictionListener}
+     */
+    ReassemblyTable(final int maxEntries, final long staleTimeout, @NonNull final EvictionListener listener) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Maximum number of entries must be greater than 0");
+        this.maxEntries = maxEntries;
+        this.staleTimeout = staleTimeout;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the entry of a message that is being reassembled.
+     *
+     * @param src     Source address of the message
+     * @param seqAuth SeqAuth of the message
+     */
+    @Nullable
+    Entry get(final int src, final int seqAuth) {
+        return entries.get(key(src, seqAuth));
+    }
+
+    /**
+     * Starts reassembling a new message.
+     * <p>
+     * Any other message being reassembled from the same source is discarded as a new SeqAuth cancels the previous message,
+     * as well as stale entries. If the table is full the least recently used entry is evicted.
+     * </p>
+     *
+     * @param src     Source address of the message
+     * @param dst     Destination address of the message
+     * @param seqAuth SeqAuth of the message
+     * @param seqZero SeqZero of the message
+     * @param segN    Last segment number of the message
+     * @param now     Current time in milliseconds
+     * @return the new entry
+     */
+    @NonNull
+    Entry start(final int src, final int dst, final int seqAuth, final int seqZero, final int segN, final long now) {
+        if (segN < 0 || segN >= MAX_SEGMENTS)
+            throw new IllegalArgumentException("Invalid SegN: " + segN);
+        final List<Entry> evicted = new ArrayList<>();
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.src == src || now - entry.lastActivity >= staleTimeout) {
+                iterator.remove();
+                evicted.add(entry);
+            }
+        }
+        while (entries.size() >= maxEntries) {
+            final Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            evicted.add(eldest.next().getValue());
+            eldest.remove();
+        }
+        final Entry entry = new Entry(src, dst, seqAuth, seqZero, segN);
+        entry.lastActivity = now;
+        entries.put(key(src, seqAuth), entry);
+        for (Entry e : evicted) {
+            listener.onEvicted(e);
+        }
+        return entry;
+    }
+
+    /**
+     * Removes an entry once the message has been completed or has timed out.
+     *
+     * @param entry Entry to be removed
+     */
+    void remove(@NonNull final Entry entry) {
+        final Long key = key(entry.src, entry.seqAuth);
+        if (entries.get(key) == entry) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Returns the number of messages being reassembled.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private static long key(final int src, final int seqAuth) {
+        return ((long) (src & 0xFFFF) << 32) | (seqAuth & 0xFFFFFFFFL);
+    }
+}
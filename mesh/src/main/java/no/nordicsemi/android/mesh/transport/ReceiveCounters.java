@@ -0,0 +1,60 @@
+package no.nordicsemi.android.mesh.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Counters of the received pdus dropped by the layers of the mesh transports of a message handler.
+ * <p>
+ * The counters are incremented on the thread parsing the received pdus and may be read from any thread.
+ * </p>
+ */
+final class ReceiveCounters {
+
+    private final AtomicLong unknownNid = new AtomicLong();
+    private final AtomicLong unknownSource = new AtomicLong();
+    private final AtomicLong networkMicFailures = new AtomicLong();
+    private final AtomicLong replayRejects = new AtomicLong();
+    private final AtomicLong transportMicFailures = new AtomicLong();
+
+    void onUnknownNid() {
+        unknownNid.incrementAndGet();
+    }
+
+    void onUnknownSource() {
+        unknownSource.incrementAndGet();
+    }
+
+    void onNetworkMicFailure() {
+        networkMicFailures.incrementAndGet();
+    }
+
+    void onReplayRejected() {
+        replayRejects.incrementAndGet();
+    }
+
+    void onTransportMicFailure() {
+        transportMicFailures.incrementAndGet();
+    }
+
+    /**
+     * Returns a snapshot of the counters.
+     */
+    @NonNull
+    ReceiveStatistics getStatistics() {
+        return new ReceiveStatistics(unknownNid.get(), unknownSource.get(), networkMicFailures.get(),
+                replayRejects.get(), transportMicFailures.get());
+    }
+
+    /**
+     * Resets all counters to 0.
+     */
+    void reset() {
+        unknownNid.set(0);
+        unknownSource.set(0);
+        networkMicFailures.set(0);
+        replayRejects.set(0);
+        transportMicFailures.set(0);
+    }
+}
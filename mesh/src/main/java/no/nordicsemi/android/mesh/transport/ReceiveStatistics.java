@@ -0,0 +1,80 @@
+package no.nordicsemi.android.mesh.transport;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Snapshot of the counters of the received mesh pdus that were dropped by the network, lower transport and upper transport layers.
+ * <p>
+ * Pdus of neighbouring networks relayed by a proxy node are expected to be dropped, so these counters are kept instead of
+ * reporting every failure through exceptions or callbacks.
+ * </p>
+ */
+@SuppressWarnings("unused")
+public final class ReceiveStatistics {
+
+    private final long unknownNidCount;
+    private final long unknownSourceCount;
+    private final long networkMicFailureCount;
+    private final long replayRejectCount;
+    private final long transportMicFailureCount;
+
+    ReceiveStatistics(final long unknownNidCount,
+                      final long unknownSourceCount,
+                      final long networkMicFailureCount,
+                      final long replayRejectCount,
+                      final long transportMicFailureCount) {
+        this.unknownNidCount = unknownNidCount;
+        this.unknownSourceCount = unknownSourceCount;
+        this.networkMicFailureCount = networkMicFailureCount;
+        this.replayRejectCount = replayRejectCount;
+        this.transportMicFailureCount = transportMicFailureCount;
+    }
+
+    /**
+     * Returns the number of network pdus dropped by the network layer as no network key matches their NID.
+     */
+    public long getUnknownNidCount() {
+        return unknownNidCount;
+    }
+
+    /**
+     * Returns the number of network pdus dropped by the network layer as their source address is not a node of the network.
+     */
+    public long getUnknownSourceCount() {
+        return unknownSourceCount;
+    }
+
+    /**
+     * Returns the number of network pdus dropped by the network layer as the network message integrity check did not match.
+     */
+    public long getNetworkMicFailureCount() {
+        return networkMicFailureCount;
+    }
+
+    /**
+     * Returns the number of access pdus dropped by the lower transport layer as their sequence number was already received from the source.
+     */
+    public long getReplayRejectCount() {
+        return replayRejectCount;
+    }
+
+    /**
+     * Returns the number of access messages dropped by the upper transport layer as the transport message integrity check
+     * did not match any device or application key.
+     */
+    public long getTransportMicFailureCount() {
+        return transportMicFailureCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ReceiveStatistics{" +
+                "unknownNidCount=" + unknownNidCount +
+                ", unknownSourceCount=" + unknownSourceCount +
+                ", networkMicFailureCount=" + networkMicFailureCount +
+                ", replayRejectCount=" + replayRejectCount +
+                ", transportMicFailureCount=" + transportMicFailureCount +
+                '}';
+    }
+}
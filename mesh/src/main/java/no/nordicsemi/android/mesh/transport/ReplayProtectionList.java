@@ -0,0 +1,297 @@
+package no.nordicsemi.android.mesh.transport;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Replay protection list containing the SeqAuth of the last message received from each source address.
+ * <p>
+ * The SeqAuth is the 56-bit value made of the 32-bit IV Index and the 24-bit sequence number of a message, see
+ * {@link #seqAuth(int, int)}.
+ * </p>
+ * <p>
+ * The entries are kept in primitive arrays sorted by source address, so that a replay check is a binary search over an
+ * int array instead of a lookup in a map of boxed values. The number of sources is bounded, when the list is full the
+ * {@link EvictionPolicy} decides whether a new source is rejected, which is the default, or replaces the least recently
+ * updated one.
+ * </p>
+ * <p>
+ * If a {@link ReplayProtectionLog} is attached, every update is appended to the log, so that persisting the SeqAuth of a
+ * single source does not require the mesh network to be written.
+ * </p>
+ */
+public final class ReplayProtectionList {
+
+    /**
+     * Default maximum number of source addresses in the list.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int INITIAL_SIZE = 16;
+
+    /**
+     * Behaviour of the replay protection list when a message is received from a new source while the list is full.
+     */
+    public enum EvictionPolicy {
+        /**
+         * The entry of the source that has not sent a message for the longest time is removed to make room for the new source.
+         * <p>
+         * The SeqAuth of the evicted source is lost, so messages that were already received from it are accepted again if
+         * they are replayed. Use only if replayed messages are harmless or if the list is large enough for all sources.
+         * </p>
+         */
+        EVICT_LEAST_RECENTLY_UPDATED,
+        /**
+         * Messages from new sources are rejected until entries are removed, as recommended by the Mesh Protocol specification.
+         * This is the default.
+         */
+        REJECT_NEW_SOURCES
+    }
+
+    private int[] addresses = new int[INITIAL_SIZE];
+    private long[] seqAuths = new long[INITIAL_SIZE];
+    private long[] updates = new long[INITIAL_SIZE];
+    private int size;
+    private long updateCounter;
+    private int capacity = DEFAULT_CAPACITY;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.REJECT_NEW_SOURCES;
+    private ReplayProtectionLog log;
+
+    /**
+     * Returns the SeqAuth of a message.
+     *
+     * @param ivIndex        IV Index of the message
+     * @param sequenceNumber 24-bit sequence number of the message, or of the first segment of a segmented message
+     */
+    static long seqAuth(final int ivIndex, final int sequenceNumber) {
+        return (ivIndex & 0xFFFFFFFFL) << 24 | (sequenceNumber & 0xFFFFFF);
+    }
+
+    /**
+     * Returns the SeqAuth of the last message received from the given source.
+     *
+     * @param src Source address
+     * @return SeqAuth or null if no message was received from the source
+     */
+    @Nullable
+    synchronized Long get(final int src) {
+        final int index = Arrays.binarySearch(addresses, 0, size, src);
+        return index < 0 ? null : seqAuths[index];
+    }
+
+    /**
+     * Returns true if a message with the given SeqAuth from the given source is not a replayed message.
+     * <p>
+     * A message is accepted if its SeqAuth is greater than the last SeqAuth received from the source. Messages from new
+     * sources are rejected if the list is full and the eviction policy is {@link EvictionPolicy#REJECT_NEW_SOURCES}.
+     * </p>
+     *
+     * @param src     Source address
+     * @param seqAuth SeqAuth of the received message
+     */
+    synchronized boolean isValid(final int src, final long seqAuth) {
+        final int index = Arrays.binarySearch(addresses, 0, size, src);
+        if (index >= 0) {
+            return seqAuths[index] < seqAuth;
+        }
+        return size < capacity || evictionPolicy == EvictionPolicy.EVICT_LEAST_RECENTLY_UPDATED;
+    }
+
+    /**
+     * Stores the SeqAuth of the last message received from the given source.
+     *
+     * @param src     Source address
+     * @param seqAuth SeqAuth of the received message
+     * @return false if the source was not added as the list is full, true otherwise
+     */
+    synchronized boolean put(final int src, final long seqAuth) {
+        int index = Arrays.binarySearch(addresses, 0, size, src);
+        if (index < 0) {
+            if (size >= capacity) {
+                if (evictionPolicy == EvictionPolicy.REJECT_NEW_SOURCES)
+                    return false;
+                while (size >= capacity) {
+                    evictLeastRecentlyUpdated();
+                }
+                index = Arrays.binarySearch(addresses, 0, size, src);
+            }
+            index = -(index + 1);
+            insert(index, src);
+        }
+        seqAuths[index] = seqAuth;
+        updates[index] = ++updateCounter;
+        if (log != null) {
+            log.appendPut(src, seqAuth);
+            if (log.shouldCompact(size)) {
+                log.compact(addresses, seqAuths, size);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the entry of the given source.
+     *
+     * @param src Source address
+     */
+    synchronized void remove(final int src) {
+        final int index = Arrays.binarySearch(addresses, 0, size, src);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Removes the entries of messages received with an IV Index other than the current or the previous IV Index.
+     * <p>
+     * Messages are only accepted with the current or the previous IV Index, any other SeqAuth can therefore no longer
+     * be used to detect a replayed message.
+     * </p>
+     *
+     * @param ivIndex Current IV Index of the network
+     * @return number of removed entries
+     */
+    synchronized int prune(final int ivIndex) {
+        final long current = ivIndex & 0xFFFFFFFFL;
+        int removed = 0;
+        int i = 0;
+        while (i < size) {
+            final long entryIvIndex = seqAuths[i] >>> 24;
+            if (entryIvIndex != current && entryIvIndex != current - 1) {
+                removeAt(i);
+                removed++;
+            } else {
+                i++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all entries. The attached log is cleared as well.
+     */
+    synchronized void clear() {
+        size = 0;
+        if (log != null) {
+            log.compact(addresses, seqAuths, 0);
+        }
+    }
+
+    /**
+     * Returns the number of source addresses in the list.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Sets the maximum number of source addresses. If the list contains more entries, the least recently updated are removed.
+     *
+     * @param capacity Maximum number of source addresses
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    synchronized void setCapacity(final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        this.capacity = capacity;
+        while (size > capacity) {
+            evictLeastRecentlyUpdated();
+        }
+    }
+
+    /**
+     * Returns the maximum number of source addresses.
+     */
+    synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the behaviour when a message is received from a new source while the list is full.
+     *
+     * @param evictionPolicy {@link EvictionPolicy}
+     */
+    synchronized void setEvictionPolicy(@NonNull final EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * Returns the behaviour when a message is received from a new source while the list is full.
+     */
+    @NonNull
+    synchronized EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Replaces the entries with the ones stored in the given log and appends all further updates to it.
+     *
+     * @param log {@link ReplayProtectionLog} or null to detach the current log and clear the entries
+     */
+    synchronized void attach(@Nullable final ReplayProtectionLog log) {
+        if (this.log != null) {
+            this.log.close();
+        }
+        this.log = null;
+        size = 0;
+        if (log != null) {
+            log.load(this::restore);
+            while (size > capacity) {
+                evictLeastRecentlyUpdated();
+            }
+            log.compact(addresses, seqAuths, size);
+            this.log = log;
+        }
+    }
+
+    private void restore(final int src, final long seqAuth, final boolean removed) {
+        int index = Arrays.binarySearch(addresses, 0, size, src);
+        if (removed) {
+            if (index >= 0)
+                removeAt(index);
+            return;
+        }
+        if (index < 0) {
+            index = -(index + 1);
+            insert(index, src);
+        }
+        seqAuths[index] = seqAuth;
+        updates[index] = ++updateCounter;
+    }
+
+    private void insert(final int index, final int src) {
+        if (size == addresses.length) {
+            final int length = addresses.length * 2;
+            addresses = Arrays.copyOf(addresses, length);
+            seqAuths = Arrays.copyOf(seqAuths, length);
+            updates = Arrays.copyOf(updates, length);
+        }
+        System.arraycopy(addresses, index, addresses, index + 1, size - index);
+        System.arraycopy(seqAuths, index, seqAuths, index + 1, size - index);
+        System.arraycopy(updates, index, updates, index + 1, size - index);
+        addresses[index] = src;
+        size++;
+    }
+
+    private void removeAt(final int index) {
+        final int src = addresses[index];
+        System.arraycopy(addresses, index + 1, addresses, index, size - index - 1);
+        System.arraycopy(seqAuths, index + 1, seqAuths, index, size - index - 1);
+        System.arraycopy(updates, index + 1, updates, index, size - index - 1);
+        size--;
+        if (log != null) {
+            log.appendRemove(src);
+        }
+    }
+
+    private void evictLeastRecentlyUpdated() {
+        int oldest = 0;
+        for (int i = 1; i < size; i++) {
+            if (updates[i] < updates[oldest]) {
+                oldest = i;
+            }
+        }
+        removeAt(oldest);
+    }
+}
@@ -0,0 +1,220 @@
+package no.nordicsemi.android.mesh.transport;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+
+/**
+ * Append-only log persisting the entries of a {@link ReplayProtectionList}.
+ * <p>
+ * Each update of the list is appended to the log as a record of {@link #RECORD_SIZE} bytes containing the source address
+ * and the 56-bit SeqAuth. Records are buffered and written in a batch after {@link #FLUSH_DELAY_MS} on a single thread, the
+ * same way the mesh network journal writes the network. When the log contains more than {@link #COMPACTION_FACTOR} times as many
+ * records as the list has entries, the log is compacted by writing the current entries to a new file that replaces the log.
+ * </p>
+ * <p>
+ * A partially written record at the end of the log, e.g. after the process was killed, is ignored when the log is loaded.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class ReplayProtectionLog {
+
+    private static final String TAG = ReplayProtectionLog.class.getSimpleName();
+    static final int RECORD_SIZE = 12;
+    static final long FLUSH_DELAY_MS = 1000;
+    static final int COMPACTION_FACTOR = 4;
+    static final int MIN_COMPACTION_RECORDS = 256;
+    private static final int REMOVED_FLAG = 0x80000000;
+    private static final int ADDRESS_MASK = 0xFFFF;
+
+    private final File file;
+    private final ScheduledExecutorService executor;
+    private int[] pendingHeaders = new int[16];
+    private long[] pendingSeqAuths = new long[16];
+    private int pendingSize;
+    private int recordCount;
+    private boolean flushScheduled;
+
+    /**
+     * Receives the records of the log when it is loaded.
+     */
+    interface Reader {
+
+        /**
+         * Invoked for each record in the order the records were appended.
+         *
+         * @param src     Source address
+         * @param seqAuth SeqAuth of the last message received from the source
+         * @param removed True if the entry of the source was removed
+         */
+        void onRecord(final int src, final long seqAuth, final boolean removed);
+    }
+
+    /**
+     * Constructs the log
+     *
+     * @param file     File containing the log
+     * @param executor Single threaded executor on which the records are written
+     */
+    public ReplayProtectionLog(@NonNull final File file, @NonNull final ScheduledExecutorService executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    /**
+     * Reads all records of the log.
+     *
+     * @param reader {@link Reader}
+     */
+    synchronized void load(@NonNull final Reader reader) {
+        recordCount = 0;
+        if (!file.exists())
+            return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                final int header = in.readInt();
+                final long seqAuth = in.readLong();
+                reader.onRecord(header & ADDRESS_MASK, seqAuth, (header & REMOVED_FLAG) != 0);
+                recordCount++;
+            }
+        } catch (EOFException ex) {
+            // End of the log or a partially written record
+        } catch (IOException ex) {
+            MeshLogger.error(TAG, "Unable to read the replay protection list: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Appends the SeqAuth of the last message received from a source.
+     *
+     * @param src     Source address
+     * @param seqAuth SeqAuth
+     */
+    synchronized void appendPut(final int src, final long seqAuth) {
+        append(src & ADDRESS_MASK, seqAuth);
+    }
+
+    /**
+     * Appends the removal of the entry of a source.
+     *
+     * @param src Source address
+     */
+    synchronized void appendRemove(final int src) {
+        append(REMOVED_FLAG | (src & ADDRESS_MASK), 0);
+    }
+
+    /**
+     * Returns true if the log should be compacted as it contains many more records than the given number of entries.
+     *
+     * @param size Number of entries of the list
+     */
+    synchronized boolean shouldCompact(final int size) {
+        final int records = recordCount + pendingSize;
+        return records >= MIN_COMPACTION_RECORDS && records > size * COMPACTION_FACTOR;
+    }
+
+    /**
+     * Replaces the log with the given entries. Pending records are discarded as they are contained in the entries.
+     *
+     * @param addresses Source addresses
+     * @param seqAuths  SeqAuth of each source
+     * @param size      Number of entries
+     */
+    synchronized void compact(@NonNull final int[] addresses, @NonNull final long[] seqAuths, final int size) {
+        final ByteBuffer buffer = ByteBuffer.allocate(size * RECORD_SIZE);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(addresses[i] & ADDRESS_MASK).putLong(seqAuths[i]);
+        }
+        pendingSize = 0;
+        recordCount = size;
+        final byte[] data = buffer.array();
+        executor.execute(() -> replace(data));
+    }
+
+    /**
+     * Writes all pending records and blocks until they have been written.
+     */
+    void flush() throws ExecutionException, InterruptedException {
+        executor.submit(this::flushPending).get();
+    }
+
+    /**
+     * Writes the pending records and blocks until they have been written, no further records are expected to be appended.
+     */
+    void close() {
+        try {
+            flush();
+        } catch (ExecutionException ex) {
+            MeshLogger.error(TAG, "Unable to write the replay protection list: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(final int header, final long seqAuth) {
+        if (pendingSize == pendingHeaders.length) {
+            pendingHeaders = Arrays.copyOf(pendingHeaders, pendingSize * 2);
+            pendingSeqAuths = Arrays.copyOf(pendingSeqAuths, pendingSize * 2);
+        }
+        pendingHeaders[pendingSize] = header;
+        pendingSeqAuths[pendingSize] = seqAuth;
+        pendingSize++;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flushPending, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPending() {
+        final byte[] data;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pendingSize == 0)
+                return;
+            final ByteBuffer buffer = ByteBuffer.allocate(pendingSize * RECORD_SIZE);
+            for (int i = 0; i < pendingSize; i++) {
+                buffer.putInt(pendingHeaders[i]).putLong(pendingSeqAuths[i]);
+            }
+            recordCount += pendingSize;
+            pendingSize = 0;
+            data = buffer.array();
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(data);
+        } catch (IOException ex) {
+            MeshLogger.error(TAG, "Unable to write the replay protection list: " + ex.getMessage());
+        }
+    }
+
+    private void replace(@NonNull final byte[] data) {
+        final File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            MeshLogger.error(TAG, "Unable to create the directory of the replay protection list");
+            return;
+        }
+        final File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+            out.getFD().sync();
+        } catch (IOException ex) {
+            MeshLogger.error(TAG, "Unable to compact the replay protection list: " + ex.getMessage());
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            MeshLogger.error(TAG, "Unable to replace the replay protection list");
+        }
+    }
+}
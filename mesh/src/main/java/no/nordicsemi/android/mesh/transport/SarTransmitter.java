@@ -0,0 +1,318 @@
+package no.nordicsemi.android.mesh.transport;
+
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.MeshScheduler;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.utils.MeshAddress;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
+
+/**
+ * Sends segmented messages according to the SAR Transmitter state defined by the Mesh Protocol specification.
+ * <p>
+ * Segments are paced by the SAR segment interval. Segments of a message to a unicast address are retransmitted when the
+ * SAR unicast retransmissions timer expires or when a segment acknowledgement acknowledges new segments, until all segments
+ * have been acknowledged or the retransmission counters are exhausted. Segments of a message to a group or virtual address
+ * are not acknowledged and are repeated a fixed number of times instead.
+ * </p>
+ * <p>
+ * Only one segmented message is sent to a destination at a time, further messages to the same destination are queued.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class SarTransmitter {
+
+    private static final String TAG = SarTransmitter.class.getSimpleName();
+
+    private final MeshScheduler scheduler;
+    private final Callbacks callbacks;
+    private final Map<Integer, ArrayDeque<Transfer>> transfers = new HashMap<>();
+    private SarTransmitterSettings settings = SarTransmitterSettings.DEFAULT;
+
+    /**
+     * Sends segments and reports failed messages on behalf of the transmitter.
+     */
+    interface Callbacks {
+
+        /**
+         * Invoked when a segment is sent or retransmitted.
+         *
+         * @param dst Destination address
+         * @param pdu Network pdu of the segment
+         */
+        void onSegmentSend(final int dst, @NonNull final byte[] pdu);
+
+        /**
+         * Invoked when a segmented message to a unicast address has not been acknowledged after all retransmissions,
+         * or the receiver has cancelled it.
+         *
+         * @param dst Destination address
+         */
+        void onTransferFailed(final int dst);
+    }
+
+    /**
+     * Segmented message being sent.
+     */
+    private static final class Transfer {
+        final MeshTransport transport;
+        final Message message;
+        final int dst;
+        final int seqZero;
+        final int allSegments;
+        final boolean unicast;
+        int acknowledged;
+        int pending;
+        boolean sending;
+        boolean retransmitting;
+        int retransmissions;
+        int retransmissionsWithoutProgress;
+        Runnable segmentTimer;
+        Runnable retransmissionsTimer;
+
+        Transfer(@NonNull final MeshTransport transport, @NonNull final Message message) {
+            this.transport = transport;
+            this.message = message;
+            this.dst = message.getDst();
+            this.seqZero = getSeqZero(message);
+            final int segmentCount = message.getNetworkLayerPdu().size();
+            this.allSegments = segmentCount >= 32 ? 0xFFFFFFFF : (1 << segmentCount) - 1;
+            this.unicast = MeshAddress.isValidUnicastAddress(dst);
+        }
+    }
+
+    SarTransmitter(@NonNull final MeshScheduler scheduler, @NonNull final Callbacks callbacks) {
+        this.scheduler = scheduler;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Sets the SAR Transmitter state used for messages sent from now on.
+     *
+     * @param settings {@link SarTransmitterSettings}
+     */
+    synchronized void setSettings(@NonNull final SarTransmitterSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Returns the SAR Transmitter state.
+     */
+    @NonNull
+    synchronized SarTransmitterSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Sends the segments of a message, or queues the message if another segmented message is being sent to the same destination.
+     *
+     * @param transport {@link MeshTransport} used to retransmit the segments with new sequence numbers
+     * @param message   Segmented message, containing the network pdus of all segments
+     */
+    synchronized void send(@NonNull final MeshTransport transport, @NonNull final Message message) {
+        final Transfer transfer = new Transfer(transport, message);
+        transfer.segmentTimer = () -> onSegmentTimer(transfer);
+        transfer.retransmissionsTimer = () -> onRetransmissionsTimer(transfer);
+        ArrayDeque<Transfer> queue = transfers.get(transfer.dst);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            transfers.put(transfer.dst, queue);
+        }
+        queue.add(transfer);
+        if (queue.size() == 1) {
+            start(transfer);
+        } else {
+            MeshLogger.verbose(TAG, "Segmented message to 0x{} queued", MeshAddress.addressIntToBytes(transfer.dst));
+        }
+    }
+
+    /**
+     * Processes a segment acknowledgement received from a node.
+     *
+     * @param src      Source address of the acknowledgement
+     * @param seqZero  SeqZero of the acknowledged message
+     * @param blockAck Block acknowledgement, where bit n is set if segment n has been received
+     */
+    void onSegmentAcknowledgement(final int src, final int seqZero, final int blockAck) {
+        synchronized (this) {
+            final Transfer transfer = getActiveTransfer(src);
+            if (transfer == null || !transfer.unicast || transfer.seqZero != seqZero)
+                return;
+            if (blockAck != 0) {
+                final int acknowledged = blockAck & transfer.allSegments;
+                final boolean progress = (acknowledged & ~transfer.acknowledged) != 0;
+                transfer.acknowledged |= acknowledged;
+                if (transfer.acknowledged == transfer.allSegments) {
+                    MeshLogger.verbose(TAG, "All segments acknowledged by {}", src);
+                    finish(transfer);
+                    return;
+                }
+                if (progress) {
+                    transfer.retransmissionsWithoutProgress = settings.getUnicastRetransmissionsWithoutProgressCount();
+                    if (!transfer.sending && transfer.retransmissions > 0) {
+                        scheduler.cancel(transfer.retransmissionsTimer);
+                        transfer.retransmissions--;
+                        startRound(transfer);
+                    }
+                }
+                return;
+            }
+            // A block acknowledgement without any acknowledged segment means the receiver has cancelled the message
+            MeshLogger.warn(TAG, "Segmented message cancelled by " + MeshAddress.formatAddress(src, true));
+            finish(transfer);
+        }
+        callbacks.onTransferFailed(src);
+    }
+
+    /**
+     * Stops sending all messages to the given destination, e.g. after the node has been reset.
+     *
+     * @param dst Destination address
+     */
+    synchronized void clear(final int dst) {
+        final ArrayDeque<Transfer> queue = transfers.remove(dst);
+        if (queue != null) {
+            for (Transfer transfer : queue) {
+                scheduler.cancel(transfer.segmentTimer);
+                scheduler.cancel(transfer.retransmissionsTimer);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of segmented messages being sent or waiting to be sent to the given destination.
+     *
+     * @param dst Destination address
+     */
+    synchronized int getPendingCount(final int dst) {
+        final ArrayDeque<Transfer> queue = transfers.get(dst);
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void start(@NonNull final Transfer transfer) {
+        transfer.retransmissions = transfer.unicast ?
+                settings.getUnicastRetransmissionsCount() : settings.getMulticastRetransmissionsCount();
+        transfer.retransmissionsWithoutProgress = settings.getUnicastRetransmissionsWithoutProgressCount();
+        startRound(transfer);
+    }
+
+    private void startRound(@NonNull final Transfer transfer) {
+        transfer.pending = transfer.allSegments & ~transfer.acknowledged;
+        transfer.sending = true;
+        sendNextSegment(transfer);
+    }
+
+    private void sendNextSegment(@NonNull final Transfer transfer) {
+        // Segments acknowledged in the meantime are skipped
+        transfer.pending &= ~transfer.acknowledged;
+        if (transfer.pending != 0) {
+            final int segO = Integer.numberOfTrailingZeros(transfer.pending);
+            transfer.pending &= ~(1 << segO);
+            final byte[] pdu = getSegment(transfer, segO);
+            if (pdu != null) {
+                callbacks.onSegmentSend(transfer.dst, pdu);
+            }
+            if ((transfer.pending & ~transfer.acknowledged) != 0) {
+                scheduler.schedule(transfer.segmentTimer, settings.getSegmentInterval());
+                return;
+            }
+        }
+        onRoundSent(transfer);
+    }
+
+    @Nullable
+    private byte[] getSegment(@NonNull final Transfer transfer, final int segO) {
+        if (!transfer.retransmitting) {
+            return transfer.message.getNetworkLayerPdu().get(segO);
+        }
+        // Retransmitted segments are sent with a new sequence number, so that they are not dropped as duplicates
+        final Message message = transfer.transport.createRetransmitMeshMessage(transfer.message, segO);
+        if (message == null)
+            return null;
+        MeshLogger.verbose(TAG, "Retransmitting segment {}", segO);
+        return message.getNetworkLayerPdu().get(segO);
+    }
+
+    private void onRoundSent(@NonNull final Transfer transfer) {
+        transfer.sending = false;
+        transfer.retransmitting = true;
+        if (transfer.unicast) {
+            scheduler.schedule(transfer.retransmissionsTimer, settings.getUnicastRetransmissionsInterval(transfer.message.getTtl()));
+        } else if (transfer.retransmissions > 0) {
+            transfer.retransmissions--;
+            scheduler.schedule(transfer.retransmissionsTimer, settings.getMulticastRetransmissionsInterval());
+        } else {
+            finish(transfer);
+        }
+    }
+
+    private synchronized void onSegmentTimer(@NonNull final Transfer transfer) {
+        if (getActiveTransfer(transfer.dst) == transfer) {
+            sendNextSegment(transfer);
+        }
+    }
+
+    private void onRetransmissionsTimer(@NonNull final Transfer transfer) {
+        synchronized (this) {
+            if (getActiveTransfer(transfer.dst) != transfer)
+                return;
+            if (!transfer.unicast) {
+                startRound(transfer);
+                return;
+            }
+            if (transfer.retransmissions > 0 && transfer.retransmissionsWithoutProgress > 0) {
+                transfer.retransmissions--;
+                transfer.retransmissionsWithoutProgress--;
+                startRound(transfer);
+                return;
+            }
+            MeshLogger.warn(TAG, "Segmented message to " + MeshAddress.formatAddress(transfer.dst, true) +
+                    " was not acknowledged");
+            finish(transfer);
+        }
+        callbacks.onTransferFailed(transfer.dst);
+    }
+
+    /**
+     * Removes a completed or failed message and starts sending the next message to the same destination.
+     */
+    private void finish(@NonNull final Transfer transfer) {
+        scheduler.cancel(transfer.segmentTimer);
+        scheduler.cancel(transfer.retransmissionsTimer);
+        final ArrayDeque<Transfer> queue = transfers.get(transfer.dst);
+        if (queue == null)
+            return;
+        queue.remove(transfer);
+        final Transfer next = queue.peek();
+        if (next == null) {
+            transfers.remove(transfer.dst);
+        } else {
+            start(next);
+        }
+    }
+
+    @Nullable
+    private Transfer getActiveTransfer(final int dst) {
+        final ArrayDeque<Transfer> queue = transfers.get(dst);
+        return queue == null ? null : queue.peek();
+    }
+
+    /**
+     * Returns the SeqZero of a segmented message, which is part of the header of every segment.
+     */
+    private static int getSeqZero(@NonNull final Message message) {
+        final byte[] pdu;
+        if (message instanceof AccessMessage) {
+            pdu = ((AccessMessage) message).getLowerTransportAccessPdu().get(0);
+        } else {
+            pdu = ((ControlMessage) message).getLowerTransportControlPdu().get(0);
+        }
+        return ((pdu[1] & 0x7F) << 6) | ((pdu[2] & 0xFC) >> 2);
+    }
+}
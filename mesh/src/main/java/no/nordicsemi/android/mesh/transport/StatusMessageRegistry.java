@@ -0,0 +1,493 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static no.nordicsemi.android.mesh.models.SigModelParser.CONFIGURATION_SERVER;
+import static no.nordicsemi.android.mesh.models.SigModelParser.SAR_CONFIGURATION_SERVER;
+import static no.nordicsemi.android.mesh.models.SigModelParser.SCENE_SERVER;
+import static no.nordicsemi.android.mesh.utils.MeshAddress.isValidUnassignedAddress;
+
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.Features;
+import no.nordicsemi.android.mesh.NetworkKey;
+import no.nordicsemi.android.mesh.models.ConfigurationServerModel;
+import no.nordicsemi.android.mesh.models.SarConfigurationServer;
+import no.nordicsemi.android.mesh.models.SceneServer;
+import no.nordicsemi.android.mesh.opcodes.ApplicationMessageOpCodes;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+import no.nordicsemi.android.mesh.utils.NetworkTransmitSettings;
+import no.nordicsemi.android.mesh.utils.RelaySettings;
+
+/**
+ * Maps the opcodes of received access messages to the status messages they are parsed into.
+ * <p>
+ * The registry contains the status messages of the SIG models supported by the library, together with the changes they make to
+ * the state of the node that sent them. Status messages of other models, such as vendor models, may be registered by the
+ * application, after which they are delivered to {@link no.nordicsemi.android.mesh.MeshStatusCallbacks#onMeshMessageReceived}
+ * instead of being reported as unknown pdus. The application may also register a {@link NodeStateUpdater} to keep the state
+ * of the node in the mesh network in sync with the status messages. The status messages of the SIG models cannot be replaced
+ * or removed.
+ * </p>
+ */
+public final class StatusMessageRegistry {
+
+    /**
+     * Creates a status message from a received access message.
+     *
+     * @param <T> Type of the status message
+     */
+    public interface StatusMessageFactory<T extends MeshMessage> {
+
+        /**
+         * Returns the status message parsed from the given access message.
+         *
+         * @param message Received access message
+         * @param request Message sent to the node that is awaiting a response, if any
+         * @return the status message or null if the access message should be ignored
+         */
+        @Nullable
+        T createStatusMessage(@NonNull final AccessMessage message, @Nullable final MeshMessage request);
+    }
+
+    /**
+     * Updates the state of the node that sent a status message registered by the application.
+     *
+     * @param <T> Type of the status message
+     */
+    public interface NodeStateUpdater<T extends MeshMessage> {
+
+        /**
+         * Invoked on the mesh stack when a status message has been received, before it is delivered to
+         * {@link no.nordicsemi.android.mesh.MeshStatusCallbacks#onMeshMessageReceived}. The mesh network is stored once the
+         * state has been updated.
+         *
+         * @param node    Node that sent the status message
+         * @param request Message sent to the node that is answered by the status message, if any
+         * @param status  Status message
+         */
+        void onStatusReceived(@NonNull final ProvisionedMeshNode node,
+                              @Nullable final MeshMessage request,
+                              @NonNull final T status);
+    }
+
+    /**
+     * Updates the state of the node that sent a status message of a SIG model.
+     *
+     * @param <T> Type of the status message
+     */
+    interface StateUpdater<T extends MeshMessage> {
+
+        void onStatusReceived(@NonNull final DefaultNoOperationMessageState state,
+                              @NonNull final ProvisionedMeshNode node,
+                              @NonNull final AccessMessage message,
+                              @NonNull final T status);
+    }
+
+    static final class Entry {
+        final StatusMessageFactory<?> factory;
+        final StateUpdater<MeshMessage> stateUpdater;
+        final boolean updatesNetwork;
+        final boolean builtIn;
+
+        Entry(@NonNull final StatusMessageFactory<?> factory,
+              @Nullable final StateUpdater<MeshMessage> stateUpdater,
+              final boolean updatesNetwork,
+              final boolean builtIn) {
+            this.factory = factory;
+            this.stateUpdater = stateUpdater;
+            this.updatesNetwork = updatesNetwork;
+            this.builtIn = builtIn;
+        }
+    }
+
+    private final SparseArray<Entry> entries = new SparseArray<>();
+
+    StatusMessageRegistry() {
+        registerConfigurationMessages();
+        registerApplicationMessages();
+    }
+
+    /**
+     * Registers a status message received for the given opcode.
+     *
+     * @param opCode  Opcode of the status message. Vendor opcodes contain the company identifier in the two least significant
+     *                octets in little endian, as received in the access pdu.
+     * @param factory Factory creating the status message
+     * @throws IllegalArgumentException if a status message is already registered for the opcode
+     */
+    public synchronized void register(final int opCode, @NonNull final StatusMessageFactory<?> factory) {
+        if (entries.get(opCode) != null)
+            throw new IllegalArgumentException("A status message is already registered for opcode 0x" + Integer.toHexString(opCode));
+        entries.put(opCode, new Entry(factory, null, false, false));
+    }
+
+    /**
+     * Registers a status message received for the given opcode, together with the changes it makes to the state of the node
+     * that sent it.
+     *
+     * @param opCode       Opcode of the status message. Vendor opcodes contain the company identifier in the two least
+     *                     significant octets in little endian, as received in the access pdu.
+     * @param factory      Factory creating the status message
+     * @param stateUpdater Updates the state of the node that sent the status message
+     * @param <T>          Type of the status message
+     * @throws IllegalArgumentException if a status message is already registered for the opcode
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends MeshMessage> void register(final int opCode,
+                                                              @NonNull final StatusMessageFactory<T> factory,
+                                                              @NonNull final NodeStateUpdater<T> stateUpdater) {
+        if (entries.get(opCode) != null)
+            throw new IllegalArgumentException("A status message is already registered for opcode 0x" + Integer.toHexString(opCode));
+        final StateUpdater<T> updater = (state, node, message, status) -> {
+            if (node != null) {
+                stateUpdater.onStatusReceived(node, state.mMeshMessage, status);
+            }
+        };
+        entries.put(opCode, new Entry(factory, (StateUpdater<MeshMessage>) updater, true, false));
+    }
+
+    /**
+     * Removes a status message registered by the application for the given opcode.
+     *
+     * @param opCode Opcode of the status message
+     * @throws IllegalArgumentException if the opcode is one of the status messages of the SIG models supported by the library
+     */
+    public synchronized void unregister(final int opCode) {
+        final Entry entry = entries.get(opCode);
+        if (entry != null && entry.builtIn)
+            throw new IllegalArgumentException("Status message for opcode 0x" + Integer.toHexString(opCode) + " cannot be removed");
+        entries.remove(opCode);
+    }
+
+    /**
+     * Returns true if a status message is registered for the given opcode.
+     *
+     * @param opCode Opcode of the status message
+     */
+    public synchronized boolean isRegistered(final int opCode) {
+        return entries.get(opCode) != null;
+    }
+
+    @Nullable
+    synchronized Entry get(final int opCode) {
+        return entries.get(opCode);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends MeshMessage> void registerBuiltIn(final int opCode,
+                                                         @NonNull final StatusMessageFactory<T> factory,
+                                                         @Nullable final StateUpdater<T> stateUpdater,
+                                                         final boolean updatesNetwork) {
+        entries.put(opCode, new Entry(factory, (StateUpdater<MeshMessage>) stateUpdater, updatesNetwork, true));
+    }
+
+    private <T extends MeshMessage> void registerBuiltIn(final int opCode,
+                                                         @NonNull final StatusMessageFactory<T> factory,
+                                                         @Nullable final StateUpdater<T> stateUpdater) {
+        registerBuiltIn(opCode, factory, stateUpdater, true);
+    }
+
+    private void registerConfigurationMessages() {
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_STATUS, (message, request) -> new ConfigCompositionDataStatus(message),
+                (StateUpdater<ConfigCompositionDataStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        node.setCompositionData(status);
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_HEARTBEAT_PUBLICATION_STATUS, (message, request) -> new ConfigHeartbeatPublicationStatus(message),
+                (StateUpdater<ConfigHeartbeatPublicationStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        final ConfigurationServerModel model = (ConfigurationServerModel) state.getMeshModel(node, status.getSrc(), CONFIGURATION_SERVER);
+                        if (model != null) {
+                            model.setHeartbeatPublication(!isValidUnassignedAddress(status.getHeartbeatPublication().getDst()) ?
+                                    status.getHeartbeatPublication() : null);
+                        }
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_DEFAULT_TTL_STATUS, (message, request) -> new ConfigDefaultTtlStatus(message),
+                (StateUpdater<ConfigDefaultTtlStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        node.setTtl(status.getTtl());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_NETKEY_STATUS, (message, request) -> new ConfigNetKeyStatus(message),
+                (StateUpdater<ConfigNetKeyStatus>) (state, node, message, status) -> {
+                    if (state.isReceivedViaProxyFilter(message) || !status.isSuccessful())
+                        return;
+                    final MeshMessage request = state.mMeshMessage;
+                    if (request instanceof ConfigNetKeyAdd) {
+                        node.setAddedNetKeyIndex(status.getNetKeyIndex());
+                        // Let's mark any keys added to the node as insecure if the node was provisioned insecurely.
+                        if (!node.isSecurelyProvisioned()) {
+                            final NetworkKey key = state.mInternalTransportCallbacks.getMeshNetwork().getNetKey(status.getNetKeyIndex());
+                            key.markAsInsecure();
+                        }
+                    } else if (request instanceof ConfigNetKeyUpdate) {
+                        node.updateAddedNetKey(status.getNetKeyIndex());
+                    } else if (request instanceof ConfigNetKeyDelete) {
+                        node.removeAddedNetKeyIndex(status.getNetKeyIndex());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_NETKEY_LIST, (message, request) -> new ConfigNetKeyList(message),
+                (StateUpdater<ConfigNetKeyList>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        node.updateNetKeyList(status.getKeyIndexes());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_APPKEY_STATUS, (message, request) -> new ConfigAppKeyStatus(message),
+                (StateUpdater<ConfigAppKeyStatus>) (state, node, message, status) -> {
+                    if (state.isReceivedViaProxyFilter(message) || !status.isSuccessful())
+                        return;
+                    final MeshMessage request = state.mMeshMessage;
+                    if (request instanceof ConfigAppKeyAdd) {
+                        node.setAddedAppKeyIndex(status.getAppKeyIndex());
+                    } else if (request instanceof ConfigAppKeyUpdate) {
+                        node.updateAddedAppKey(status.getAppKeyIndex());
+                    } else if (request instanceof ConfigAppKeyDelete) {
+                        node.removeAddedAppKeyIndex(status.getAppKeyIndex());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_APPKEY_LIST, (message, request) -> new ConfigAppKeyList(message),
+                (StateUpdater<ConfigAppKeyList>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        node.updateAppKeyList(status.getNetKeyIndex(), status.getKeyIndexes(),
+                                state.mInternalTransportCallbacks.getApplicationKeys(status.getNetKeyIndex()));
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_MODEL_APP_STATUS, (message, request) -> new ConfigModelAppStatus(message),
+                (StateUpdater<ConfigModelAppStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        if (state.mMeshMessage instanceof ConfigModelAppBind) {
+                            node.setAppKeyBindStatus(status);
+                        } else {
+                            node.setAppKeyUnbindStatus(status);
+                        }
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_SIG_MODEL_APP_LIST, (message, request) -> new ConfigSigModelAppList(message),
+                (StateUpdater<ConfigSigModelAppList>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        final MeshModel model = state.getMeshModel(node, status.getElementAddress(), status.getModelIdentifier());
+                        if (model != null) {
+                            model.setBoundAppKeyIndexes(status.getKeyIndexes());
+                        }
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_VENDOR_MODEL_APP_LIST, (message, request) -> new ConfigVendorModelAppList(message),
+                (StateUpdater<ConfigVendorModelAppList>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        final MeshModel model = state.getMeshModel(node, status.getElementAddress(), status.getModelIdentifier());
+                        if (model != null) {
+                            model.setBoundAppKeyIndexes(status.getKeyIndexes());
+                        }
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_MODEL_PUBLICATION_STATUS, (message, request) -> new ConfigModelPublicationStatus(message),
+                (StateUpdater<ConfigModelPublicationStatus>) (state, node, message, status) -> {
+                    if (state.isReceivedViaProxyFilter(message) || !status.isSuccessful())
+                        return;
+                    final MeshModel model = state.getMeshModel(node, status.getElementAddress(), status.getModelIdentifier());
+                    if (model != null) {
+                        final MeshMessage request = state.mMeshMessage;
+                        if (request instanceof ConfigModelPublicationGet) {
+                            model.updatePublicationStatus(status);
+                        } else if (request instanceof ConfigModelPublicationSet) {
+                            model.setPublicationStatus(status, null);
+                        } else if (request instanceof ConfigModelPublicationVirtualAddressSet) {
+                            final UUID labelUUID = ((ConfigModelPublicationVirtualAddressSet) request).getLabelUuid();
+                            model.setPublicationStatus(status, labelUUID);
+                        }
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_STATUS, (message, request) -> new ConfigModelSubscriptionStatus(message),
+                (StateUpdater<ConfigModelSubscriptionStatus>) (state, node, message, status) -> {
+                    if (state.isReceivedViaProxyFilter(message) || !status.isSuccessful())
+                        return;
+                    final MeshModel model = state.getMeshModel(node, status.getElementAddress(), status.getModelIdentifier());
+                    if (model != null) {
+                        final MeshMessage request = state.mMeshMessage;
+                        if (request instanceof ConfigModelSubscriptionAdd) {
+                            model.addSubscriptionAddress(status.getSubscriptionAddress());
+                        } else if (request instanceof ConfigModelSubscriptionVirtualAddressAdd) {
+                            model.addSubscriptionAddress(((ConfigModelSubscriptionVirtualAddressAdd) request).
+                                    getLabelUuid(), status.getSubscriptionAddress());
+                        } else if (request instanceof ConfigModelSubscriptionOverwrite) {
+                            model.overwriteSubscriptionAddress(status.getSubscriptionAddress());
+                        } else if (request instanceof ConfigModelSubscriptionVirtualAddressOverwrite) {
+                            model.overwriteSubscriptionAddress(((ConfigModelSubscriptionVirtualAddressOverwrite) request).
+                                    getLabelUuid(), status.getSubscriptionAddress());
+                        } else if (request instanceof ConfigModelSubscriptionDelete) {
+                            model.removeSubscriptionAddress(status.getSubscriptionAddress());
+                        } else if (request instanceof ConfigModelSubscriptionVirtualAddressDelete) {
+                            model.removeSubscriptionAddress(((ConfigModelSubscriptionVirtualAddressDelete) request).
+                                    getLabelUuid(), status.getSubscriptionAddress());
+                        } else if (request instanceof ConfigModelSubscriptionDeleteAll) {
+                            model.removeAllSubscriptionAddresses();
+                        }
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_SIG_MODEL_SUBSCRIPTION_LIST, (message, request) -> new ConfigSigModelSubscriptionList(message),
+                (StateUpdater<ConfigSigModelSubscriptionList>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        final MeshModel model = state.getMeshModel(node, status.getElementAddress(), status.getModelIdentifier());
+                        if (model != null) {
+                            model.updateSubscriptionAddressesList(status.getSubscriptionAddresses());
+                        }
+                        state.createGroups(status.getSubscriptionAddresses());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_VENDOR_MODEL_SUBSCRIPTION_LIST, (message, request) -> new ConfigVendorModelSubscriptionList(message),
+                (StateUpdater<ConfigVendorModelSubscriptionList>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        final MeshModel model = state.getMeshModel(node, status.getElementAddress(), status.getModelIdentifier());
+                        if (model != null) {
+                            model.updateSubscriptionAddressesList(status.getSubscriptionAddresses());
+                        }
+                        state.createGroups(status.getSubscriptionAddresses());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_HEARTBEAT_SUBSCRIPTION_STATUS, (message, request) -> new ConfigHeartbeatSubscriptionStatus(message),
+                (StateUpdater<ConfigHeartbeatSubscriptionStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message) && status.isSuccessful()) {
+                        final MeshModel model = state.getMeshModel(node, message.getSrc(), CONFIGURATION_SERVER);
+                        if (model != null) {
+                            ((ConfigurationServerModel) model).
+                                    setHeartbeatSubscription((!isValidUnassignedAddress(status.getHeartbeatSubscription().getSrc()) ||
+                                            !isValidUnassignedAddress(status.getHeartbeatSubscription().getDst()))
+                                            ? status.getHeartbeatSubscription() : null);
+                        }
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_NODE_IDENTITY_STATUS, (message, request) -> new ConfigNodeIdentityStatus(message),
+                (StateUpdater<ConfigNodeIdentityStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        node.nodeIdentityState = status.getNodeIdentityState();
+                    }
+                });
+        // The node is removed from the network, which must not be updated afterwards
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_NODE_RESET_STATUS, (message, request) -> new ConfigNodeResetStatus(message),
+                (StateUpdater<ConfigNodeResetStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        state.mInternalTransportCallbacks.onMeshNodeReset(node);
+                    }
+                }, false);
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_NETWORK_TRANSMIT_STATUS, (message, request) -> new ConfigNetworkTransmitStatus(message),
+                (StateUpdater<ConfigNetworkTransmitStatus>) (state, node, message, status) ->
+                        node.setNetworkTransmitSettings(new NetworkTransmitSettings(status.getNetworkTransmitCount(),
+                                status.getNetworkTransmitIntervalSteps())));
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_SAR_TRANSMITTER_STATUS, (message, request) -> new ConfigSarTransmitterStatus(message),
+                (StateUpdater<ConfigSarTransmitterStatus>) (state, node, message, status) -> {
+                    final MeshModel model = state.getMeshModel(node, message.getSrc(), SAR_CONFIGURATION_SERVER);
+                    if (model instanceof SarConfigurationServer) {
+                        ((SarConfigurationServer) model).setSarTransmitterSettings(status.getSarTransmitterSettings());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_SAR_RECEIVER_STATUS, (message, request) -> new ConfigSarReceiverStatus(message),
+                (StateUpdater<ConfigSarReceiverStatus>) (state, node, message, status) -> {
+                    final MeshModel model = state.getMeshModel(node, message.getSrc(), SAR_CONFIGURATION_SERVER);
+                    if (model instanceof SarConfigurationServer) {
+                        ((SarConfigurationServer) model).setSarReceiverSettings(status.getSarReceiverSettings());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_RELAY_STATUS, (message, request) -> new ConfigRelayStatus(message),
+                (StateUpdater<ConfigRelayStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        node.setRelaySettings(new RelaySettings(status.getRelayRetransmitCount(), status.getRelayRetransmitIntervalSteps()));
+                        // Let's update the feature state based on the status message.
+                        node.nodeFeatures.setRelay(status.isEnabled() ? Features.ENABLED : Features.DISABLED);
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_BEACON_STATUS, (message, request) -> new ConfigBeaconStatus(message),
+                (StateUpdater<ConfigBeaconStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        node.setSecureNetworkBeaconSupported(status.isEnable());
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_FRIEND_STATUS, (message, request) -> new ConfigFriendStatus(message),
+                (StateUpdater<ConfigFriendStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        node.nodeFeatures.setFriend(status.isEnabled() ? Features.ENABLED : Features.DISABLED);
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_KEY_REFRESH_PHASE_STATUS, (message, request) -> new ConfigKeyRefreshPhaseStatus(message), null);
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_GATT_PROXY_STATUS, (message, request) -> new ConfigGattProxyStatus(message),
+                (StateUpdater<ConfigGattProxyStatus>) (state, node, message, status) -> {
+                    if (!state.isReceivedViaProxyFilter(message)) {
+                        node.nodeFeatures.setProxy(status.isProxyFeatureEnabled() ? Features.ENABLED : Features.DISABLED);
+                    }
+                });
+        registerBuiltIn(ConfigMessageOpCodes.CONFIG_LOW_POWER_NODE_POLLTIMEOUT_STATUS, (message, request) -> new ConfigLowPowerNodePollTimeoutStatus(message), null);
+    }
+
+    private void registerApplicationMessages() {
+        registerBuiltIn(ApplicationMessageOpCodes.HEALTH_CURRENT_STATUS, (message, request) -> new HealthCurrentStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.HEALTH_FAULT_STATUS, (message, request) -> new HealthFaultStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SCENE_STATUS, (message, request) -> new SceneStatus(message),
+                (StateUpdater<SceneStatus>) (state, node, message, status) -> {
+                    if (status.isSuccessful()) {
+                        final MeshModel model = state.getMeshModel(node, status.getSrc(), SCENE_SERVER);
+                        if (model != null) {
+                            final SceneServer sceneServer = ((SceneServer) model);
+                            sceneServer.currentScene = status.getCurrentScene();
+                            sceneServer.targetScene = status.getTargetScene();
+                        }
+                    }
+                });
+        // The scene register status answers several requests, a scene recall is answered with a scene status
+        registerBuiltIn(ApplicationMessageOpCodes.SCENE_REGISTER_STATUS, (message, request) -> {
+            if (request instanceof SceneRegisterGet || request instanceof SceneStore || request instanceof SceneDelete) {
+                return new SceneRegisterStatus(message);
+            } else if (request instanceof SceneRecall) {
+                return new SceneStatus(message);
+            }
+            return null;
+        }, (state, node, message, status) -> {
+            final MeshMessage request = state.mMeshMessage;
+            if (request instanceof SceneStore) {
+                state.storeScene(node, (SceneRegisterStatus) status);
+            } else if (request instanceof SceneRecall) {
+                state.storeScene(node, (SceneStatus) status);
+            } else if (request instanceof SceneDelete) {
+                state.deleteScene(node, (SceneRegisterStatus) status);
+            }
+        });
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_LOCATION_GLOBAL_STATUS, (message, request) -> new GenericLocationGlobalStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SENSOR_DESCRIPTOR_STATUS, (message, request) -> new SensorDescriptorStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SENSOR_CADENCE_STATUS, (message, request) -> new SensorCadenceStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SENSOR_SETTINGS_STATUS, (message, request) -> new SensorSettingsStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SENSOR_SETTING_STATUS, (message, request) -> new SensorSettingStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SENSOR_STATUS, (message, request) -> new SensorStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SENSOR_COLUMN_STATUS, (message, request) -> new SensorColumnStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SENSOR_SERIES_STATUS, (message, request) -> new SensorSeriesStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SCHEDULER_ACTION_STATUS, (message, request) -> new SchedulerActionStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_ADMIN_PROPERTY_STATUS, (message, request) -> new GenericPropertyStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_MANUFACTURER_PROPERTY_STATUS, (message, request) -> new GenericPropertyStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_USER_PROPERTY_STATUS, (message, request) -> new GenericPropertyStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.TIME_STATUS, (message, request) -> new TimeStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_MANUFACTURER_PROPERTIES_STATUS, (message, request) -> new GenericManufacturerPropertiesStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_ON_POWER_UP_STATUS, (message, request) -> new GenericOnPowerUpStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_ON_OFF_STATUS, (message, request) -> new GenericOnOffStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_LEVEL_STATUS, (message, request) -> new GenericLevelStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_POWER_LEVEL_STATUS, (message, request) -> new GenericPowerLevelStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_POWER_LAST_STATUS, (message, request) -> new GenericPowerLastStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_POWER_DEFAULT_STATUS, (message, request) -> new GenericPowerDefaultStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_POWER_RANGE_STATUS, (message, request) -> new GenericPowerRangeStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_BATTERY_STATUS, (message, request) -> new GenericBatteryStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.GENERIC_DEFAULT_TRANSITION_TIME_STATUS, (message, request) -> new GenericDefaultTransitionTimeStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_LIGHTNESS_STATUS, (message, request) -> new LightLightnessStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_CTL_STATUS, (message, request) -> new LightCtlStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_CTL_TEMPERATURE_RANGE_STATUS, (message, request) -> new LightCtlTemperatureRangeStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_HSL_STATUS, (message, request) -> new LightHslStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_LC_MODE_STATUS, (message, request) -> new LightLCModeStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_LC_OCCUPANCY_MODE_STATUS, (message, request) -> new LightLCOccupancyModeStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_LC_LIGHT_ON_OFF_STATUS, (message, request) -> new LightLCLightOnOffStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.LIGHT_LC_PROPERTY_STATUS, (message, request) -> new LightLCPropertyStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.SCHEDULER_STATUS, (message, request) -> new SchedulerStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.TIME_ZONE_STATUS, (message, request) -> new TimeZoneStatus(message), null);
+        registerBuiltIn(ApplicationMessageOpCodes.TIME_ROLE_STATUS, (message, request) -> new TimeRoleStatus(message), null);
+    }
+}
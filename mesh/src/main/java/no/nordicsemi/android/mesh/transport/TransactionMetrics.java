@@ -0,0 +1,108 @@
+package no.nordicsemi.android.mesh.transport;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Snapshot of the metrics of the outgoing mesh messages.
+ */
+@SuppressWarnings("unused")
+public final class TransactionMetrics {
+
+    private final int queueDepth;
+    private final int inFlightCount;
+    private final long completedCount;
+    private final long retransmissionCount;
+    private final long failedCount;
+    private final long averageQueueTimeMs;
+    private final long averageLatencyMs;
+    private final long maxLatencyMs;
+
+    TransactionMetrics(final int queueDepth,
+                       final int inFlightCount,
+                       final long completedCount,
+                       final long retransmissionCount,
+                       final long failedCount,
+                       final long averageQueueTimeMs,
+                       final long averageLatencyMs,
+                       final long maxLatencyMs) {
+        this.queueDepth = queueDepth;
+        this.inFlightCount = inFlightCount;
+        this.completedCount = completedCount;
+        this.retransmissionCount = retransmissionCount;
+        this.failedCount = failedCount;
+        this.averageQueueTimeMs = averageQueueTimeMs;
+        this.averageLatencyMs = averageLatencyMs;
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the number of acknowledged messages waiting for a response.
+     */
+    public int getInFlightCount() {
+        return inFlightCount;
+    }
+
+    /**
+     * Returns the number of acknowledged messages that received a response.
+     */
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    /**
+     * Returns the number of retransmissions of acknowledged messages.
+     */
+    public long getRetransmissionCount() {
+        return retransmissionCount;
+    }
+
+    /**
+     * Returns the number of acknowledged messages that did not receive a response after all retransmissions.
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the average time in milliseconds an acknowledged message waited in the queue before it was sent.
+     */
+    public long getAverageQueueTimeMs() {
+        return averageQueueTimeMs;
+    }
+
+    /**
+     * Returns the average time in milliseconds between sending an acknowledged message and receiving the response.
+     */
+    public long getAverageLatencyMs() {
+        return averageLatencyMs;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds between sending an acknowledged message and receiving the response.
+     */
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "TransactionMetrics{" +
+                "queueDepth=" + queueDepth +
+                ", inFlightCount=" + inFlightCount +
+                ", completedCount=" + completedCount +
+                ", retransmissionCount=" + retransmissionCount +
+                ", failedCount=" + failedCount +
+                ", averageQueueTimeMs=" + averageQueueTimeMs +
+                ", averageLatencyMs=" + averageLatencyMs +
+                ", maxLatencyMs=" + maxLatencyMs +
+                '}';
+    }
+}
@@ -0,0 +1,358 @@
+package no.nordicsemi.android.mesh.transport;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import no.nordicsemi.android.mesh.MeshScheduler;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.opcodes.StatusOpCodes;
+import no.nordicsemi.android.mesh.utils.MeshAddress;
+
+/**
+ * Schedules outgoing mesh messages per destination.
+ * <p>
+ * Messages sent to a unicast address are queued per destination and sent in order. Acknowledged messages occupy one of the
+ * in flight slots of the destination until the expected status message is received from the destination, or until the
+ * transaction times out. Unacknowledged messages and messages sent to group or virtual addresses are sent as soon as the
+ * messages queued before them have been sent.
+ * </p>
+ * <p>
+ * By default the number of slots is not limited and unanswered messages are not retransmitted, so messages are sent right
+ * away as they were before the scheduler was introduced. Once a retransmission policy has been set, unanswered messages are
+ * retransmitted with an exponential backoff. {@link Callbacks#onTransactionTimedOut(Transaction)} is invoked when no
+ * response has been received after all retransmissions, or after {@link #DEFAULT_TIMEOUT_MS} if no retransmission policy
+ * has been set.
+ * </p>
+ * <p>
+ * The callbacks are never invoked while the lock of the scheduler is held, so they may submit or clear transactions.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+final class TransactionScheduler {
+
+    private static final String TAG = TransactionScheduler.class.getSimpleName();
+    static final int NO_RESPONSE = -1;
+    static final int ANY_VENDOR_RESPONSE = -2;
+    static final int DEFAULT_MAX_IN_FLIGHT = Integer.MAX_VALUE;
+    static final long DEFAULT_TIMEOUT_MS = 30000;
+
+    private final MeshScheduler scheduler;
+    private final Callbacks callbacks;
+    private final Map<Integer, Destination> destinations = new HashMap<>();
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private int retransmitCount;
+    private long timeoutMs = DEFAULT_TIMEOUT_MS;
+    private int queueDepth;
+    private int inFlightCount;
+    private long completedCount;
+    private long retransmissionCount;
+    private long failedCount;
+    private long totalQueueTimeMs;
+    private long totalLatencyMs;
+    private long maxLatencyMs;
+
+    /**
+     * Sends and fails transactions on behalf of the scheduler.
+     */
+    interface Callbacks {
+
+        /**
+         * Invoked when a transaction is sent or retransmitted.
+         *
+         * @param transaction {@link Transaction}
+         */
+        void onSendTransaction(@NonNull final Transaction transaction);
+
+        /**
+         * Invoked when no response has been received for a transaction after all retransmissions.
+         *
+         * @param transaction {@link Transaction}
+         */
+        void onTransactionTimedOut(@NonNull final Transaction transaction);
+    }
+
+    /**
+     * Outgoing mesh message.
+     */
+    static final class Transaction {
+        final int src;
+        final int dst;
+        final UUID label;
+        final MeshMessage meshMessage;
+        final int statusOpCode;
+        int attempts;
+        long queuedAt;
+        long sentAt;
+        Runnable timeout;
+
+        Transaction(final int src, final int dst, @Nullable final UUID label, @NonNull final MeshMessage meshMessage) {
+            this.src = src;
+            this.dst = dst;
+            this.label = label;
+            this.meshMessage = meshMessage;
+            this.statusOpCode = MeshAddress.isValidUnicastAddress(dst) ? getStatusOpCode(meshMessage) : NO_RESPONSE;
+        }
+
+        boolean isAcknowledged() {
+            return statusOpCode != NO_RESPONSE;
+        }
+
+        boolean matches(final int opCode) {
+            if (statusOpCode == ANY_VENDOR_RESPONSE) {
+                return opCode > 0xFFFF;
+            }
+            return statusOpCode == opCode;
+        }
+    }
+
+    private static final class Destination {
+        final ArrayDeque<Transaction> queue = new ArrayDeque<>();
+        final List<Transaction> inFlight = new ArrayList<>();
+    }
+
+    TransactionScheduler(@NonNull final MeshScheduler scheduler, @NonNull final Callbacks callbacks) {
+        this.scheduler = scheduler;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Sets the number of acknowledged messages that may be in flight to a single destination.
+     *
+     * @param maxInFlight Number of messages, at least 1
+     */
+    void setMaxInFlight(final int maxInFlight) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("At least one message must be allowed in flight");
+        final List<Transaction> ready = new ArrayList<>();
+        synchronized (this) {
+            this.maxInFlight = maxInFlight;
+            for (Integer dst : new ArrayList<>(destinations.keySet())) {
+                pump(dst, ready);
+            }
+        }
+        send(ready);
+    }
+
+    /**
+     * Sets the retransmission policy of acknowledged messages.
+     *
+     * @param retransmitCount Number of retransmissions if no response is received
+     * @param timeoutMs       Time to wait for the response to the first transmission, doubled on every retransmission
+     */
+    synchronized void setRetransmission(final int retransmitCount, final long timeoutMs) {
+        if (retransmitCount < 0)
+            throw new IllegalArgumentException("Retransmit count must not be negative");
+        if (timeoutMs <= 0)
+            throw new IllegalArgumentException("Timeout must be greater than 0");
+        this.retransmitCount = retransmitCount;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Queues a transaction and sends it as soon as the destination allows.
+     *
+     * @param transaction {@link Transaction}
+     */
+    void submit(@NonNull final Transaction transaction) {
+        final List<Transaction> ready = new ArrayList<>(1);
+        synchronized (this) {
+            transaction.queuedAt = now();
+            final Destination destination = getDestination(transaction.dst);
+            destination.queue.add(transaction);
+            queueDepth++;
+            pump(transaction.dst, ready);
+        }
+        send(ready);
+    }
+
+    /**
+     * Completes the oldest transaction in flight to the source of a received access message that expects the given opcode.
+     *
+     * @param src    Source address of the received message
+     * @param opCode Opcode of the received message
+     * @return the mesh message of the completed transaction or null if no transaction was waiting for the message
+     */
+    @Nullable
+    MeshMessage onResponseReceived(final int src, final int opCode) {
+        final List<Transaction> ready = new ArrayList<>(1);
+        final MeshMessage meshMessage;
+        synchronized (this) {
+            meshMessage = complete(src, opCode, ready);
+        }
+        send(ready);
+        return meshMessage;
+    }
+
+    /**
+     * Drops all transactions to the given destination, e.g. after the node has been reset.
+     *
+     * @param dst Destination address
+     */
+    synchronized void clear(final int dst) {
+        final Destination destination = destinations.remove(dst);
+        if (destination != null) {
+            queueDepth -= destination.queue.size();
+            inFlightCount -= destination.inFlight.size();
+            for (Transaction transaction : destination.inFlight) {
+                scheduler.cancel(transaction.timeout);
+            }
+        }
+    }
+
+    /**
+     * Returns true if an acknowledged message sent to the given destination is awaiting a response.
+     *
+     * @param dst Destination address
+     */
+    synchronized boolean isAwaitingResponse(final int dst) {
+        final Destination destination = destinations.get(dst);
+        return destination != null && !destination.inFlight.isEmpty();
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent to the given destination.
+     *
+     * @param dst Destination address
+     */
+    synchronized int getQueueDepth(final int dst) {
+        final Destination destination = destinations.get(dst);
+        return destination == null ? 0 : destination.queue.size();
+    }
+
+    /**
+     * Returns a snapshot of the transaction metrics.
+     */
+    @NonNull
+    synchronized TransactionMetrics getMetrics() {
+        final long answered = Math.max(completedCount, 1);
+        final long sent = Math.max(completedCount + failedCount + inFlightCount, 1);
+        return new TransactionMetrics(queueDepth, inFlightCount, completedCount, retransmissionCount, failedCount,
+                totalQueueTimeMs / sent, totalLatencyMs / answered, maxLatencyMs);
+    }
+
+    @Nullable
+    private MeshMessage complete(final int src, final int opCode, @NonNull final List<Transaction> ready) {
+        final Destination destination = destinations.get(src);
+        if (destination == null)
+            return null;
+        for (Iterator<Transaction> iterator = destination.inFlight.iterator(); iterator.hasNext(); ) {
+            final Transaction transaction = iterator.next();
+            if (transaction.matches(opCode)) {
+                iterator.remove();
+                inFlightCount--;
+                scheduler.cancel(transaction.timeout);
+                final long latency = now() - transaction.sentAt;
+                completedCount++;
+                totalLatencyMs += latency;
+                maxLatencyMs = Math.max(maxLatencyMs, latency);
+                pump(src, ready);
+                return transaction.meshMessage;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves the transactions that may be sent from the queue of the destination to the given list.
+     */
+    private void pump(final int dst, @NonNull final List<Transaction> ready) {
+        final Destination destination = destinations.get(dst);
+        if (destination == null)
+            return;
+        while (!destination.queue.isEmpty()) {
+            final Transaction transaction = destination.queue.peek();
+            if (transaction.isAcknowledged() && destination.inFlight.size() >= maxInFlight)
+                break;
+            destination.queue.poll();
+            queueDepth--;
+            transaction.sentAt = now();
+            if (transaction.isAcknowledged()) {
+                totalQueueTimeMs += transaction.sentAt - transaction.queuedAt;
+                destination.inFlight.add(transaction);
+                inFlightCount++;
+                transaction.timeout = () -> onTimeout(transaction);
+                scheduler.schedule(transaction.timeout, timeoutMs);
+            }
+            transaction.attempts = 1;
+            ready.add(transaction);
+        }
+        if (destination.queue.isEmpty() && destination.inFlight.isEmpty()) {
+            destinations.remove(dst);
+        }
+    }
+
+    private void onTimeout(@NonNull final Transaction transaction) {
+        final boolean retransmit;
+        final List<Transaction> ready = new ArrayList<>(1);
+        synchronized (this) {
+            final Destination destination = destinations.get(transaction.dst);
+            if (destination == null || !destination.inFlight.contains(transaction))
+                return;
+            if (transaction.attempts <= retransmitCount) {
+                final long delay = timeoutMs << Math.min(transaction.attempts, 16);
+                transaction.attempts++;
+                retransmissionCount++;
+                MeshLogger.verbose(TAG, "No response from 0x{}, retransmitting attempt {}",
+                        MeshAddress.addressIntToBytes(transaction.dst), transaction.attempts);
+                scheduler.schedule(transaction.timeout, delay);
+                retransmit = true;
+            } else {
+                destination.inFlight.remove(transaction);
+                inFlightCount--;
+                failedCount++;
+                retransmit = false;
+                pump(transaction.dst, ready);
+            }
+        }
+        if (retransmit) {
+            callbacks.onSendTransaction(transaction);
+            return;
+        }
+        callbacks.onTransactionTimedOut(transaction);
+        send(ready);
+    }
+
+    private void send(@NonNull final List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            callbacks.onSendTransaction(transaction);
+        }
+    }
+
+    @NonNull
+    private Destination getDestination(final int dst) {
+        Destination destination = destinations.get(dst);
+        if (destination == null) {
+            destination = new Destination();
+            destinations.put(dst, destination);
+        }
+        return destination;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    /**
+     * Returns the opcode of the status message expected in response to a message, or {@link #NO_RESPONSE} for
+     * unacknowledged messages.
+     *
+     * @param meshMessage Mesh message
+     */
+    static int getStatusOpCode(@NonNull final MeshMessage meshMessage) {
+        if (meshMessage instanceof VendorModelMessageAcked)
+            return ANY_VENDOR_RESPONSE;
+        if (meshMessage instanceof ProxyConfigMessage || meshMessage instanceof VendorModelMessageUnacked)
+            return NO_RESPONSE;
+        final int statusOpCode = StatusOpCodes.getStatusOpCode(meshMessage.getOpCode());
+        return statusOpCode == StatusOpCodes.NO_STATUS ? NO_RESPONSE : statusOpCode;
+    }
+}
@@ -24,20 +24,20 @@ package no.nordicsemi.android.mesh.transport;
 
 import no.nordicsemi.android.mesh.logger.MeshLogger;
 
-import org.spongycastle.crypto.InvalidCipherTextException;
-
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
-import no.nordicsemi.android.mesh.ApplicationKey;
-import no.nordicsemi.android.mesh.Group;
+import no.nordicsemi.android.mesh.ApplicationKeyTable;
 import no.nordicsemi.android.mesh.MeshManagerApi;
-import no.nordicsemi.android.mesh.utils.ExtendedInvalidCipherTextException;
 import no.nordicsemi.android.mesh.utils.MeshAddress;
 import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+import no.nordicsemi.android.mesh.utils.MeshCipher;
 import no.nordicsemi.android.mesh.utils.SecureUtils;
 
 /**
@@ -72,6 +72,10 @@ abstract class UpperTransportLayer extends AccessLayer {
     private static final int MAXIMUM_TRANSMIC_LENGTH = 8; // bytes
 
     UpperTransportLayerCallbacks mUpperTransportLayerCallbacks;
+    ReceiveCounters mReceiveCounters = new ReceiveCounters();
+    // A transport exchanges device key messages with a single node, so a single cipher context is kept.
+    private byte[] mDeviceKey;
+    private MeshCipher mDeviceKeyCipher;
 
     /**
      * Creates lower transport pdu
@@ -85,10 +89,23 @@ abstract class UpperTransportLayer extends AccessLayer {
 
     /**
      * Removes the lower transport layer header and reassembles a segented lower transport access pdu in to one message
+     * <p>
+     * The returned upper transport pdu may be backed by a pooled buffer and must be released using
+     * {@link #releaseUpperTransportPDU(AccessMessage, PduSlice)} once it has been decrypted.
+     * </p>
      *
      * @param accessMessage access message containing the lower transport pdus
+     * @return upper transport pdu
+     */
+    abstract PduSlice reassembleLowerTransportAccessPDU(@NonNull final AccessMessage accessMessage);
+
+    /**
+     * Releases an upper transport pdu returned by {@link #reassembleLowerTransportAccessPDU(AccessMessage)}.
+     *
+     * @param accessMessage     access message the pdu was reassembled from
+     * @param upperTransportPdu upper transport pdu
      */
-    abstract void reassembleLowerTransportAccessPDU(@NonNull final AccessMessage accessMessage);
+    abstract void releaseUpperTransportPDU(@NonNull final AccessMessage accessMessage, @NonNull final PduSlice upperTransportPdu);
 
     /**
      * Removes the lower transport layer header and reassembles a segented lower transport control pdu in to one message
@@ -104,6 +121,15 @@ abstract class UpperTransportLayer extends AccessLayer {
      */
     abstract void setUpperTransportLayerCallbacks(@NonNull final UpperTransportLayerCallbacks callbacks);
 
+    /**
+     * Sets the counters of the received pdus dropped by the layers of this transport
+     *
+     * @param counters {@link ReceiveCounters} shared by the transports of a message handler
+     */
+    final void setReceiveCounters(@NonNull final ReceiveCounters counters) {
+        mReceiveCounters = counters;
+    }
+
     /**
      * Creates a mesh message containing an upper transport access pdu
      *
@@ -114,7 +140,7 @@ abstract class UpperTransportLayer extends AccessLayer {
             super.createMeshMessage(message);
             final AccessMessage accessMessage = (AccessMessage) message;
             final byte[] encryptedTransportPDU = encryptUpperTransportPDU(accessMessage);
-            MeshLogger.verbose(TAG, "Encrypted upper transport pdu: " + MeshParserUtils.bytesToHex(encryptedTransportPDU, false));
+            MeshLogger.verbose(TAG, "Encrypted upper transport pdu: {}", encryptedTransportPDU);
             accessMessage.setUpperTransportPdu(encryptedTransportPDU);
         } else {
             createUpperTransportPDU(message);
@@ -130,7 +156,7 @@ abstract class UpperTransportLayer extends AccessLayer {
         super.createVendorMeshMessage(message);
         final AccessMessage accessMessage = (AccessMessage) message;
         final byte[] encryptedTransportPDU = encryptUpperTransportPDU(accessMessage);
-        MeshLogger.verbose(TAG, "Encrypted upper transport pdu: " + MeshParserUtils.bytesToHex(encryptedTransportPDU, false));
+        MeshLogger.verbose(TAG, "Encrypted upper transport pdu: {}", encryptedTransportPDU);
         accessMessage.setUpperTransportPdu(encryptedTransportPDU);
     }
 
@@ -145,7 +171,7 @@ abstract class UpperTransportLayer extends AccessLayer {
             //Access message
             final AccessMessage accessMessage = (AccessMessage) message;
             final byte[] encryptedTransportPDU = encryptUpperTransportPDU(accessMessage);
-            MeshLogger.verbose(TAG, "Encrypted upper transport pdu: " + MeshParserUtils.bytesToHex(encryptedTransportPDU, false));
+            MeshLogger.verbose(TAG, "Encrypted upper transport pdu: {}", encryptedTransportPDU);
             accessMessage.setUpperTransportPdu(encryptedTransportPDU);
         } else {
             final ControlMessage controlMessage = (ControlMessage) message;
@@ -163,7 +189,7 @@ abstract class UpperTransportLayer extends AccessLayer {
             }
             final byte[] accessPdu = accessMessageBuffer.array();
 
-            MeshLogger.verbose(TAG, "Created Transport Control PDU " + MeshParserUtils.bytesToHex(accessPdu, false));
+            MeshLogger.verbose(TAG, "Created Transport Control PDU {}", accessPdu);
             controlMessage.setTransportControlPdu(accessPdu);
         }
     }
@@ -172,37 +198,41 @@ abstract class UpperTransportLayer extends AccessLayer {
      * Parse upper transport pdu
      *
      * @param message access message containing the upper transport pdu
+     * @return false if the access message could not be decrypted, true otherwise
      */
-    final void parseUpperTransportPDU(@NonNull final Message message) throws ExtendedInvalidCipherTextException {
-        try {
-            switch (message.getPduType()) {
-                case MeshManagerApi.PDU_TYPE_NETWORK:
-                    if (message instanceof AccessMessage) { //Access message
-                        final AccessMessage accessMessage = (AccessMessage) message;
-                        reassembleLowerTransportAccessPDU(accessMessage);
-                        final byte[] decryptedUpperTransportControlPdu = decryptUpperTransportPDU(accessMessage);
-                        accessMessage.setAccessPdu(decryptedUpperTransportControlPdu);
-                    } else {
-                        //TODO
-                        //this where control messages such as heartbeat and friendship messages are to be implemented
+    final boolean parseUpperTransportPDU(@NonNull final Message message) {
+        switch (message.getPduType()) {
+            case MeshManagerApi.PDU_TYPE_NETWORK:
+                if (message instanceof AccessMessage) { //Access message
+                    final AccessMessage accessMessage = (AccessMessage) message;
+                    final PduSlice upperTransportPdu = reassembleLowerTransportAccessPDU(accessMessage);
+                    final byte[] accessPdu;
+                    try {
+                        accessPdu = decryptUpperTransportPDU(accessMessage, upperTransportPdu);
+                    } finally {
+                        releaseUpperTransportPDU(accessMessage, upperTransportPdu);
                     }
-                    break;
-                case MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION:
-                    final ControlMessage controlMessage = (ControlMessage) message;
-                    if (controlMessage.getLowerTransportControlPdu().size() == 1) {
-                        final byte[] lowerTransportControlPdu = controlMessage.getLowerTransportControlPdu().get(0);
-                        final ByteBuffer buffer = ByteBuffer.wrap(lowerTransportControlPdu)
-                                .order(ByteOrder.BIG_ENDIAN);
-                        message.setOpCode(buffer.get());
-                        final byte[] parameters = new byte[buffer.capacity() - 1];
-                        buffer.get(parameters);
-                        message.setParameters(parameters);
+                    if (accessPdu == null) {
+                        mReceiveCounters.onTransportMicFailure();
+                        return false;
                     }
-                    break;
-            }
-        } catch (InvalidCipherTextException ex) {
-            throw new ExtendedInvalidCipherTextException(ex.getMessage(), ex.getCause(), TAG);
+                    accessMessage.setAccessPdu(accessPdu);
+                } else {
+                    //TODO
+                    //this where control messages such as heartbeat and friendship messages are to be implemented
+                }
+                break;
+            case MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION:
+                final ControlMessage controlMessage = (ControlMessage) message;
+                final PduSlice[] lowerTransportControlPdus = controlMessage.getReceivedLowerTransportPdus();
+                if (lowerTransportControlPdus != null && lowerTransportControlPdus.length == 1) {
+                    final PduSlice lowerTransportControlPdu = lowerTransportControlPdus[0];
+                    message.setOpCode(lowerTransportControlPdu.get(0));
+                    message.setParameters(lowerTransportControlPdu.slice(1).toByteArray());
+                }
+                break;
         }
+        return true;
     }
 
     /**
@@ -220,17 +250,17 @@ abstract class UpperTransportLayer extends AccessLayer {
         final int src = message.getSrc();
         final int dst = message.getDst();
         final byte[] ivIndex = message.getIvIndex();
-        final byte[] key;
+        final MeshCipher cipher;
 
         byte[] nonce;
         if (akf == APPLICATION_KEY_IDENTIFIER) {
-            key = message.getDeviceKey();
+            cipher = getDeviceKeyCipher(message.getDeviceKey());
             nonce = createDeviceNonce(aszmic, sequenceNumber, src, dst, ivIndex);
-            MeshLogger.verbose(TAG, "Device nonce: " + MeshParserUtils.bytesToHex(nonce, false));
+            MeshLogger.verbose(TAG, "Device nonce: {}", nonce);
         } else {
-            key = message.getApplicationKey().getKey();
+            cipher = message.getApplicationKey().getCipher();
             nonce = createApplicationNonce(aszmic, sequenceNumber, src, dst, ivIndex);
-            MeshLogger.verbose(TAG, "Application nonce: " + MeshParserUtils.bytesToHex(nonce, false));
+            MeshLogger.verbose(TAG, "Application nonce: {}", nonce);
         }
 
         int transMicLength;
@@ -242,100 +272,83 @@ abstract class UpperTransportLayer extends AccessLayer {
             transMicLength = SecureUtils.getTransMicLength(message.getAszmic());
         }
         if (MeshAddress.isValidVirtualAddress(dst)) {
-            return SecureUtils.encryptCCM(accessPDU, key, nonce, MeshParserUtils.uuidToBytes(message.getLabel()), transMicLength);
+            return cipher.encryptCCM(accessPDU, nonce, MeshParserUtils.uuidToBytes(message.getLabel()), transMicLength);
         } else {
-            return SecureUtils.encryptCCM(accessPDU, key, nonce, transMicLength);
+            return cipher.encryptCCM(accessPDU, nonce, null, transMicLength);
+        }
+    }
+
+    /**
+     * Returns the cipher context of the given device key, which is only created again if the device key has changed.
+     *
+     * @param deviceKey Device key
+     */
+    @NonNull
+    private MeshCipher getDeviceKeyCipher(@NonNull final byte[] deviceKey) {
+        if (mDeviceKeyCipher == null || !Arrays.equals(mDeviceKey, deviceKey)) {
+            mDeviceKey = deviceKey.clone();
+            mDeviceKeyCipher = new MeshCipher(deviceKey);
         }
+        return mDeviceKeyCipher;
     }
 
     /**
      * Returns the decrypted upper transport pdu
      *
-     * @param accessMessage Access message object containing the upper transport pdu
+     * @param accessMessage     Access message object
+     * @param upperTransportPdu Upper transport pdu of the message
+     * @return the decrypted pdu or null if the message integrity check did not match
      */
-    private byte[] decryptUpperTransportPDU(@NonNull final AccessMessage accessMessage) throws InvalidCipherTextException {
+    @Nullable
+    private byte[] decryptUpperTransportPDU(@NonNull final AccessMessage accessMessage,
+                                            @NonNull final PduSlice upperTransportPdu) {
         byte[] decryptedUpperTransportPDU;
-        byte[] key;
         final int transportMicLength = accessMessage.getAszmic() == SZMIC ? MAXIMUM_TRANSMIC_LENGTH : MINIMUM_TRANSMIC_LENGTH;
         //Check if the key used for encryption is an application key or a device key
         final byte[] nonce;
         if (APPLICATION_KEY_IDENTIFIER == accessMessage.getAkf()) {
-            key = mMeshNode.getDeviceKey();
             //If its a device key that was used to encrypt the message we need to create a device nonce to decrypt it
             nonce = createDeviceNonce(accessMessage.getAszmic(), accessMessage.getSequenceNumber(), accessMessage.getSrc(), accessMessage.getDst(), accessMessage.getIvIndex());
-            decryptedUpperTransportPDU = SecureUtils.decryptCCM(accessMessage.getUpperTransportPdu(), key, nonce, transportMicLength);
+            decryptedUpperTransportPDU = getDeviceKeyCipher(mMeshNode.getDeviceKey()).tryDecryptCCM(upperTransportPdu.array(), upperTransportPdu.offset(),
+                    upperTransportPdu.length(), nonce, null, transportMicLength);
         } else {
-            final List<ApplicationKey> keys = mUpperTransportLayerCallbacks.getApplicationKeys(accessMessage.getNetworkKey().getKeyIndex());
-            if (keys.isEmpty())
-                throw new IllegalArgumentException("Unable to find the app key to decrypt the message");
-
             nonce = createApplicationNonce(accessMessage.getAszmic(), accessMessage.getSequenceNumber(), accessMessage.getSrc(),
                     accessMessage.getDst(), accessMessage.getIvIndex());
 
+            byte[] label = null;
             if (MeshAddress.isValidVirtualAddress(accessMessage.getDst())) {
-                decryptedUpperTransportPDU = decrypt(accessMessage, mUpperTransportLayerCallbacks.gerVirtualGroups(), keys, nonce, transportMicLength);
-            } else {
-                decryptedUpperTransportPDU = decrypt(accessMessage, keys, nonce, transportMicLength);
+                final UUID labelUuid = mUpperTransportLayerCallbacks.getVirtualLabel(accessMessage.getDst());
+                if (labelUuid == null)
+                    throw new IllegalArgumentException("Unable to find the label uuid to decrypt the message");
+                label = MeshParserUtils.uuidToBytes(labelUuid);
             }
+            decryptedUpperTransportPDU = decrypt(accessMessage, upperTransportPdu, label, nonce, transportMicLength);
         }
-
-        if (decryptedUpperTransportPDU == null)
-            throw new IllegalArgumentException("Unable to decrypt the message, invalid application key identifier!");
-
-        final byte[] tempBytes = new byte[decryptedUpperTransportPDU.length];
-        ByteBuffer decryptedBuffer = ByteBuffer.wrap(tempBytes);
-        decryptedBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        decryptedBuffer.put(decryptedUpperTransportPDU);
-        decryptedUpperTransportPDU = decryptedBuffer.array();
         return decryptedUpperTransportPDU;
     }
 
-    private byte[] decrypt(@NonNull final AccessMessage accessMessage, @NonNull final List<Group> groups, @NonNull List<ApplicationKey> keys, final byte[] nonce, final int transportMicLength) {
-        for (ApplicationKey key : keys) {
-            for (Group group : groups) {
-                if(group.getAddressLabel() != null) {
-                    if (key.getAid() == accessMessage.getAid()) {
-                        try {
-                            return SecureUtils
-                                    .decryptCCM(accessMessage.getUpperTransportPdu(), key.getKey(), nonce, MeshParserUtils.uuidToBytes(group.getAddressLabel()), transportMicLength);
-                        } catch (Exception ex) {
-                            // Retrying decryption
-                        }
-                    }
-                    if (key.getOldAid() == accessMessage.getAid()) {
-
-                        try {
-                            return SecureUtils
-                                    .decryptCCM(accessMessage.getUpperTransportPdu(), key.getOldKey(), nonce, MeshParserUtils.uuidToBytes(group.getAddressLabel()), transportMicLength);
-                        } catch (Exception ex) {
-                            // Retrying decryption
-                        }
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
-    private byte[] decrypt(@NonNull final AccessMessage accessMessage, @NonNull List<ApplicationKey> keys, final byte[] nonce, final int transportMicLength) {
-        for (ApplicationKey key : keys) {
-            if (key.getAid() == accessMessage.getAid()) {
-                try {
-                    return SecureUtils
-                            .decryptCCM(accessMessage.getUpperTransportPdu(), key.getKey(), nonce, transportMicLength);
-                } catch (Exception ex) {
-                    // Retrying decryption.
-                }
-
-            }
-            if (key.getOldAid() == accessMessage.getAid()) {
-                try {
-                    return SecureUtils
-                            .decryptCCM(accessMessage.getUpperTransportPdu(), key.getKey(), nonce, transportMicLength);
-                } catch (Exception ex) {
-                    // Retrying decryption.
-                }
-            }
+    /**
+     * Decrypts the upper transport pdu using the application keys matching the AID of the message.
+     *
+     * @param accessMessage      Access message object
+     * @param upperTransportPdu  Upper transport pdu of the message
+     * @param label              Label UUID of the virtual destination address or null
+     * @param nonce              Application nonce
+     * @param transportMicLength Length of the transport MIC
+     * @return the decrypted pdu or null if none of the keys could decrypt the message
+     */
+    private byte[] decrypt(@NonNull final AccessMessage accessMessage, @NonNull final PduSlice upperTransportPdu,
+                           @Nullable final byte[] label, final byte[] nonce, final int transportMicLength) {
+        final int netKeyIndex = accessMessage.getNetworkKey().getKeyIndex();
+        final List<ApplicationKeyTable.Candidate> candidates = mUpperTransportLayerCallbacks.getApplicationKeyCandidates(accessMessage.getAid());
+        for (int i = 0; i < candidates.size(); i++) {
+            final ApplicationKeyTable.Candidate candidate = candidates.get(i);
+            if (candidate.getApplicationKey().getBoundNetKeyIndex() != netKeyIndex)
+                continue;
+            final byte[] decrypted = candidate.getCipher()
+                    .tryDecryptCCM(upperTransportPdu.array(), upperTransportPdu.offset(), upperTransportPdu.length(), nonce, label, transportMicLength);
+            if (decrypted != null)
+                return decrypted;
         }
         return null;
     }
@@ -23,10 +23,11 @@
 package no.nordicsemi.android.mesh.transport;
 
 import java.util.List;
+import java.util.UUID;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import no.nordicsemi.android.mesh.ApplicationKey;
-import no.nordicsemi.android.mesh.Group;
+import no.nordicsemi.android.mesh.ApplicationKeyTable;
 
 /**
  * Upper transport layer call backs
@@ -54,15 +55,19 @@ public interface UpperTransportLayerCallbacks {
     byte[] getApplicationKey(final int aid);
 
     /**
-     * Returns a list of Application Keys matching the bound net key index and AID.
+     * Returns the current and old application keys matching the AID.
      *
-     * @param boundNetKeyIndex Index of the bound network key.
+     * @param aid application key identifier
      */
-    List<ApplicationKey> getApplicationKeys(final int boundNetKeyIndex);
+    @NonNull
+    List<ApplicationKeyTable.Candidate> getApplicationKeyCandidates(final int aid);
 
     /**
-     * Returns the list of groups
+     * Returns the label UUID of the given virtual address.
+     *
+     * @param address virtual address
+     * @return the label UUID or null if no group with the virtual address exists
      */
     @Nullable
-    List<Group> gerVirtualGroups();
+    UUID getVirtualLabel(final int address);
 }
@@ -0,0 +1,251 @@
+package no.nordicsemi.android.mesh.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Map with int keys backed by parallel arrays, iterated in insertion order like a {@link java.util.LinkedHashMap}.
+ * <p>
+ * Intended for the small maps held by every node and element, such as elements by address and models by model id.
+ * A lookup is a linear scan over an int array, which for a handful of entries is as fast as hashing and avoids
+ * allocating an entry and a boxed key per mapping.
+ * </p>
+ *
+ * @param <V> Value type
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class IntKeyArrayMap<V> extends AbstractMap<Integer, V> {
+
+    private static final int[] EMPTY_KEYS = new int[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+    private static final int MIN_CAPACITY = 2;
+
+    private int[] keys = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int size;
+    private int modCount;
+
+    /**
+     * Constructs an empty map
+     */
+    public IntKeyArrayMap() {
+    }
+
+    /**
+     * Constructs a map containing the mappings of the given map, in its iteration order
+     *
+     * @param map Map
+     */
+    public IntKeyArrayMap(@NonNull final Map<Integer, ? extends V> map) {
+        ensureCapacity(map.size());
+        putAll(map);
+    }
+
+    @Override
+    public V get(final Object key) {
+        final int index = key instanceof Integer ? indexOfKey((Integer) key) : -1;
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    /**
+     * Returns the value mapped to the given key without boxing the key, or null if none.
+     *
+     * @param key Key
+     */
+    @Nullable
+    public V get(final int key) {
+        final int index = indexOfKey(key);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof Integer && indexOfKey((Integer) key) >= 0;
+    }
+
+    @Override
+    public V put(final Integer key, final V value) {
+        final int intKey = key;
+        final int index = indexOfKey(intKey);
+        if (index >= 0) {
+            final V previous = valueAt(index);
+            values[index] = value;
+            return previous;
+        }
+        ensureCapacity(size + 1);
+        keys[size] = intKey;
+        values[size] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(final Object key) {
+        final int index = key instanceof Integer ? indexOfKey((Integer) key) : -1;
+        if (index < 0)
+            return null;
+        final V previous = valueAt(index);
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @NonNull
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    private int indexOfKey(final int key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key)
+                return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(final int index) {
+        return (V) values[index];
+    }
+
+    private void removeAt(final int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        values[--size] = null;
+        modCount++;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > keys.length) {
+            final int length = Math.max(Math.max(MIN_CAPACITY, capacity), keys.length + (keys.length >> 1));
+            keys = Arrays.copyOf(keys, length);
+            values = Arrays.copyOf(values, length);
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Integer, V>> {
+
+        @NonNull
+        @Override
+        public Iterator<Entry<Integer, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            IntKeyArrayMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<Integer, V>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<Integer, V> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next >= size)
+                throw new NoSuchElementException();
+            last = next++;
+            return new ArrayEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class ArrayEntry implements Entry<Integer, V> {
+        private final int key;
+        private final int index;
+
+        ArrayEntry(final int index) {
+            this.key = keys[index];
+            this.index = index;
+        }
+
+        @Override
+        public Integer getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return index < size && keys[index] == key ? valueAt(index) : get(key);
+        }
+
+        @Override
+        public V setValue(final V value) {
+            final int current = index < size && keys[index] == key ? index : indexOfKey(key);
+            if (current < 0)
+                throw new IllegalStateException("Entry was removed");
+            final V previous = valueAt(current);
+            values[current] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            final Entry<?, ?> entry = (Entry<?, ?>) o;
+            final V value = getValue();
+            return getKey().equals(entry.getKey()) && (value == null ? entry.getValue() == null : value.equals(entry.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            final V value = getValue();
+            return key ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package no.nordicsemi.android.mesh.utils;
+
+import org.spongycastle.crypto.InvalidCipherTextException;
+import org.spongycastle.crypto.engines.AESEngine;
+import org.spongycastle.crypto.params.KeyParameter;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * AES cipher context bound to a single 128-bit key.
+ * <p>
+ * The AES key schedule is expanded once when the context is created and reused for every operation, together with the
+ * intermediate blocks used by CCM and CMAC. Contexts for the network and application keys are held by the derivatives of
+ * the network keys and by the application keys, so that encrypting or decrypting a pdu does not expand the key schedule
+ * again.
+ * </p>
+ * <p>
+ * CCM is implemented as specified in RFC 3610 and produces the same output as {@link SecureUtils#encryptCCM(byte[], byte[], byte[], int)}.
+ * The methods of this class are synchronized as the intermediate blocks are shared.
+ * </p>
+ */
+public final class MeshCipher {
+
+    /**
+     * Returned by {@link #tryDecryptCCM(byte[], int, int, byte[], byte[], int, byte[], int)} if the message integrity check does not match.
+     */
+    public static final int DECRYPTION_FAILED = -1;
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int CMAC_RB = 0x87;
+
+    private final AESEngine engine = new AESEngine();
+    private final byte[] mac = new byte[BLOCK_SIZE];
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] counter = new byte[BLOCK_SIZE];
+    private final byte[] keyStream = new byte[BLOCK_SIZE];
+    private byte[] cmacK1;
+    private byte[] cmacK2;
+
+    /**
+     * Constructs a cipher context for the given key.
+     *
+     * @param key 128-bit AES key
+     */
+    public MeshCipher(@NonNull final byte[] key) {
+        if (key.length != BLOCK_SIZE)
+            throw new IllegalArgumentException("Key must be 16 bytes long");
+        engine.init(true, new KeyParameter(key));
+    }
+
+    /**
+     * Encrypts a single block using AES-128 in ECB mode, i.e. the e function of the mesh profile specification.
+     *
+     * @param data 16 bytes to be encrypted
+     * @return encrypted block
+     */
+    @NonNull
+    public synchronized byte[] encrypt(@NonNull final byte[] data) {
+        final byte[] encrypted = new byte[BLOCK_SIZE];
+        engine.processBlock(data, 0, encrypted, 0);
+        return encrypted;
+    }
+
+    /**
+     * Encrypts and authenticates data using AES-CCM.
+     *
+     * @param data           Data to be encrypted
+     * @param nonce          Nonce
+     * @param additionalData Additional data that is authenticated but not encrypted, may be null
+     * @param micSize        Size of the message integrity check in bytes
+     * @return encrypted data followed by the message integrity check
+     */
+    @NonNull
+    public synchronized byte[] encryptCCM(@NonNull final byte[] data,
+                                          @NonNull final byte[] nonce,
+                                          @Nullable final byte[] additionalData,
+                                          final int micSize) {
+        final byte[] ccm = new byte[data.length + micSize];
+        calculateCbcMac(data, 0, data.length, nonce, additionalData, micSize);
+        applyCtr(data, 0, data.length, nonce, ccm, 0);
+        setCounter(nonce, 0);
+        engine.processBlock(counter, 0, keyStream, 0);
+        for (int i = 0; i < micSize; i++) {
+            ccm[data.length + i] = (byte) (mac[i] ^ keyStream[i]);
+        }
+        return ccm;
+    }
+
+    /**
+     * Decrypts data using AES-CCM and verifies the message integrity check.
+     *
+     * @param data           Encrypted data followed by the message integrity check
+     * @param nonce          Nonce
+     * @param additionalData Additional data that was authenticated but not encrypted, may be null
+     * @param micSize        Size of the message integrity check in bytes
+     * @return decrypted data
+     * @throws InvalidCipherTextException if the message integrity check does not match
+     */
+    @NonNull
+    public byte[] decryptCCM(@NonNull final byte[] data,
+                             @NonNull final byte[] nonce,
+                             @Nullable final byte[] additionalData,
+                             final int micSize) throws InvalidCipherTextException {
+        return decryptCCM(data, 0, data.length, nonce, additionalData, micSize);
+    }
+
+    /**
+     * Decrypts a range of an array using AES-CCM and verifies the message integrity check.
+     *
+     * @param data           Array containing the encrypted data followed by the message integrity check
+     * @param offset         Offset of the encrypted data
+     * @param length         Length of the encrypted data including the message integrity check
+     * @param nonce          Nonce
+     * @param additionalData Additional data that was authenticated but not encrypted, may be null
+     * @param micSize        Size of the message integrity check in bytes
+     * @return decrypted data
+     * @throws InvalidCipherTextException if the message integrity check does not match
+     */
+    @NonNull
+    public byte[] decryptCCM(@NonNull final byte[] data,
+                             final int offset,
+                             final int length,
+                             @NonNull final byte[] nonce,
+                             @Nullable final byte[] additionalData,
+                             final int micSize) throws InvalidCipherTextException {
+        if (length < micSize)
+            throw new InvalidCipherTextException("data too short");
+        final byte[] decrypted = new byte[length - micSize];
+        decryptCCM(data, offset, length, nonce, additionalData, micSize, decrypted, 0);
+        return decrypted;
+    }
+
+    /**
+     * Decrypts a range of an array using AES-CCM into the given output array and verifies the message integrity check.
+     * <p>
+     * This allows the decrypted data to be placed right after a header in the output, so that it does not have to be copied again.
+     * </p>
+     *
+     * @param data           Array containing the encrypted data followed by the message integrity check
+     * @param offset         Offset of the encrypted data
+     * @param length         Length of the encrypted data including the message integrity check
+     * @param nonce          Nonce
+     * @param additionalData Additional data that was authenticated but not encrypted, may be null
+     * @param micSize        Size of the message integrity check in bytes
+     * @param output         Array the decrypted data is written to
+     * @param outputOffset   Offset in the output array
+     * @return length of the decrypted data
+     * @throws InvalidCipherTextException if the message integrity check does not match
+     */
+    public int decryptCCM(@NonNull final byte[] data,
+                          final int offset,
+                          final int length,
+                          @NonNull final byte[] nonce,
+                          @Nullable final byte[] additionalData,
+                          final int micSize,
+                          @NonNull final byte[] output,
+                          final int outputOffset) throws InvalidCipherTextException {
+        if (length < micSize)
+            throw new InvalidCipherTextException("data too short");
+        final int decryptedLength = tryDecryptCCM(data, offset, length, nonce, additionalData, micSize, output, outputOffset);
+        if (decryptedLength == DECRYPTION_FAILED)
+            throw new InvalidCipherTextException("mac check in CCM failed");
+        return decryptedLength;
+    }
+
+    /**
+     * Decrypts a range of an array using AES-CCM into the given output array and verifies the message integrity check,
+     * without throwing an exception if the check fails.
+     * <p>
+     * A failing integrity check is the expected outcome when trying the keys of a network on messages of other networks,
+     * so this method only returns {@link #DECRYPTION_FAILED} in that case. The content of the output range is undefined
+     * if the decryption failed.
+     * </p>
+     *
+     * @param data           Array containing the encrypted data followed by the message integrity check
+     * @param offset         Offset of the encrypted data
+     * @param length         Length of the encrypted data including the message integrity check
+     * @param nonce          Nonce
+     * @param additionalData Additional data that was authenticated but not encrypted, may be null
+     * @param micSize        Size of the message integrity check in bytes
+     * @param output         Array the decrypted data is written to
+     * @param outputOffset   Offset in the output array
+     * @return length of the decrypted data or {@link #DECRYPTION_FAILED} if the data is too short or the message integrity check does not match
+     */
+    public synchronized int tryDecryptCCM(@NonNull final byte[] data,
+                                          final int offset,
+                                          final int length,
+                                          @NonNull final byte[] nonce,
+                                          @Nullable final byte[] additionalData,
+                                          final int micSize,
+                                          @NonNull final byte[] output,
+                                          final int outputOffset) {
+        final int decryptedLength = length - micSize;
+        if (decryptedLength < 0)
+            return DECRYPTION_FAILED;
+        applyCtr(data, offset, decryptedLength, nonce, output, outputOffset);
+        calculateCbcMac(output, outputOffset, decryptedLength, nonce, additionalData, micSize);
+        setCounter(nonce, 0);
+        engine.processBlock(counter, 0, keyStream, 0);
+        int result = 0;
+        for (int i = 0; i < micSize; i++) {
+            result |= (mac[i] ^ keyStream[i]) ^ data[offset + decryptedLength + i];
+        }
+        return result == 0 ? decryptedLength : DECRYPTION_FAILED;
+    }
+
+    /**
+     * Decrypts a range of an array using AES-CCM and verifies the message integrity check, without throwing an exception
+     * if the check fails.
+     *
+     * @param data           Array containing the encrypted data followed by the message integrity check
+     * @param offset         Offset of the encrypted data
+     * @param length         Length of the encrypted data including the message integrity check
+     * @param nonce          Nonce
+     * @param additionalData Additional data that was authenticated but not encrypted, may be null
+     * @param micSize        Size of the message integrity check in bytes
+     * @return decrypted data or null if the data is too short or the message integrity check does not match
+     */
+    @Nullable
+    public byte[] tryDecryptCCM(@NonNull final byte[] data,
+                                final int offset,
+                                final int length,
+                                @NonNull final byte[] nonce,
+                                @Nullable final byte[] additionalData,
+                                final int micSize) {
+        if (length < micSize)
+            return null;
+        final byte[] decrypted = new byte[length - micSize];
+        if (tryDecryptCCM(data, offset, length, nonce, additionalData, micSize, decrypted, 0) == DECRYPTION_FAILED)
+            return null;
+        return decrypted;
+    }
+
+    /**
+     * Calculates the AES-CMAC of the given data.
+     *
+     * @param data Data
+     * @return 16 byte message authentication code
+     */
+    @NonNull
+    public synchronized byte[] calculateCMAC(@NonNull final byte[] data) {
+        if (cmacK1 == null) {
+            Arrays.fill(block, (byte) 0);
+            final byte[] l = new byte[BLOCK_SIZE];
+            engine.processBlock(block, 0, l, 0);
+            cmacK1 = doubleBlock(l);
+            cmacK2 = doubleBlock(cmacK1);
+        }
+        Arrays.fill(mac, (byte) 0);
+        final int blocks = data.length == 0 ? 1 : (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        for (int i = 0; i < blocks - 1; i++) {
+            for (int j = 0; j < BLOCK_SIZE; j++) {
+                block[j] = (byte) (mac[j] ^ data[i * BLOCK_SIZE + j]);
+            }
+            engine.processBlock(block, 0, mac, 0);
+        }
+        final int offset = (blocks - 1) * BLOCK_SIZE;
+        final int remaining = data.length - offset;
+        final byte[] subKey = remaining == BLOCK_SIZE ? cmacK1 : cmacK2;
+        for (int j = 0; j < BLOCK_SIZE; j++) {
+            final byte b;
+            if (j < remaining) {
+                b = data[offset + j];
+            } else if (j == remaining) {
+                b = (byte) 0x80;
+            } else {
+                b = 0;
+            }
+            block[j] = (byte) (mac[j] ^ b ^ subKey[j]);
+        }
+        final byte[] cmac = new byte[BLOCK_SIZE];
+        engine.processBlock(block, 0, cmac, 0);
+        return cmac;
+    }
+
+    private void calculateCbcMac(@NonNull final byte[] data,
+                                 final int dataOffset,
+                                 final int dataLength,
+                                 @NonNull final byte[] nonce,
+                                 @Nullable final byte[] additionalData,
+                                 final int micSize) {
+        if (micSize < 4 || micSize > 16 || (micSize & 1) != 0)
+            throw new IllegalArgumentException("Invalid MIC size: " + micSize);
+        final int lengthSize = 15 - nonce.length;
+        if (lengthSize < 2 || lengthSize > 8)
+            throw new IllegalArgumentException("Nonce must be between 7 and 13 bytes long");
+        final boolean hasAdditionalData = additionalData != null && additionalData.length > 0;
+
+        // B0
+        block[0] = (byte) ((hasAdditionalData ? 0x40 : 0) | (((micSize - 2) / 2) << 3) | (lengthSize - 1));
+        System.arraycopy(nonce, 0, block, 1, nonce.length);
+        int length = dataLength;
+        for (int i = BLOCK_SIZE - 1; i > nonce.length; i--) {
+            block[i] = (byte) length;
+            length >>>= 8;
+        }
+        engine.processBlock(block, 0, mac, 0);
+
+        if (hasAdditionalData) {
+            // Additional data is prefixed with its length, mesh never uses more than 2^16 - 2^8 bytes
+            final int prefixed = additionalData.length + 2;
+            int position = 0;
+            while (position < prefixed) {
+                for (int j = 0; j < BLOCK_SIZE; j++, position++) {
+                    final byte b;
+                    if (position == 0) {
+                        b = (byte) (additionalData.length >> 8);
+                    } else if (position == 1) {
+                        b = (byte) additionalData.length;
+                    } else if (position < prefixed) {
+                        b = additionalData[position - 2];
+                    } else {
+                        b = 0;
+                    }
+                    block[j] = (byte) (mac[j] ^ b);
+                }
+                engine.processBlock(block, 0, mac, 0);
+            }
+        }
+
+        for (int offset = 0; offset < dataLength; offset += BLOCK_SIZE) {
+            for (int j = 0; j < BLOCK_SIZE; j++) {
+                final int index = offset + j;
+                block[j] = (byte) (mac[j] ^ (index < dataLength ? data[dataOffset + index] : 0));
+            }
+            engine.processBlock(block, 0, mac, 0);
+        }
+    }
+
+    private void applyCtr(@NonNull final byte[] input, final int offset, final int length,
+                          @NonNull final byte[] nonce, @NonNull final byte[] output, final int outputOffset) {
+        int blockCounter = 1;
+        for (int position = 0; position < length; position += BLOCK_SIZE) {
+            setCounter(nonce, blockCounter++);
+            engine.processBlock(counter, 0, keyStream, 0);
+            final int count = Math.min(BLOCK_SIZE, length - position);
+            for (int j = 0; j < count; j++) {
+                output[outputOffset + position + j] = (byte) (input[offset + position + j] ^ keyStream[j]);
+            }
+        }
+    }
+
+    private void setCounter(@NonNull final byte[] nonce, final int value) {
+        counter[0] = (byte) (15 - nonce.length - 1);
+        System.arraycopy(nonce, 0, counter, 1, nonce.length);
+        int v = value;
+        for (int i = BLOCK_SIZE - 1; i > nonce.length; i--) {
+            counter[i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    private static byte[] doubleBlock(@NonNull final byte[] in) {
+        final byte[] out = new byte[BLOCK_SIZE];
+        int carry = 0;
+        for (int i = BLOCK_SIZE - 1; i >= 0; i--) {
+            final int b = in[i] & 0xFF;
+            out[i] = (byte) ((b << 1) | carry);
+            carry = b >>> 7;
+        }
+        if ((in[0] & 0x80) != 0) {
+            out[BLOCK_SIZE - 1] ^= CMAC_RB;
+        }
+        return out;
+    }
+}
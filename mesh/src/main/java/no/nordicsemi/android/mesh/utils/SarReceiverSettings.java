@@ -0,0 +1,124 @@
+package no.nordicsemi.android.mesh.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Class containing the SAR Receiver state of a node, which controls how segmented messages are received and acknowledged.
+ * <p>
+ * All values are the raw steps and counts as defined by the Mesh Protocol specification.
+ * </p>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class SarReceiverSettings {
+
+    /**
+     * Default SAR Receiver state as defined by the Mesh Protocol specification.
+     */
+    public static final SarReceiverSettings DEFAULT = new SarReceiverSettings(0b00011, 0b001, 0b0001, 0b0101, 0b00);
+
+    private final int segmentsThreshold;
+    private final int acknowledgmentDelayIncrement;
+    private final int discardTimeout;
+    private final int receiverSegmentIntervalStep;
+    private final int acknowledgmentRetransmissionsCount;
+
+    /**
+     * Constructs {@link SarReceiverSettings}
+     *
+     * @param segmentsThreshold                  Number of segments of a message above which acknowledgements are retransmitted, 0-31
+     * @param acknowledgmentDelayIncrement       Increment of the acknowledgement delay, in segment transmission intervals minus 1.5, 0-7
+     * @param discardTimeout                     Time after which an incomplete message is discarded, in 5 second steps minus one, 0-15
+     * @param receiverSegmentIntervalStep        Expected interval between received segments, in 10 ms steps minus one, 0-15
+     * @param acknowledgmentRetransmissionsCount Number of retransmissions of segment acknowledgements, 0-3
+     * @throws IllegalArgumentException if any value is out of range
+     */
+    public SarReceiverSettings(final int segmentsThreshold,
+                               final int acknowledgmentDelayIncrement,
+                               final int discardTimeout,
+                               final int receiverSegmentIntervalStep,
+                               final int acknowledgmentRetransmissionsCount) {
+        this.segmentsThreshold = validate("SAR Segments Threshold", segmentsThreshold, 0b11111);
+        this.acknowledgmentDelayIncrement = validate("SAR Acknowledgment Delay Increment", acknowledgmentDelayIncrement, 0b111);
+        this.discardTimeout = validate("SAR Discard Timeout", discardTimeout, 0b1111);
+        this.receiverSegmentIntervalStep = validate("SAR Receiver Segment Interval Step", receiverSegmentIntervalStep, 0b1111);
+        this.acknowledgmentRetransmissionsCount = validate("SAR Acknowledgment Retransmissions Count",
+                acknowledgmentRetransmissionsCount, 0b11);
+    }
+
+    private static int validate(@NonNull final String name, final int value, final int max) {
+        if (value < 0 || value > max)
+            throw new IllegalArgumentException(name + " must be in range 0-" + max + ".");
+        return value;
+    }
+
+    /**
+     * Returns the SAR Segments Threshold.
+     */
+    public int getSegmentsThreshold() {
+        return segmentsThreshold;
+    }
+
+    /**
+     * Returns the SAR Acknowledgment Delay Increment.
+     */
+    public int getAcknowledgmentDelayIncrement() {
+        return acknowledgmentDelayIncrement;
+    }
+
+    /**
+     * Returns the SAR Discard Timeout.
+     */
+    public int getDiscardTimeout() {
+        return discardTimeout;
+    }
+
+    /**
+     * Returns the time after which an incomplete segmented message is discarded, in milliseconds.
+     */
+    public int getDiscardTimeoutMs() {
+        return (discardTimeout + 1) * 5000;
+    }
+
+    /**
+     * Returns the SAR Receiver Segment Interval Step.
+     */
+    public int getReceiverSegmentIntervalStep() {
+        return receiverSegmentIntervalStep;
+    }
+
+    /**
+     * Returns the expected interval between received segments, in milliseconds.
+     */
+    public int getReceiverSegmentInterval() {
+        return (receiverSegmentIntervalStep + 1) * 10;
+    }
+
+    /**
+     * Returns the SAR Acknowledgment Retransmissions Count.
+     */
+    public int getAcknowledgmentRetransmissionsCount() {
+        return acknowledgmentRetransmissionsCount;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SarReceiverSettings)) return false;
+        final SarReceiverSettings that = (SarReceiverSettings) o;
+        return segmentsThreshold == that.segmentsThreshold &&
+                acknowledgmentDelayIncrement == that.acknowledgmentDelayIncrement &&
+                discardTimeout == that.discardTimeout &&
+                receiverSegmentIntervalStep == that.receiverSegmentIntervalStep &&
+                acknowledgmentRetransmissionsCount == that.acknowledgmentRetransmissionsCount;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = segmentsThreshold;
+        result = 31 * result + acknowledgmentDelayIncrement;
+        result = 31 * result + discardTimeout;
+        result = 31 * result + receiverSegmentIntervalStep;
+        result = 31 * result + acknowledgmentRetransmissionsCount;
+        return result;
+    }
+}
@@ -0,0 +1,174 @@
+package no.nordicsemi.android.mesh.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Class containing the SAR Transmitter state of a node, which controls how segmented messages are sent.
+ * <p>
+ * All values are the raw 4-bit steps and counts as defined by the Mesh Protocol specification. The intervals in milliseconds
+ * are derived from the steps.
+ * </p>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class SarTransmitterSettings {
+
+    public static final int MIN_VALUE = 0b0000;
+    public static final int MAX_VALUE = 0b1111;
+
+    /**
+     * Default SAR Transmitter state as defined by the Mesh Protocol specification.
+     */
+    public static final SarTransmitterSettings DEFAULT = new SarTransmitterSettings(0b0101, 0b0010, 0b0010,
+            0b0111, 0b0001, 0b0010, 0b1001);
+
+    private final int segmentIntervalStep;
+    private final int unicastRetransmissionsCount;
+    private final int unicastRetransmissionsWithoutProgressCount;
+    private final int unicastRetransmissionsIntervalStep;
+    private final int unicastRetransmissionsIntervalIncrement;
+    private final int multicastRetransmissionsCount;
+    private final int multicastRetransmissionsIntervalStep;
+
+    /**
+     * Constructs {@link SarTransmitterSettings}
+     *
+     * @param segmentIntervalStep                        Interval between the segments, in 10 ms steps minus one
+     * @param unicastRetransmissionsCount                Maximum number of retransmissions of segments to a unicast address
+     * @param unicastRetransmissionsWithoutProgressCount Maximum number of retransmissions of segments to a unicast address
+     *                                                   without any acknowledged segment
+     * @param unicastRetransmissionsIntervalStep         Interval between retransmissions to a unicast address, in 25 ms steps minus one
+     * @param unicastRetransmissionsIntervalIncrement    Increment of the unicast retransmission interval per hop, in 25 ms steps minus one
+     * @param multicastRetransmissionsCount              Number of retransmissions of segments to a group or virtual address
+     * @param multicastRetransmissionsIntervalStep       Interval between retransmissions to a group or virtual address,
+     *                                                   in 25 ms steps minus one
+     * @throws IllegalArgumentException if any value is not in range 0-15
+     */
+    public SarTransmitterSettings(final int segmentIntervalStep,
+                                  final int unicastRetransmissionsCount,
+                                  final int unicastRetransmissionsWithoutProgressCount,
+                                  final int unicastRetransmissionsIntervalStep,
+                                  final int unicastRetransmissionsIntervalIncrement,
+                                  final int multicastRetransmissionsCount,
+                                  final int multicastRetransmissionsIntervalStep) {
+        this.segmentIntervalStep = validate("SAR Segment Interval Step", segmentIntervalStep);
+        this.unicastRetransmissionsCount = validate("SAR Unicast Retransmissions Count", unicastRetransmissionsCount);
+        this.unicastRetransmissionsWithoutProgressCount = validate("SAR Unicast Retransmissions Without Progress Count",
+                unicastRetransmissionsWithoutProgressCount);
+        this.unicastRetransmissionsIntervalStep = validate("SAR Unicast Retransmissions Interval Step",
+                unicastRetransmissionsIntervalStep);
+        this.unicastRetransmissionsIntervalIncrement = validate("SAR Unicast Retransmissions Interval Increment",
+                unicastRetransmissionsIntervalIncrement);
+        this.multicastRetransmissionsCount = validate("SAR Multicast Retransmissions Count", multicastRetransmissionsCount);
+        this.multicastRetransmissionsIntervalStep = validate("SAR Multicast Retransmissions Interval Step",
+                multicastRetransmissionsIntervalStep);
+    }
+
+    private static int validate(@NonNull final String name, final int value) {
+        if (value < MIN_VALUE || value > MAX_VALUE)
+            throw new IllegalArgumentException(name + " must be in range " + MIN_VALUE + "-" + MAX_VALUE + ".");
+        return value;
+    }
+
+    /**
+     * Returns the SAR Segment Interval Step.
+     */
+    public int getSegmentIntervalStep() {
+        return segmentIntervalStep;
+    }
+
+    /**
+     * Returns the interval between two consecutive segments in milliseconds.
+     */
+    public int getSegmentInterval() {
+        return (segmentIntervalStep + 1) * 10;
+    }
+
+    /**
+     * Returns the SAR Unicast Retransmissions Count.
+     */
+    public int getUnicastRetransmissionsCount() {
+        return unicastRetransmissionsCount;
+    }
+
+    /**
+     * Returns the SAR Unicast Retransmissions Without Progress Count.
+     */
+    public int getUnicastRetransmissionsWithoutProgressCount() {
+        return unicastRetransmissionsWithoutProgressCount;
+    }
+
+    /**
+     * Returns the SAR Unicast Retransmissions Interval Step.
+     */
+    public int getUnicastRetransmissionsIntervalStep() {
+        return unicastRetransmissionsIntervalStep;
+    }
+
+    /**
+     * Returns the SAR Unicast Retransmissions Interval Increment.
+     */
+    public int getUnicastRetransmissionsIntervalIncrement() {
+        return unicastRetransmissionsIntervalIncrement;
+    }
+
+    /**
+     * Returns the time to wait for a segment acknowledgement before retransmitting the unacknowledged segments of a message
+     * sent to a unicast address, in milliseconds.
+     *
+     * @param ttl TTL of the message, the interval grows with the number of hops the message and the acknowledgement may take
+     */
+    public int getUnicastRetransmissionsInterval(final int ttl) {
+        final int interval = (unicastRetransmissionsIntervalStep + 1) * 25;
+        if (ttl == 0)
+            return interval;
+        return interval + (unicastRetransmissionsIntervalIncrement + 1) * 25 * (ttl - 1);
+    }
+
+    /**
+     * Returns the SAR Multicast Retransmissions Count.
+     */
+    public int getMulticastRetransmissionsCount() {
+        return multicastRetransmissionsCount;
+    }
+
+    /**
+     * Returns the SAR Multicast Retransmissions Interval Step.
+     */
+    public int getMulticastRetransmissionsIntervalStep() {
+        return multicastRetransmissionsIntervalStep;
+    }
+
+    /**
+     * Returns the interval between retransmissions of the segments of a message sent to a group or virtual address,
+     * in milliseconds.
+     */
+    public int getMulticastRetransmissionsInterval() {
+        return (multicastRetransmissionsIntervalStep + 1) * 25;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SarTransmitterSettings)) return false;
+        final SarTransmitterSettings that = (SarTransmitterSettings) o;
+        return segmentIntervalStep == that.segmentIntervalStep &&
+                unicastRetransmissionsCount == that.unicastRetransmissionsCount &&
+                unicastRetransmissionsWithoutProgressCount == that.unicastRetransmissionsWithoutProgressCount &&
+                unicastRetransmissionsIntervalStep == that.unicastRetransmissionsIntervalStep &&
+                unicastRetransmissionsIntervalIncrement == that.unicastRetransmissionsIntervalIncrement &&
+                multicastRetransmissionsCount == that.multicastRetransmissionsCount &&
+                multicastRetransmissionsIntervalStep == that.multicastRetransmissionsIntervalStep;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = segmentIntervalStep;
+        result = 31 * result + unicastRetransmissionsCount;
+        result = 31 * result + unicastRetransmissionsWithoutProgressCount;
+        result = 31 * result + unicastRetransmissionsIntervalStep;
+        result = 31 * result + unicastRetransmissionsIntervalIncrement;
+        result = 31 * result + multicastRetransmissionsCount;
+        result = 31 * result + multicastRetransmissionsIntervalStep;
+        return result;
+    }
+}
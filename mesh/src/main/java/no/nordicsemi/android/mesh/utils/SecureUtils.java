@@ -44,6 +44,7 @@ import java.nio.charset.Charset;
 import java.security.SecureRandom;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
 import no.nordicsemi.android.mesh.SecureNetworkBeacon;
 
 @SuppressWarnings({"WeakerAccess", "CharsetObjectCanBeUsed"})
@@ -493,6 +494,8 @@ public class SecureUtils {
         private byte[] encryptionKey;
         @Expose
         private byte[] privacyKey;
+        private transient MeshCipher encryptionCipher;
+        private transient MeshCipher privacyCipher;
 
         private K2Output(final byte nid, final byte[] encryptionKey, final byte[] privacyKey) {
             this.nid = nid;
@@ -529,5 +532,29 @@ public class SecureUtils {
         public byte[] getPrivacyKey() {
             return privacyKey;
         }
+
+        /**
+         * Returns the cipher context bound to the encryption key, which is created when first used.
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY)
+        @NonNull
+        public synchronized MeshCipher getEncryptionCipher() {
+            if (encryptionCipher == null) {
+                encryptionCipher = new MeshCipher(encryptionKey);
+            }
+            return encryptionCipher;
+        }
+
+        /**
+         * Returns the cipher context bound to the privacy key, which is created when first used.
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY)
+        @NonNull
+        public synchronized MeshCipher getPrivacyCipher() {
+            if (privacyCipher == null) {
+                privacyCipher = new MeshCipher(privacyKey);
+            }
+            return privacyCipher;
+        }
     }
 }
@@ -0,0 +1,157 @@
+package no.nordicsemi.android.mesh.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * List of 16-bit unsigned values, such as addresses or key indexes, backed by a short array.
+ * <p>
+ * Each value takes two bytes instead of a reference to a boxed {@link Integer}, which matters for the many small lists
+ * held by the models of a large network. Values are boxed only when they are read through the {@link java.util.List}
+ * interface.
+ * </p>
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class UnsignedShortArrayList extends AbstractList<Integer> implements RandomAccess {
+
+    private static final short[] EMPTY = new short[0];
+    private static final int MIN_CAPACITY = 2;
+
+    private short[] values = EMPTY;
+    private int size;
+
+    /**
+     * Constructs an empty list
+     */
+    public UnsignedShortArrayList() {
+    }
+
+    /**
+     * Constructs a list containing the given values
+     *
+     * @param values Values
+     * @throws IllegalArgumentException if a value is not a 16-bit unsigned value
+     */
+    public UnsignedShortArrayList(@NonNull final Collection<Integer> values) {
+        addAll(values);
+    }
+
+    @Override
+    public Integer get(final int index) {
+        checkIndex(index);
+        return values[index] & 0xFFFF;
+    }
+
+    /**
+     * Returns the value at the given position without boxing it.
+     *
+     * @param index Position of the value
+     */
+    public int getInt(final int index) {
+        checkIndex(index);
+        return values[index] & 0xFFFF;
+    }
+
+    @Override
+    public Integer set(final int index, final Integer value) {
+        checkIndex(index);
+        final int previous = values[index] & 0xFFFF;
+        values[index] = toShort(value);
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final Integer value) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        final short shortValue = toShort(value);
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(MIN_CAPACITY, size + (size >> 1) + 1));
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = shortValue;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Integer remove(final int index) {
+        checkIndex(index);
+        final int previous = values[index] & 0xFFFF;
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public boolean remove(final Object value) {
+        final int index = indexOf(value);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public int indexOf(final Object value) {
+        return value instanceof Integer ? indexOfInt((Integer) value) : -1;
+    }
+
+    @Override
+    public boolean contains(final Object value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the position of the first occurrence of the given value, or -1 if the list does not contain it.
+     *
+     * @param value Value
+     */
+    public int indexOfInt(final int value) {
+        if (value < 0 || value > 0xFFFF)
+            return -1;
+        final short shortValue = (short) value;
+        for (int i = 0; i < size; i++) {
+            if (values[i] == shortValue)
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Releases the capacity that is not in use.
+     */
+    public void trimToSize() {
+        if (values.length > size) {
+            values = size == 0 ? EMPTY : Arrays.copyOf(values, size);
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private static short toShort(final Integer value) {
+        if (value < 0 || value > 0xFFFF)
+            throw new IllegalArgumentException("Value must be a 16-bit unsigned value: " + value);
+        return (short) (int) value;
+    }
+}
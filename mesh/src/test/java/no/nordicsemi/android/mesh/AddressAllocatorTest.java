@@ -0,0 +1,123 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.TestNodes;
+
+public class AddressAllocatorTest {
+
+    @Test
+    public void testUnicastAddressesInUseAreSkipped() {
+        final MeshNetwork network = new MeshNetwork("network");
+        final Provisioner provisioner = createProvisioner(network, 0x0001, 0x0010);
+        network.nodes.add(TestNodes.createNode(0x0001));
+        network.nodes.add(TestNodes.createNode(0x0002));
+        network.nodes.add(TestNodes.createNode(0x0005));
+        assertEquals(0x0003, network.nextAvailableUnicastAddress(2, provisioner));
+        assertEquals(0x0006, network.nextAvailableUnicastAddress(3, provisioner));
+
+        // Addresses excluded with the current IV Index are in use
+        network.networkExclusions.put(network.ivIndex.getIvIndex(), new ArrayList<>(Collections.singletonList(0x0003)));
+        network.nodes.add(TestNodes.createNode(0x0007));
+        assertEquals(0x0004, network.nextAvailableUnicastAddress(1, provisioner));
+        assertEquals(0x0008, network.nextAvailableUnicastAddress(2, provisioner));
+        assertEquals(-1, network.nextAvailableUnicastAddress(10, provisioner));
+    }
+
+    @Test
+    public void testPlannedProvisioningRunIsReserved() {
+        final MeshNetwork network = new MeshNetwork("network");
+        final Provisioner provisioner = createProvisioner(network, 0x0001, 0x0010);
+        network.nodes.add(TestNodes.createNode(0x0001));
+        final UUID deviceA = UUID.randomUUID();
+        final UUID deviceB = UUID.randomUUID();
+        final Map<UUID, Integer> elementCounts = new LinkedHashMap<>();
+        elementCounts.put(deviceA, 3);
+        elementCounts.put(deviceB, 2);
+
+        final Map<UUID, Integer> addresses = network.reserveUnicastAddresses(provisioner, elementCounts);
+        assertEquals(0x0002, (int) addresses.get(deviceA));
+        assertEquals(0x0005, (int) addresses.get(deviceB));
+        assertEquals(0x0007, network.nextAvailableUnicastAddress(1, provisioner));
+
+        network.releaseUnicastAddresses(deviceA);
+        assertNull(network.getUnicastReservation(deviceA));
+        assertEquals(0x0002, network.nextAvailableUnicastAddress(3, provisioner));
+
+        elementCounts.put(UUID.randomUUID(), 11);
+        try {
+            network.reserveUnicastAddresses(provisioner, elementCounts);
+            throw new AssertionError("Reservation exceeding the range was accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        // The reservations held before the failed call are kept
+        assertNull(network.getUnicastReservation(deviceA));
+        assertEquals(0x0005, network.getUnicastReservation(deviceB).getLowAddress());
+        assertEquals(1, network.unicastReservations.size());
+        assertEquals(0x0002, network.nextAvailableUnicastAddress(3, provisioner));
+        assertEquals(0x0007, network.nextAvailableUnicastAddress(6, provisioner));
+    }
+
+    @Test
+    public void testFailedReservationRestoresReplacedReservations() {
+        final MeshNetwork network = new MeshNetwork("network");
+        final Provisioner provisioner = createProvisioner(network, 0x0001, 0x0010);
+        final UUID deviceA = UUID.randomUUID();
+        final UUID deviceB = UUID.randomUUID();
+        final Map<UUID, Integer> elementCounts = new LinkedHashMap<>();
+        elementCounts.put(deviceA, 2);
+        elementCounts.put(deviceB, 2);
+        network.reserveUnicastAddresses(provisioner, elementCounts);
+
+        // Both nodes are planned again, the second one does not fit into the range any more
+        elementCounts.put(deviceA, 4);
+        elementCounts.put(deviceB, 13);
+        try {
+            network.reserveUnicastAddresses(provisioner, elementCounts);
+            throw new AssertionError("Reservation exceeding the range was accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        assertEquals(0x0001, network.getUnicastReservation(deviceA).getLowAddress());
+        assertEquals(0x0002, network.getUnicastReservation(deviceA).getHighAddress());
+        assertEquals(0x0003, network.getUnicastReservation(deviceB).getLowAddress());
+        assertEquals(0x0004, network.getUnicastReservation(deviceB).getHighAddress());
+        assertEquals(0x0005, network.nextAvailableUnicastAddress(1, provisioner));
+    }
+
+    @Test
+    public void testReleasedReservationKeepsAddressesOfProvisionedNode() {
+        final MeshNetwork network = new MeshNetwork("network");
+        final Provisioner provisioner = createProvisioner(network, 0x0001, 0x0010);
+        final UUID device = UUID.randomUUID();
+        network.nodes.add(TestNodes.createNode(0x0001));
+        assertEquals(0x0002, network.nextAvailableUnicastAddress(1, provisioner));
+        network.reserveUnicastAddresses(device, 0x0002, 1);
+
+        // The node is added before its provisioning session is closed
+        final ProvisionedMeshNode node = TestNodes.createNode(0x0002);
+        network.nodes.add(node);
+        network.addressAllocator.onNodeAdded(network.nodes, node);
+        network.releaseUnicastAddresses(device);
+        assertEquals(0x0003, network.nextAvailableUnicastAddress(1, provisioner));
+    }
+
+    private static Provisioner createProvisioner(final MeshNetwork network, final int low, final int high) {
+        final List<AllocatedUnicastRange> unicastRanges = new ArrayList<>();
+        unicastRanges.add(new AllocatedUnicastRange(low, high));
+        return new Provisioner(UUID.randomUUID().toString(), unicastRanges,
+                new ArrayList<>(), new ArrayList<>(), network.getMeshUUID());
+    }
+}
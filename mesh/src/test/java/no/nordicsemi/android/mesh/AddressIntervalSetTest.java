@@ -0,0 +1,71 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class AddressIntervalSetTest {
+
+    @Test
+    public void testAdjacentAddressesAreMerged() {
+        final AddressIntervalSet set = new AddressIntervalSet();
+        set.add(0x0001, 0x0003);
+        set.add(0x0007, 0x0008);
+        set.add(0x0004, 0x0006);
+        assertEquals(1, set.intervalCount());
+        assertTrue(set.contains(0x0001));
+        assertTrue(set.contains(0x0008));
+        assertFalse(set.contains(0x0009));
+        assertEquals(0x0009, set.nextFree(0x0001, 0x7FFF, 3));
+    }
+
+    @Test
+    public void testRemovedAddressesSplitIntervals() {
+        final AddressIntervalSet set = new AddressIntervalSet();
+        set.add(0x0001, 0x0010);
+        set.remove(0x0005, 0x0006);
+        assertEquals(2, set.intervalCount());
+        assertFalse(set.intersects(0x0005, 0x0006));
+        assertTrue(set.intersects(0x0006, 0x0007));
+        assertEquals(0x0005, set.nextFree(0x0001, 0x7FFF, 2));
+        assertEquals(0x0011, set.nextFree(0x0001, 0x7FFF, 3));
+        assertEquals(-1, set.nextFree(0x0001, 0x0012, 3));
+    }
+
+    @Test
+    public void testNextFreeMatchesLinearScan() {
+        final Random random = new Random(7);
+        final AddressIntervalSet set = new AddressIntervalSet();
+        final BitSet expected = new BitSet();
+        for (int i = 0; i < 2000; i++) {
+            final int low = 1 + random.nextInt(300);
+            final int high = low + random.nextInt(4);
+            if (random.nextInt(3) == 0) {
+                set.remove(low, high);
+                expected.clear(low, high + 1);
+            } else {
+                set.add(low, high);
+                expected.set(low, high + 1);
+            }
+            final int from = 1 + random.nextInt(300);
+            final int to = from + random.nextInt(40);
+            final int count = 1 + random.nextInt(4);
+            assertEquals(linearNextFree(expected, from, to, count), set.nextFree(from, to, count));
+            assertEquals(expected.get(from), set.contains(from));
+        }
+    }
+
+    private static int linearNextFree(final BitSet used, final int low, final int high, final int count) {
+        for (int address = low; address + count - 1 <= high; address++) {
+            final int next = used.nextSetBit(address);
+            if (next == -1 || next > address + count - 1)
+                return address;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,104 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import no.nordicsemi.android.mesh.utils.MeshCipher;
+import no.nordicsemi.android.mesh.utils.SecureUtils;
+
+public class ApplicationKeyTableTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testCandidatesAreIndexedByAid() {
+        final ApplicationKeyTable table = new ApplicationKeyTable();
+        final List<ApplicationKey> appKeys = new ArrayList<>();
+        final ApplicationKey key0 = new ApplicationKey(0, randomKey());
+        final ApplicationKey key1 = createKeyWithDifferentAid(1, key0.getAid());
+        appKeys.add(key0);
+        appKeys.add(key1);
+
+        final List<ApplicationKeyTable.Candidate> candidates = table.getCandidates(appKeys, key1.getAid());
+        assertEquals(1, candidates.size());
+        assertSame(key1, candidates.get(0).getApplicationKey());
+        assertSame(key1.getKey(), candidates.get(0).getKey());
+        assertFalse(candidates.get(0).isOldKey());
+    }
+
+    @Test
+    public void testOldKeyIsIndexed() {
+        final ApplicationKeyTable table = new ApplicationKeyTable();
+        final List<ApplicationKey> appKeys = new ArrayList<>();
+        final ApplicationKey key = new ApplicationKey(0, randomKey());
+        appKeys.add(key);
+        final int oldAid = key.getAid();
+        table.getCandidates(appKeys, oldAid);
+
+        // The key is distributed without notifying the table
+        assertTrue(key.distributeKey(randomKeyWithDifferentAid(oldAid)));
+        final List<ApplicationKeyTable.Candidate> candidates = table.getCandidates(appKeys, oldAid);
+        assertEquals(1, candidates.size());
+        assertTrue(candidates.get(0).isOldKey());
+        assertSame(key.getOldKey(), candidates.get(0).getKey());
+
+        final List<ApplicationKeyTable.Candidate> current = table.getCandidates(appKeys, key.getAid());
+        assertEquals(1, current.size());
+        assertFalse(current.get(0).isOldKey());
+    }
+
+    @Test
+    public void testCiphersFollowKeyRefresh() {
+        final ApplicationKeyTable table = new ApplicationKeyTable();
+        final List<ApplicationKey> appKeys = new ArrayList<>();
+        final ApplicationKey key = new ApplicationKey(0, randomKey());
+        appKeys.add(key);
+        final MeshCipher cipher = key.getCipher();
+        assertSame(cipher, table.getCandidates(appKeys, key.getAid()).get(0).getCipher());
+
+        final byte[] oldKey = key.getKey();
+        assertTrue(key.distributeKey(randomKeyWithDifferentAid(key.getAid())));
+        assertNotSame(cipher, key.getCipher());
+        assertSame(key.getCipher(), key.getCipher());
+        final byte[] block = randomKey();
+        final ApplicationKeyTable.Candidate oldCandidate = table.getCandidates(appKeys, key.getOldAid()).get(0);
+        assertArrayEquals(SecureUtils.encryptWithAES(block, oldKey), oldCandidate.getCipher().encrypt(block));
+    }
+
+    @Test
+    public void testUnknownAidHasNoCandidates() {
+        final ApplicationKeyTable table = new ApplicationKeyTable();
+        final List<ApplicationKey> appKeys = new ArrayList<>();
+        final ApplicationKey key = new ApplicationKey(0, randomKey());
+        appKeys.add(key);
+        assertTrue(table.getCandidates(appKeys, (key.getAid() + 1) & 0x3F).isEmpty());
+    }
+
+    private ApplicationKey createKeyWithDifferentAid(final int index, final int aid) {
+        return new ApplicationKey(index, randomKeyWithDifferentAid(aid));
+    }
+
+    private byte[] randomKeyWithDifferentAid(final int aid) {
+        while (true) {
+            final byte[] key = randomKey();
+            if (new ApplicationKey(0, key).getAid() != aid)
+                return key;
+        }
+    }
+
+    private byte[] randomKey() {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+}
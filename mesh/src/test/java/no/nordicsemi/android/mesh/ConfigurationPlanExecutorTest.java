@@ -0,0 +1,124 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.transport.ConfigCompositionDataGet;
+import no.nordicsemi.android.mesh.transport.MeshMessage;
+import no.nordicsemi.android.mesh.transport.NetworkLayerCallbacks;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.UpperTransportLayerCallbacks;
+import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+
+public class ConfigurationPlanExecutorTest {
+
+    private static final int SRC = 0x0001;
+    private static final int DST = 0x0002;
+    private static final int GENERIC_ON_OFF_SERVER = 0x1000;
+    // Time after which an unanswered message is reported as failed if no retransmission policy has been set
+    private static final long DEFAULT_RESPONSE_TIMEOUT_MS = 30000;
+
+    private final FakeMeshScheduler scheduler = new FakeMeshScheduler();
+    private final List<MeshMessage> sentMessages = new ArrayList<>();
+    private final List<MeshMessage> failedMessages = new ArrayList<>();
+    private final int[] completed = {-1, -1};
+    private MeshNetwork network;
+    private ApplicationKey appKey;
+    private ProvisionedMeshNode node;
+    private MeshMessageHandler handler;
+    private ConfigurationPlanExecutor executor;
+
+    @Before
+    public void setUp() {
+        MeshLogger.setLogHandler((priority, tag, message) -> {
+        });
+        network = new MeshNetwork(UUID.randomUUID().toString());
+        appKey = new ApplicationKey(0, MeshParserUtils.toByteArray("63964771734FBD76E3B40519D1D94A48"));
+        node = new ProvisionedMeshNode();
+        node.setUnicastAddress(DST);
+
+        // Messages are handed to the mesh stack, which never receives a status in response
+        final InternalTransportCallbacks transportCallbacks = mock(InternalTransportCallbacks.class);
+        handler = new MeshMessageHandler(mock(Context.class), scheduler, transportCallbacks,
+                mock(NetworkLayerCallbacks.class), mock(UpperTransportLayerCallbacks.class));
+        final MeshStatusCallbacks statusCallbacks = mock(MeshStatusCallbacks.class);
+        doAnswer(invocation -> {
+            executor.onTransactionFailed(invocation.getArgument(0));
+            return null;
+        }).when(statusCallbacks).onTransactionFailed(anyInt(), anyBoolean());
+        handler.setMeshStatusCallbacks(statusCallbacks);
+    }
+
+    @After
+    public void tearDown() {
+        MeshLogger.setLogHandler(null);
+    }
+
+    @Test
+    public void testNodeFailsWhenStatusIsNotReceivedWithDefaultSettings() {
+        final MeshManagerApi meshManagerApi = mock(MeshManagerApi.class);
+        when(meshManagerApi.getMeshNetwork()).thenReturn(network);
+        doAnswer(invocation -> {
+            final MeshMessage message = invocation.getArgument(1);
+            sentMessages.add(message);
+            handler.createMeshMessage(SRC, invocation.getArgument(0), null, message);
+            return null;
+        }).when(meshManagerApi).createMeshPdu(anyInt(), any(MeshMessage.class));
+
+        final ConfigurationPlan plan = new ConfigurationPlan().bindAppKey(GENERIC_ON_OFF_SERVER, appKey);
+        executor = new ConfigurationPlanExecutor(meshManagerApi, plan, Collections.singletonList(node), 1, new ConfigurationPlan.Callbacks() {
+            @Override
+            public void onNodeProgress(@NonNull final ProvisionedMeshNode node, final int completed, final int total) {
+            }
+
+            @Override
+            public void onNodeConfigured(@NonNull final ProvisionedMeshNode node) {
+            }
+
+            @Override
+            public void onNodeFailed(@NonNull final ProvisionedMeshNode node, @Nullable final MeshMessage message, @NonNull final String error) {
+                failedMessages.add(message);
+            }
+
+            @Override
+            public void onPlanCompleted(final int configured, final int failed) {
+                completed[0] = configured;
+                completed[1] = failed;
+            }
+        }, null);
+        executor.start();
+        assertEquals(1, sentMessages.size());
+        assertTrue(sentMessages.get(0) instanceof ConfigCompositionDataGet);
+
+        scheduler.advanceBy(DEFAULT_RESPONSE_TIMEOUT_MS - 1);
+        assertTrue(failedMessages.isEmpty());
+
+        scheduler.advanceBy(1);
+        assertEquals(1, failedMessages.size());
+        assertTrue(failedMessages.get(0) instanceof ConfigCompositionDataGet);
+        assertEquals(0, completed[0]);
+        assertEquals(1, completed[1]);
+        assertTrue(executor.isFinished());
+    }
+}
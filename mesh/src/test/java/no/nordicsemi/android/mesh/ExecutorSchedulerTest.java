@@ -0,0 +1,96 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import no.nordicsemi.android.mesh.provisionerstates.UnprovisionedMeshNode;
+
+public class ExecutorSchedulerTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testScheduledTasksAreExecutedUnlessCancelled() throws InterruptedException {
+        final ExecutorScheduler scheduler = new ExecutorScheduler(executor);
+        final AtomicInteger cancelledCount = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Runnable cancelled = cancelledCount::incrementAndGet;
+
+        scheduler.schedule(cancelled, 50);
+        scheduler.schedule(cancelled, 60);
+        scheduler.schedule(latch::countDown, 100);
+        scheduler.cancel(cancelled);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, cancelledCount.get());
+    }
+
+    @Test
+    public void testCallbacksAreDeliveredOnExecutor() {
+        final List<Runnable> pending = new ArrayList<>();
+        final List<Integer> received = new ArrayList<>();
+        final MeshManagerCallbacks callbacks = CallbackExecutors.wrap(new MeshManagerCallbacks() {
+            @Override
+            public void onNetworkLoaded(final MeshNetwork meshNetwork) {
+            }
+
+            @Override
+            public void onNetworkUpdated(final MeshNetwork meshNetwork) {
+            }
+
+            @Override
+            public void onNetworkLoadFailed(final String error) {
+            }
+
+            @Override
+            public void onNetworkImported(final MeshNetwork meshNetwork) {
+            }
+
+            @Override
+            public void onNetworkImportFailed(final String error) {
+            }
+
+            @Override
+            public void sendProvisioningPdu(final UnprovisionedMeshNode meshNode, final byte[] pdu) {
+            }
+
+            @Override
+            public void onMeshPduCreated(final byte[] pdu) {
+                received.add(pdu.length);
+            }
+
+            @Override
+            public int getMtu() {
+                return 23;
+            }
+        }, pending::add);
+
+        callbacks.onMeshPduCreated(new byte[1]);
+        callbacks.onMeshPduCreated(new byte[2]);
+        assertEquals(23, callbacks.getMtu());
+        assertTrue(received.isEmpty());
+
+        for (Runnable runnable : pending) {
+            runnable.run();
+        }
+        assertEquals(2, received.size());
+        assertEquals(1, (int) received.get(0));
+        assertEquals(2, (int) received.get(1));
+    }
+}
@@ -0,0 +1,118 @@
+package no.nordicsemi.android.mesh;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link MeshScheduler} driven by the test. Tasks are executed right away, scheduled tasks are kept until the test runs
+ * them or advances the virtual clock past their delay.
+ */
+public final class FakeMeshScheduler implements MeshScheduler {
+
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private long now;
+
+    private static final class ScheduledTask {
+        final Runnable task;
+        final long delayMs;
+        final long runAt;
+
+        ScheduledTask(@NonNull final Runnable task, final long delayMs, final long runAt) {
+            this.task = task;
+            this.delayMs = delayMs;
+            this.runAt = runAt;
+        }
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public void schedule(@NonNull final Runnable task, final long delayMs) {
+        tasks.add(new ScheduledTask(task, delayMs, now + delayMs));
+    }
+
+    @Override
+    public void cancel(@NonNull final Runnable task) {
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            if (tasks.get(i).task == task) {
+                tasks.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of scheduled tasks.
+     */
+    public int getScheduledCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Returns true if no task is scheduled.
+     */
+    public boolean isIdle() {
+        return tasks.isEmpty();
+    }
+
+    /**
+     * Returns the delay a scheduled task was scheduled with.
+     *
+     * @param index Index of the task in the order the tasks were scheduled
+     */
+    public long getDelay(final int index) {
+        return tasks.get(index).delayMs;
+    }
+
+    /**
+     * Returns the time of the virtual clock in milliseconds.
+     */
+    public long getTime() {
+        return now;
+    }
+
+    /**
+     * Runs the task that was scheduled first, advancing the clock to its time if it lies in the future.
+     */
+    public void runNext() {
+        final ScheduledTask next = tasks.remove(0);
+        now = Math.max(now, next.runAt);
+        next.task.run();
+    }
+
+    /**
+     * Runs the scheduled tasks until no task is left, including the tasks scheduled meanwhile.
+     */
+    public void runAll() {
+        while (!tasks.isEmpty()) {
+            runNext();
+        }
+    }
+
+    /**
+     * Advances the clock by the given time and runs the tasks that are due, in the order of their time.
+     *
+     * @param delayMs Time in milliseconds
+     */
+    public void advanceBy(final long delayMs) {
+        final long end = now + delayMs;
+        while (true) {
+            ScheduledTask next = null;
+            for (ScheduledTask task : tasks) {
+                if (task.runAt <= end && (next == null || task.runAt < next.runAt)) {
+                    next = task;
+                }
+            }
+            if (next == null)
+                break;
+            tasks.remove(next);
+            now = next.runAt;
+            next.task.run();
+        }
+        now = end;
+    }
+}
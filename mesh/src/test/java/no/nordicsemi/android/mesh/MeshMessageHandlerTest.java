@@ -0,0 +1,135 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.transport.NetworkLayerCallbacks;
+import no.nordicsemi.android.mesh.transport.ReceiveStatistics;
+import no.nordicsemi.android.mesh.transport.TestNodes;
+import no.nordicsemi.android.mesh.transport.UpperTransportLayerCallbacks;
+import no.nordicsemi.android.mesh.utils.MeshAddress;
+import no.nordicsemi.android.mesh.utils.SecureUtils;
+
+public class MeshMessageHandlerTest {
+
+    private static final int SRC = 0x0002;
+    private static final int IV_INDEX = 0;
+    // Unsegmented heartbeat control message with an initial TTL of 5 and no features
+    private static final byte[] HEARTBEAT = {0x0A, 0x05, 0x00, 0x00};
+
+    private final Random random = new Random(42);
+    private MeshNetwork network;
+    private MeshMessageHandler handler;
+
+    @Before
+    public void setUp() {
+        MeshLogger.setLogHandler((priority, tag, message) -> {
+        });
+        network = new MeshNetwork(UUID.randomUUID().toString());
+        final Provisioner provisioner = mock(Provisioner.class);
+        when(provisioner.getProvisionerAddress()).thenReturn(0x0001);
+        final NetworkLayerCallbacks networkLayerCallbacks = mock(NetworkLayerCallbacks.class);
+        when(networkLayerCallbacks.getProvisioner()).thenReturn(provisioner);
+        handler = new MeshMessageHandler(mock(Context.class), new FakeMeshScheduler(), mock(InternalTransportCallbacks.class),
+                networkLayerCallbacks, mock(UpperTransportLayerCallbacks.class));
+        handler.setMeshStatusCallbacks(mock(MeshStatusCallbacks.class));
+    }
+
+    @After
+    public void tearDown() {
+        MeshLogger.setLogHandler(null);
+    }
+
+    @Test
+    public void testOtherCandidatesAreTriedWhenNetworkMicFails() {
+        final NetworkKey otherKey = new NetworkKey(0, randomKey());
+        final NetworkKey key = createKeyWithSameNid(1, otherKey);
+        network.addNetKey(otherKey);
+        network.addNetKey(key);
+        network.nodes.add(TestNodes.createNode(SRC));
+
+        // The header of the pdu must decode to a known source with the other key as well
+        byte[] pdu;
+        int otherSrc;
+        int sequenceNumber = 0;
+        do {
+            pdu = createNetworkPdu(key, ++sequenceNumber);
+            otherSrc = decodeSrc(pdu, otherKey);
+        } while (!MeshAddress.isValidUnicastAddress(otherSrc) || otherSrc == SRC);
+        network.nodes.add(TestNodes.createNode(otherSrc));
+
+        // The other key is tried first
+        final int nid = key.getDerivatives().getNid();
+        final List<NetworkKeyTable.Candidate> candidates = network.getNetKeyCandidates(nid);
+        network.onNetKeyDecrypted(candidates.get(candidates.get(0).getNetworkKey() == otherKey ? 0 : 1));
+        assertSame(otherKey, network.getNetKeyCandidates(nid).get(0).getNetworkKey());
+
+        handler.parseMeshPduNotifications(pdu, network);
+
+        final ReceiveStatistics statistics = handler.getReceiveStatistics();
+        assertEquals(0, statistics.getNetworkMicFailureCount());
+        assertEquals(0, statistics.getUnknownSourceCount());
+        assertSame(key, network.getNetKeyCandidates(nid).get(0).getNetworkKey());
+        // The decrypted pdu was added to the network message cache
+        handler.parseMeshPduNotifications(pdu, network);
+        assertEquals(1, handler.getNetworkMessageCacheHits());
+    }
+
+    private byte[] createNetworkPdu(final NetworkKey key, final int sequenceNumber) {
+        final SecureUtils.K2Output k2Output = key.getDerivatives();
+        final byte ctlTtl = (byte) 0x85;
+        final byte[] header = ByteBuffer.allocate(6).put(ctlTtl)
+                .put((byte) (sequenceNumber >> 16)).put((byte) (sequenceNumber >> 8)).put((byte) sequenceNumber)
+                .putShort((short) SRC).array();
+        final byte[] nonce = ByteBuffer.allocate(13).put((byte) 0x00).put(header).putShort((short) 0).putInt(IV_INDEX).array();
+        final byte[] payload = ByteBuffer.allocate(2 + HEARTBEAT.length).putShort((short) 0x0001).put(HEARTBEAT).array();
+        final byte[] encrypted = SecureUtils.encryptCCM(payload, k2Output.getEncryptionKey(), nonce, 8);
+        final byte[] pecb = createPecb(k2Output, encrypted);
+        final ByteBuffer pdu = ByteBuffer.allocate(2 + header.length + encrypted.length)
+                .put(MeshManagerApi.PDU_TYPE_NETWORK).put((byte) k2Output.getNid());
+        for (int i = 0; i < header.length; i++) {
+            pdu.put((byte) (header[i] ^ pecb[i]));
+        }
+        return pdu.put(encrypted).array();
+    }
+
+    private static int decodeSrc(final byte[] pdu, final NetworkKey key) {
+        final byte[] encrypted = new byte[7];
+        System.arraycopy(pdu, 8, encrypted, 0, encrypted.length);
+        final byte[] pecb = createPecb(key.getDerivatives(), encrypted);
+        return ((pdu[6] ^ pecb[4]) & 0xFF) << 8 | (pdu[7] ^ pecb[5]) & 0xFF;
+    }
+
+    private static byte[] createPecb(final SecureUtils.K2Output k2Output, final byte[] encrypted) {
+        final byte[] input = ByteBuffer.allocate(16).put(new byte[5]).putInt(IV_INDEX).put(encrypted, 0, 7).array();
+        return SecureUtils.encryptWithAES(input, k2Output.getPrivacyKey());
+    }
+
+    private NetworkKey createKeyWithSameNid(final int keyIndex, final NetworkKey other) {
+        while (true) {
+            final NetworkKey key = new NetworkKey(keyIndex, randomKey());
+            if (key.getDerivatives().getNid() == other.getDerivatives().getNid())
+                return key;
+        }
+    }
+
+    private byte[] randomKey() {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+}
@@ -0,0 +1,111 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.TestNodes;
+
+public class MeshNetworkIndexTest {
+
+    @Test
+    public void testNodeLookupByElementAddress() {
+        final MeshNetworkIndex index = new MeshNetworkIndex();
+        final List<ProvisionedMeshNode> nodes = new ArrayList<>();
+        final ProvisionedMeshNode node1 = TestNodes.createNode("node1", 0x0001, 3);
+        final ProvisionedMeshNode node2 = TestNodes.createNode("node2", 0x0010, 1);
+        final ProvisionedMeshNode node3 = TestNodes.createNode("node3", 0x0004, 2);
+        nodes.add(node1);
+        nodes.add(node2);
+        nodes.add(node3);
+
+        assertSame(node1, index.getNode(nodes, 0x0001));
+        assertSame(node1, index.getNode(nodes, 0x0003));
+        assertSame(node3, index.getNode(nodes, 0x0004));
+        assertSame(node3, index.getNode(nodes, 0x0005));
+        assertSame(node2, index.getNode(nodes, 0x0010));
+        assertNull(index.getNode(nodes, 0x0006));
+        assertNull(index.getNode(nodes, 0x0011));
+        assertSame(node2, index.getNode(nodes, "NODE2"));
+    }
+
+    @Test
+    public void testNodeIndexIsMaintained() {
+        final MeshNetworkIndex index = new MeshNetworkIndex();
+        final List<ProvisionedMeshNode> nodes = new ArrayList<>();
+        final ProvisionedMeshNode node1 = TestNodes.createNode("node1", 0x0001, 2);
+        nodes.add(node1);
+        assertSame(node1, index.getNode(nodes, 0x0002));
+
+        final ProvisionedMeshNode node2 = TestNodes.createNode("node2", 0x0003, 1);
+        nodes.add(node2);
+        index.onNodeAdded(nodes, node2);
+        assertSame(node2, index.getNode(nodes, 0x0003));
+
+        nodes.remove(node1);
+        index.onNodeRemoved(nodes, node1);
+        assertNull(index.getNode(nodes, 0x0001));
+        assertNull(index.getNode(nodes, "node1"));
+
+        // Elements added after the node was indexed
+        node2.setElements(TestNodes.createElements(0x0003, 3));
+        index.onNodeUpdated(nodes, node2);
+        assertSame(node2, index.getNode(nodes, 0x0005));
+
+        // Node replaced with a node with the same uuid
+        final ProvisionedMeshNode replacement = TestNodes.createNode("node2", 0x0003, 1);
+        nodes.set(0, replacement);
+        index.onNodeUpdated(nodes, replacement);
+        assertSame(replacement, index.getNode(nodes, 0x0003));
+        assertSame(replacement, index.getNode(nodes, "node2"));
+        assertNull(index.getNode(nodes, 0x0005));
+    }
+
+    @Test
+    public void testIndexIsRebuiltWhenListChanges() {
+        final MeshNetworkIndex index = new MeshNetworkIndex();
+        final List<ProvisionedMeshNode> nodes = new ArrayList<>();
+        nodes.add(TestNodes.createNode("node1", 0x0001, 1));
+        assertNull(index.getNode(nodes, 0x0002));
+
+        final ProvisionedMeshNode node2 = TestNodes.createNode("node2", 0x0002, 1);
+        nodes.add(node2);
+        assertSame(node2, index.getNode(nodes, 0x0002));
+
+        final List<ProvisionedMeshNode> loaded = new ArrayList<>();
+        final ProvisionedMeshNode node3 = TestNodes.createNode("node3", 0x0002, 1);
+        loaded.add(node3);
+        assertSame(node3, index.getNode(loaded, 0x0002));
+    }
+
+    @Test
+    public void testGroupAndSceneLookup() {
+        final MeshNetworkIndex index = new MeshNetworkIndex();
+        final List<Group> groups = new ArrayList<>();
+        final Group group = new Group(0xC000, "mesh");
+        groups.add(group);
+        assertSame(group, index.getGroup(groups, 0xC000));
+
+        final Group group2 = new Group(0xC001, "mesh");
+        groups.add(group2);
+        index.onGroupAdded(groups, group2);
+        assertSame(group2, index.getGroup(groups, 0xC001));
+
+        groups.remove(group);
+        index.onGroupRemoved(groups, group);
+        assertNull(index.getGroup(groups, 0xC000));
+        assertEquals(1, groups.size());
+
+        final List<Scene> scenes = new ArrayList<>();
+        final Scene scene = new Scene(1, "mesh");
+        scenes.add(scene);
+        assertSame(scene, index.getScene(scenes, 1));
+        assertNull(index.getScene(scenes, 2));
+    }
+}
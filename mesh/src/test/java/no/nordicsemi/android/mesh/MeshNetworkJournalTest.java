@@ -0,0 +1,224 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.TestNodes;
+import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+
+public class MeshNetworkJournalTest {
+
+    private final List<MeshNetworkJournal.Batch> batches = new ArrayList<>();
+    private ScheduledExecutorService executor;
+    private MeshNetworkJournal journal;
+
+    @Before
+    public void setUp() {
+        MeshLogger.setLogHandler((priority, tag, message) -> {
+        });
+        executor = Executors.newSingleThreadScheduledExecutor();
+        journal = new MeshNetworkJournal(batches::add, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        MeshLogger.setLogHandler(null);
+    }
+
+    @Test
+    public void testChangesAreCoalesced() throws Exception {
+        final MeshNetwork network = new MeshNetwork("network");
+        final ProvisionedMeshNode node = TestNodes.createNode("node", 0x0001, 1);
+        for (int i = 0; i < 10; i++) {
+            journal.markDirty(network);
+            journal.markDirty(node);
+        }
+        assertEquals(2, journal.getPendingCount());
+        journal.flush();
+
+        assertEquals(1, batches.size());
+        final MeshNetworkJournal.Batch batch = batches.get(0);
+        assertSame(network, batch.network);
+        assertEquals(1, batch.nodes.size());
+        assertSame(node, batch.nodes.get(0));
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    public void testKeysProvisionersAndGroupsAreWritten() throws Exception {
+        final ApplicationKey appKey = new ApplicationKey(0, MeshParserUtils.toByteArray("63964771734FBD76E3B40519D1D94A48"));
+        final Provisioner provisioner = new Provisioner("provisioner", new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), "network");
+        final Group group = new Group(0xC000, "network");
+        for (int i = 0; i < 10; i++) {
+            journal.markDirty(appKey);
+            journal.markDirty(provisioner);
+            journal.markDirty(group);
+        }
+        assertEquals(3, journal.getPendingCount());
+        journal.flush();
+
+        assertEquals(1, batches.size());
+        final MeshNetworkJournal.Batch batch = batches.get(0);
+        assertEquals(1, batch.appKeys.size());
+        assertSame(appKey, batch.appKeys.get(0));
+        assertEquals(1, batch.provisioners.size());
+        assertSame(provisioner, batch.provisioners.get(0));
+        assertEquals(1, batch.groups.size());
+        assertSame(group, batch.groups.get(0));
+    }
+
+    @Test
+    public void testThresholdTriggersWrite() throws Exception {
+        for (int i = 0; i < MeshNetworkJournal.FLUSH_THRESHOLD; i++) {
+            journal.markDirty(TestNodes.createNode("node" + i, 0x0001, 1));
+        }
+        journal.flush();
+
+        assertEquals(1, batches.size());
+        assertEquals(MeshNetworkJournal.FLUSH_THRESHOLD, batches.get(0).nodes.size());
+    }
+
+    @Test
+    public void testSequenceNumberBlockIsReservedAheadOfUse() throws Exception {
+        final ProvisionedMeshNode node = TestNodes.createNode("provisioner", 0x0001, 1);
+        node.setSequenceNumber(10);
+        journal.reserveSequenceNumbers(node);
+        for (int i = 0; i < MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE / 2 - 1; i++) {
+            node.incrementSequenceNumber();
+            journal.reserveSequenceNumbers(node);
+        }
+        journal.flush();
+
+        // Only a single reservation is written for the first half of the block
+        assertEquals(1, batches.size());
+        assertNull(batches.get(0).network);
+        assertEquals(10 + MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(0).sequenceNumbers.get("provisioner"));
+
+        // The next block is reserved once half of the current block has been used
+        for (int i = 0; i < MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE; i++) {
+            node.incrementSequenceNumber();
+            journal.reserveSequenceNumbers(node);
+        }
+        journal.flush();
+        assertEquals(2, batches.size());
+        assertEquals(10 + 2 * MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(1).sequenceNumbers.get("provisioner"));
+    }
+
+    @Test
+    public void testNextSequenceNumberBlockIsReservedWithoutBlocking() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        journal = new MeshNetworkJournal(batch -> {
+            if (!batches.isEmpty()) {
+                try {
+                    latch.await();
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            batches.add(batch);
+        }, executor);
+        final ProvisionedMeshNode node = TestNodes.createNode("provisioner", 0x0001, 1);
+        journal.reserveSequenceNumbers(node);
+        node.setSequenceNumber(MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE / 2);
+        // Returns while the next block is still being written
+        journal.reserveSequenceNumbers(node);
+        node.setSequenceNumber(MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE - 1);
+        journal.reserveSequenceNumbers(node);
+        assertEquals(1, batches.size());
+
+        latch.countDown();
+        journal.flush();
+        assertEquals(2, batches.size());
+        assertEquals(2 * MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(1).sequenceNumbers.get("provisioner"));
+    }
+
+    @Test
+    public void testExhaustedBlockWaitsForPendingReservation() throws Exception {
+        final ProvisionedMeshNode node = TestNodes.createNode("provisioner", 0x0001, 1);
+        journal.reserveSequenceNumbers(node);
+        node.setSequenceNumber(MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE / 2);
+        journal.reserveSequenceNumbers(node);
+        node.setSequenceNumber(MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE);
+        journal.reserveSequenceNumbers(node);
+
+        // The pending reservation covers the sequence number, no further block is reserved
+        assertEquals(2, batches.size());
+        assertEquals(2 * MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(1).sequenceNumbers.get("provisioner"));
+    }
+
+    @Test
+    public void testSequenceNumberReservationIsWrittenBeforeReturning() throws Exception {
+        final ProvisionedMeshNode node = TestNodes.createNode("provisioner", 0x0001, 1);
+        node.setSequenceNumber(10);
+        journal.reserveSequenceNumbers(node);
+
+        // No flush, the reservation must already be written
+        assertEquals(1, batches.size());
+        assertEquals(10 + MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(0).sequenceNumbers.get("provisioner"));
+    }
+
+    @Test
+    public void testFailedSequenceNumberReservationIsRetried() throws Exception {
+        final boolean[] failing = {true};
+        journal = new MeshNetworkJournal(batch -> {
+            if (failing[0])
+                throw new IllegalStateException("Database closed");
+            batches.add(batch);
+        }, executor);
+        final ProvisionedMeshNode node = TestNodes.createNode("provisioner", 0x0001, 1);
+        node.setSequenceNumber(10);
+        try {
+            journal.reserveSequenceNumbers(node);
+            fail("The failed reservation must be reported");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        failing[0] = false;
+        journal.reserveSequenceNumbers(node);
+        assertEquals(1, batches.size());
+        assertEquals(10 + MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(0).sequenceNumbers.get("provisioner"));
+    }
+
+    @Test
+    public void testSequenceNumberResetReservesNewBlock() throws Exception {
+        final ProvisionedMeshNode node = TestNodes.createNode("provisioner", 0x0001, 1);
+        node.setSequenceNumber(1000);
+        journal.reserveSequenceNumbers(node);
+        node.setSequenceNumber(0);
+        journal.reserveSequenceNumbers(node);
+        journal.flush();
+
+        assertEquals(2, batches.size());
+        assertEquals(MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(1).sequenceNumbers.get("provisioner"));
+    }
+
+    @Test
+    public void testNodeWriteKeepsReservation() throws Exception {
+        final ProvisionedMeshNode node = TestNodes.createNode("provisioner", 0x0001, 1);
+        node.setSequenceNumber(5);
+        journal.reserveSequenceNumbers(node);
+        journal.markDirty(node);
+        journal.flush();
+
+        assertEquals(2, batches.size());
+        assertSame(node, batches.get(1).nodes.get(0));
+        assertEquals(5 + MeshNetworkJournal.SEQUENCE_NUMBER_BLOCK_SIZE, (int) batches.get(1).sequenceNumbers.get("provisioner"));
+    }
+}
@@ -0,0 +1,186 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.transport.MeshModel;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.PublicationSettings;
+
+public class MeshNetworkStreamDeserializerTest {
+
+    private static final int NODES = 50;
+    private final Random random = new Random(42);
+    private final ImportExportUtils importExportUtils = new ImportExportUtils();
+
+    @Before
+    public void setUp() {
+        MeshLogger.setLogHandler((priority, tag, message) -> {
+        });
+    }
+
+    @Test
+    public void testNetworkIsStreamedWithoutChanges() throws Exception {
+        final MeshNetwork network = createNetwork();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        importExportUtils.export(network, outputStream);
+        assertEquals(importExportUtils.export(network, false), outputStream.toString("UTF-8"));
+
+        final MeshNetwork imported = importExportUtils.importNetwork(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(network.getMeshUUID(), imported.getMeshUUID());
+        assertEquals(NODES, imported.getNodes().size());
+        assertEquals(1, imported.getProvisioners().size());
+        assertEquals(0x0001, (int) imported.getProvisioners().get(0).getProvisionerAddress());
+        assertEquals(2, imported.getGroups().size());
+        assertEquals(Arrays.asList(0x0001, 0x0002, 0x0003, 0x0010), imported.getScenes().get(0).getAddresses());
+        for (int i = 0; i < NODES; i++) {
+            final ProvisionedMeshNode node = network.getNodes().get(i);
+            final ProvisionedMeshNode importedNode = imported.getNode(node.getUnicastAddress());
+            assertEquals(node.getUuid(), importedNode.getUuid());
+            assertEquals(imported.getMeshUUID(), importedNode.getMeshUuid());
+            assertArrayEquals(node.getDeviceKey(), importedNode.getDeviceKey());
+            final MeshModel model = getModel(importedNode);
+            assertEquals(Arrays.asList(0, 1), model.getBoundAppKeyIndexes());
+            assertEquals(Arrays.asList(0xC000, 0xC001), model.getSubscribedAddresses());
+            assertEquals(0xC001, model.getPublicationSettings().getPublishAddress());
+        }
+    }
+
+    @Test
+    public void testExportConfigurationIsAppliedWhileStreaming() throws Exception {
+        final MeshNetwork network = createNetwork();
+        final ProvisionedMeshNode withDeviceKey = network.getNodes().get(1);
+        final ProvisionedMeshNode withoutDeviceKey = network.getNodes().get(2);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        importExportUtils.export(network,
+                new NetworkKeysConfig.ExportAll().build(),
+                new ApplicationKeysConfig.ExportSome(Collections.singletonList(network.getAppKey(0))).build(),
+                new NodesConfig.ExportSome(Collections.singletonList(withDeviceKey), Collections.singletonList(withoutDeviceKey)).build(),
+                new ProvisionersConfig.ExportAll().build(),
+                (GroupsConfig) new GroupsConfig.ExportSome(Collections.singletonList(network.getGroups().get(0))).build(),
+                new ScenesConfig.ExportAll().build(),
+                outputStream);
+
+        final MeshNetwork imported = importExportUtils.importNetwork(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertTrue(imported.isPartial());
+        // The provisioner node is exported in addition to the selected nodes
+        assertEquals(3, imported.getNodes().size());
+        assertEquals(1, imported.getAppKeys().size());
+        assertEquals(Collections.singletonList(network.getGroups().get(0)), imported.getGroups());
+        assertEquals(Arrays.asList(0x0001, 0x0002, 0x0003), imported.getScenes().get(0).getAddresses());
+
+        assertArrayEquals(withDeviceKey.getDeviceKey(), imported.getNode(withDeviceKey.getUnicastAddress()).getDeviceKey());
+        final byte[] deviceKey = imported.getNode(withoutDeviceKey.getUnicastAddress()).getDeviceKey();
+        assertTrue(deviceKey == null || deviceKey.length == 0);
+        final MeshModel model = getModel(imported.getNode(withDeviceKey.getUnicastAddress()));
+        assertEquals(Collections.singletonList(0), model.getBoundAppKeyIndexes());
+        assertEquals(Collections.singletonList(0xC000), model.getSubscribedAddresses());
+        assertNull(model.getPublicationSettings());
+
+        // The network being exported is left untouched
+        assertNotNull(withoutDeviceKey.getDeviceKey());
+        assertEquals(Arrays.asList(0, 1), getModel(withoutDeviceKey).getBoundAppKeyIndexes());
+        assertEquals(2, getModel(withoutDeviceKey).getSubscribedAddresses().size());
+    }
+
+    @Test
+    public void testModelsWithoutBindingsAndSubscriptionsAreFiltered() {
+        final MeshNetworkStreamDeserializer.Export export =
+                new MeshNetworkStreamDeserializer.Export(new MeshNetwork(UUID.randomUUID().toString()), true);
+        export.appKeyIndexes = Collections.singleton(0);
+        export.excludedGroupAddresses.add(0xC001);
+        final JsonObject nodeJson = JsonParser.parseString("{\"elements\": [" +
+                "{\"models\": [{\"modelId\": \"1000\", \"publish\": {\"address\": \"C000\", \"index\": 0}}]}," +
+                "{\"location\": \"0000\"}]}").getAsJsonObject();
+
+        final Set<Integer> usedAddresses = new HashSet<>();
+        new MeshNetworkStreamDeserializer(new Gson()).filterModels(nodeJson, export, usedAddresses);
+        assertEquals(Collections.singleton(0xC000), usedAddresses);
+        final JsonObject modelJson = nodeJson.getAsJsonArray("elements").get(0).getAsJsonObject()
+                .getAsJsonArray("models").get(0).getAsJsonObject();
+        assertTrue(modelJson.has("publish"));
+    }
+
+    /**
+     * Returns a network whose nodes have a model bound to two application keys, subscribed to two groups and
+     * publishing to one of them. Only the first node is a provisioner.
+     */
+    private MeshNetwork createNetwork() throws Exception {
+        final String meshUuid = UUID.randomUUID().toString();
+        final MeshNetwork network = new MeshNetwork(meshUuid);
+        network.netKeys.add(new NetworkKey(0, randomKey()));
+        for (int i = 0; i < 2; i++) {
+            final ApplicationKey appKey = new ApplicationKey(i, randomKey());
+            appKey.setBoundNetKeyIndex(0);
+            network.appKeys.add(appKey);
+        }
+        final List<AllocatedUnicastRange> unicastRanges = new ArrayList<>();
+        unicastRanges.add(new AllocatedUnicastRange(0x0001, 0x7FFF));
+        for (int i = 0; i < NODES; i++) {
+            final Provisioner provisioner = new Provisioner(UUID.randomUUID().toString(), unicastRanges,
+                    new ArrayList<>(), new ArrayList<>(), meshUuid);
+            provisioner.assignProvisionerAddress(i + 1);
+            final ProvisionedMeshNode node = new ProvisionedMeshNode(provisioner, network.netKeys, network.appKeys);
+            getModel(node).setPublicationSettings(new PublicationSettings(0xC001, 1, false, 0, 0));
+            network.nodes.add(node);
+            if (i == 0) {
+                network.provisioners.add(provisioner);
+            }
+        }
+        network.groups.add(new Group(0xC000, meshUuid));
+        network.groups.add(new Group(0xC001, meshUuid));
+        network.scenes.add(new Scene(1, Arrays.asList(0x0001, 0x0002, 0x0003, 0x0010), meshUuid));
+
+        // Key bindings and subscriptions can only be set through the json.
+        final JsonObject json = JsonParser.parseString(importExportUtils.export(network, false)).getAsJsonObject();
+        for (JsonElement node : json.getAsJsonArray("nodes")) {
+            for (JsonElement element : node.getAsJsonObject().getAsJsonArray("elements")) {
+                for (JsonElement model : element.getAsJsonObject().getAsJsonArray("models")) {
+                    final JsonArray bind = new JsonArray();
+                    bind.add(0);
+                    bind.add(1);
+                    model.getAsJsonObject().add("bind", bind);
+                    final JsonArray subscribe = new JsonArray();
+                    subscribe.add("C000");
+                    subscribe.add("C001");
+                    model.getAsJsonObject().add("subscribe", subscribe);
+                }
+            }
+        }
+        return importExportUtils.importNetwork(json.toString());
+    }
+
+    private static MeshModel getModel(final ProvisionedMeshNode node) {
+        return node.getElements().values().iterator().next().getMeshModels().values().iterator().next();
+    }
+
+    private byte[] randomKey() {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+}
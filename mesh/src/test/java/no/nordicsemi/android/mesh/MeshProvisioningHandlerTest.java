@@ -0,0 +1,143 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.provisionerstates.ProvisioningState;
+import no.nordicsemi.android.mesh.provisionerstates.UnprovisionedMeshNode;
+import no.nordicsemi.android.mesh.transport.ProvisionedMeshNode;
+
+public class MeshProvisioningHandlerTest {
+
+    private static final byte PROVISIONING_FAILED = 0x09;
+    private static final byte UNEXPECTED_PDU = 0x03;
+
+    private final UUID deviceA = UUID.randomUUID();
+    private final UUID deviceB = UUID.randomUUID();
+    private final List<UnprovisionedMeshNode> sentTo = new ArrayList<>();
+    private final List<UUID> closedSessions = new ArrayList<>();
+    private final List<UnprovisionedMeshNode> failedNodes = new ArrayList<>();
+    private final FakeMeshScheduler scheduler = new FakeMeshScheduler();
+    private MeshProvisioningHandler handler;
+
+    @Before
+    public void setUp() {
+        MeshLogger.setLogHandler((priority, tag, message) -> {
+        });
+        final InternalTransportCallbacks transportCallbacks = proxy(InternalTransportCallbacks.class, (proxy, method, args) -> {
+            if (method.getName().equals("sendProvisioningPdu")) {
+                sentTo.add((UnprovisionedMeshNode) args[0]);
+            }
+            return null;
+        });
+        handler = new MeshProvisioningHandler(null, scheduler, transportCallbacks, new InternalMeshManagerCallbacks() {
+            @Override
+            public void onNodeProvisioned(final ProvisionedMeshNode meshNode, final int numberOfElements) {
+            }
+
+            @Override
+            public void onProvisioningSessionClosed(final UUID deviceUuid) {
+                closedSessions.add(deviceUuid);
+            }
+        });
+        handler.setProvisioningCallbacks(new MeshProvisioningStatusCallbacks() {
+            @Override
+            public void onProvisioningStateChanged(final UnprovisionedMeshNode meshNode, final ProvisioningState.States state, final byte[] data) {
+            }
+
+            @Override
+            public void onProvisioningFailed(final UnprovisionedMeshNode meshNode, final ProvisioningState.States state, final byte[] data) {
+                failedNodes.add(meshNode);
+            }
+
+            @Override
+            public void onProvisioningCompleted(final ProvisionedMeshNode meshNode, final ProvisioningState.States state, final byte[] data) {
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        MeshLogger.setLogHandler(null);
+    }
+
+    @Test
+    public void testSessionsAreKeyedByDeviceUuid() {
+        identify(deviceA);
+        identify(deviceB);
+        assertEquals(2, handler.getSessionCount());
+        assertEquals(2, sentTo.size());
+        assertEquals(deviceA, sentTo.get(0).getDeviceUuid());
+        assertEquals(deviceB, sentTo.get(1).getDeviceUuid());
+
+        handler.cancel(deviceA);
+        assertFalse(handler.hasSession(deviceA));
+        assertTrue(handler.hasSession(deviceB));
+        assertEquals(1, closedSessions.size());
+        assertEquals(deviceA, closedSessions.get(0));
+    }
+
+    @Test
+    public void testFailureOnlyClosesItsOwnSession() {
+        identify(deviceA);
+        identify(deviceB);
+        final byte[] invite = {MeshManagerApi.PDU_TYPE_PROVISIONING, 0x00, 0x05};
+        handler.handleProvisioningWriteCallbacks(deviceA, invite);
+        handler.handleProvisioningWriteCallbacks(deviceB, invite);
+
+        // The provisioning failed pdu is received in two segments on the link of device A
+        handler.parseProvisioningNotifications(deviceA, new byte[]{0x43, PROVISIONING_FAILED});
+        assertEquals(1, scheduler.getScheduledCount());
+        assertTrue(failedNodes.isEmpty());
+        handler.parseProvisioningNotifications(deviceA, new byte[]{(byte) 0xC3, UNEXPECTED_PDU});
+        assertTrue(scheduler.isIdle());
+
+        assertEquals(1, failedNodes.size());
+        assertEquals(deviceA, failedNodes.get(0).getDeviceUuid());
+        assertArrayEquals(new Object[]{deviceA}, closedSessions.toArray());
+        assertFalse(handler.hasSession(deviceA));
+        assertTrue(handler.hasSession(deviceB));
+        assertSame(sentTo.get(1), handler.getMeshNode());
+    }
+
+    @Test
+    public void testReservedAddressesAreNotAssignedTwice() {
+        final MeshNetwork network = new MeshNetwork("network");
+        network.reserveUnicastAddresses(deviceA, 0x0002, 3);
+        assertTrue(network.isUnicastAddressReserved(deviceB, 0x0004, 1));
+        assertFalse(network.isUnicastAddressReserved(deviceA, 0x0004, 1));
+        assertFalse(network.isUnicastAddressReserved(deviceB, 0x0005, 2));
+        try {
+            network.reserveUnicastAddresses(deviceB, 0x0001, 2);
+            throw new AssertionError("Overlapping reservation was accepted");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        network.releaseUnicastAddresses(deviceA);
+        network.reserveUnicastAddresses(deviceB, 0x0001, 2);
+        assertTrue(network.isUnicastAddressReserved(deviceA, 0x0002, 1));
+    }
+
+    private void identify(final UUID deviceUuid) {
+        handler.identify(deviceUuid, new NetworkKey(0, new byte[16]), 0, 0, 5, MeshProvisioningHandler.ATTENTION_TIMER);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final InvocationHandler invocationHandler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+}
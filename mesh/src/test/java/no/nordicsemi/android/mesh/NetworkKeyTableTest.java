@@ -0,0 +1,106 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class NetworkKeyTableTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testCandidatesAreIndexedByNid() {
+        final NetworkKeyTable table = new NetworkKeyTable();
+        final List<NetworkKey> netKeys = new ArrayList<>();
+        final NetworkKey key0 = new NetworkKey(0, randomKey());
+        final NetworkKey key1 = createKeyWithDifferentNid(1, key0);
+        netKeys.add(key0);
+        netKeys.add(key1);
+
+        final int nid = key1.getDerivatives().getNid();
+        final List<NetworkKeyTable.Candidate> candidates = table.getCandidates(netKeys, nid);
+        assertEquals(1, candidates.size());
+        assertSame(key1, candidates.get(0).getNetworkKey());
+        assertSame(key1.getDerivatives(), candidates.get(0).getK2Output());
+        assertFalse(candidates.get(0).isOldKey());
+    }
+
+    @Test
+    public void testCandidatesAreOrderedByLastSuccess() {
+        final NetworkKeyTable table = new NetworkKeyTable();
+        final List<NetworkKey> netKeys = new ArrayList<>();
+        final NetworkKey key0 = new NetworkKey(0, randomKey());
+        final NetworkKey key1 = createKeyWithSameNid(1, key0);
+        netKeys.add(key0);
+        netKeys.add(key1);
+
+        final int nid = key0.getDerivatives().getNid();
+        List<NetworkKeyTable.Candidate> candidates = table.getCandidates(netKeys, nid);
+        assertEquals(2, candidates.size());
+        assertSame(key0, candidates.get(0).getNetworkKey());
+
+        table.onDecrypted(candidates.get(1));
+        candidates = table.getCandidates(netKeys, nid);
+        assertSame(key1, candidates.get(0).getNetworkKey());
+
+        // The order is kept when the table is rebuilt
+        final NetworkKey key2 = createKeyWithDifferentNid(2, key0);
+        netKeys.add(key2);
+        candidates = table.getCandidates(netKeys, nid);
+        assertSame(key1, candidates.get(0).getNetworkKey());
+    }
+
+    @Test
+    public void testKeyRefreshUpdatesCandidates() {
+        final NetworkKeyTable table = new NetworkKeyTable();
+        final List<NetworkKey> netKeys = new ArrayList<>();
+        final NetworkKey key = new NetworkKey(0, randomKey());
+        netKeys.add(key);
+        final int oldNid = key.getDerivatives().getNid();
+        table.getCandidates(netKeys, oldNid);
+
+        // Distributing a new key without notifying the table
+        final NetworkKey newKey = createKeyWithDifferentNid(0, key);
+        assertTrue(key.distributeKey(newKey.getKey()));
+        final List<NetworkKeyTable.Candidate> candidates = table.getCandidates(netKeys, key.getDerivatives().getNid());
+        assertEquals(1, candidates.size());
+        assertSame(key.getDerivatives(), candidates.get(0).getK2Output());
+        assertEquals(NetworkKey.KEY_DISTRIBUTION, candidates.get(0).getPhase());
+
+        final List<NetworkKeyTable.Candidate> oldCandidates = table.getCandidates(netKeys, oldNid);
+        assertEquals(1, oldCandidates.size());
+        assertTrue(oldCandidates.get(0).isOldKey());
+
+        assertTrue(key.switchToNewKey());
+        assertEquals(NetworkKey.USING_NEW_KEYS, table.getCandidates(netKeys, oldNid).get(0).getPhase());
+    }
+
+    private NetworkKey createKeyWithSameNid(final int keyIndex, final NetworkKey other) {
+        while (true) {
+            final NetworkKey key = new NetworkKey(keyIndex, randomKey());
+            if (key.getDerivatives().getNid() == other.getDerivatives().getNid())
+                return key;
+        }
+    }
+
+    private NetworkKey createKeyWithDifferentNid(final int keyIndex, final NetworkKey other) {
+        while (true) {
+            final NetworkKey key = new NetworkKey(keyIndex, randomKey());
+            if (key.getDerivatives().getNid() != other.getDerivatives().getNid())
+                return key;
+        }
+    }
+
+    private byte[] randomKey() {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+}
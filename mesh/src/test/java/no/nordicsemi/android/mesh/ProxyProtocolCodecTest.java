@@ -0,0 +1,104 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ProxyProtocolCodecTest {
+
+    private static final int MTU = 20;
+
+    @Test
+    public void testPduFittingTheMtuIsNotSegmented() {
+        final byte[] pdu = createPdu(MeshManagerApi.PDU_TYPE_NETWORK, MTU);
+        assertSame(pdu, ProxyProtocolCodec.encode(MTU, pdu));
+        assertFalse(ProxyProtocolCodec.isSegmented(pdu));
+        assertSame(pdu, new ProxyProtocolCodec().decode(pdu));
+    }
+
+    @Test
+    public void testFragmentsFitTheMtu() {
+        // 40 bytes of payload need three fragments carrying 19, 19 and 2 bytes
+        final byte[] pdu = createPdu(MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION, 41);
+        final byte[] segmented = ProxyProtocolCodec.encode(MTU, pdu);
+        assertEquals(MTU + MTU + 3, segmented.length);
+        assertEquals((byte) 0x42, segmented[0]);
+        assertEquals((byte) 0x82, segmented[MTU]);
+        assertEquals((byte) 0xC2, segmented[2 * MTU]);
+        assertArrayEquals(Arrays.copyOfRange(pdu, 1, MTU), Arrays.copyOfRange(segmented, 1, MTU));
+    }
+
+    @Test
+    public void testEncodedPduIsDecoded() {
+        final ProxyProtocolCodec codec = new ProxyProtocolCodec();
+        for (int length = MTU + 1; length < 4 * MTU; length++) {
+            final byte[] pdu = createPdu(MeshManagerApi.PDU_TYPE_PROVISIONING, length);
+            final byte[] segmented = ProxyProtocolCodec.encode(MTU, pdu);
+            byte[] decoded = null;
+            for (int offset = 0; offset < segmented.length; offset += MTU) {
+                assertNull(decoded);
+                decoded = codec.decode(Arrays.copyOfRange(segmented, offset, Math.min(offset + MTU, segmented.length)));
+            }
+            assertArrayEquals(pdu, decoded);
+        }
+    }
+
+    @Test
+    public void testFragmentsShorterThanTheMtuAreDecoded() {
+        final ProxyProtocolCodec codec = new ProxyProtocolCodec();
+        assertNull(codec.decode(new byte[]{0x43, 0x01}));
+        assertNull(codec.decode(new byte[]{(byte) 0x83, 0x02, 0x03}));
+        assertArrayEquals(new byte[]{0x03, 0x01, 0x02, 0x03, 0x04}, codec.decode(new byte[]{(byte) 0xC3, 0x04}));
+        assertFalse(codec.isReassembling(MeshManagerApi.PDU_TYPE_PROVISIONING));
+    }
+
+    @Test
+    public void testPduTypesAreReassembledSeparately() {
+        final ProxyProtocolCodec codec = new ProxyProtocolCodec();
+        assertNull(codec.decode(new byte[]{0x42, 0x01}));
+        assertNull(codec.decode(new byte[]{0x40, 0x11}));
+        assertArrayEquals(new byte[]{0x02, 0x01, 0x02}, codec.decode(new byte[]{(byte) 0xC2, 0x02}));
+        assertArrayEquals(new byte[]{0x00, 0x11, 0x12}, codec.decode(new byte[]{(byte) 0xC0, 0x12}));
+    }
+
+    @Test
+    public void testFragmentsWithoutStartAreDropped() {
+        final ProxyProtocolCodec codec = new ProxyProtocolCodec();
+        assertNull(codec.decode(new byte[]{(byte) 0x82, 0x01}));
+        assertNull(codec.decode(new byte[]{(byte) 0xC2, 0x02}));
+        assertFalse(codec.isReassembling(MeshManagerApi.PDU_TYPE_PROXY_CONFIGURATION));
+
+        assertNull(codec.decode(new byte[]{0x42, 0x01}));
+        codec.reset();
+        assertNull(codec.decode(new byte[]{(byte) 0xC2, 0x02}));
+    }
+
+    @Test
+    public void testStartDiscardsIncompletePdu() {
+        final ProxyProtocolCodec codec = new ProxyProtocolCodec();
+        assertNull(codec.decode(new byte[]{0x42, 0x01}));
+        assertNull(codec.decode(new byte[]{0x42, 0x05}));
+        assertArrayEquals(new byte[]{0x02, 0x05, 0x06}, codec.decode(new byte[]{(byte) 0xC2, 0x06}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMtuMustFitPayload() {
+        ProxyProtocolCodec.encode(1, createPdu(MeshManagerApi.PDU_TYPE_NETWORK, 2));
+    }
+
+    private static byte[] createPdu(final byte pduType, final int length) {
+        final byte[] pdu = new byte[length];
+        pdu[0] = pduType;
+        for (int i = 1; i < length; i++) {
+            pdu[i] = (byte) i;
+        }
+        return pdu;
+    }
+}
@@ -0,0 +1,129 @@
+package no.nordicsemi.android.mesh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import no.nordicsemi.android.mesh.utils.SecureUtils;
+
+public class SecureNetworkBeaconTableTest {
+
+    private static final int IV_INDEX = 0x12345678;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testBeaconIsAuthenticatedWithMatchingNetworkKey() {
+        final SecureNetworkBeaconTable table = new SecureNetworkBeaconTable();
+        final List<NetworkKey> netKeys = new ArrayList<>();
+        final NetworkKey key0 = new NetworkKey(0, randomKey());
+        final NetworkKey key1 = new NetworkKey(1, randomKey());
+        netKeys.add(key0);
+        netKeys.add(key1);
+
+        assertSame(key1, table.authenticate(netKeys, createBeaconPdu(key1.getTxNetworkKey(), 0x02)));
+        assertSame(key0, table.authenticate(netKeys, createBeaconPdu(key0.getTxNetworkKey(), 0x00)));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testInvalidBeaconIsNotAuthenticated() {
+        final SecureNetworkBeaconTable table = new SecureNetworkBeaconTable();
+        final List<NetworkKey> netKeys = new ArrayList<>();
+        final NetworkKey key = new NetworkKey(0, randomKey());
+        netKeys.add(key);
+
+        final byte[] pdu = createBeaconPdu(key.getTxNetworkKey(), 0x00);
+        pdu[pdu.length - 1] ^= 0x01;
+        assertNull(table.authenticate(netKeys, pdu));
+        assertNull(table.authenticate(netKeys, createBeaconPdu(randomKey(), 0x00)));
+        assertNull(table.authenticate(netKeys, new byte[]{MeshManagerApi.PDU_TYPE_MESH_BEACON, 0x00}));
+    }
+
+    @Test
+    public void testBeaconOfKeyRefreshPhaseIsAuthenticated() {
+        final SecureNetworkBeaconTable table = new SecureNetworkBeaconTable();
+        final List<NetworkKey> netKeys = new ArrayList<>();
+        final NetworkKey key = new NetworkKey(0, randomKey());
+        netKeys.add(key);
+        final byte[] oldKey = key.getKey();
+        assertSame(key, table.authenticate(netKeys, createBeaconPdu(oldKey, 0x00)));
+
+        // Beacons may be sent with either key during the key distribution and using new keys phases
+        assertTrue(key.distributeKey(randomKey()));
+        table.invalidate();
+        assertSame(key, table.authenticate(netKeys, createBeaconPdu(oldKey, 0x00)));
+        assertSame(key, table.authenticate(netKeys, createBeaconPdu(key.getKey(), 0x00)));
+
+        assertTrue(key.switchToNewKey());
+        table.invalidate();
+        assertSame(key, table.authenticate(netKeys, createBeaconPdu(oldKey, 0x01)));
+        assertSame(key, table.authenticate(netKeys, createBeaconPdu(key.getKey(), 0x01)));
+
+        assertTrue(key.revokeOldKey());
+        table.invalidate();
+        assertNull(table.authenticate(netKeys, createBeaconPdu(oldKey, 0x00)));
+        assertSame(key, table.authenticate(netKeys, createBeaconPdu(key.getKey(), 0x00)));
+    }
+
+    @Test
+    public void testCopiedAndUpdatedKeysAreAuthenticated() {
+        final SecureNetworkBeaconTable table = new SecureNetworkBeaconTable();
+        final List<NetworkKey> netKeys = new ArrayList<>();
+        final NetworkKey key = new NetworkKey(0, randomKey());
+        netKeys.add(key);
+        assertSame(key, table.authenticate(netKeys, createBeaconPdu(key.getKey(), 0x00)));
+
+        // A reloaded network contains copies of the keys, the entry derived from the same key is kept
+        final NetworkKey copy = new NetworkKey(0, key.getKey().clone());
+        netKeys.set(0, copy);
+        assertSame(copy, table.authenticate(netKeys, createBeaconPdu(key.getKey(), 0x00)));
+        assertEquals(1, table.size());
+
+        // A key updated without the table being invalidated is derived again
+        final byte[] newKey = randomKey();
+        copy.setKey(newKey);
+        assertSame(copy, table.authenticate(netKeys, createBeaconPdu(newKey, 0x00)));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testRepeatedBeaconIsDuplicateUntilIvIndexChanges() {
+        final SecureNetworkBeaconTable table = new SecureNetworkBeaconTable();
+        final byte[] pdu = createBeaconPdu(randomKey(), 0x00);
+        final IvIndex ivIndex = new IvIndex(IV_INDEX, false, null);
+        assertFalse(table.isDuplicate(pdu, ivIndex));
+
+        table.onAccepted(pdu, ivIndex);
+        assertTrue(table.isDuplicate(pdu.clone(), ivIndex));
+
+        ivIndex.setIvUpdateActive(true);
+        assertFalse(table.isDuplicate(pdu, ivIndex));
+        assertFalse(table.isDuplicate(pdu, new IvIndex(IV_INDEX + 1, false, null)));
+
+        table.clear();
+        assertFalse(table.isDuplicate(pdu, new IvIndex(IV_INDEX, false, null)));
+    }
+
+    private byte[] createBeaconPdu(final byte[] key, final int flags) {
+        final byte[] beacon = SecureUtils.calculateSecureNetworkBeacon(key, 1, flags, SecureUtils.calculateK3(key), IV_INDEX);
+        final byte[] pdu = new byte[beacon.length + 1];
+        pdu[0] = MeshManagerApi.PDU_TYPE_MESH_BEACON;
+        System.arraycopy(beacon, 0, pdu, 1, beacon.length);
+        return pdu;
+    }
+
+    private byte[] randomKey() {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+}
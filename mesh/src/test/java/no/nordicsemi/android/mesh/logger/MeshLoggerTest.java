@@ -0,0 +1,73 @@
+package no.nordicsemi.android.mesh.logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MeshLoggerTest {
+
+    private final List<String> messages = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        MeshLogger.setLogHandler(null);
+        MeshLogger.setLogLevel(Log.VERBOSE);
+    }
+
+    @Test
+    public void testAllMessagesAreLoggedByDefault() {
+        MeshLogger.setLogHandler((priority, tag, message) -> messages.add(message));
+        assertEquals(Log.VERBOSE, MeshLogger.getLogLevel());
+        assertTrue(MeshLogger.isLoggable(Log.VERBOSE));
+
+        MeshLogger.verbose("TAG", "PDU: {}", new byte[]{0x01, (byte) 0xAB});
+        MeshLogger.debug("TAG", "SeqAuth: {}", 1);
+        MeshLogger.warn("TAG", "Warning");
+
+        assertEquals(3, messages.size());
+        assertEquals("PDU: 01AB", messages.get(0));
+        assertEquals("SeqAuth: 1", messages.get(1));
+        assertEquals("Warning", messages.get(2));
+    }
+
+    @Test
+    public void testParameterizedMessagesAreFormatted() {
+        MeshLogger.setLogHandler((priority, tag, message) -> messages.add(message));
+        MeshLogger.verbose("TAG", "PDU: {}", new byte[]{0x01, (byte) 0xAB});
+        MeshLogger.verbose("TAG", "Segment {} of {}", 1, 3);
+        MeshLogger.debug("TAG", "SeqAuth: {}", 0x123456);
+        MeshLogger.verbose("TAG", "Missing {} and {}", "one");
+
+        assertEquals("PDU: 01AB", messages.get(0));
+        assertEquals("Segment 1 of 3", messages.get(1));
+        assertEquals("SeqAuth: 1193046", messages.get(2));
+        assertEquals("Missing one and {}", messages.get(3));
+    }
+
+    @Test
+    public void testFilteredMessagesAreNotBuilt() {
+        MeshLogger.setLogHandler((priority, tag, message) -> messages.add(message));
+        MeshLogger.setLogLevel(Log.INFO);
+
+        assertFalse(MeshLogger.isLoggable(Log.VERBOSE));
+        assertFalse(MeshLogger.isLoggable(Log.DEBUG));
+        assertTrue(MeshLogger.isLoggable(Log.INFO));
+
+        MeshLogger.verbose("TAG", () -> {
+            throw new AssertionError("Supplier must not be invoked");
+        });
+        MeshLogger.debug("TAG", "SeqAuth: {}", 1);
+        MeshLogger.info("TAG", "Info");
+
+        assertEquals(1, messages.size());
+        assertEquals("Info", messages.get(0));
+    }
+}
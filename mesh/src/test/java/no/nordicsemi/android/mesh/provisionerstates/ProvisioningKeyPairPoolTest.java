@@ -0,0 +1,63 @@
+package no.nordicsemi.android.mesh.provisionerstates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProvisioningKeyPairPoolTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    public void testPoolIsRefilledInBackground() {
+        final ProvisioningKeyPairPool pool = new ProvisioningKeyPairPool(tasks::add, () -> new KeyPair(null, null));
+        pool.refill();
+        pool.refill();
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(ProvisioningKeyPairPool.DEFAULT_DEPTH, pool.size());
+
+        final KeyPair first = pool.poll();
+        final KeyPair second = pool.poll();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertNull(pool.poll());
+
+        runTasks();
+        assertEquals(ProvisioningKeyPairPool.DEFAULT_DEPTH, pool.size());
+        final KeyPair third = pool.poll();
+        assertNotSame(first, third);
+        assertNotSame(second, third);
+    }
+
+    @Test
+    public void testDepthCanBeChanged() {
+        final ProvisioningKeyPairPool pool = new ProvisioningKeyPairPool(tasks::add, () -> new KeyPair(null, null));
+        pool.setDepth(3);
+        runTasks();
+        assertEquals(3, pool.size());
+        pool.setDepth(0);
+        assertEquals(0, pool.size());
+        assertNull(pool.poll());
+        assertEquals(0, tasks.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDepthIsRejected() {
+        new ProvisioningKeyPairPool(tasks::add, () -> new KeyPair(null, null)).setDepth(-1);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
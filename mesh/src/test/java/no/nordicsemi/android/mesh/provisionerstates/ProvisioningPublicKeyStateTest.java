@@ -0,0 +1,52 @@
+package no.nordicsemi.android.mesh.provisionerstates;
+
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.InternalTransportCallbacks;
+import no.nordicsemi.android.mesh.MeshProvisioningStatusCallbacks;
+import no.nordicsemi.android.mesh.logger.MeshLogger;
+import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+
+public class ProvisioningPublicKeyStateTest {
+
+    // Base point of the P-256 curve, used as a valid provisionee public key
+    private static final String P256_GENERATOR_XY = "6B17D1F2E12C4247F8BCE6E563A440F277037D812DEB33A0F4A13945D898C296"
+            + "4FE342E2FE1A7F9B8EE7EB4A7C0F9E162BCE33576B315ECECBB6406837BF51F5";
+
+    private final MeshProvisioningStatusCallbacks statusCallbacks = mock(MeshProvisioningStatusCallbacks.class);
+    private final InternalTransportCallbacks transportCallbacks = mock(InternalTransportCallbacks.class);
+    private final UnprovisionedMeshNode node = new UnprovisionedMeshNode(UUID.randomUUID());
+
+    @Before
+    public void setUp() {
+        MeshLogger.setLogHandler((priority, tag, message) -> {
+        });
+    }
+
+    @After
+    public void tearDown() {
+        MeshLogger.setLogHandler(null);
+    }
+
+    @Test
+    public void testFailureIsReportedWhenSharedSecretCannotBeGenerated() {
+        final ProvisioningPublicKeyState state = new ProvisioningPublicKeyState(node, transportCallbacks, statusCallbacks);
+
+        // The key pair of the provisioner has not been generated, so the key agreement fails
+        final byte[] xy = MeshParserUtils.toByteArray(P256_GENERATOR_XY);
+        assertFalse(state.parseData(xy));
+        verify(statusCallbacks).onProvisioningFailed(node, ProvisioningState.States.PROVISIONING_FAILED, xy);
+        verify(transportCallbacks, never()).sendProvisioningPdu(eq(node), any(byte[].class));
+    }
+}
@@ -0,0 +1,94 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.ApplicationKey;
+import no.nordicsemi.android.mesh.ConfigurationPlan;
+import no.nordicsemi.android.mesh.Group;
+import no.nordicsemi.android.mesh.MeshNetwork;
+import no.nordicsemi.android.mesh.NetworkKey;
+import no.nordicsemi.android.mesh.NodeKey;
+import no.nordicsemi.android.mesh.models.GenericOnOffServerModel;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+
+public class ConfigurationPlanTest {
+
+    private static final int GENERIC_ON_OFF_SERVER = 0x1000;
+    private final Random random = new Random(42);
+    private MeshNetwork network;
+    private NetworkKey netKey;
+    private ApplicationKey appKey;
+    private Group group;
+
+    @Before
+    public void setUp() {
+        final String meshUuid = UUID.randomUUID().toString();
+        network = new MeshNetwork(meshUuid);
+        netKey = new NetworkKey(0, randomKey());
+        network.addNetKey(netKey);
+        appKey = new ApplicationKey(0, randomKey());
+        appKey.setBoundNetKeyIndex(0);
+        group = new Group(0xC000, meshUuid);
+    }
+
+    @Test
+    public void testCompositionDataIsRequestedFirst() {
+        final ConfigurationPlan plan = new ConfigurationPlan().bindAppKey(GENERIC_ON_OFF_SERVER, appKey);
+        final List<MeshMessage> messages = plan.getMessages(network, new ProvisionedMeshNode());
+        assertEquals(1, messages.size());
+        assertTrue(messages.get(0) instanceof ConfigCompositionDataGet);
+    }
+
+    @Test
+    public void testOnlyMissingConfigurationIsSent() {
+        final GenericOnOffServerModel model = new GenericOnOffServerModel(GENERIC_ON_OFF_SERVER);
+        final ProvisionedMeshNode node = TestNodes.createNode(0x0002, Collections.<MeshModel>singletonList(model),
+                Collections.singletonList(netKey.getKeyIndex()), Collections.<Integer>emptyList());
+        final ConfigurationPlan plan = new ConfigurationPlan()
+                .bindAppKey(GENERIC_ON_OFF_SERVER, appKey)
+                .addSubscription(GENERIC_ON_OFF_SERVER, group);
+
+        List<MeshMessage> messages = plan.getMessages(network, node);
+        assertEquals(3, messages.size());
+        assertEquals(ConfigMessageOpCodes.CONFIG_APPKEY_ADD, messages.get(0).getOpCode());
+        assertEquals(ConfigMessageOpCodes.CONFIG_MODEL_APP_BIND, messages.get(1).getOpCode());
+        assertEquals(ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_ADD, messages.get(2).getOpCode());
+
+        final List<NodeKey> appKeys = new ArrayList<>();
+        appKeys.add(new NodeKey(appKey.getKeyIndex()));
+        node.setAddedAppKeys(appKeys);
+        model.setBoundAppKeyIndex(appKey.getKeyIndex());
+        messages = plan.getMessages(network, node);
+        assertEquals(1, messages.size());
+        assertEquals(ConfigMessageOpCodes.CONFIG_MODEL_SUBSCRIPTION_ADD, messages.get(0).getOpCode());
+
+        model.addSubscriptionAddress(group.getAddress());
+        assertTrue(plan.getMessages(network, node).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBoundNetKeyIsRejected() {
+        final ApplicationKey key = new ApplicationKey(1, randomKey());
+        key.setBoundNetKeyIndex(5);
+        final ProvisionedMeshNode node = TestNodes.createNode(0x0002,
+                Collections.<MeshModel>singletonList(new GenericOnOffServerModel(GENERIC_ON_OFF_SERVER)),
+                Collections.singletonList(netKey.getKeyIndex()), Collections.<Integer>emptyList());
+        new ConfigurationPlan().addAppKey(key).getMessages(network, node);
+    }
+
+    private byte[] randomKey() {
+        final byte[] key = new byte[16];
+        random.nextBytes(key);
+        return key;
+    }
+}
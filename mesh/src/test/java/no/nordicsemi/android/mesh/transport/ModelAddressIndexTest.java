@@ -0,0 +1,92 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.ApplicationKey;
+import no.nordicsemi.android.mesh.Group;
+import no.nordicsemi.android.mesh.MeshNetwork;
+import no.nordicsemi.android.mesh.NetworkKey;
+import no.nordicsemi.android.mesh.models.GenericLevelServerModel;
+import no.nordicsemi.android.mesh.models.GenericOnOffServerModel;
+import no.nordicsemi.android.mesh.utils.MeshAddress;
+import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+
+public class ModelAddressIndexTest {
+
+    private static final int NET_KEY_INDEX = 0;
+    private static final int APP_KEY_INDEX = 0;
+    private static final List<Integer> NET_KEY_INDEXES = Collections.singletonList(NET_KEY_INDEX);
+    private static final List<Integer> APP_KEY_INDEXES = Collections.singletonList(APP_KEY_INDEX);
+
+    private MeshNetwork network;
+    private Group group;
+
+    @Before
+    public void setUp() {
+        network = new MeshNetwork(UUID.randomUUID().toString());
+        network.addNetKey(new NetworkKey(NET_KEY_INDEX, MeshParserUtils.toByteArray("7DD7364CD842AD18C17C2B820C84C3D6")));
+        final ApplicationKey appKey = new ApplicationKey(APP_KEY_INDEX, MeshParserUtils.toByteArray("63964771734FBD76E3B40519D1D94A48"));
+        appKey.setBoundNetKeyIndex(NET_KEY_INDEX);
+        network.addAppKey(appKey);
+        group = new Group(0xC000, network.getMeshUUID());
+    }
+
+    @Test
+    public void testSubscriptionsAndPublicationsAreIndexedByAddress() {
+        final GenericOnOffServerModel onOff = new GenericOnOffServerModel(0x1000);
+        final GenericLevelServerModel level = new GenericLevelServerModel(0x1002);
+        final GenericOnOffServerModel otherOnOff = new GenericOnOffServerModel(0x1000);
+        onOff.addSubscriptionAddress(group.getAddress());
+        level.addSubscriptionAddress(group.getAddress());
+        otherOnOff.addSubscriptionAddress(0xC001);
+        otherOnOff.setPublicationSettings(new PublicationSettings(group.getAddress(), APP_KEY_INDEX, false, 0, 0));
+        final UUID label = UUID.randomUUID();
+        final int virtualAddress = MeshAddress.generateVirtualAddress(label);
+        level.addSubscriptionAddress(label, virtualAddress);
+
+        final ProvisionedMeshNode first = TestNodes.createNode(0x0002, Arrays.asList(onOff, level), NET_KEY_INDEXES, APP_KEY_INDEXES);
+        final ProvisionedMeshNode second = TestNodes.createNode(0x0003, Collections.singletonList(otherOnOff), NET_KEY_INDEXES, APP_KEY_INDEXES);
+        network.addNode(first);
+        network.addNode(second);
+
+        assertEquals(Arrays.<MeshModel>asList(onOff, level), network.getModels(group));
+        assertEquals(Collections.singletonList(first.getElements().get(0x0002)), network.getElements(group));
+        assertEquals(Collections.<MeshModel>singletonList(otherOnOff), network.getPublishingModels(group));
+        assertEquals(label, network.getLabelUuid(virtualAddress));
+    }
+
+    @Test
+    public void testIndexFollowsNodeUpdatesAndRemovals() {
+        final GenericOnOffServerModel onOff = new GenericOnOffServerModel(0x1000);
+        onOff.addSubscriptionAddress(group.getAddress());
+        final UUID label = UUID.randomUUID();
+        final int virtualAddress = MeshAddress.generateVirtualAddress(label);
+        onOff.addSubscriptionAddress(label, virtualAddress);
+        final ProvisionedMeshNode node = TestNodes.createNode(0x0002, Collections.<MeshModel>singletonList(onOff), NET_KEY_INDEXES, APP_KEY_INDEXES);
+        network.addNode(node);
+        assertEquals(1, network.getModels(group).size());
+
+        // Updating the node, as done after each configuration status, re-indexes its models
+        onOff.removeSubscriptionAddress(group.getAddress());
+        onOff.removeSubscriptionAddress(label, virtualAddress);
+        onOff.addSubscriptionAddress(0xC001);
+        network.updateNodeName(node, "Node");
+        assertTrue(network.getModels(group).isEmpty());
+        assertNull(network.getLabelUuid(virtualAddress));
+        assertEquals(1, network.getModels(new Group(0xC001, network.getMeshUUID())).size());
+
+        network.deleteNode(node);
+        assertTrue(network.getModels(new Group(0xC001, network.getMeshUUID())).isEmpty());
+        assertTrue(network.getElements(group).isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class NetworkMessageCacheTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testDuplicatePduIsFound() {
+        final NetworkMessageCache cache = new NetworkMessageCache(4);
+        final byte[] pdu = randomPdu(20);
+        assertFalse(cache.contains(pdu));
+        cache.add(pdu);
+        assertTrue(cache.contains(pdu.clone()));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testPdusWithDifferentNetMicAreNotDuplicates() {
+        final NetworkMessageCache cache = new NetworkMessageCache(4);
+        final byte[] pdu = randomPdu(20);
+        cache.add(pdu);
+        final byte[] other = pdu.clone();
+        other[other.length - 1] ^= 0x01;
+        assertFalse(cache.contains(other));
+    }
+
+    @Test
+    public void testOldestPduIsEvicted() {
+        final NetworkMessageCache cache = new NetworkMessageCache(16);
+        final byte[][] pdus = new byte[64][];
+        for (int i = 0; i < pdus.length; i++) {
+            pdus[i] = randomPdu(18 + i % 8);
+            cache.add(pdus[i]);
+        }
+        assertEquals(16, cache.size());
+        for (int i = 0; i < pdus.length; i++) {
+            assertEquals(i >= pdus.length - 16, cache.contains(pdus[i]));
+        }
+    }
+
+    @Test
+    public void testDisabledCache() {
+        final NetworkMessageCache cache = new NetworkMessageCache(4);
+        cache.setCapacity(0);
+        final byte[] pdu = randomPdu(20);
+        cache.add(pdu);
+        assertFalse(cache.contains(pdu));
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCapacityIsRejected() {
+        new NetworkMessageCache(-1);
+    }
+
+    private byte[] randomPdu(final int length) {
+        final byte[] pdu = new byte[length];
+        random.nextBytes(pdu);
+        pdu[0] = 0;
+        return pdu;
+    }
+}
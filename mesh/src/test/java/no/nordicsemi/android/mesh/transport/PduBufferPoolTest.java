@@ -0,0 +1,41 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class PduBufferPoolTest {
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        final PduBufferPool pool = new PduBufferPool(16, 1);
+        final byte[] buffer = pool.acquire(12);
+        assertEquals(16, buffer.length);
+        pool.release(buffer);
+        assertEquals(1, pool.getAvailableCount());
+        assertSame(buffer, pool.acquire(16));
+        assertEquals(0, pool.getAvailableCount());
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        final PduBufferPool pool = new PduBufferPool(16, 1);
+        final byte[] first = pool.acquire(16);
+        final byte[] second = pool.acquire(16);
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getAvailableCount());
+    }
+
+    @Test
+    public void testLargeBuffersAreNotPooled() {
+        final PduBufferPool pool = new PduBufferPool(16, 1);
+        final byte[] buffer = pool.acquire(17);
+        assertEquals(17, buffer.length);
+        pool.release(buffer);
+        assertEquals(0, pool.getAvailableCount());
+    }
+}
@@ -0,0 +1,39 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class PduSliceTest {
+
+    private final byte[] pdu = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+    @Test
+    public void testSliceSharesArray() {
+        final PduSlice slice = new PduSlice(pdu, 2, 6).slice(1);
+        assertSame(pdu, slice.array());
+        assertEquals(3, slice.offset());
+        assertEquals(5, slice.length());
+        assertEquals(3, slice.get(0));
+        assertArrayEquals(new byte[]{3, 4, 5, 6, 7}, slice.toByteArray());
+    }
+
+    @Test
+    public void testCopyTo() {
+        final byte[] destination = new byte[4];
+        PduSlice.wrap(pdu).slice(8, 2).copyTo(destination, 1);
+        assertArrayEquals(new byte[]{0, 8, 9, 0}, destination);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSliceOutOfBoundsIsRejected() {
+        new PduSlice(pdu, 2, 6).slice(4, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBoundsIsRejected() {
+        new PduSlice(pdu, 2, 6).get(6);
+    }
+}
@@ -0,0 +1,81 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReassemblyTableTest {
+
+    private static final long STALE_TIMEOUT = 10000;
+
+    private final List<ReassemblyTable.Entry> evicted = new ArrayList<>();
+
+    @Test
+    public void testMessagesFromMultipleSourcesAreReassembledIndependently() {
+        final ReassemblyTable table = new ReassemblyTable(4, STALE_TIMEOUT, evicted::add);
+        final ReassemblyTable.Entry first = table.start(0x0002, 0x0001, 100, 100, 1, 0);
+        final ReassemblyTable.Entry second = table.start(0x0003, 0x0001, 100, 100, 2, 0);
+
+        assertTrue(first.putSegment(1, PduSlice.wrap(new byte[]{1}), null));
+        assertTrue(second.putSegment(0, PduSlice.wrap(new byte[]{2}), null));
+        assertFalse(second.putSegment(0, PduSlice.wrap(new byte[]{2}), null));
+        assertTrue(first.putSegment(0, PduSlice.wrap(new byte[]{3}), null));
+
+        assertTrue(first.isComplete());
+        assertFalse(second.isComplete());
+        assertEquals(1, second.getReceivedCount());
+        assertSame(first, table.get(0x0002, 100));
+        assertSame(second, table.get(0x0003, 100));
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    public void testNewSeqAuthReplacesMessageFromSameSource() {
+        final ReassemblyTable table = new ReassemblyTable(4, STALE_TIMEOUT, evicted::add);
+        final ReassemblyTable.Entry first = table.start(0x0002, 0x0001, 100, 100, 1, 0);
+        final ReassemblyTable.Entry second = table.start(0x0002, 0x0001, 101, 101, 1, 0);
+
+        assertNull(table.get(0x0002, 100));
+        assertSame(second, table.get(0x0002, 101));
+        assertEquals(1, evicted.size());
+        assertSame(first, evicted.get(0));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        final ReassemblyTable table = new ReassemblyTable(2, STALE_TIMEOUT, evicted::add);
+        final ReassemblyTable.Entry first = table.start(0x0002, 0x0001, 100, 100, 1, 0);
+        final ReassemblyTable.Entry second = table.start(0x0003, 0x0001, 100, 100, 1, 0);
+        // Accessing the first entry makes the second the least recently used
+        assertNotNull(table.get(0x0002, 100));
+        table.start(0x0004, 0x0001, 100, 100, 1, 0);
+
+        assertEquals(2, table.size());
+        assertSame(first, table.get(0x0002, 100));
+        assertNull(table.get(0x0003, 100));
+        assertSame(second, evicted.get(0));
+    }
+
+    @Test
+    public void testStaleEntriesAreDropped() {
+        final ReassemblyTable table = new ReassemblyTable(4, STALE_TIMEOUT, evicted::add);
+        final ReassemblyTable.Entry stale = table.start(0x0002, 0x0001, 100, 100, 1, 0);
+        table.start(0x0003, 0x0001, 100, 100, 1, STALE_TIMEOUT);
+
+        assertEquals(1, table.size());
+        assertSame(stale, evicted.get(0));
+
+        final ReassemblyTable.Entry entry = table.get(0x0003, 100);
+        assertNotNull(entry);
+        table.remove(entry);
+        assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,160 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class ReplayProtectionListTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReplayedMessagesAreRejected() {
+        final ReplayProtectionList list = new ReplayProtectionList();
+        for (int src = 0x0100; src > 0; src -= 0x10) {
+            assertTrue(list.isValid(src, 5));
+            list.put(src, 5);
+        }
+        assertEquals(16, list.size());
+        assertFalse(list.isValid(0x0020, 5));
+        assertFalse(list.isValid(0x0020, 4));
+        assertTrue(list.isValid(0x0020, 6));
+        assertEquals(Long.valueOf(5), list.get(0x0020));
+        assertNull(list.get(0x0021));
+    }
+
+    @Test
+    public void testLeastRecentlyUpdatedSourceIsEvicted() {
+        final ReplayProtectionList list = new ReplayProtectionList();
+        list.setCapacity(2);
+        list.setEvictionPolicy(ReplayProtectionList.EvictionPolicy.EVICT_LEAST_RECENTLY_UPDATED);
+        list.put(0x0003, 1);
+        list.put(0x0001, 1);
+        list.put(0x0003, 2);
+        assertTrue(list.put(0x0002, 1));
+        assertEquals(2, list.size());
+        assertNull(list.get(0x0001));
+        assertEquals(Long.valueOf(2), list.get(0x0003));
+    }
+
+    @Test
+    public void testNewSourcesAreRejectedWhenFullByDefault() {
+        final ReplayProtectionList list = new ReplayProtectionList();
+        list.setCapacity(1);
+        assertTrue(list.put(0x0001, 1));
+        assertFalse(list.isValid(0x0002, 1));
+        assertFalse(list.put(0x0002, 1));
+        assertTrue(list.isValid(0x0001, 2));
+    }
+
+    @Test
+    public void testEntriesOlderThanPreviousIvIndexArePruned() {
+        final ReplayProtectionList list = new ReplayProtectionList();
+        list.put(0x0001, ReplayProtectionList.seqAuth(3, 10));
+        list.put(0x0002, ReplayProtectionList.seqAuth(4, 10));
+        list.put(0x0003, ReplayProtectionList.seqAuth(5, 10));
+        // An IV Index 256 updates later has the same 8 least significant bits
+        list.put(0x0004, ReplayProtectionList.seqAuth(0x104, 10));
+        assertEquals(2, list.prune(5));
+        assertNull(list.get(0x0001));
+        assertNull(list.get(0x0004));
+        assertEquals(2, list.size());
+    }
+
+    @Test
+    public void testSeqAuthIsOrderedByFullIvIndex() {
+        final ReplayProtectionList list = new ReplayProtectionList();
+        list.put(0x0001, ReplayProtectionList.seqAuth(0x7F, 0xFFFFFF));
+        assertTrue(list.isValid(0x0001, ReplayProtectionList.seqAuth(0x80, 0)));
+        list.put(0x0001, ReplayProtectionList.seqAuth(0xFF, 0xFFFFFF));
+        assertTrue(list.isValid(0x0001, ReplayProtectionList.seqAuth(0x100, 0)));
+        assertFalse(list.isValid(0x0001, ReplayProtectionList.seqAuth(0x00, 0xFFFFFF)));
+        list.put(0x0001, ReplayProtectionList.seqAuth(0xFFFFFFFF, 1));
+        assertFalse(list.isValid(0x0001, ReplayProtectionList.seqAuth(0x7FFFFFFF, 2)));
+        assertTrue(list.isValid(0x0001, ReplayProtectionList.seqAuth(0xFFFFFFFF, 2)));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testNodeReturnsTruncatedSeqAuthOfItsElements() {
+        final ReplayProtectionList list = new ReplayProtectionList();
+        final ProvisionedMeshNode node = new ProvisionedMeshNode();
+        node.setUnicastAddress(0x0002);
+        node.mElements.put(0x0002, new Element(0x0002, 0, new HashMap<>()));
+        list.put(0x0002, ReplayProtectionList.seqAuth(0x1234, 40));
+        list.put(0x0003, 50);
+        assertNull(node.getSeqAuth(0x0002));
+
+        node.replayProtectionList = list;
+        assertEquals(Integer.valueOf(0x34000028), node.getSeqAuth(0x0002));
+        assertNull(node.getSeqAuth(0x0003));
+    }
+
+    @Test
+    public void testEntriesAreRestoredFromLog() throws Exception {
+        final File file = new File(folder.getRoot(), "rpl/network.log");
+        final ReplayProtectionList list = new ReplayProtectionList();
+        list.attach(new ReplayProtectionLog(file, executor));
+        list.put(0x0004, ReplayProtectionList.seqAuth(0x1234, 40));
+        list.put(0x0001, 10);
+        list.put(0x0002, 20);
+        list.put(0x0001, 11);
+        list.remove(0x0002);
+        list.put(0x0003, 30);
+        final ReplayProtectionLog log = new ReplayProtectionLog(file, executor);
+        list.attach(log);
+        log.flush();
+
+        final ReplayProtectionList restored = new ReplayProtectionList();
+        restored.attach(new ReplayProtectionLog(file, executor));
+        assertEquals(3, restored.size());
+        assertEquals(Long.valueOf(ReplayProtectionList.seqAuth(0x1234, 40)), restored.get(0x0004));
+        assertEquals(Long.valueOf(11), restored.get(0x0001));
+        assertNull(restored.get(0x0002));
+        assertEquals(Long.valueOf(30), restored.get(0x0003));
+    }
+
+    @Test
+    public void testLogIsCompacted() throws Exception {
+        final File file = new File(folder.getRoot(), "network.log");
+        final ReplayProtectionLog log = new ReplayProtectionLog(file, executor);
+        final ReplayProtectionList list = new ReplayProtectionList();
+        list.attach(log);
+        final int updates = ReplayProtectionLog.MIN_COMPACTION_RECORDS * 2;
+        for (int i = 1; i <= updates; i++) {
+            list.put(0x0001 + (i & 1), i);
+        }
+        log.flush();
+        assertTrue(file.length() < (long) ReplayProtectionLog.MIN_COMPACTION_RECORDS * ReplayProtectionLog.RECORD_SIZE);
+
+        final ReplayProtectionList restored = new ReplayProtectionList();
+        restored.attach(new ReplayProtectionLog(file, executor));
+        assertEquals(Long.valueOf(updates), restored.get(0x0001));
+        assertEquals(Long.valueOf(updates - 1), restored.get(0x0002));
+    }
+}
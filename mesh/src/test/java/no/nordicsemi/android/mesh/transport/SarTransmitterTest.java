@@ -0,0 +1,232 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.ApplicationKeyTable;
+import no.nordicsemi.android.mesh.FakeMeshScheduler;
+import no.nordicsemi.android.mesh.NetworkKey;
+import no.nordicsemi.android.mesh.Provisioner;
+import no.nordicsemi.android.mesh.utils.MeshParserUtils;
+import no.nordicsemi.android.mesh.utils.SarTransmitterSettings;
+
+public class SarTransmitterTest {
+
+    private static final int SRC = 0x0001;
+    private static final int DST = 0x0002;
+    private static final int GROUP = 0xC000;
+    private static final int SEQ_ZERO = 0x0123;
+    private static final int SEGMENTS = 3;
+
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private Context context;
+
+    private final List<byte[]> sent = new ArrayList<>();
+    private final List<Integer> failed = new ArrayList<>();
+    private final NetworkKey networkKey = new NetworkKey(0, MeshParserUtils.toByteArray("7dd7364cd842ad18c17c2b820c84c3d6"));
+    private final ProvisionedMeshNode node = new ProvisionedMeshNode();
+    private MeshTransport transport;
+
+    private final FakeMeshScheduler scheduler = new FakeMeshScheduler();
+
+    private final SarTransmitter transmitter = new SarTransmitter(scheduler, new SarTransmitter.Callbacks() {
+        @Override
+        public void onSegmentSend(final int dst, @NonNull final byte[] pdu) {
+            sent.add(pdu);
+        }
+
+        @Override
+        public void onTransferFailed(final int dst) {
+            failed.add(dst);
+        }
+    });
+
+    @Before
+    public void setUp() {
+        node.setUnicastAddress(SRC);
+        node.setSequenceNumber(SEQ_ZERO);
+        transport = new MeshTransport(context, scheduler);
+        transport.setNetworkLayerCallbacks(new NetworkLayerCallbacks() {
+            @Override
+            public Provisioner getProvisioner() {
+                return null;
+            }
+
+            @Override
+            public Provisioner getProvisioner(final int unicastAddress) {
+                return null;
+            }
+
+            @Override
+            public NetworkKey getPrimaryNetworkKey() {
+                return networkKey;
+            }
+
+            @Override
+            public NetworkKey getNetworkKey(final int keyIndex) {
+                return networkKey;
+            }
+
+            @Override
+            public List<NetworkKey> getNetworkKeys() {
+                final List<NetworkKey> keys = new ArrayList<>();
+                keys.add(networkKey);
+                return keys;
+            }
+        });
+        transport.setUpperTransportLayerCallbacks(new UpperTransportLayerCallbacks() {
+            @Override
+            public ProvisionedMeshNode getNode(final int unicastAddress) {
+                return node;
+            }
+
+            @Override
+            public byte[] getIvIndex() {
+                return new byte[4];
+            }
+
+            @Override
+            public byte[] getApplicationKey(final int aid) {
+                return null;
+            }
+
+            @NonNull
+            @Override
+            public List<ApplicationKeyTable.Candidate> getApplicationKeyCandidates(final int aid) {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public UUID getVirtualLabel(final int address) {
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testSegmentsArePaced() {
+        transmitter.send(transport, createMessage(DST));
+        assertEquals(1, sent.size());
+        assertEquals(SarTransmitterSettings.DEFAULT.getSegmentInterval(), scheduler.getDelay(0));
+
+        scheduler.runNext();
+        scheduler.runNext();
+        assertEquals(SEGMENTS, sent.size());
+        // The unicast retransmissions timer is started once all segments have been sent
+        assertEquals(1, scheduler.getScheduledCount());
+        assertEquals(SarTransmitterSettings.DEFAULT.getUnicastRetransmissionsInterval(5), scheduler.getDelay(0));
+    }
+
+    @Test
+    public void testOnlyUnacknowledgedSegmentsAreRetransmitted() {
+        final Message message = createMessage(DST);
+        final byte[] segment = message.getNetworkLayerPdu().get(1);
+        transmitter.send(transport, message);
+        scheduler.runNext();
+        scheduler.runNext();
+        sent.clear();
+
+        transmitter.onSegmentAcknowledgement(DST, SEQ_ZERO, 0b101);
+        assertEquals(1, sent.size());
+        // Retransmitted segments are sent with a new sequence number
+        assertFalse(java.util.Arrays.equals(segment, sent.get(0)));
+
+        transmitter.onSegmentAcknowledgement(DST, SEQ_ZERO, 0b111);
+        assertTrue(scheduler.isIdle());
+        assertEquals(0, transmitter.getPendingCount(DST));
+        assertTrue(failed.isEmpty());
+    }
+
+    @Test
+    public void testAcknowledgementOfAnotherMessageIsIgnored() {
+        transmitter.send(transport, createMessage(DST));
+        transmitter.onSegmentAcknowledgement(DST, SEQ_ZERO + 1, 0b111);
+        assertEquals(1, transmitter.getPendingCount(DST));
+    }
+
+    @Test
+    public void testUnacknowledgedMessageFails() {
+        transmitter.send(transport, createMessage(DST));
+        scheduler.runAll();
+        // The message is retransmitted until the retransmissions without progress are exhausted
+        final int transmissions = 1 + Math.min(SarTransmitterSettings.DEFAULT.getUnicastRetransmissionsCount(),
+                SarTransmitterSettings.DEFAULT.getUnicastRetransmissionsWithoutProgressCount());
+        assertEquals(SEGMENTS * transmissions, sent.size());
+        assertEquals(1, failed.size());
+        assertEquals(DST, (int) failed.get(0));
+    }
+
+    @Test
+    public void testCancelledMessageFails() {
+        transmitter.send(transport, createMessage(DST));
+        transmitter.onSegmentAcknowledgement(DST, SEQ_ZERO, 0);
+        assertEquals(1, failed.size());
+        assertTrue(scheduler.isIdle());
+    }
+
+    @Test
+    public void testSegmentsToGroupAreRepeated() {
+        transmitter.send(transport, createMessage(GROUP));
+        scheduler.runAll();
+        assertEquals(SEGMENTS * (1 + SarTransmitterSettings.DEFAULT.getMulticastRetransmissionsCount()), sent.size());
+        assertTrue(failed.isEmpty());
+        assertEquals(0, transmitter.getPendingCount(GROUP));
+    }
+
+    @Test
+    public void testMessagesToTheSameDestinationAreQueued() {
+        final Message first = createMessage(DST);
+        final Message second = createMessage(DST);
+        transmitter.send(transport, first);
+        transmitter.send(transport, second);
+        scheduler.runNext();
+        scheduler.runNext();
+        assertEquals(SEGMENTS, sent.size());
+        assertEquals(2, transmitter.getPendingCount(DST));
+
+        transmitter.onSegmentAcknowledgement(DST, SEQ_ZERO, 0b111);
+        assertEquals(1, transmitter.getPendingCount(DST));
+        assertArrayEquals(second.getNetworkLayerPdu().get(0), sent.get(SEGMENTS));
+    }
+
+    private Message createMessage(final int dst) {
+        final AccessMessage message = new AccessMessage();
+        message.setSrc(SRC);
+        message.setDst(dst);
+        message.setTtl(5);
+        message.setIvIndex(new byte[4]);
+        message.setSequenceNumber(MeshParserUtils.getSequenceNumberBytes(SEQ_ZERO));
+        final SparseArray<byte[]> lowerTransportPdus = new SparseArray<>();
+        for (int segO = 0; segO < SEGMENTS; segO++) {
+            final byte[] pdu = new byte[16];
+            pdu[0] = (byte) 0x80;
+            pdu[1] = (byte) ((SEQ_ZERO >> 6) & 0x7F);
+            pdu[2] = (byte) (((SEQ_ZERO << 2) & 0xFC) | ((segO >> 3) & 0x03));
+            pdu[3] = (byte) (((segO << 5) & 0xE0) | ((SEGMENTS - 1) & 0x1F));
+            lowerTransportPdus.put(segO, pdu);
+        }
+        message.setLowerTransportAccessPdu(lowerTransportPdus);
+        return transport.createNetworkLayerPDU(message);
+    }
+}
@@ -0,0 +1,86 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+import no.nordicsemi.android.mesh.opcodes.ApplicationMessageOpCodes;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+
+public class StatusMessageRegistryTest {
+
+    // Vendor opcode 0xC1 of company 0x0059
+    private static final int VENDOR_OPCODE = 0xC15900;
+
+    private final StatusMessageRegistry registry = new StatusMessageRegistry();
+
+    @Test
+    public void testSigStatusMessagesAreRegistered() {
+        assertTrue(registry.isRegistered(ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_STATUS));
+        assertTrue(registry.isRegistered(ConfigMessageOpCodes.CONFIG_APPKEY_STATUS));
+        assertTrue(registry.isRegistered(ApplicationMessageOpCodes.GENERIC_ON_OFF_STATUS));
+        assertTrue(registry.isRegistered(ApplicationMessageOpCodes.TIME_ROLE_STATUS));
+        assertFalse(registry.isRegistered(ConfigMessageOpCodes.CONFIG_APPKEY_ADD));
+        assertFalse(registry.isRegistered(VENDOR_OPCODE));
+    }
+
+    @Test
+    public void testNodeResetDoesNotUpdateNetwork() {
+        final StatusMessageRegistry.Entry entry = registry.get(ConfigMessageOpCodes.CONFIG_NODE_RESET_STATUS);
+        assertNotNull(entry);
+        assertFalse(entry.updatesNetwork);
+        assertTrue(registry.get(ConfigMessageOpCodes.CONFIG_RELAY_STATUS).updatesNetwork);
+    }
+
+    @Test
+    public void testSceneRegisterStatusWithoutRequestIsIgnored() {
+        final StatusMessageRegistry.Entry entry = registry.get(ApplicationMessageOpCodes.SCENE_REGISTER_STATUS);
+        assertNotNull(entry);
+        assertNull(entry.factory.createStatusMessage(new AccessMessage(), null));
+    }
+
+    @Test
+    public void testVendorStatusMessageIsRegistered() {
+        final MeshMessage status = mock(MeshMessage.class);
+        registry.register(VENDOR_OPCODE, (message, request) -> status);
+        final StatusMessageRegistry.Entry entry = registry.get(VENDOR_OPCODE);
+        assertNotNull(entry);
+        assertSame(status, entry.factory.createStatusMessage(new AccessMessage(), null));
+        assertNull(entry.stateUpdater);
+        assertFalse(entry.updatesNetwork);
+
+        registry.unregister(VENDOR_OPCODE);
+        assertFalse(registry.isRegistered(VENDOR_OPCODE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testVendorStatusMessageUpdatesNodeState() {
+        final MeshMessage status = mock(MeshMessage.class);
+        final ProvisionedMeshNode node = new ProvisionedMeshNode();
+        final StatusMessageRegistry.NodeStateUpdater<MeshMessage> stateUpdater = mock(StatusMessageRegistry.NodeStateUpdater.class);
+        registry.register(VENDOR_OPCODE, (message, request) -> status, stateUpdater);
+        final StatusMessageRegistry.Entry entry = registry.get(VENDOR_OPCODE);
+        assertNotNull(entry);
+        assertTrue(entry.updatesNetwork);
+
+        entry.stateUpdater.onStatusReceived(mock(DefaultNoOperationMessageState.class), node, new AccessMessage(), status);
+        verify(stateUpdater).onStatusReceived(node, null, status);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSigStatusMessageIsNotRemoved() {
+        registry.unregister(ApplicationMessageOpCodes.GENERIC_ON_OFF_STATUS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisteredOpCodeIsNotReplaced() {
+        registry.register(ApplicationMessageOpCodes.GENERIC_ON_OFF_STATUS, (message, request) -> null);
+    }
+}
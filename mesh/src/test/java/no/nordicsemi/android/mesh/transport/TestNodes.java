@@ -0,0 +1,86 @@
+package no.nordicsemi.android.mesh.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import no.nordicsemi.android.mesh.NodeKey;
+
+/**
+ * Creates the {@link ProvisionedMeshNode} instances used by the tests.
+ */
+public final class TestNodes {
+
+    private TestNodes() {
+    }
+
+    /**
+     * Creates a node without elements.
+     *
+     * @param unicastAddress Unicast address of the node
+     */
+    public static ProvisionedMeshNode createNode(final int unicastAddress) {
+        return createNode(UUID.randomUUID().toString(), unicastAddress, 0);
+    }
+
+    /**
+     * Creates a node with the given number of elements, none of which contains a model.
+     *
+     * @param uuid           UUID of the node
+     * @param unicastAddress Unicast address of the primary element
+     * @param elementCount   Number of elements
+     */
+    public static ProvisionedMeshNode createNode(final String uuid, final int unicastAddress, final int elementCount) {
+        final ProvisionedMeshNode node = new ProvisionedMeshNode();
+        node.setUuid(uuid);
+        node.setUnicastAddress(unicastAddress);
+        node.setElements(createElements(unicastAddress, elementCount));
+        return node;
+    }
+
+    /**
+     * Creates consecutive elements without models.
+     *
+     * @param unicastAddress Address of the first element
+     * @param elementCount   Number of elements
+     */
+    public static Map<Integer, Element> createElements(final int unicastAddress, final int elementCount) {
+        final Map<Integer, Element> elements = new LinkedHashMap<>();
+        for (int i = 0; i < elementCount; i++) {
+            elements.put(unicastAddress + i, new Element(unicastAddress + i, 0, new LinkedHashMap<>()));
+        }
+        return elements;
+    }
+
+    /**
+     * Creates a node with a single element containing the given models.
+     *
+     * @param unicastAddress Unicast address of the element
+     * @param meshModels     Models of the element
+     * @param netKeyIndexes  Indexes of the network keys added to the node
+     * @param appKeyIndexes  Indexes of the application keys added to the node
+     */
+    public static ProvisionedMeshNode createNode(final int unicastAddress, final List<MeshModel> meshModels,
+                                                 final List<Integer> netKeyIndexes, final List<Integer> appKeyIndexes) {
+        final ProvisionedMeshNode node = createNode(unicastAddress);
+        final Map<Integer, MeshModel> models = new LinkedHashMap<>();
+        for (MeshModel model : meshModels) {
+            models.put(model.getModelId(), model);
+        }
+        node.setElements(Collections.singletonMap(unicastAddress, new Element(unicastAddress, 0, models)));
+        node.setAddedNetKeys(createNodeKeys(netKeyIndexes));
+        node.setAddedAppKeys(createNodeKeys(appKeyIndexes));
+        return node;
+    }
+
+    private static List<NodeKey> createNodeKeys(final List<Integer> keyIndexes) {
+        final List<NodeKey> nodeKeys = new ArrayList<>();
+        for (int keyIndex : keyIndexes) {
+            nodeKeys.add(new NodeKey(keyIndex));
+        }
+        return nodeKeys;
+    }
+}
@@ -0,0 +1,145 @@
+package no.nordicsemi.android.mesh.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import no.nordicsemi.android.mesh.FakeMeshScheduler;
+import no.nordicsemi.android.mesh.opcodes.ConfigMessageOpCodes;
+
+public class TransactionSchedulerTest {
+
+    private static final int SRC = 0x0001;
+    private static final int DST = 0x0002;
+
+    private final List<TransactionScheduler.Transaction> sent = new ArrayList<>();
+    private final List<TransactionScheduler.Transaction> failed = new ArrayList<>();
+    private final FakeMeshScheduler scheduler = new FakeMeshScheduler();
+    private Runnable onSend;
+
+    private final TransactionScheduler transactions = new TransactionScheduler(scheduler, new TransactionScheduler.Callbacks() {
+        @Override
+        public void onSendTransaction(@NonNull final TransactionScheduler.Transaction transaction) {
+            sent.add(transaction);
+            if (onSend != null) {
+                final Runnable action = onSend;
+                onSend = null;
+                action.run();
+            }
+        }
+
+        @Override
+        public void onTransactionTimedOut(@NonNull final TransactionScheduler.Transaction transaction) {
+            failed.add(transaction);
+        }
+    });
+
+    @Test
+    public void testMessagesAreSentRightAwayAndFailedWithoutRetransmissionByDefault() {
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, new ConfigCompositionDataGet()));
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, new ConfigDefaultTtlGet()));
+        assertEquals(2, sent.size());
+        assertEquals(0, transactions.getQueueDepth(DST));
+        assertEquals(TransactionScheduler.DEFAULT_TIMEOUT_MS, scheduler.getDelay(0));
+
+        // Unanswered messages are still reported as failed
+        scheduler.runNext();
+        scheduler.runNext();
+        assertEquals(2, sent.size());
+        assertEquals(2, failed.size());
+        assertFalse(transactions.isAwaitingResponse(DST));
+        assertEquals(0, transactions.getMetrics().getRetransmissionCount());
+    }
+
+    @Test
+    public void testMessagesToTheSameNodeAreQueued() {
+        transactions.setMaxInFlight(1);
+        final ConfigCompositionDataGet first = new ConfigCompositionDataGet();
+        final ConfigDefaultTtlGet second = new ConfigDefaultTtlGet();
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, first));
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, second));
+
+        assertEquals(1, sent.size());
+        assertEquals(1, transactions.getQueueDepth(DST));
+        assertEquals(1, transactions.getMetrics().getInFlightCount());
+
+        // A status of another node or with another opcode does not complete the transaction
+        assertNull(transactions.onResponseReceived(0x0003, ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_STATUS));
+        assertNull(transactions.onResponseReceived(DST, ConfigMessageOpCodes.CONFIG_DEFAULT_TTL_STATUS));
+        assertEquals(1, sent.size());
+
+        assertSame(first, transactions.onResponseReceived(DST, ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_STATUS));
+        assertEquals(2, sent.size());
+        assertSame(second, sent.get(1).meshMessage);
+        assertEquals(0, transactions.getQueueDepth(DST));
+        assertEquals(1, transactions.getMetrics().getCompletedCount());
+    }
+
+    @Test
+    public void testResponsesAreMatchedWhenPipelined() {
+        transactions.setMaxInFlight(2);
+        final ConfigCompositionDataGet first = new ConfigCompositionDataGet();
+        final ConfigDefaultTtlGet second = new ConfigDefaultTtlGet();
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, first));
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, second));
+        assertEquals(2, sent.size());
+
+        assertSame(second, transactions.onResponseReceived(DST, ConfigMessageOpCodes.CONFIG_DEFAULT_TTL_STATUS));
+        assertSame(first, transactions.onResponseReceived(DST, ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_STATUS));
+        assertEquals(0, transactions.getMetrics().getInFlightCount());
+    }
+
+    @Test
+    public void testUnansweredMessagesAreRetransmittedAndFailed() {
+        transactions.setMaxInFlight(1);
+        transactions.setRetransmission(2, 1000);
+        final ConfigCompositionDataGet message = new ConfigCompositionDataGet();
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, message));
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, new ConfigDefaultTtlGet()));
+
+        scheduler.runNext();
+        scheduler.runNext();
+        assertEquals(3, sent.size());
+        assertEquals(1, scheduler.getScheduledCount());
+        assertEquals(4000, scheduler.getDelay(0));
+
+        scheduler.runNext();
+        assertEquals(1, failed.size());
+        assertSame(message, failed.get(0).meshMessage);
+        // The next message is sent once the failed transaction has been removed
+        assertEquals(4, sent.size());
+        assertEquals(2, transactions.getMetrics().getRetransmissionCount());
+        assertEquals(1, transactions.getMetrics().getFailedCount());
+    }
+
+    @Test
+    public void testCallbacksMaySubmitTransactions() {
+        transactions.setMaxInFlight(1);
+        final ConfigDefaultTtlGet second = new ConfigDefaultTtlGet();
+        onSend = () -> transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, second));
+        transactions.submit(new TransactionScheduler.Transaction(SRC, DST, null, new ConfigCompositionDataGet()));
+        assertEquals(1, sent.size());
+        assertEquals(1, transactions.getQueueDepth(DST));
+
+        transactions.onResponseReceived(DST, ConfigMessageOpCodes.CONFIG_COMPOSITION_DATA_STATUS);
+        assertEquals(2, sent.size());
+        assertSame(second, sent.get(1).meshMessage);
+    }
+
+    @Test
+    public void testGroupMessagesAreNotAwaited() {
+        transactions.submit(new TransactionScheduler.Transaction(SRC, 0xC000, null, new ConfigCompositionDataGet()));
+        transactions.submit(new TransactionScheduler.Transaction(SRC, 0xC000, null, new ConfigCompositionDataGet()));
+        assertEquals(2, sent.size());
+        assertEquals(0, scheduler.getScheduledCount());
+        assertEquals(0, transactions.getMetrics().getInFlightCount());
+    }
+}
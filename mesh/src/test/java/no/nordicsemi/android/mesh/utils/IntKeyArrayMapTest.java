@@ -0,0 +1,55 @@
+package no.nordicsemi.android.mesh.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class IntKeyArrayMapTest {
+
+    @Test
+    public void testMapBehavesLikeLinkedHashMap() {
+        final Map<Integer, String> expected = new LinkedHashMap<>();
+        final IntKeyArrayMap<String> map = new IntKeyArrayMap<>();
+        for (int key : new int[]{0x1000, 0x0002, 0x0003, 0x1000, 0x59000001, 0x0004}) {
+            assertEquals(expected.put(key, "value" + key), map.put(key, "value" + key));
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertArrayEquals(expected.keySet().toArray(), map.keySet().toArray());
+        assertEquals("value1493172225", map.get(0x59000001));
+        assertTrue(map.containsKey(0x0002));
+        assertFalse(map.containsKey("2"));
+
+        assertEquals(expected.remove(0x0002), map.remove(0x0002));
+        assertNull(map.remove(0x0002));
+        assertArrayEquals(expected.values().toArray(), map.values().toArray());
+    }
+
+    @Test
+    public void testEntriesCanBeRemovedWhileIterating() {
+        final IntKeyArrayMap<String> map = new IntKeyArrayMap<>();
+        for (int key = 1; key <= 5; key++) {
+            map.put(key, String.valueOf(key));
+        }
+        final Iterator<Map.Entry<Integer, String>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue("odd");
+            }
+        }
+        assertArrayEquals(new Object[]{1, 3, 5}, map.keySet().toArray());
+        assertEquals("odd", map.get(3));
+        assertEquals(new IntKeyArrayMap<>(map), map);
+    }
+}
@@ -0,0 +1,190 @@
+package no.nordicsemi.android.mesh.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.spongycastle.crypto.InvalidCipherTextException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MeshCipherTest {
+
+    private final Random random = new Random(0x1234);
+
+    @Test
+    public void testCcmMatchesReferenceImplementation() throws Exception {
+        final byte[] key = randomBytes(16);
+        final MeshCipher cipher = new MeshCipher(key);
+        for (int length = 0; length <= 40; length++) {
+            for (int micSize = 4; micSize <= 8; micSize += 4) {
+                final byte[] data = randomBytes(length);
+                final byte[] nonce = randomBytes(13);
+                final byte[] expected = SecureUtils.encryptCCM(data, key, nonce, micSize);
+                final byte[] encrypted = cipher.encryptCCM(data, nonce, null, micSize);
+                assertArrayEquals(expected, encrypted);
+                assertArrayEquals(data, cipher.decryptCCM(encrypted, nonce, null, micSize));
+            }
+        }
+    }
+
+    @Test
+    public void testCcmWithAdditionalDataMatchesReferenceImplementation() throws Exception {
+        final byte[] key = randomBytes(16);
+        final MeshCipher cipher = new MeshCipher(key);
+        final byte[] label = randomBytes(16);
+        for (int length = 1; length <= 40; length++) {
+            final byte[] data = randomBytes(length);
+            final byte[] nonce = randomBytes(13);
+            final byte[] expected = SecureUtils.encryptCCM(data, key, nonce, label, 4);
+            final byte[] encrypted = cipher.encryptCCM(data, nonce, label, 4);
+            assertArrayEquals(expected, encrypted);
+            assertArrayEquals(data, cipher.decryptCCM(encrypted, nonce, label, 4));
+        }
+    }
+
+    @Test
+    public void testRandomizedInputsMatchReferenceImplementation() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            final byte[] key = randomBytes(16);
+            final MeshCipher cipher = new MeshCipher(key);
+            final byte[] data = randomBytes(random.nextInt(65));
+            final byte[] nonce = randomBytes(13);
+            final int micSize = random.nextBoolean() ? 4 : 8;
+            final byte[] label = random.nextBoolean() ? randomBytes(16) : null;
+            final byte[] expected = label == null ?
+                    SecureUtils.encryptCCM(data, key, nonce, micSize) :
+                    SecureUtils.encryptCCM(data, key, nonce, label, micSize);
+            final byte[] encrypted = cipher.encryptCCM(data, nonce, label, micSize);
+            assertArrayEquals(expected, encrypted);
+            assertArrayEquals(data, cipher.decryptCCM(expected, nonce, label, micSize));
+            assertArrayEquals(data, label == null ?
+                    SecureUtils.decryptCCM(encrypted, key, nonce, micSize) :
+                    SecureUtils.decryptCCM(encrypted, key, nonce, label, micSize));
+
+            final byte[] message = randomBytes(random.nextInt(65));
+            assertArrayEquals(SecureUtils.calculateCMAC(message, key), cipher.calculateCMAC(message));
+        }
+    }
+
+    @Test
+    public void testCcmMatchesRfc3610PacketVectors() throws Exception {
+        // RFC 3610, packet vectors #1 and #2
+        final MeshCipher cipher = new MeshCipher(MeshParserUtils.toByteArray("C0C1C2C3C4C5C6C7C8C9CACBCCCDCECF"));
+        final byte[] header = MeshParserUtils.toByteArray("0001020304050607");
+
+        final byte[] nonce1 = MeshParserUtils.toByteArray("00000003020100A0A1A2A3A4A5");
+        final byte[] data1 = MeshParserUtils.toByteArray("08090A0B0C0D0E0F101112131415161718191A1B1C1D1E");
+        final byte[] expected1 = MeshParserUtils.toByteArray("588C979A61C663D2F066D0C2C0F989806D5F6B61DAC38417E8D12CFDF926E0");
+        assertArrayEquals(expected1, cipher.encryptCCM(data1, nonce1, header, 8));
+        assertArrayEquals(data1, cipher.decryptCCM(expected1, nonce1, header, 8));
+
+        final byte[] nonce2 = MeshParserUtils.toByteArray("00000004030201A0A1A2A3A4A5");
+        final byte[] data2 = MeshParserUtils.toByteArray("08090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F");
+        final byte[] expected2 = MeshParserUtils.toByteArray("72C91A36E135F8CF291CA894085C87E3CC15C439C9E43A3BA091D56E10400916");
+        assertArrayEquals(expected2, cipher.encryptCCM(data2, nonce2, header, 8));
+        assertArrayEquals(data2, cipher.decryptCCM(expected2, nonce2, header, 8));
+    }
+
+    @Test
+    public void testCcmMatchesMeshSampleData() throws Exception {
+        // Mesh profile specification 8.3.6, message #6 encrypted with the device key
+        final MeshCipher cipher = new MeshCipher(MeshParserUtils.toByteArray("9D6DD0E96EB25DC19A40ED9914F8F03F"));
+        final byte[] nonce = MeshParserUtils.toByteArray("02000000061201000312345678");
+        final byte[] accessPdu = MeshParserUtils.toByteArray("800300563412");
+        final byte[] expected = MeshParserUtils.toByteArray("89511BF1D1A81C11DCEF");
+        assertArrayEquals(expected, cipher.encryptCCM(accessPdu, nonce, null, 4));
+        assertArrayEquals(accessPdu, cipher.decryptCCM(expected, nonce, null, 4));
+    }
+
+    @Test
+    public void testCmacMatchesRfc4493AndMeshSampleData() {
+        // RFC 4493, examples 1 and 2
+        final MeshCipher cipher = new MeshCipher(MeshParserUtils.toByteArray("2B7E151628AED2A6ABF7158809CF4F3C"));
+        assertArrayEquals(MeshParserUtils.toByteArray("BB1D6929E95937287FA37D129B756746"), cipher.calculateCMAC(new byte[0]));
+        assertArrayEquals(MeshParserUtils.toByteArray("070A16B46B4D4144F79BDD9DD04A287C"),
+                cipher.calculateCMAC(MeshParserUtils.toByteArray("6BC1BEE22E409F96E93D7E117393172A")));
+
+        // Mesh profile specification 8.1.1, s1("test") is the CMAC with a zero key
+        assertArrayEquals(MeshParserUtils.toByteArray("B73CEFBD641EF2EA598C2B6EFB62F79C"),
+                new MeshCipher(new byte[16]).calculateCMAC("test".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testCcmRejectsTamperedData() {
+        final MeshCipher cipher = new MeshCipher(randomBytes(16));
+        final byte[] nonce = randomBytes(13);
+        final byte[] encrypted = cipher.encryptCCM(randomBytes(12), nonce, null, 4);
+        encrypted[3] ^= 0x01;
+        try {
+            cipher.decryptCCM(encrypted, nonce, null, 4);
+            fail("Tampered data must not be decrypted");
+        } catch (InvalidCipherTextException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testTryDecryptReturnsStatusInsteadOfThrowing() {
+        final MeshCipher cipher = new MeshCipher(randomBytes(16));
+        final byte[] data = randomBytes(12);
+        final byte[] nonce = randomBytes(13);
+        final byte[] encrypted = cipher.encryptCCM(data, nonce, null, 4);
+        final byte[] output = new byte[data.length];
+        assertEquals(data.length, cipher.tryDecryptCCM(encrypted, 0, encrypted.length, nonce, null, 4, output, 0));
+        assertArrayEquals(data, output);
+        assertArrayEquals(data, cipher.tryDecryptCCM(encrypted, 0, encrypted.length, nonce, null, 4));
+
+        encrypted[encrypted.length - 1] ^= 0x01;
+        assertEquals(MeshCipher.DECRYPTION_FAILED, cipher.tryDecryptCCM(encrypted, 0, encrypted.length, nonce, null, 4, output, 0));
+        assertNull(cipher.tryDecryptCCM(encrypted, 0, encrypted.length, nonce, null, 4));
+        assertEquals(MeshCipher.DECRYPTION_FAILED, cipher.tryDecryptCCM(encrypted, 0, 3, nonce, null, 4, output, 0));
+    }
+
+    @Test
+    public void testCcmDecryptsRangeOfArray() throws Exception {
+        final MeshCipher cipher = new MeshCipher(randomBytes(16));
+        final byte[] data = randomBytes(20);
+        final byte[] nonce = randomBytes(13);
+        final byte[] encrypted = cipher.encryptCCM(data, nonce, null, 8);
+        final byte[] pdu = new byte[3 + encrypted.length + 2];
+        System.arraycopy(encrypted, 0, pdu, 3, encrypted.length);
+        assertArrayEquals(data, cipher.decryptCCM(pdu, 3, encrypted.length, nonce, null, 8));
+
+        final byte[] output = new byte[5 + data.length];
+        assertEquals(data.length, cipher.decryptCCM(pdu, 3, encrypted.length, nonce, null, 8, output, 5));
+        assertArrayEquals(data, Arrays.copyOfRange(output, 5, output.length));
+    }
+
+    @Test
+    public void testEcbAndCmacMatchReferenceImplementation() {
+        final byte[] key = randomBytes(16);
+        final MeshCipher cipher = new MeshCipher(key);
+        final byte[] block = randomBytes(16);
+        assertArrayEquals(SecureUtils.encryptWithAES(block, key), cipher.encrypt(block));
+        for (int length = 0; length <= 48; length++) {
+            final byte[] data = randomBytes(length);
+            assertArrayEquals(SecureUtils.calculateCMAC(data, key), cipher.calculateCMAC(data));
+        }
+    }
+
+    @Test
+    public void testCipherIsHeldByKeyDerivatives() {
+        final SecureUtils.K2Output k2Output = SecureUtils.calculateK2(randomBytes(16), SecureUtils.K2_MASTER_INPUT);
+        assertSame(k2Output.getEncryptionCipher(), k2Output.getEncryptionCipher());
+        assertSame(k2Output.getPrivacyCipher(), k2Output.getPrivacyCipher());
+        final byte[] block = randomBytes(16);
+        assertArrayEquals(SecureUtils.encryptWithAES(block, k2Output.getPrivacyKey()), k2Output.getPrivacyCipher().encrypt(block));
+    }
+
+    private byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
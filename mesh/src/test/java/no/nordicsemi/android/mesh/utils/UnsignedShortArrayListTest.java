@@ -0,0 +1,39 @@
+package no.nordicsemi.android.mesh.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class UnsignedShortArrayListTest {
+
+    @Test
+    public void testListBehavesLikeArrayList() {
+        final List<Integer> expected = new ArrayList<>(Arrays.asList(0xC000, 0x0001, 0xFFFF, 0x8123));
+        final UnsignedShortArrayList list = new UnsignedShortArrayList(expected);
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(0xFFFF, list.getInt(2));
+        assertEquals(3, list.indexOf(0x8123));
+        assertFalse(list.contains(0x1FFFF));
+
+        expected.remove(Integer.valueOf(0x0001));
+        assertTrue(list.remove(Integer.valueOf(0x0001)));
+        expected.add(1, 0x0005);
+        list.add(1, 0x0005);
+        expected.remove(0);
+        list.remove(0);
+        assertEquals(expected, list);
+        assertEquals(expected.toString(), list.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValuesMustFitInSixteenBits() {
+        new UnsignedShortArrayList().add(0x10000);
+    }
+}